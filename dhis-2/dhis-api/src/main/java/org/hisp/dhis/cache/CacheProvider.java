@@ -45,10 +45,14 @@ public interface CacheProvider {
 
   <V> Cache<V> createAnalyticsCache();
 
+  <V> Cache<V> createAnalyticsSubQueryCache();
+
   <V> Cache<V> createDefaultObjectCache();
 
   <V> Cache<V> createIsDataApprovedCache();
 
+  <V> Cache<V> createDataApprovalStatusCache();
+
   <V> Cache<V> createAllConstantsCache();
 
   <V> Cache<V> createInUserOrgUnitHierarchyCache();
@@ -77,6 +81,8 @@ public interface CacheProvider {
 
   <V> Cache<V> createAttrOptionComboIdCache();
 
+  <V> Cache<V> createCategoryOptionComboIndexCache();
+
   <V> Cache<V> createSystemSettingCache();
 
   <V> Cache<V> createGoogleAccessTokenCache();
@@ -97,6 +103,8 @@ public interface CacheProvider {
 
   <V> Cache<V> createProgramRuleVariablesCache();
 
+  <V> Cache<V> createCompiledProgramRuleSetCache();
+
   <V> Cache<V> createUserGroupNameCache();
 
   <V> Cache<V> createUserDisplayNameCache();
@@ -131,4 +139,6 @@ public interface CacheProvider {
   <V> Cache<V> createDataIntegritySummaryCache();
 
   <V> Cache<V> createDataIntegrityDetailsCache();
+
+  <V> Cache<V> createTrackedEntitySearchTableCache();
 }
@@ -38,5 +38,11 @@ import lombok.Setter;
 public class PerformanceMetrics implements Serializable {
   @JsonProperty private double totalTimeInMillis;
 
+  /** Time the SQL queries waited for an analytics query thread. */
+  @JsonProperty private double queueTimeInMillis;
+
+  /** Time the SQL queries executed, including fetching results. */
+  @JsonProperty private double sqlTimeInMillis;
+
   @JsonProperty private List<ExecutionPlan> executionPlans;
 }
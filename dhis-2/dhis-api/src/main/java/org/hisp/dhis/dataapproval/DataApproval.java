@@ -188,15 +188,29 @@ public class DataApproval implements Serializable {
   }
 
   public String getCacheKey() {
-    return dataApprovalLevel.getUid()
+    return getCacheKey(
+        dataApprovalLevel.getUid(),
+        workflow.getUid(),
+        period.getUid(),
+        organisationUnit.getUid(),
+        attributeOptionCombo.getUid());
+  }
+
+  public static String getCacheKey(
+      String dataApprovalLevelUid,
+      String workflowUid,
+      String periodUid,
+      String organisationUnitUid,
+      String attributeOptionComboUid) {
+    return dataApprovalLevelUid
         + "-"
-        + workflow.getUid()
+        + workflowUid
         + "-"
-        + period.getUid()
+        + periodUid
         + "-"
-        + organisationUnit.getUid()
+        + organisationUnitUid
         + "-"
-        + attributeOptionCombo.getUid();
+        + attributeOptionComboUid;
   }
 
   // -------------------------------------------------------------------------
@@ -30,6 +30,7 @@ package org.hisp.dhis.dataapproval;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Predicate;
 import org.hisp.dhis.category.CategoryCombo;
 import org.hisp.dhis.category.CategoryOptionCombo;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
@@ -152,6 +153,20 @@ public interface DataApprovalService {
       OrganisationUnit organisationUnit,
       CategoryOptionCombo attributeOptionCombo);
 
+  /**
+   * Tells whether data is approved like {@link #isApproved(DataApprovalWorkflow, Period,
+   * OrganisationUnit, CategoryOptionCombo)} for many organisation units. The approvals of the
+   * workflow, period and attribute option combo are fetched once, so that testing an organisation
+   * unit does not query the database.
+   *
+   * @param workflow workflow to check for approval.
+   * @param period Period to check for approval.
+   * @param attributeOptionCombo CategoryOptionCombo (if any) for approval.
+   * @return predicate which is true for organisation units whose data is approved.
+   */
+  Predicate<OrganisationUnit> getIsApprovedPredicate(
+      DataApprovalWorkflow workflow, Period period, CategoryOptionCombo attributeOptionCombo);
+
   /**
    * Returns a map showing each data approval status for a list of data approval objects.
    *
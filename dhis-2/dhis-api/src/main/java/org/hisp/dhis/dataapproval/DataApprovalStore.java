@@ -110,6 +110,19 @@ public interface DataApprovalStore {
    */
   boolean dataApprovalExists(DataApproval dataApproval);
 
+  /**
+   * Returns the keys of all persisted data approvals of any level and organisation unit for the
+   * given workflow, period and attribute option combo, so that many organisation units can be
+   * checked with a single query.
+   *
+   * @param workflow the workflow of the approvals.
+   * @param period the period of the approvals.
+   * @param attributeOptionCombo the attribute option combo of the approvals.
+   * @return the keys of the data approvals, see {@link DataApproval#getCacheKey()}.
+   */
+  Set<String> getDataApprovalKeys(
+      DataApprovalWorkflow workflow, Period period, CategoryOptionCombo attributeOptionCombo);
+
   /**
    * Returns DataApproval objects (if any) for given collections of approval level, workflow,
    * period, organisation unit, and attribute option combo.
@@ -162,4 +175,32 @@ public interface DataApprovalStore {
       Set<CategoryOptionCombo> attributeOptionCombos,
       List<DataApprovalLevel> userApprovalLevels,
       Map<Integer, DataApprovalLevel> levelMap);
+
+  /**
+   * Returns data approval statuses like {@link #getDataApprovalStatuses}, but may return statuses
+   * computed and cached by an earlier call. Statuses are cached per user and the user's
+   * organisation units, user groups, dimension constraints and approval levels. The cache is
+   * invalidated when approvals, approval levels, workflows or category options change. When Redis
+   * is enabled the cache is shared by all servers of a cluster. Otherwise each server has its own
+   * cache, which may be stale for up to 5 minutes after changes made on another server. Statuses
+   * must therefore only be used for display and never to decide on approval state changes.
+   *
+   * @return data approval status objects
+   */
+  List<DataApprovalStatus> getCachedDataApprovalStatuses(
+      DataApprovalWorkflow workflow,
+      Period period,
+      Collection<OrganisationUnit> orgUnits,
+      int orgUnitLevel,
+      OrganisationUnit orgUnitFilter,
+      CategoryCombo attributeCombo,
+      Set<CategoryOptionCombo> attributeOptionCombos,
+      List<DataApprovalLevel> userApprovalLevels,
+      Map<Integer, DataApprovalLevel> levelMap);
+
+  /**
+   * Invalidates the cached data approval statuses, see {@link #getCachedDataApprovalStatuses}. Used
+   * when metadata the statuses are based on changes.
+   */
+  void invalidateCachedDataApprovalStatuses();
 }
@@ -60,4 +60,7 @@ public class TargetRequest implements Serializable {
 
   /** Indicates whether to do a dry run. */
   @JsonProperty private Boolean dryRun;
+
+  /** Indicates whether to only exchange data values which changed since the last exchange. */
+  @JsonProperty private Boolean incremental;
 }
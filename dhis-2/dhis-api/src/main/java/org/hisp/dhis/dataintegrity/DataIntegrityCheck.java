@@ -31,6 +31,7 @@ import static java.util.stream.Collectors.joining;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.io.Serializable;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
@@ -74,6 +75,12 @@ public final class DataIntegrityCheck implements Serializable {
 
   @JsonProperty private final boolean isSlow;
 
+  /**
+   * True if the result of the check depends on the current time, e.g. checks for periods in the
+   * future. Results of such checks are never reused as they might change without any table change.
+   */
+  @JsonProperty private final boolean isTimeDependent;
+
   @JsonProperty
   public String getCode() {
     return getCodeFromName(name);
@@ -83,6 +90,19 @@ public final class DataIntegrityCheck implements Serializable {
 
   private final transient Function<DataIntegrityCheck, DataIntegrityDetails> runDetailsCheck;
 
+  /**
+   * Names of database tables the check might read from, used to detect if a previous result is
+   * still valid. This can include names which are not tables. It is null for checks which are not
+   * SQL based.
+   */
+  private final transient Set<String> sourceTables;
+
+  /**
+   * Digest of the SQL of the check, stored with its results so that results computed by a previous
+   * version of the check are not reused. It is null for checks which are not SQL based.
+   */
+  private final transient String sqlDigest;
+
   /**
    * Method that takes in a name of a {@link DataIntegrityCheck} and converts it to an acronym of
    * its name using the first letter from each word e.g. my_data_integrity_check -> MDIC
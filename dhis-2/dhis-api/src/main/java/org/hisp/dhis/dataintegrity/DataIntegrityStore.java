@@ -27,6 +27,8 @@
  */
 package org.hisp.dhis.dataintegrity;
 
+import java.util.Set;
+
 /**
  * Database support for running data integrity checks.
  *
@@ -52,4 +54,45 @@ public interface DataIntegrityStore {
    * @return the mapped details
    */
   DataIntegrityDetails queryDetails(DataIntegrityCheck check, String sql);
+
+  /**
+   * Computes a marker that changes whenever rows in any of the given tables are inserted, updated
+   * or deleted.
+   *
+   * @param tables names of tables, names which are not tables are ignored
+   * @return the change marker, or null if changes cannot be tracked
+   */
+  String getTableChangeMarker(Set<String> tables);
+
+  /**
+   * Stores a summary along with the marker it was computed at, replacing any summary previously
+   * stored for the same check.
+   *
+   * @param summary the summary to store
+   * @param changeMarker the marker of the tables the check read from
+   */
+  void saveSummary(DataIntegritySummary summary, String changeMarker);
+
+  /**
+   * @param check the check to get the stored summary for
+   * @param changeMarker the current marker of the tables the check reads from
+   * @return the stored summary, or null if none was stored at the given marker
+   */
+  DataIntegritySummary getSummary(DataIntegrityCheck check, String changeMarker);
+
+  /**
+   * Stores details along with the marker they were computed at, replacing any details previously
+   * stored for the same check.
+   *
+   * @param details the details to store
+   * @param changeMarker the marker of the tables the check read from
+   */
+  void saveDetails(DataIntegrityDetails details, String changeMarker);
+
+  /**
+   * @param check the check to get the stored details for
+   * @param changeMarker the current marker of the tables the check reads from
+   * @return the stored details, or null if none were stored at the given marker
+   */
+  DataIntegrityDetails getDetails(DataIntegrityCheck check, String changeMarker);
 }
@@ -41,42 +41,18 @@ public interface DataSetReportStore {
   String SEPARATOR = "-";
 
   /**
-   * Get a mapping from dimensional identifiers to aggregated values.
+   * Get a mapping from dimensional identifiers to aggregated values, sub-totals and totals of the
+   * data elements of the given data set. Values are mapped to data element and category option
+   * combo, sub-totals to data element and category option, and totals to data element.
    *
    * @param dataSet the data set.
    * @param periods the periods.
    * @param unit the organisation unit.
    * @param filters the filters on the analytics dimension format, e.g.
    *     <dim-id>:<dim-item>;<dim-item>
-   * @return a mapping from dimensional identifiers to aggregated values.
+   * @return a mapping from dimensional identifiers to aggregated values, sub-totals and totals.
    */
-  Map<String, Object> getAggregatedValues(
-      DataSet dataSet, List<Period> periods, OrganisationUnit unit, Set<String> filters);
-
-  /**
-   * Get a mapping from dimensional identifiers to aggregated sub-total values.
-   *
-   * @param dataSet the data set.
-   * @param periods the periods.
-   * @param unit the organisation unit.
-   * @param filters the filters on the analytics dimension format, e.g.
-   *     <dim-id>:<dim-item>;<dim-item>
-   * @return a mapping from dimensional identifiers to aggregated sub-total values.
-   */
-  Map<String, Object> getAggregatedSubTotals(
-      DataSet dataSet, List<Period> periods, OrganisationUnit unit, Set<String> filters);
-
-  /**
-   * Get a mapping from dimensional identifiers to aggregated total values.
-   *
-   * @param dataSet the data set.
-   * @param periods the periods.
-   * @param unit the organisation unit.
-   * @param filters the filters on the analytics dimension format, e.g.
-   *     <dim-id>:<dim-item>;<dim-item>
-   * @return a mapping from dimensional identifiers to aggregated total values.
-   */
-  Map<String, Object> getAggregatedTotals(
+  Map<String, Object> getAggregatedValuesAndTotals(
       DataSet dataSet, List<Period> periods, OrganisationUnit unit, Set<String> filters);
 
   /**
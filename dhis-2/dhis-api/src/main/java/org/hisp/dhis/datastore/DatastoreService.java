@@ -107,6 +107,49 @@ public interface DatastoreService {
   <T> T getEntries(DatastoreQuery query, Function<Stream<DatastoreFields>, T> transform)
       throws ConflictException;
 
+  /**
+   * Counts (and optionally sums) the entries matching the query filters grouped by the value at the
+   * provided path.
+   *
+   * @param query query parameters, only namespace and filters are used
+   * @param groupPath path of the value to group by
+   * @param sumPath path of the numeric value to sum per group, or {@code null} to only count
+   * @return groups ordered by number of entries, largest first
+   * @throws IllegalQueryException when a path is not valid
+   * @throws AccessDeniedException when user lacks authority for namespace
+   */
+  List<DatastoreAggregate> getAggregates(DatastoreQuery query, String groupPath, String sumPath)
+      throws ConflictException;
+
+  /**
+   * Lists the paths that are indexed in a namespace.
+   *
+   * @param namespace the namespace to list indexed paths for
+   * @return the indexed paths
+   * @throws AccessDeniedException when user lacks authority for namespace
+   */
+  List<String> getIndexedPaths(String namespace);
+
+  /**
+   * Indexes the values at the given path for the entries in a namespace so that filtering and
+   * ordering by that path does not need to scan the namespace.
+   *
+   * @param namespace the namespace to index
+   * @param path the path within the entry values to index
+   * @throws IllegalQueryException when the path is not valid
+   * @throws AccessDeniedException when user lacks authority for namespace
+   */
+  void addIndex(String namespace, String path);
+
+  /**
+   * Removes an index added by {@link #addIndex(String, String)}.
+   *
+   * @param namespace the indexed namespace
+   * @param path the indexed path
+   * @throws AccessDeniedException when user lacks authority for namespace
+   */
+  void removeIndex(String namespace, String path);
+
   /**
    * Validates and plans a {@link DatastoreQuery}. This might correct or otherwise update the
    * provided query.
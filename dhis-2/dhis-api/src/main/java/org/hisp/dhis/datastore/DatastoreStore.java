@@ -84,6 +84,45 @@ public interface DatastoreStore extends IdentifiableObjectStore<DatastoreEntry>
    */
   <T> T getEntries(DatastoreQuery query, Function<Stream<DatastoreFields>, T> transform);
 
+  /**
+   * Counts (and optionally sums) the entries matching the query filters grouped by the value at the
+   * provided path.
+   *
+   * @param query query parameters, only namespace and filters are used
+   * @param groupPath path of the value to group by
+   * @param sumPath path of the numeric value to sum per group, or {@code null} to only count
+   * @return groups ordered by number of entries, largest first
+   */
+  List<DatastoreAggregate> getAggregates(DatastoreQuery query, String groupPath, String sumPath);
+
+  /**
+   * Lists the paths that have a JSON index in the given namespace.
+   *
+   * @param namespace the namespace to list indexed paths for
+   * @return the indexed paths
+   */
+  List<String> getIndexedPaths(String namespace);
+
+  /**
+   * Creates the index for the value at the given path for entries in the given namespace, unless it
+   * already exists. The index expressions match those used to filter and order by the path so that
+   * queries use the index.
+   *
+   * <p>The index is created concurrently so this must not be called within a transaction.
+   *
+   * @param namespace the namespace to index
+   * @param path the path within the entry values to index
+   */
+  void createIndex(String namespace, String path);
+
+  /**
+   * Drops the index created by {@link #createIndex(String, String)} if it exists.
+   *
+   * @param namespace the indexed namespace
+   * @param path the indexed path
+   */
+  void dropIndex(String namespace, String path);
+
   /**
    * Retrieves a KeyJsonValue based on the associated key and namespace
    *
@@ -67,4 +67,9 @@ public abstract class Target implements Serializable {
   }
 
   @JsonProperty protected final String type;
+
+  /**
+   * @return the client ID, which identifies the target within its event hook
+   */
+  public abstract String getClientId();
 }
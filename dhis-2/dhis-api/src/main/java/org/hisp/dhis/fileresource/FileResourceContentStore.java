@@ -32,7 +32,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
-import java.util.Map;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 /**
@@ -76,14 +76,13 @@ public interface FileResourceContentStore {
   String saveFileResourceContent(FileResource fileResource, File file);
 
   /**
-   * Save the content of image files.
+   * Save the content of image variants encoded in memory.
    *
    * @param fileResource the FileResource object.
-   * @param imageFile will map image dimension to its associated file.
+   * @param imageVariants the image variants, each stored with the dimension as key suffix.
    * @return the key on success or null if saving failed.
    */
-  String saveFileResourceContent(
-      FileResource fileResource, Map<ImageFileDimension, File> imageFile);
+  String saveFileResourceContent(FileResource fileResource, List<ImageFileVariant> imageVariants);
 
   /**
    * Delete the content bytes of a file resource.
@@ -116,6 +115,18 @@ public interface FileResourceContentStore {
    */
   void copyContent(String key, OutputStream output) throws IOException, NoSuchElementException;
 
+  /**
+   * Copies a byte range of the content of the resource stored under key to the output stream. Only
+   * the requested range is read from the file store.
+   *
+   * @param key the key used to store a resource
+   * @param output the output stream to copy the stream into
+   * @param offset the offset of the first byte to copy
+   * @param length the number of bytes to copy
+   */
+  void copyContent(String key, OutputStream output, long offset, long length)
+      throws IOException, NoSuchElementException;
+
   /**
    * Copies the content of the resource stored under key to the byte array.
    *
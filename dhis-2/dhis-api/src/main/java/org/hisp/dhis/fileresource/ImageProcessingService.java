@@ -28,17 +28,18 @@
 package org.hisp.dhis.fileresource;
 
 import java.io.File;
-import java.util.Map;
+import java.util.List;
 
 /** creates images with pre-defined sizes @Author Zubair Asghar. */
 public interface ImageProcessingService {
   /**
-   * Service creates images in pre-defined sizes given in {@link ImageFileDimension} and puts the
-   * collection in map
+   * Service creates images in pre-defined sizes given in {@link ImageFileDimension}. The image file
+   * is decoded once, and the variants are resized and encoded in memory concurrently.
    *
    * @param fileResource file resource with image content type
    * @param file image file
-   * @return map containing {@link ImageFileDimension} and its associated file.
+   * @return list of image variants, one for each dimension except {@link
+   *     ImageFileDimension#ORIGINAL}, or an empty list if the image could not be processed.
    */
-  Map<ImageFileDimension, File> createImages(FileResource fileResource, File file);
+  List<ImageFileVariant> createImageVariants(FileResource fileResource, File file);
 }
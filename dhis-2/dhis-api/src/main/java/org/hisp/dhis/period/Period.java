@@ -293,7 +293,15 @@ public class Period extends BaseDimensionalItemObject {
 
   /** Returns a unique key suitable for caching and lookups. */
   public String getCacheKey() {
-    return periodType.getName() + "-" + startDate.toString() + "-" + endDate.toString();
+    return getCacheKey(periodType, startDate, endDate);
+  }
+
+  /**
+   * Returns a unique key suitable for caching and lookups of the period with the given period type
+   * and dates. The key does not depend on the class of the given dates.
+   */
+  public static String getCacheKey(PeriodType periodType, Date startDate, Date endDate) {
+    return periodType.getName() + "-" + startDate.getTime() + "-" + endDate.getTime();
   }
 
   // -------------------------------------------------------------------------
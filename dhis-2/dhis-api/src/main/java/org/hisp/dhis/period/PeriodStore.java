@@ -27,6 +27,7 @@
  */
 package org.hisp.dhis.period;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import org.hisp.dhis.common.GenericStore;
@@ -128,6 +129,16 @@ public interface PeriodStore extends GenericStore<Period> {
    */
   Period reloadForceAddPeriod(Period period);
 
+  /**
+   * Checks if the given periods are associated with the current session and loads them if not. The
+   * periods which do not exist are persisted. Existing periods are loaded with at most one query
+   * per batch of periods, rather than one query per period.
+   *
+   * @param periods the Periods.
+   * @return the persisted Periods, in the order of the given periods.
+   */
+  List<Period> reloadForceAddPeriods(Collection<Period> periods);
+
   // -------------------------------------------------------------------------
   // PeriodType
   // -------------------------------------------------------------------------
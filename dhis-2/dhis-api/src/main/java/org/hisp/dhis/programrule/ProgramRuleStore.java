@@ -85,4 +85,14 @@ public interface ProgramRuleStore extends IdentifiableObjectStore<ProgramRule> {
       ProgramRuleActionEvaluationEnvironment environment);
 
   List<ProgramRule> getProgramRulesWithNoAction();
+
+  /**
+   * Returns a version of the rules, actions and variables of the given program and of the data
+   * elements, attributes, option sets and options the variables refer to. The version changes when
+   * any of these objects is added, updated or removed.
+   *
+   * @param program {@link Program}
+   * @return the number of objects and their latest last updated time
+   */
+  String getMetadataVersion(Program program);
 }
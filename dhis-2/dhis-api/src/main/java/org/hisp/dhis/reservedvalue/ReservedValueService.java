@@ -52,4 +52,31 @@ public interface ReservedValueService {
   void deleteReservedValueByUid(String uid);
 
   void removeUsedOrExpiredReservations();
+
+  /**
+   * @param since the earliest time values must have been requested for a pool
+   * @return the pools (owner object, owner UID and key) values were requested for since the given
+   *     time
+   */
+  List<ReservedValue> getActivePools(Date since);
+
+  /**
+   * Removes the pools, including their values, that have not had values requested since the given
+   * time.
+   *
+   * @return number of pooled values removed
+   */
+  int removeInactivePools(Date requestedBefore);
+
+  /**
+   * Generates values for the pool of the attribute's text pattern and key until the pool has the
+   * given size or no more unique values could be found.
+   *
+   * @param trackedEntityAttribute owner of the text pattern to generate values for
+   * @param key the text pattern resolved with all but the generated segment
+   * @param size the number of values the pool should have
+   * @return number of values added to the pool
+   */
+  int fillPool(TrackedEntityAttribute trackedEntityAttribute, String key, int size)
+      throws ReserveValueException;
 }
@@ -27,6 +27,7 @@
  */
 package org.hisp.dhis.reservedvalue;
 
+import java.util.Date;
 import java.util.List;
 import org.hisp.dhis.common.GenericStore;
 
@@ -53,4 +54,48 @@ public interface ReservedValueStore extends GenericStore<ReservedValue> {
   boolean isReserved(String ownerObject, String ownerUID, String value);
 
   void removeUsedOrExpiredReservations();
+
+  /*
+   * Pools of pre-generated values, each identified by the owner object, owner
+   * UID and key of the provided reserved value
+   */
+
+  /**
+   * Marks that values were requested for the pool now. Pools are only filled while values are
+   * requested for them.
+   */
+  void updatePoolLastRequested(ReservedValue pool);
+
+  /**
+   * @param since the earliest time values must have been requested for a pool
+   * @return the pools values were requested for since the given time
+   */
+  List<ReservedValue> getPools(Date since);
+
+  /**
+   * Removes pools that have not had values requested since the given time including their values.
+   *
+   * @return number of pooled values removed
+   */
+  int removePools(Date requestedBefore);
+
+  int getNumberOfPooledValues(ReservedValue pool);
+
+  /**
+   * Adds values to a pool, values already in the pool are ignored.
+   *
+   * @return number of values added
+   */
+  int addPooledValues(List<ReservedValue> values);
+
+  /**
+   * Removes up to limit values from a pool and returns them. Values locked by a concurrent claim
+   * are skipped so that concurrent claims never wait for each other or return the same value.
+   */
+  List<String> claimPooledValues(ReservedValue pool, int limit);
+
+  /** Removes the given values from a pool should they be pooled. */
+  void removePooledValues(ReservedValue pool, List<String> values);
+
+  void deletePoolsByUid(String ownerUid);
 }
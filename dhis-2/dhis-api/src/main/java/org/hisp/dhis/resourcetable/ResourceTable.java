@@ -83,6 +83,17 @@ public abstract class ResourceTable<T> {
     return "alter table " + getTempTableName() + " rename to " + getTableName() + ";";
   }
 
+  /**
+   * Provides a SQL select statement returning a single text value which fingerprints the content of
+   * the source tables of this resource table. When the fingerprint is unchanged since the last
+   * generation, the resource table does not have to be regenerated.
+   *
+   * @return a SQL select statement, or empty if this table does not support change detection.
+   */
+  public Optional<String> getFingerprintStatement() {
+    return Optional.empty();
+  }
+
   // -------------------------------------------------------------------------
   // Protected methods
   // -------------------------------------------------------------------------
@@ -91,6 +102,35 @@ public abstract class ResourceTable<T> {
     return CodeGenerator.generateCode(5);
   }
 
+  /**
+   * Returns a SQL select statement combining the given row hash expressions into a single
+   * fingerprint value.
+   *
+   * @param rowHashes the row hash expressions, see {@link #getRowHash(String, String...)}.
+   * @return a SQL select statement.
+   */
+  protected static String getFingerprintStatement(String... rowHashes) {
+    return "select md5(" + String.join(" || ';' || ", rowHashes) + ")";
+  }
+
+  /**
+   * Returns a SQL expression which hashes the given columns of all rows in the given table. The MD5
+   * hashes of the rows are aggregated in sorted order, so that the hash is independent of row order
+   * but changes with any row being added, removed or changed. The hash includes the row count.
+   *
+   * @param table the source table name.
+   * @param columns the source table columns which affect the resource table content.
+   * @return a SQL expression.
+   */
+  protected static String getRowHash(String table, String... columns) {
+    return "(select count(*) || ':' || coalesce(md5(string_agg(h.rowhash, ',' order by h.rowhash)), '')"
+        + " from (select md5(row("
+        + String.join(",", columns)
+        + ")::text) as rowhash from "
+        + table
+        + ") h)";
+  }
+
   // -------------------------------------------------------------------------
   // Abstract methods
   // -------------------------------------------------------------------------
@@ -121,6 +121,7 @@ public enum JobType {
   VALIDATION_RESULTS_NOTIFICATION(daily7am("Js3vHn2AVuG", "Validation result notification")),
   REMOVE_USED_OR_EXPIRED_RESERVED_VALUES(
       daily2am("uwWCT2BMmlq", "Remove expired or used reserved values")),
+  RESERVED_VALUE_POOL_REFILL(every(900, "RvPoolFill1", "Refill reserved value pools")),
   SYSTEM_VERSION_UPDATE_CHECK(
       dailyRandomBetween3and5("vt21671bgno", "System version update check notification"));
 
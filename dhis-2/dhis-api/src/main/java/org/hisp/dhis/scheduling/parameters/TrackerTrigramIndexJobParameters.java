@@ -52,4 +52,10 @@ public class TrackerTrigramIndexJobParameters implements JobParameters {
   private Set<String> attributes = new HashSet<>();
 
   @JsonProperty private boolean skipIndexDeletion = false;
+
+  /**
+   * Whether to (re)generate the tracked entity search tables, see {@link
+   * org.hisp.dhis.trackedentity.TrackedEntitySearchTableManager}.
+   */
+  @JsonProperty private boolean generateSearchTables = false;
 }
@@ -27,14 +27,25 @@
  */
 package org.hisp.dhis.sms;
 
+import java.util.List;
 import org.hisp.dhis.sms.incoming.IncomingSms;
 
+/**
+ * Queue of incoming SMS waiting to be processed. The queue is shared by all consumers, also across
+ * nodes of a cluster, and a message is handed to one consumer at a time.
+ */
 public interface MessageQueue {
-  void put(IncomingSms message);
-
-  IncomingSms get();
-
-  void remove(IncomingSms message);
+  /**
+   * Claims the next incoming messages for processing. Claimed messages are not returned by other
+   * claims until they are processed or their claim expires.
+   *
+   * @param limit the max number of messages to claim.
+   * @return the claimed messages, empty if the queue is empty.
+   */
+  List<IncomingSms> claim(int limit);
 
-  void initialize();
+  /**
+   * @return the number of messages waiting to be claimed.
+   */
+  long getBacklog();
 }
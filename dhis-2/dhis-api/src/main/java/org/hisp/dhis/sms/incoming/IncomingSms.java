@@ -64,6 +64,11 @@ public class IncomingSms extends BaseIdentifiableObject implements Serializable
 
   private boolean parsed = false;
 
+  /*
+   * The time until which the message is claimed by a consumer, while in processing status.
+   */
+  private Date leaseExpiry;
+
   public IncomingSms() {
     setAutoFields();
   }
@@ -176,4 +181,12 @@ public class IncomingSms extends BaseIdentifiableObject implements Serializable
   public void setParsed(boolean parsed) {
     this.parsed = parsed;
   }
+
+  public Date getLeaseExpiry() {
+    return leaseExpiry;
+  }
+
+  public void setLeaseExpiry(Date leaseExpiry) {
+    this.leaseExpiry = leaseExpiry;
+  }
 }
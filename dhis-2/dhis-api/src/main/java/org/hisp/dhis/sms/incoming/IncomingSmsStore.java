@@ -27,6 +27,7 @@
  */
 package org.hisp.dhis.sms.incoming;
 
+import java.util.Date;
 import java.util.List;
 import org.hisp.dhis.common.IdentifiableObjectStore;
 
@@ -44,4 +45,20 @@ public interface IncomingSmsStore extends IdentifiableObjectStore<IncomingSms> {
   List<IncomingSms> getSmsByOriginator(String originator);
 
   List<IncomingSms> getAllUnparsedMessages();
+
+  /**
+   * Claims incoming messages for processing by setting their status to {@link
+   * SmsMessageStatus#PROCESSING}. Messages which are locked by a concurrent claim are skipped.
+   * Messages in processing status whose lease has expired are claimed again.
+   *
+   * @param limit the max number of messages to claim.
+   * @param leaseExpiry the time until which the claimed messages are reserved.
+   * @return the claimed messages ordered by ID.
+   */
+  List<IncomingSms> claimIncomingMessages(int limit, Date leaseExpiry);
+
+  /**
+   * @return the number of messages waiting to be claimed.
+   */
+  long countIncomingMessages();
 }
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.trackedentity;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Maintains the optional tracked entity search tables. A search table holds one row per tracked
+ * entity of a tracked entity type, with one column per searchable attribute named after the
+ * attribute UID, holding the lower-cased attribute value. Searches on several attributes can then
+ * be answered from a single indexed table instead of joining the attribute value table once per
+ * attribute. Search tables are kept current as attribute values are written.
+ */
+public interface TrackedEntitySearchTableManager {
+  /**
+   * Returns the name of the search table of the given tracked entity type.
+   *
+   * @param trackedEntityType the {@link TrackedEntityType}.
+   * @return the search table name.
+   */
+  String getSearchTableName(TrackedEntityType trackedEntityType);
+
+  /**
+   * (Re)generates the search table of the given tracked entity type with a column for each of the
+   * given attributes. Drops the search table if no attributes are given.
+   *
+   * @param trackedEntityType the {@link TrackedEntityType}.
+   * @param attributes the searchable {@link TrackedEntityAttribute} of the type.
+   */
+  void generateSearchTable(
+      TrackedEntityType trackedEntityType, List<TrackedEntityAttribute> attributes);
+
+  /**
+   * Drops the search table of the tracked entity type with the given identifier.
+   *
+   * @param trackedEntityTypeId the tracked entity type identifier.
+   */
+  void dropSearchTable(long trackedEntityTypeId);
+
+  /**
+   * Returns the identifiers of tracked entity types which have a search table.
+   *
+   * @return a list of tracked entity type identifiers.
+   */
+  List<Long> getTrackedEntityTypeIdsWithSearchTable();
+
+  /**
+   * Returns the UIDs of the attributes in the search table of the given tracked entity type.
+   *
+   * @param trackedEntityType the {@link TrackedEntityType}.
+   * @return a set of attribute UIDs, empty if the type has no search table.
+   */
+  Set<String> getSearchTableAttributes(TrackedEntityType trackedEntityType);
+}
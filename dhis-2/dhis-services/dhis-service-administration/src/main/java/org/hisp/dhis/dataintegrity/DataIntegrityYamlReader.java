@@ -27,6 +27,8 @@
  */
 package org.hisp.dhis.dataintegrity;
 
+import static org.apache.commons.codec.digest.DigestUtils.md5Hex;
+
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -36,8 +38,11 @@ import com.networknt.schema.JsonSchema;
 import com.networknt.schema.ValidationMessage;
 import java.io.InputStream;
 import java.nio.file.Path;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import lombok.extern.slf4j.Slf4j;
 import org.hisp.dhis.jsonschema.JsonSchemaValidator;
 import org.springframework.core.io.AbstractFileResolvingResource;
@@ -51,6 +56,8 @@ import org.springframework.core.io.UrlResource;
  */
 @Slf4j
 class DataIntegrityYamlReader {
+  private static final Pattern IDENTIFIER = Pattern.compile("[a-z_][a-z0-9_]*");
+
   private DataIntegrityYamlReader() {
     throw new UnsupportedOperationException("util");
   }
@@ -82,6 +89,9 @@ class DataIntegrityYamlReader {
     @JsonProperty("is_slow")
     boolean isSlow;
 
+    @JsonProperty("is_time_dependent")
+    boolean isTimeDependent;
+
     @JsonProperty String introduction;
 
     @JsonProperty String recommendation;
@@ -213,10 +223,13 @@ class DataIntegrityYamlReader {
                 .sectionOrder(yamlFile.sectionOrder)
                 .severity(yamlFile.severity)
                 .isSlow(yamlFile.isSlow)
+                .isTimeDependent(yamlFile.isTimeDependent)
                 .runSummaryCheck(
                     dataIntegrityRecord.sqlToSummary().apply(sanitiseSQL(yamlFile.summarySql)))
                 .runDetailsCheck(
                     dataIntegrityRecord.sqlToDetails().apply(sanitiseSQL(yamlFile.detailsSql)))
+                .sourceTables(getSourceTables(yamlFile.summarySql, yamlFile.detailsSql))
+                .sqlDigest(md5Hex(yamlFile.summarySql + "\n" + yamlFile.detailsSql))
                 .build());
   }
 
@@ -238,6 +251,24 @@ class DataIntegrityYamlReader {
     return resource;
   }
 
+  /**
+   * Extracts all identifiers from the given SQL queries. These include the names of all tables the
+   * queries read from, but also column names, aliases and keywords, which are ignored when looking
+   * up table changes.
+   */
+  static Set<String> getSourceTables(String... sqls) {
+    Set<String> names = new HashSet<>();
+    for (String sql : sqls) {
+      if (sql != null) {
+        Matcher matcher = IDENTIFIER.matcher(sql.toLowerCase());
+        while (matcher.find()) {
+          names.add(matcher.group());
+        }
+      }
+    }
+    return Set.copyOf(names);
+  }
+
   private static String trim(String str) {
     return str == null ? null : str.trim();
   }
@@ -58,6 +58,8 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
 import java.util.function.BinaryOperator;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -86,6 +88,8 @@ import org.hisp.dhis.dataset.DataSetService;
 import org.hisp.dhis.expression.Expression;
 import org.hisp.dhis.expression.ExpressionService;
 import org.hisp.dhis.expression.ExpressionValidationOutcome;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.external.location.LocationManager;
 import org.hisp.dhis.external.location.LocationManagerException;
 import org.hisp.dhis.i18n.I18n;
@@ -165,6 +169,8 @@ public class DefaultDataIntegrityService implements DataIntegrityService {
 
   private final SchemaService schemaService;
 
+  private final DhisConfigurationProvider config;
+
   private Cache<DataIntegritySummary> summaryCache;
 
   private Cache<DataIntegrityDetails> detailsCache;
@@ -865,6 +871,8 @@ public class DefaultDataIntegrityService implements DataIntegrityService {
         expandChecks(checks),
         progress,
         summaryCache,
+        dataIntegrityStore::getSummary,
+        dataIntegrityStore::saveSummary,
         runningSummaryChecks,
         check -> check.getRunSummaryCheck().apply(check),
         (check, startTime, ex) ->
@@ -887,6 +895,8 @@ public class DefaultDataIntegrityService implements DataIntegrityService {
         expandChecks(checks),
         progress,
         detailsCache,
+        dataIntegrityStore::getDetails,
+        dataIntegrityStore::saveDetails,
         runningDetailsChecks,
         check -> check.getRunDetailsCheck().apply(check),
         (check, startTime, ex) ->
@@ -929,42 +939,90 @@ public class DefaultDataIntegrityService implements DataIntegrityService {
     T createErrorReport(DataIntegrityCheck check, Date startTime, RuntimeException ex);
   }
 
+  /**
+   * Runs the given checks. SQL based checks run concurrently and are skipped if none of the tables
+   * they read from changed since their stored result was computed. Results of time dependent checks
+   * are never reused. Other checks run in sequence.
+   */
   private <T> void runDataIntegrityChecks(
       String stageDesc,
       Set<String> checks,
       JobProgress progress,
       Cache<T> cache,
+      BiFunction<DataIntegrityCheck, String, T> getStored,
+      BiConsumer<T, String> store,
       Set<String> running,
       Function<DataIntegrityCheck, T> runCheck,
       DataIntegrityCheckErrorHandler<T> createErrorReport) {
     try {
       running.addAll(checks);
-      progress.startingProcess("Data Integrity check");
-      progress.startingStage(stageDesc, checks.size(), SKIP_ITEM);
-      progress.runStage(
-          checks.stream().map(checksByName::get).filter(Objects::nonNull),
-          DataIntegrityCheck::getDescription,
+      Map<Boolean, List<DataIntegrityCheck>> checksBySql =
+          checks.stream()
+              .map(checksByName::get)
+              .filter(Objects::nonNull)
+              .collect(Collectors.partitioningBy(check -> check.getSourceTables() != null));
+      List<DataIntegrityCheck> sqlChecks = checksBySql.get(true);
+      List<DataIntegrityCheck> otherChecks = checksBySql.get(false);
+      Consumer<DataIntegrityCheck> work =
           check -> {
+            String name = check.getName();
+            String marker = getChangeMarker(check);
+            T stored = marker == null ? null : getStored.apply(check, marker);
+            if (stored != null) {
+              cache.put(name, stored);
+              running.remove(name);
+              return;
+            }
             Date startTime = new Date();
             T res;
             try {
               res = runCheck.apply(check);
             } catch (RuntimeException ex) {
-              cache.put(check.getName(), createErrorReport.createErrorReport(check, startTime, ex));
+              cache.put(name, createErrorReport.createErrorReport(check, startTime, ex));
               throw ex;
             } finally {
-              running.remove(check.getName());
+              running.remove(name);
             }
             if (res != null) {
-              cache.put(check.getName(), res);
+              cache.put(name, res);
+              if (marker != null) {
+                store.accept(res, marker);
+              }
             }
-          });
+          };
+      progress.startingProcess("Data Integrity check");
+      if (!sqlChecks.isEmpty() || otherChecks.isEmpty()) {
+        int parallelism =
+            Math.min(
+                sqlChecks.size(),
+                Integer.parseInt(
+                    config.getProperty(ConfigurationKey.SYSTEM_DATA_INTEGRITY_PARALLELISM)));
+        progress.startingStage(stageDesc, sqlChecks.size(), SKIP_ITEM);
+        progress.runStageInParallel(
+            parallelism, sqlChecks, DataIntegrityCheck::getDescription, work);
+      }
+      if (!otherChecks.isEmpty()) {
+        progress.startingStage(stageDesc + " (non SQL)", otherChecks.size(), SKIP_ITEM);
+        progress.runStage(otherChecks, DataIntegrityCheck::getDescription, work);
+      }
       progress.completedProcess(null);
     } finally {
       running.removeAll(checks);
     }
   }
 
+  /**
+   * @return a marker which changes when the check or any of the tables it reads from changes, or
+   *     null if the result of the check cannot be reused
+   */
+  private String getChangeMarker(DataIntegrityCheck check) {
+    if (check.getSourceTables() == null || check.isTimeDependent()) {
+      return null;
+    }
+    String marker = dataIntegrityStore.getTableChangeMarker(check.getSourceTables());
+    return marker == null ? null : check.getSqlDigest() + ":" + marker;
+  }
+
   private Set<String> expandChecks(Set<String> names) {
     ensureConfigurationsAreLoaded();
 
@@ -27,17 +27,30 @@
  */
 package org.hisp.dhis.dataintegrity.hibernate;
 
+import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toUnmodifiableList;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import lombok.RequiredArgsConstructor;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
 import org.hibernate.SessionFactory;
 import org.hisp.dhis.dataintegrity.DataIntegrityCheck;
 import org.hisp.dhis.dataintegrity.DataIntegrityDetails;
 import org.hisp.dhis.dataintegrity.DataIntegrityDetails.DataIntegrityIssue;
 import org.hisp.dhis.dataintegrity.DataIntegrityStore;
 import org.hisp.dhis.dataintegrity.DataIntegritySummary;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -47,16 +60,55 @@ import org.springframework.transaction.annotation.Transactional;
  *
  * @author Jan Bernitt
  */
+@Slf4j
 @Repository
-@RequiredArgsConstructor
 public class HibernateDataIntegrityStore implements DataIntegrityStore {
+  private static final String TYPE_SUMMARY = "SUMMARY";
+
+  private static final String TYPE_DETAILS = "DETAILS";
+
+  private static final String SAVE_RESULT_SQL =
+      "insert into dataintegrityresult (name, type, changemarker, starttime, finishedtime, count,"
+          + " percentage, issues) values (?, ?, ?, ?, ?, ?, ?, cast(? as jsonb))"
+          + " on conflict (name, type) do update set changemarker = excluded.changemarker,"
+          + " starttime = excluded.starttime, finishedtime = excluded.finishedtime,"
+          + " count = excluded.count, percentage = excluded.percentage, issues = excluded.issues";
+
+  private static final String GET_RESULT_SQL =
+      "select starttime, finishedtime, count, percentage, issues::text from dataintegrityresult"
+          + " where name = ? and type = ? and changemarker = ?";
+
   private final SessionFactory sessionFactory;
 
+  private final JdbcTemplate jdbcTemplate;
+
+  private final JdbcTemplate readOnlyJdbcTemplate;
+
+  private final ObjectMapper jsonMapper;
+
+  /** True when a read replica is configured and checks should run against it. */
+  private final boolean useReadReplica;
+
+  public HibernateDataIntegrityStore(
+      SessionFactory sessionFactory,
+      JdbcTemplate jdbcTemplate,
+      @Qualifier("readOnlyJdbcTemplate") JdbcTemplate readOnlyJdbcTemplate,
+      ObjectMapper jsonMapper) {
+    this.sessionFactory = sessionFactory;
+    this.jdbcTemplate = jdbcTemplate;
+    this.readOnlyJdbcTemplate = readOnlyJdbcTemplate;
+    this.jsonMapper = jsonMapper;
+    this.useReadReplica = readOnlyJdbcTemplate.getDataSource() != jdbcTemplate.getDataSource();
+  }
+
   @Override
   @Transactional(readOnly = true)
   public DataIntegritySummary querySummary(DataIntegrityCheck check, String sql) {
     Date startTime = new Date();
-    Object summary = sessionFactory.getCurrentSession().createNativeQuery(sql).getSingleResult();
+    Object summary =
+        useReadReplica
+            ? readOnlyJdbcTemplate.queryForObject(sql, (rs, rowNum) -> toRow(rs))
+            : sessionFactory.getCurrentSession().createNativeQuery(sql).getSingleResult();
     return new DataIntegritySummary(
         check, startTime, new Date(), null, parseCount(summary), parsePercentage(summary));
   }
@@ -66,7 +118,10 @@ public class HibernateDataIntegrityStore implements DataIntegrityStore {
   public DataIntegrityDetails queryDetails(DataIntegrityCheck check, String sql) {
     Date startTime = new Date();
     @SuppressWarnings("unchecked")
-    List<Object[]> rows = sessionFactory.getCurrentSession().createNativeQuery(sql).getResultList();
+    List<Object[]> rows =
+        useReadReplica
+            ? readOnlyJdbcTemplate.query(sql, (rs, rowNum) -> toRow(rs))
+            : sessionFactory.getCurrentSession().createNativeQuery(sql).getResultList();
     return new DataIntegrityDetails(
         check,
         startTime,
@@ -80,6 +135,201 @@ public class HibernateDataIntegrityStore implements DataIntegrityStore {
             .collect(toUnmodifiableList()));
   }
 
+  /**
+   * Uses the statistics of the primary database as a read replica does not track row changes. Each
+   * table contributes its number of inserted, updated, deleted and live rows as separate values, as
+   * their sum does not change on delete. Statistics are reset together, which also invalidates any
+   * marker.
+   *
+   * <p>When checks run on a read replica, the marker is only returned if the replica has replayed
+   * the primary database up to the point where the statistics were read, so that a check result
+   * stored with the marker reflects all changes counted by the marker.
+   */
+  @Override
+  public String getTableChangeMarker(Set<String> tables) {
+    if (tables.isEmpty()) {
+      return "";
+    }
+    String sql =
+        "select pg_current_wal_lsn()::text, string_agg(relname || '=' || n_tup_ins || '/' ||"
+            + " n_tup_upd || '/' || n_tup_del || '/' || n_live_tup, ',' order by relname)"
+            + " from pg_stat_user_tables where relname in ("
+            + tables.stream().map(name -> "'" + name + "'").collect(joining(","))
+            + ")";
+    try {
+      String[] marker =
+          jdbcTemplate.queryForObject(
+              sql, (rs, rowNum) -> new String[] {rs.getString(1), rs.getString(2)});
+      if (useReadReplica && !isReplayedOnReadReplica(marker[0])) {
+        log.debug("Read replica has not replayed table changes up to: " + marker[0]);
+        return null;
+      }
+      return marker[1];
+    } catch (DataAccessException ex) {
+      log.debug("Table changes cannot be tracked: " + ex.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Results are stored in the primary database, also when checks run on a read replica, so that
+   * they are shared by all nodes and survive a restart.
+   */
+  @Override
+  public void saveSummary(DataIntegritySummary summary, String changeMarker) {
+    saveResult(
+        summary.getCheck(),
+        TYPE_SUMMARY,
+        changeMarker,
+        summary.getStartTime(),
+        summary.getFinishedTime(),
+        summary.getCount(),
+        summary.getPercentage(),
+        null);
+  }
+
+  @Override
+  public DataIntegritySummary getSummary(DataIntegrityCheck check, String changeMarker) {
+    StoredResult res = getResult(check, TYPE_SUMMARY, changeMarker);
+    return res == null
+        ? null
+        : new DataIntegritySummary(
+            check, res.startTime(), res.finishedTime(), null, res.count(), res.percentage());
+  }
+
+  @Override
+  public void saveDetails(DataIntegrityDetails details, String changeMarker) {
+    String issues;
+    try {
+      issues = jsonMapper.writeValueAsString(details.getIssues());
+    } catch (JsonProcessingException ex) {
+      log.warn("Details of check " + details.getCheck().getName() + " cannot be stored", ex);
+      return;
+    }
+    saveResult(
+        details.getCheck(),
+        TYPE_DETAILS,
+        changeMarker,
+        details.getStartTime(),
+        details.getFinishedTime(),
+        null,
+        null,
+        issues);
+  }
+
+  @Override
+  public DataIntegrityDetails getDetails(DataIntegrityCheck check, String changeMarker) {
+    StoredResult res = getResult(check, TYPE_DETAILS, changeMarker);
+    if (res == null || res.issues() == null) {
+      return null;
+    }
+    try {
+      return new DataIntegrityDetails(
+          check, res.startTime(), res.finishedTime(), null, parseIssues(res.issues()));
+    } catch (JsonProcessingException ex) {
+      log.warn("Stored details of check " + check.getName() + " cannot be read", ex);
+      return null;
+    }
+  }
+
+  private void saveResult(
+      DataIntegrityCheck check,
+      String type,
+      String changeMarker,
+      Date startTime,
+      Date finishedTime,
+      Integer count,
+      Double percentage,
+      String issues) {
+    try {
+      jdbcTemplate.update(
+          SAVE_RESULT_SQL,
+          check.getName(),
+          type,
+          changeMarker,
+          new Timestamp(startTime.getTime()),
+          new Timestamp(finishedTime.getTime()),
+          count,
+          percentage,
+          issues);
+    } catch (DataAccessException ex) {
+      log.warn("Result of check " + check.getName() + " cannot be stored: " + ex.getMessage());
+    }
+  }
+
+  private StoredResult getResult(DataIntegrityCheck check, String type, String changeMarker) {
+    try {
+      List<StoredResult> results =
+          jdbcTemplate.query(
+              GET_RESULT_SQL,
+              (rs, rowNum) ->
+                  new StoredResult(
+                      new Date(rs.getTimestamp(1).getTime()),
+                      new Date(rs.getTimestamp(2).getTime()),
+                      rs.getInt(3),
+                      rs.getObject(4, Double.class),
+                      rs.getString(5)),
+              check.getName(),
+              type,
+              changeMarker);
+      return results.isEmpty() ? null : results.get(0);
+    } catch (DataAccessException ex) {
+      log.warn("Stored result of check " + check.getName() + " cannot be read: " + ex.getMessage());
+      return null;
+    }
+  }
+
+  private List<DataIntegrityIssue> parseIssues(String json) throws JsonProcessingException {
+    List<DataIntegrityIssue> issues = new ArrayList<>();
+    for (JsonNode issue : jsonMapper.readTree(json)) {
+      issues.add(
+          new DataIntegrityIssue(
+              issue.path("id").textValue(),
+              issue.path("name").textValue(),
+              issue.path("comment").textValue(),
+              parseRefs(issue.path("refs"))));
+    }
+    return List.copyOf(issues);
+  }
+
+  private static List<String> parseRefs(JsonNode refs) {
+    if (!refs.isArray()) {
+      return null;
+    }
+    List<String> res = new ArrayList<>();
+    refs.forEach(ref -> res.add(ref.textValue()));
+    return List.copyOf(res);
+  }
+
+  private record StoredResult(
+      Date startTime, Date finishedTime, int count, Double percentage, String issues) {}
+
+  /**
+   * @param lsn a write-ahead log location of the primary database
+   * @return true if the read replica has replayed the write-ahead log up to the given location
+   */
+  private boolean isReplayedOnReadReplica(String lsn) {
+    return Boolean.TRUE.equals(
+        readOnlyJdbcTemplate.queryForObject(
+            "select coalesce(pg_last_wal_replay_lsn() >= cast(? as pg_lsn), false)",
+            Boolean.class,
+            lsn));
+  }
+
+  /**
+   * Maps a result set row to the same shape as a Hibernate native query result, with arrays
+   * unwrapped.
+   */
+  private static Object[] toRow(ResultSet rs) throws SQLException {
+    int columns = rs.getMetaData().getColumnCount();
+    Object[] row = new Object[columns];
+    for (int i = 0; i < columns; i++) {
+      Object value = rs.getObject(i + 1);
+      row[i] = value instanceof Array array ? array.getArray() : value;
+    }
+    return row;
+  }
+
   private static String getIndex(Object[] row, int index) {
     return row.length <= index ? null : (String) row[index];
   }
@@ -111,7 +111,6 @@ public class DefaultResourceTableService implements ResourceTableService {
     resourceTableStore.generateResourceTable(
         new OrganisationUnitStructureResourceTable(
             null,
-            organisationUnitService,
             organisationUnitService.getNumberOfOrganisationalLevels(),
             analyticsExportSettings.getTableType()));
   }
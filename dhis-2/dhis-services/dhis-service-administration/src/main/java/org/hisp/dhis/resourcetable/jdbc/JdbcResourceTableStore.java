@@ -27,6 +27,8 @@
  */
 package org.hisp.dhis.resourcetable.jdbc;
 
+import static org.apache.commons.lang3.StringUtils.substringBefore;
+
 import java.util.List;
 import java.util.Optional;
 import lombok.RequiredArgsConstructor;
@@ -35,6 +37,8 @@ import org.hisp.dhis.analytics.AnalyticsTableHook;
 import org.hisp.dhis.analytics.AnalyticsTableHookService;
 import org.hisp.dhis.analytics.AnalyticsTablePhase;
 import org.hisp.dhis.dbms.DbmsManager;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.jdbc.StatementBuilder;
 import org.hisp.dhis.resourcetable.ResourceTable;
 import org.hisp.dhis.resourcetable.ResourceTableStore;
@@ -61,6 +65,8 @@ public class JdbcResourceTableStore implements ResourceTableStore {
 
   private final JdbcTemplate jdbcTemplate;
 
+  private final DhisConfigurationProvider config;
+
   // -------------------------------------------------------------------------
   // ResourceTableStore implementation
   // -------------------------------------------------------------------------
@@ -71,11 +77,32 @@ public class JdbcResourceTableStore implements ResourceTableStore {
 
     final Clock clock = new Clock().startClock();
     final String createTableSql = resourceTable.getCreateTempTableStatement();
+    final String analyzeTableSql = statementBuilder.getAnalyze(resourceTable.getTableName());
+    final List<AnalyticsTableHook> hooks =
+        analyticsTableHookService.getByPhaseAndResourceTableType(
+            AnalyticsTablePhase.RESOURCE_TABLE_POPULATED, resourceTable.getTableType());
+
+    // ---------------------------------------------------------------------
+    // Skip table if source content is unchanged since last generation
+    // ---------------------------------------------------------------------
+
+    final String fingerprint = getFingerprint(resourceTable, createTableSql, hooks);
+    final String storedFingerprint =
+        fingerprint != null ? getStoredFingerprint(resourceTable.getTableName()) : null;
+
+    if (fingerprint != null && fingerprint.equals(storedFingerprint)) {
+      log.info(
+          String.format(
+              "Resource table '%s' is unchanged, skipping: '%s'",
+              resourceTable.getTableName(), clock.time()));
+      return;
+    }
+
+    final boolean patch = isSameStructure(fingerprint, storedFingerprint);
     final Optional<String> populateTableSql = resourceTable.getPopulateTempTableStatement();
     final Optional<List<Object[]>> populateTableContent =
         resourceTable.getPopulateTempTableContent();
     final List<String> createIndexSql = resourceTable.getCreateIndexStatements();
-    final String analyzeTableSql = statementBuilder.getAnalyze(resourceTable.getTableName());
 
     // ---------------------------------------------------------------------
     // Drop temporary table if it exists
@@ -117,37 +144,42 @@ public class JdbcResourceTableStore implements ResourceTableStore {
     // Invoke hooks
     // ---------------------------------------------------------------------
 
-    List<AnalyticsTableHook> hooks =
-        analyticsTableHookService.getByPhaseAndResourceTableType(
-            AnalyticsTablePhase.RESOURCE_TABLE_POPULATED, resourceTable.getTableType());
-
     if (!hooks.isEmpty()) {
       analyticsTableHookService.executeAnalyticsTableSqlHooks(hooks);
 
       log.info(String.format("Invoked resource table hooks: '%d'", hooks.size()));
     }
 
-    // ---------------------------------------------------------------------
-    // Create indexes
-    // ---------------------------------------------------------------------
+    if (patch) {
+      patchTable(resourceTable);
+    } else {
+      // -------------------------------------------------------------------
+      // Create indexes
+      // -------------------------------------------------------------------
 
-    for (final String sql : createIndexSql) {
-      log.debug(String.format("Create index SQL: '%s'", sql));
+      for (final String sql : createIndexSql) {
+        log.debug(String.format("Create index SQL: '%s'", sql));
 
-      jdbcTemplate.execute(sql);
-    }
+        jdbcTemplate.execute(sql);
+      }
 
-    // ---------------------------------------------------------------------
-    // Swap tables
-    // ---------------------------------------------------------------------
+      // -------------------------------------------------------------------
+      // Swap tables
+      // -------------------------------------------------------------------
 
-    if (dbmsManager.tableExists(resourceTable.getTableName())) {
-      jdbcTemplate.execute(resourceTable.getDropTableStatement());
-    }
+      if (dbmsManager.tableExists(resourceTable.getTableName())) {
+        jdbcTemplate.execute(resourceTable.getDropTableStatement());
+      }
+
+      jdbcTemplate.execute(resourceTable.getRenameTempTableStatement());
 
-    jdbcTemplate.execute(resourceTable.getRenameTempTableStatement());
+      log.debug(String.format("Swapped resource table: '%s'", resourceTable.getTableName()));
+    }
 
-    log.debug(String.format("Swapped resource table: '%s'", resourceTable.getTableName()));
+    if (fingerprint != null) {
+      jdbcTemplate.execute(
+          String.format("comment on table %s is '%s'", resourceTable.getTableName(), fingerprint));
+    }
 
     // ---------------------------------------------------------------------
     // Analyze
@@ -166,6 +198,113 @@ public class JdbcResourceTableStore implements ResourceTableStore {
             "Resource table '%s' update done: '%s'", resourceTable.getTableName(), clock.time()));
   }
 
+  /**
+   * Applies the difference between the populated temporary table and the existing resource table to
+   * the existing resource table, and drops the temporary table. Rows are compared on the hash of
+   * their full content, so that tables without a primary key can be patched. Both tables are
+   * compared as multisets, so that the patched table holds the same number of copies of each row as
+   * the temporary table.
+   *
+   * @param resourceTable the resource table.
+   */
+  private void patchTable(ResourceTable<?> resourceTable) {
+    String table = resourceTable.getTableName();
+    String tempTable = resourceTable.getTempTableName();
+
+    String deleteSql =
+        String.format(
+            "delete from %s where ctid in (%s)",
+            table, getSurplusRowsSql("x.rowid", table, tempTable));
+
+    String insertSql =
+        String.format("insert into %s %s", table, getSurplusRowsSql("(x.r).*", tempTable, table));
+
+    log.debug(String.format("Patch table delete SQL: '%s'", deleteSql));
+
+    int deleted = jdbcTemplate.update(deleteSql);
+
+    log.debug(String.format("Patch table insert SQL: '%s'", insertSql));
+
+    int inserted = jdbcTemplate.update(insertSql);
+
+    jdbcTemplate.execute(resourceTable.getDropTempTableStatement());
+
+    log.info(
+        String.format(
+            "Patched resource table: '%s', deleted rows: %d, inserted rows: %d",
+            table, deleted, inserted));
+  }
+
+  /**
+   * Returns a SQL select statement for the copies of rows in the given table which exceed the
+   * number of copies of the same row in the other table. Rows are compared on the hash of their
+   * full content. The select statement exposes the row as {@code x.r} and its location as {@code
+   * x.rowid}.
+   *
+   * @param select the select list.
+   * @param table the table to select surplus rows from.
+   * @param otherTable the table to compare with.
+   * @return a SQL select statement.
+   */
+  private String getSurplusRowsSql(String select, String table, String otherTable) {
+    return String.format(
+        "select %1$s from "
+            + "(select r, r.ctid as rowid, md5(r::text) as hash, "
+            + "row_number() over (partition by md5(r::text)) as copy from %2$s r) x "
+            + "left join (select md5(o::text) as hash, count(*) as copies from %3$s o group by 1) y "
+            + "on x.hash = y.hash "
+            + "where x.copy > coalesce(y.copies, 0)",
+        select, table, otherTable);
+  }
+
+  /**
+   * Returns the fingerprint of the given resource table, made of a hash of the table structure and
+   * the content fingerprint of the source tables, or null if change detection does not apply.
+   *
+   * @param resourceTable the resource table.
+   * @param createTableSql the create table SQL statement.
+   * @param hooks the resource table hooks.
+   * @return the fingerprint, or null.
+   */
+  private String getFingerprint(
+      ResourceTable<?> resourceTable, String createTableSql, List<AnalyticsTableHook> hooks) {
+    Optional<String> fingerprintSql = resourceTable.getFingerprintStatement();
+
+    if (fingerprintSql.isEmpty()
+        || !hooks.isEmpty()
+        || config.isDisabled(ConfigurationKey.ANALYTICS_RESOURCE_TABLE_CHANGE_DETECTION)) {
+      return null;
+    }
+
+    log.debug(String.format("Fingerprint SQL: '%s'", fingerprintSql.get()));
+
+    String content = jdbcTemplate.queryForObject(fingerprintSql.get(), String.class);
+
+    return Integer.toHexString(createTableSql.hashCode()) + ":" + content;
+  }
+
+  /**
+   * Returns the fingerprint stored as comment on the given table, or null if the table does not
+   * exist or has no comment.
+   *
+   * @param tableName the table name.
+   * @return the stored fingerprint, or null.
+   */
+  private String getStoredFingerprint(String tableName) {
+    return jdbcTemplate.queryForObject(
+        "select obj_description(to_regclass(?), 'pg_class')", String.class, tableName);
+  }
+
+  /**
+   * Indicates whether the given fingerprints are present and refer to the same table structure, in
+   * which case the existing table can be patched.
+   */
+  private boolean isSameStructure(String fingerprint, String storedFingerprint) {
+    return fingerprint != null
+        && storedFingerprint != null
+        && substringBefore(fingerprint, ":").equals(substringBefore(storedFingerprint, ":"));
+  }
+
   @Override
   public void batchUpdate(int columns, String tableName, List<Object[]> batchArgs) {
     if (columns == 0 || tableName == null) {
@@ -98,6 +98,24 @@ public class CategoryOptionComboNameResourceTable extends ResourceTable<Category
     return Optional.of(batchArgs);
   }
 
+  @Override
+  public Optional<String> getFingerprintStatement() {
+    return Optional.of(
+        getFingerprintStatement(
+            getRowHash(
+                "categoryoptioncombo", "categoryoptioncomboid", "uid", "name", "ignoreapproval"),
+            getRowHash("categorycombo", "categorycomboid", "uid", "name"),
+            getRowHash("categorycombos_optioncombos", "categorycomboid", "categoryoptioncomboid"),
+            getRowHash(
+                "categoryoptioncombos_categoryoptions",
+                "categoryoptioncomboid",
+                "categoryoptionid"),
+            getRowHash("categorycombos_categories", "categorycomboid", "categoryid", "sort_order"),
+            getRowHash(
+                "categories_categoryoptions", "categoryid", "categoryoptionid", "sort_order"),
+            getRowHash("categoryoption", "categoryoptionid", "name", "startdate", "enddate")));
+  }
+
   @Override
   public List<String> getCreateIndexStatements() {
     return Lists.newArrayList();
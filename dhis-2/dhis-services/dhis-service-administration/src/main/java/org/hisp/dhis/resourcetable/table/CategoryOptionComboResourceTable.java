@@ -83,6 +83,15 @@ public class CategoryOptionComboResourceTable extends ResourceTable<CategoryOpti
     return Optional.empty();
   }
 
+  @Override
+  public Optional<String> getFingerprintStatement() {
+    return Optional.of(
+        getFingerprintStatement(
+            getRowHash("dataelement", "dataelementid", "uid", "categorycomboid"),
+            getRowHash("categorycombos_optioncombos", "categorycomboid", "categoryoptioncomboid"),
+            getRowHash("categoryoptioncombo", "categoryoptioncomboid", "uid")));
+  }
+
   @Override
   public List<String> getCreateIndexStatements() {
     String name = "in_dataelementcategoryoptioncombo_" + getRandomSuffix();
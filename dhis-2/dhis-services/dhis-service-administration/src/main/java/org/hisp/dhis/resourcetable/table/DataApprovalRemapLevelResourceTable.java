@@ -99,6 +99,14 @@ public class DataApprovalRemapLevelResourceTable extends ResourceTable<DataAppro
     return Optional.empty();
   }
 
+  @Override
+  public Optional<String> getFingerprintStatement() {
+    return Optional.of(
+        getFingerprintStatement(
+            getRowHash("dataapprovalworkflowlevels", "workflowid", "dataapprovallevelid"),
+            getRowHash("dataapprovallevel", "dataapprovallevelid", "level")));
+  }
+
   @Override
   public List<String> getCreateIndexStatements() {
     return Lists.newArrayList();
@@ -30,14 +30,9 @@ package org.hisp.dhis.resourcetable.table;
 import static org.hisp.dhis.system.util.SqlUtils.quote;
 
 import com.google.common.collect.Lists;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
-import org.hisp.dhis.organisationunit.OrganisationUnitService;
 import org.hisp.dhis.resourcetable.ResourceTable;
 import org.hisp.dhis.resourcetable.ResourceTableType;
 
@@ -45,19 +40,13 @@ import org.hisp.dhis.resourcetable.ResourceTableType;
  * @author Lars Helge Overland
  */
 public class OrganisationUnitStructureResourceTable extends ResourceTable<OrganisationUnit> {
-  private final OrganisationUnitService organisationUnitService; // Nasty
-
   private final int organisationUnitLevels;
 
   private final String tableType;
 
   public OrganisationUnitStructureResourceTable(
-      List<OrganisationUnit> objects,
-      OrganisationUnitService organisationUnitService,
-      int organisationUnitLevels,
-      String tableType) {
+      List<OrganisationUnit> objects, int organisationUnitLevels, String tableType) {
     super(objects);
-    this.organisationUnitService = organisationUnitService;
     this.organisationUnitLevels = organisationUnitLevels;
     this.tableType = tableType;
   }
@@ -93,49 +82,70 @@ public class OrganisationUnitStructureResourceTable extends ResourceTable<Organi
 
   @Override
   public Optional<String> getPopulateTempTableStatement() {
-    return Optional.empty();
-  }
-
-  @Override
-  public Optional<List<Object[]>> getPopulateTempTableContent() {
-    List<Object[]> batchArgs = new ArrayList<>();
+    StringBuilder columns = new StringBuilder("organisationunitid, organisationunituid, level");
+    StringBuilder select =
+        new StringBuilder("select ou.organisationunitid, ou.uid, ou.hierarchylevel");
+    StringBuilder joins = new StringBuilder();
 
-    for (int i = 0; i < organisationUnitLevels; i++) {
-      int level = i + 1;
-
-      Collection<OrganisationUnit> units =
-          organisationUnitService.getOrganisationUnitsAtLevel(level);
-
-      for (OrganisationUnit unit : units) {
-        List<Object> values = new ArrayList<>();
-
-        values.add(unit.getId());
-        values.add(unit.getUid());
-        values.add(level);
-
-        Map<Integer, Long> identifiers = new HashMap<>();
-        Map<Integer, String> uids = new HashMap<>();
-        Map<Integer, String> names = new HashMap<>();
-
-        for (int j = level; j > 0; j--) {
-          identifiers.put(j, unit.getId());
-          uids.put(j, unit.getUid());
-          names.put(j, unit.getName());
+    for (int k = 1; k <= organisationUnitLevels; k++) {
+      String alias = "l" + k;
 
-          unit = unit.getParent();
-        }
+      columns
+          .append(", ")
+          .append(quote("idlevel" + k))
+          .append(", ")
+          .append(quote("uidlevel" + k))
+          .append(", ")
+          .append(quote("namelevel" + k));
+      select
+          .append(", ")
+          .append(alias)
+          .append(".organisationunitid, ")
+          .append(alias)
+          .append(".uid, ")
+          .append(alias)
+          .append(".name");
+      joins
+          .append(" left join organisationunit ")
+          .append(alias)
+          .append(" on ")
+          .append(alias)
+          .append(".uid = split_part(ou.path, '/', ")
+          .append(k + 1)
+          .append(")");
+    }
 
-        for (int k = 1; k <= organisationUnitLevels; k++) {
-          values.add(identifiers.get(k) != null ? identifiers.get(k) : null);
-          values.add(uids.get(k));
-          values.add(names.get(k));
-        }
+    String sql =
+        "insert into "
+            + getTempTableName()
+            + " ("
+            + columns
+            + ") "
+            + select
+            + " from organisationunit ou"
+            + joins
+            + " where ou.hierarchylevel between 1 and "
+            + organisationUnitLevels;
+
+    return Optional.of(sql);
+  }
 
-        batchArgs.add(values.toArray());
-      }
-    }
+  @Override
+  public Optional<List<Object[]>> getPopulateTempTableContent() {
+    return Optional.empty();
+  }
 
-    return Optional.of(batchArgs);
+  @Override
+  public Optional<String> getFingerprintStatement() {
+    return Optional.of(
+        getFingerprintStatement(
+            getRowHash(
+                "organisationunit",
+                "organisationunitid",
+                "uid",
+                "name",
+                "path",
+                "hierarchylevel")));
   }
 
   @Override
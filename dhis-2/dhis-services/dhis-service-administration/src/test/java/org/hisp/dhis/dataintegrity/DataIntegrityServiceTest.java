@@ -51,6 +51,8 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -58,14 +60,18 @@ import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import org.hisp.dhis.analytics.AggregationType;
 import org.hisp.dhis.antlr.ParserException;
 import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.cache.TestCache;
 import org.hisp.dhis.category.CategoryService;
 import org.hisp.dhis.dataelement.DataElement;
 import org.hisp.dhis.dataelement.DataElementGroup;
@@ -75,6 +81,8 @@ import org.hisp.dhis.dataintegrity.DataIntegrityDetails.DataIntegrityIssue;
 import org.hisp.dhis.dataset.DataSet;
 import org.hisp.dhis.dataset.DataSetService;
 import org.hisp.dhis.expression.ExpressionService;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.external.location.DefaultLocationManager;
 import org.hisp.dhis.i18n.I18n;
 import org.hisp.dhis.i18n.I18nManager;
@@ -100,6 +108,7 @@ import org.hisp.dhis.programrule.ProgramRuleService;
 import org.hisp.dhis.programrule.ProgramRuleVariable;
 import org.hisp.dhis.programrule.ProgramRuleVariableService;
 import org.hisp.dhis.random.BeanRandomizer;
+import org.hisp.dhis.scheduling.NoopJobProgress;
 import org.hisp.dhis.schema.SchemaService;
 import org.hisp.dhis.validation.ValidationRuleService;
 import org.junit.jupiter.api.BeforeEach;
@@ -160,6 +169,8 @@ class DataIntegrityServiceTest {
 
   @Mock private ProgramRuleActionService programRuleActionService;
 
+  @Mock private DhisConfigurationProvider config;
+
   @InjectMocks private DefaultDataIntegrityService subject;
 
   private DataElementGroup elementGroupA;
@@ -618,6 +629,92 @@ class DataIntegrityServiceTest {
     assertFalse(dataIntegrityChecks.isEmpty());
   }
 
+  @Test
+  void testRunSummaryChecks_SkipsSqlCheckWithUnchangedTables() {
+    Map<String, DataIntegritySummary> stored = setUpSummaryChecks();
+
+    Set<String> checks = Set.of("data_elements_aggregate_no_data");
+    subject.runSummaryChecks(checks, NoopJobProgress.INSTANCE);
+    subject.runSummaryChecks(checks, NoopJobProgress.INSTANCE);
+    verify(dataIntegrityStore, times(1)).querySummary(any(), anyString());
+    verify(dataIntegrityStore, times(1)).saveSummary(any(), anyString());
+    assertEquals(Set.of("data_elements_aggregate_no_data"), subject.getCompletedSummaryChecks());
+    assertEquals(1, stored.size());
+
+    when(dataIntegrityStore.getTableChangeMarker(any())).thenReturn("dataelement=2");
+    subject.runSummaryChecks(checks, NoopJobProgress.INSTANCE);
+    verify(dataIntegrityStore, times(2)).querySummary(any(), anyString());
+  }
+
+  @Test
+  void testRunSummaryChecks_UsesStoredResultAfterRestart() {
+    Map<String, DataIntegritySummary> stored = setUpSummaryChecks();
+    Set<String> checks = Set.of("data_elements_aggregate_no_data");
+    subject.runSummaryChecks(checks, NoopJobProgress.INSTANCE);
+
+    // a fresh cache as after a restart or on another node
+    when(cacheProvider.createDataIntegritySummaryCache()).thenReturn(new TestCache<>());
+    subject.init();
+    assertEquals(Map.of(), subject.getSummaries(checks, 0L));
+
+    subject.runSummaryChecks(checks, NoopJobProgress.INSTANCE);
+    verify(dataIntegrityStore, times(1)).querySummary(any(), anyString());
+    assertEquals(
+        stored.values().iterator().next(),
+        subject.getSummaries(checks, 0L).get("data_elements_aggregate_no_data"));
+  }
+
+  @Test
+  void testRunSummaryChecks_NeverReusesTimeDependentCheck() {
+    setUpSummaryChecks();
+
+    Set<String> checks = Set.of("periods_3y_future");
+    subject.runSummaryChecks(checks, NoopJobProgress.INSTANCE);
+    subject.runSummaryChecks(checks, NoopJobProgress.INSTANCE);
+    verify(dataIntegrityStore, times(2)).querySummary(any(), anyString());
+    verify(dataIntegrityStore, never()).getTableChangeMarker(any());
+    verify(dataIntegrityStore, never()).saveSummary(any(), anyString());
+  }
+
+  /**
+   * Sets up summary checks which return a count of 1, with a table change marker which does not
+   * change and a store that keeps summaries in the returned map.
+   */
+  private Map<String, DataIntegritySummary> setUpSummaryChecks() {
+    when(i18nManager.getI18n(DataIntegrityService.class)).thenReturn(i18n);
+    when(i18n.getString(anyString(), anyString())).thenReturn("default");
+    when(i18n.getString(contains("severity"), eq("WARNING"))).thenReturn("WARNING");
+    when(cacheProvider.createDataIntegritySummaryCache()).thenReturn(new TestCache<>());
+    when(config.getProperty(ConfigurationKey.SYSTEM_DATA_INTEGRITY_PARALLELISM)).thenReturn("2");
+    lenient().when(dataIntegrityStore.getTableChangeMarker(any())).thenReturn("dataelement=1");
+    when(dataIntegrityStore.querySummary(any(), anyString()))
+        .thenAnswer(
+            invocation ->
+                new DataIntegritySummary(
+                    invocation.getArgument(0), new Date(), new Date(), null, 1, null));
+    Map<String, DataIntegritySummary> stored = new ConcurrentHashMap<>();
+    lenient()
+        .doAnswer(
+            invocation ->
+                stored.put(
+                    invocation.getArgument(0, DataIntegritySummary.class).getCheck().getName()
+                        + "@"
+                        + invocation.getArgument(1),
+                    invocation.getArgument(0)))
+        .when(dataIntegrityStore)
+        .saveSummary(any(), anyString());
+    lenient()
+        .when(dataIntegrityStore.getSummary(any(), anyString()))
+        .thenAnswer(
+            invocation ->
+                stored.get(
+                    invocation.getArgument(0, DataIntegrityCheck.class).getName()
+                        + "@"
+                        + invocation.getArgument(1)));
+    subject.init();
+    return stored;
+  }
+
   private Map<String, DataElement> createRandomDataElements(int quantity, String uidSeed) {
 
     return IntStream.range(1, quantity + 1)
@@ -33,6 +33,7 @@ import static org.hisp.dhis.dataintegrity.DataIntegrityYamlReader.ResourceLocati
 import static org.hisp.dhis.dataintegrity.DataIntegrityYamlReader.readDataIntegrityYaml;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.ArrayList;
@@ -105,6 +106,20 @@ class DataIntegrityYamlReaderTest {
             .startsWith("SELECT uid,name from category"));
   }
 
+  @Test
+  void testReadDataIntegrityYaml_TimeDependentChecks() {
+    List<DataIntegrityCheck> checks = new ArrayList<>();
+    readYaml(checks, "data-integrity-checks.yaml", "data-integrity-checks", CLASS_PATH);
+
+    for (DataIntegrityCheck check : checks) {
+      String detailsSql = check.getRunDetailsCheck().apply(check).getIssues().get(0).getComment();
+      assertEquals(
+          detailsSql.toLowerCase().contains("now()"), check.isTimeDependent(), check.getName());
+      assertNotNull(check.getSqlDigest());
+    }
+    assertEquals(6, checks.stream().filter(DataIntegrityCheck::isTimeDependent).count());
+  }
+
   @Test
   void testWithValidChecksFile() {
     List<DataIntegrityCheck> checks = new ArrayList<>();
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.dataintegrity.hibernate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import javax.sql.DataSource;
+import org.hibernate.SessionFactory;
+import org.hisp.dhis.dataintegrity.DataIntegrityCheck;
+import org.hisp.dhis.dataintegrity.DataIntegrityDetails;
+import org.hisp.dhis.dataintegrity.DataIntegrityDetails.DataIntegrityIssue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+/** Tests the table change marker and stored results of {@link HibernateDataIntegrityStore}. */
+class HibernateDataIntegrityStoreTest {
+  private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+  private final JdbcTemplate readOnlyJdbcTemplate = mock(JdbcTemplate.class);
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+    when(jdbcTemplate.queryForObject(anyString(), any(RowMapper.class)))
+        .thenReturn(new String[] {"0/3000060", "dataelement=5/2/1/4"});
+  }
+
+  @Test
+  void testGetTableChangeMarkerCountsChangesSeparately() {
+    DataSource dataSource = mock(DataSource.class);
+    when(jdbcTemplate.getDataSource()).thenReturn(dataSource);
+    when(readOnlyJdbcTemplate.getDataSource()).thenReturn(dataSource);
+
+    assertEquals("dataelement=5/2/1/4", createStore().getTableChangeMarker(Set.of("dataelement")));
+    verify(jdbcTemplate)
+        .queryForObject(
+            contains("n_tup_ins || '/' || n_tup_upd || '/' || n_tup_del || '/' || n_live_tup"),
+            any(RowMapper.class));
+    verify(readOnlyJdbcTemplate, never())
+        .queryForObject(anyString(), eq(Boolean.class), anyString());
+  }
+
+  @Test
+  void testGetTableChangeMarkerReadReplicaUpToDate() {
+    useReadReplica(true);
+
+    assertEquals("dataelement=5/2/1/4", createStore().getTableChangeMarker(Set.of("dataelement")));
+    verify(readOnlyJdbcTemplate)
+        .queryForObject(contains("pg_last_wal_replay_lsn()"), eq(Boolean.class), eq("0/3000060"));
+  }
+
+  @Test
+  void testGetTableChangeMarkerReadReplicaBehind() {
+    useReadReplica(false);
+
+    assertNull(createStore().getTableChangeMarker(Set.of("dataelement")));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testSaveAndGetDetails() throws SQLException {
+    DataIntegrityCheck check = DataIntegrityCheck.builder().name("check_a").build();
+    List<DataIntegrityIssue> issues =
+        List.of(
+            new DataIntegrityIssue("uidA", "A", null, List.of("x", "y")),
+            new DataIntegrityIssue("uidB", "B", "comment", null));
+    HibernateDataIntegrityStore store = createStore();
+
+    store.saveDetails(
+        new DataIntegrityDetails(check, new Date(1000L), new Date(2000L), null, issues), "m1");
+    ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+    verify(jdbcTemplate).update(contains("on conflict (name, type)"), args.capture());
+    Object[] values = args.getValue();
+    assertEquals("check_a", values[0]);
+    assertEquals("DETAILS", values[1]);
+    assertEquals("m1", values[2]);
+
+    ResultSet rs = mock(ResultSet.class);
+    when(rs.getTimestamp(1)).thenReturn(new Timestamp(1000L));
+    when(rs.getTimestamp(2)).thenReturn(new Timestamp(2000L));
+    when(rs.getString(5)).thenReturn((String) values[7]);
+    when(jdbcTemplate.query(
+            anyString(), any(RowMapper.class), eq("check_a"), eq("DETAILS"), eq("m1")))
+        .thenAnswer(
+            invocation -> List.of(invocation.getArgument(1, RowMapper.class).mapRow(rs, 0)));
+
+    DataIntegrityDetails details = store.getDetails(check, "m1");
+    assertSame(check, details.getCheck());
+    assertEquals(new Date(1000L), details.getStartTime());
+    assertEquals(new Date(2000L), details.getFinishedTime());
+    assertEquals(2, details.getIssues().size());
+    DataIntegrityIssue issueA = details.getIssues().get(0);
+    assertEquals("uidA", issueA.getId());
+    assertEquals("A", issueA.getName());
+    assertNull(issueA.getComment());
+    assertEquals(List.of("x", "y"), issueA.getRefs());
+    DataIntegrityIssue issueB = details.getIssues().get(1);
+    assertEquals("comment", issueB.getComment());
+    assertNull(issueB.getRefs());
+
+    assertNull(store.getDetails(check, "m2"));
+  }
+
+  private void useReadReplica(boolean replayed) {
+    when(jdbcTemplate.getDataSource()).thenReturn(mock(DataSource.class));
+    when(readOnlyJdbcTemplate.getDataSource()).thenReturn(mock(DataSource.class));
+    when(readOnlyJdbcTemplate.queryForObject(anyString(), eq(Boolean.class), anyString()))
+        .thenReturn(replayed);
+  }
+
+  private HibernateDataIntegrityStore createStore() {
+    return new HibernateDataIntegrityStore(
+        mock(SessionFactory.class), jdbcTemplate, readOnlyJdbcTemplate, new ObjectMapper());
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.resourcetable.jdbc;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.hisp.dhis.analytics.AnalyticsTableHookService;
+import org.hisp.dhis.dbms.DbmsManager;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.jdbc.StatementBuilder;
+import org.hisp.dhis.resourcetable.ResourceTable;
+import org.hisp.dhis.resourcetable.table.CategoryOptionComboResourceTable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class JdbcResourceTableStoreTest {
+  @Mock private AnalyticsTableHookService analyticsTableHookService;
+
+  @Mock private DbmsManager dbmsManager;
+
+  @Mock private StatementBuilder statementBuilder;
+
+  @Mock private JdbcTemplate jdbcTemplate;
+
+  @Mock private DhisConfigurationProvider config;
+
+  @InjectMocks private JdbcResourceTableStore store;
+
+  private ResourceTable<?> table;
+
+  private String structure;
+
+  @BeforeEach
+  void setUp() {
+    table = new CategoryOptionComboResourceTable(null, "");
+    structure = Integer.toHexString(table.getCreateTempTableStatement().hashCode());
+  }
+
+  @Test
+  void testSkipUnchangedTable() {
+    mockFingerprints("abc", structure + ":abc");
+
+    store.generateResourceTable(table);
+
+    verify(jdbcTemplate, never()).execute(table.getCreateTempTableStatement());
+    verify(jdbcTemplate, never()).execute(table.getRenameTempTableStatement());
+  }
+
+  @Test
+  void testPatchChangedTable() {
+    mockFingerprints("def", structure + ":abc");
+
+    store.generateResourceTable(table);
+
+    verify(jdbcTemplate).execute(table.getCreateTempTableStatement());
+    verify(jdbcTemplate).update(startsWith("delete from " + table.getTableName()));
+    verify(jdbcTemplate).update(startsWith("insert into " + table.getTableName()));
+    verify(jdbcTemplate).execute(table.getDropTempTableStatement());
+    verify(jdbcTemplate, never()).execute(table.getRenameTempTableStatement());
+    verify(jdbcTemplate)
+        .execute("comment on table " + table.getTableName() + " is '" + structure + ":def'");
+  }
+
+  @Test
+  void testPatchComparesRowCopiesOnBothSides() {
+    mockFingerprints("def", structure + ":abc");
+    String surplus =
+        "select %s from (select r, r.ctid as rowid, md5(r::text) as hash, "
+            + "row_number() over (partition by md5(r::text)) as copy from %s r) x "
+            + "left join (select md5(o::text) as hash, count(*) as copies from %s o group by 1) y "
+            + "on x.hash = y.hash where x.copy > coalesce(y.copies, 0)";
+    String tableName = table.getTableName();
+    String tempTableName = table.getTempTableName();
+
+    store.generateResourceTable(table);
+
+    verify(jdbcTemplate)
+        .update(
+            "delete from "
+                + tableName
+                + " where ctid in ("
+                + String.format(surplus, "x.rowid", tableName, tempTableName)
+                + ")");
+    verify(jdbcTemplate)
+        .update(
+            "insert into "
+                + tableName
+                + " "
+                + String.format(surplus, "(x.r).*", tempTableName, tableName));
+  }
+
+  @Test
+  void testSwapTableWithChangedStructure() {
+    mockFingerprints("abc", "0:abc");
+
+    store.generateResourceTable(table);
+
+    verify(jdbcTemplate).execute(table.getRenameTempTableStatement());
+    verify(jdbcTemplate, never()).update(anyString());
+    verify(jdbcTemplate)
+        .execute("comment on table " + table.getTableName() + " is '" + structure + ":abc'");
+  }
+
+  @Test
+  void testSwapTableWhenChangeDetectionDisabled() {
+    when(config.isDisabled(ConfigurationKey.ANALYTICS_RESOURCE_TABLE_CHANGE_DETECTION))
+        .thenReturn(true);
+
+    store.generateResourceTable(table);
+
+    verify(jdbcTemplate).execute(table.getRenameTempTableStatement());
+    verify(jdbcTemplate, never()).queryForObject(anyString(), eq(String.class));
+  }
+
+  private void mockFingerprints(String content, String stored) {
+    when(jdbcTemplate.queryForObject(startsWith("select md5("), eq(String.class)))
+        .thenReturn(content);
+    when(jdbcTemplate.queryForObject(anyString(), eq(String.class), eq(table.getTableName())))
+        .thenReturn(stored);
+  }
+}
@@ -114,6 +114,18 @@ public class AnalyticsTable {
     return this;
   }
 
+  /**
+   * Adds a sub-partition table of a partition table to this master table.
+   *
+   * @param subPartition the sub-partition {@link AnalyticsTablePartition}.
+   * @return this analytics table.
+   */
+  public AnalyticsTable addSubPartitionTable(AnalyticsTablePartition subPartition) {
+    this.tablePartitions.add(subPartition);
+
+    return this;
+  }
+
   public String getBaseName() {
     return tableType.getTableName();
   }
@@ -174,6 +174,18 @@ public interface AnalyticsTableManager {
     // NOOP by default
   }
 
+  /**
+   * Splits the given populated table partition into monthly sub-partitions if the table statistics
+   * show that the partition is large enough. The rows of the partition are moved into the
+   * sub-partitions, which inherit the partition.
+   *
+   * @param partition the analytics table partition.
+   * @return the list of created sub-partitions, empty if the partition was not split.
+   */
+  default List<AnalyticsTablePartition> createSubPartitions(AnalyticsTablePartition partition) {
+    return List.of();
+  }
+
   /**
    * Performs vacuum or optimization of the given table. The type of operation performed is
    * dependent on the underlying DBMS.
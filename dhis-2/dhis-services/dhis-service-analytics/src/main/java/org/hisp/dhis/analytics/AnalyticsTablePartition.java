@@ -29,6 +29,8 @@ package org.hisp.dhis.analytics;
 
 import java.util.Date;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
 import org.hisp.dhis.analytics.table.PartitionUtils;
 
 /**
@@ -57,6 +59,19 @@ public class AnalyticsTablePartition {
   /** Indicates whether data approval applies to this partition. */
   private boolean dataApproval;
 
+  /**
+   * The month of this monthly sub-partition of a yearly partition, or zero for the sub-partition
+   * holding data of periods longer than a month. Null if this is not a sub-partition.
+   */
+  private Integer month;
+
+  /**
+   * The months of the sub-partitions of this yearly partition whose content is unchanged since the
+   * last table update. The existing sub-partition tables of these months are moved to this
+   * partition when it is swapped, instead of being regenerated.
+   */
+  private final Set<Integer> unchangedSubPartitions = new TreeSet<>();
+
   public AnalyticsTablePartition(
       AnalyticsTable masterTable,
       Integer year,
@@ -70,6 +85,22 @@ public class AnalyticsTablePartition {
     this.dataApproval = dataApproval;
   }
 
+  /**
+   * Creates a monthly sub-partition of the given yearly partition.
+   *
+   * @param partition the yearly {@link AnalyticsTablePartition}.
+   * @param month the month, or zero for data of periods longer than a month.
+   */
+  public AnalyticsTablePartition(AnalyticsTablePartition partition, Integer month) {
+    this(
+        partition.masterTable,
+        partition.year,
+        partition.startDate,
+        partition.endDate,
+        partition.dataApproval);
+    this.month = month;
+  }
+
   // -------------------------------------------------------------------------
   // Logic
   // -------------------------------------------------------------------------
@@ -88,6 +119,9 @@ public class AnalyticsTablePartition {
     if (year != null) {
       name += PartitionUtils.SEP + year;
     }
+    if (month != null) {
+      name = PartitionUtils.getSubPartitionName(name, month);
+    }
 
     return name;
   }
@@ -104,6 +138,10 @@ public class AnalyticsTablePartition {
     return Objects.equals(year, LATEST_PARTITION);
   }
 
+  public boolean isSubPartition() {
+    return month != null;
+  }
+
   public AnalyticsTable getMasterTable() {
     return masterTable;
   }
@@ -124,6 +162,18 @@ public class AnalyticsTablePartition {
     return dataApproval;
   }
 
+  public Integer getMonth() {
+    return month;
+  }
+
+  public void addUnchangedSubPartition(Integer month) {
+    this.unchangedSubPartitions.add(month);
+  }
+
+  public Set<Integer> getUnchangedSubPartitions() {
+    return unchangedSubPartitions;
+  }
+
   @Override
   public String toString() {
     return getTableName();
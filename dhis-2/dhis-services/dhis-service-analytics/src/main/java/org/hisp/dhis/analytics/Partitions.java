@@ -27,7 +27,10 @@
  */
 package org.hisp.dhis.analytics;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 /**
@@ -39,6 +42,12 @@ public class Partitions {
   /** Yearly partitions containing four-digit years. */
   private Set<Integer> partitions = new HashSet<>();
 
+  /**
+   * Monthly sub-partitions to query instead of the full yearly partition, mapped by year. Yearly
+   * partitions without sub-partitions are queried in full.
+   */
+  private Map<Integer, Set<Integer>> subPartitions = new HashMap<>();
+
   // -------------------------------------------------------------------------
   // Constructors
   // -------------------------------------------------------------------------
@@ -52,6 +61,11 @@ public class Partitions {
   public Partitions(Partitions partitions) {
     this.partitions =
         partitions != null ? new HashSet<>(partitions.getPartitions()) : new HashSet<Integer>();
+
+    if (partitions != null) {
+      partitions.subPartitions.forEach(
+          (year, months) -> this.subPartitions.put(year, new HashSet<>(months)));
+    }
   }
 
   // -------------------------------------------------------------------------
@@ -64,6 +78,25 @@ public class Partitions {
     return this;
   }
 
+  /** Adds a monthly sub-partition of the given yearly partition. */
+  public Partitions addSubPartition(Integer partition, Integer month) {
+    subPartitions.computeIfAbsent(partition, k -> new HashSet<>()).add(month);
+    return this;
+  }
+
+  /**
+   * Returns the monthly sub-partitions of the given yearly partition, or an empty set if the
+   * partition is to be queried in full.
+   */
+  public Set<Integer> getSubPartitions(Integer partition) {
+    return subPartitions.getOrDefault(partition, Set.of());
+  }
+
+  /** Indicates whether this instance has any sub-partitions. */
+  public boolean hasSubPartitions() {
+    return !subPartitions.isEmpty();
+  }
+
   /** Indicates whether this instance contains multiple partitions. */
   public boolean isMultiple() {
     return partitions != null && partitions.size() > 1;
@@ -95,12 +128,14 @@ public class Partitions {
 
   @Override
   public String toString() {
-    return partitions.toString();
+    return subPartitions.isEmpty()
+        ? partitions.toString()
+        : partitions.toString() + subPartitions.toString();
   }
 
   @Override
   public int hashCode() {
-    return partitions.hashCode();
+    return Objects.hash(partitions, subPartitions);
   }
 
   @Override
@@ -119,7 +154,7 @@ public class Partitions {
 
     Partitions other = (Partitions) object;
 
-    return partitions.equals(other.partitions);
+    return partitions.equals(other.partitions) && subPartitions.equals(other.subPartitions);
   }
 
   // -------------------------------------------------------------------------
@@ -30,6 +30,7 @@ package org.hisp.dhis.analytics.analyze;
 import java.util.List;
 import org.hisp.dhis.analytics.common.SqlQuery;
 import org.hisp.dhis.common.ExecutionPlan;
+import org.hisp.dhis.common.PerformanceMetrics;
 
 /**
  * Responsible for providing methods responsible for executing/explaining SQL statements, and making
@@ -62,9 +63,62 @@ public interface ExecutionPlanStore {
   List<ExecutionPlan> getExecutionPlans(String key);
 
   /**
-   * Removes all {@link ExecutionPlan} objects associated with the given "key".
+   * Adds the time spent queued and executing for queries associated with the given "key". Times
+   * added for the same key are summed.
+   *
+   * @param key the unique key associated with {@link ExecutionPlan} objects.
+   * @param queueTimeInMillis the time in milliseconds the queries waited for execution.
+   * @param sqlTimeInMillis the time in milliseconds the queries executed.
+   */
+  void addQueryTimes(String key, double queueTimeInMillis, double sqlTimeInMillis);
+
+  /**
+   * Returns the query times associated with the given "key".
+   *
+   * @param key the unique key associated with {@link ExecutionPlan} objects.
+   * @return {@link PerformanceMetrics} with the queue time and SQL time, or null if none.
+   */
+  PerformanceMetrics getQueryTimes(String key);
+
+  /**
+   * Removes all {@link ExecutionPlan} objects and query times associated with the given "key".
    *
    * @param key the unique key associated with {@link ExecutionPlan} objects.
    */
   void removeExecutionPlans(String key);
+
+  /**
+   * Indicates whether the next analytics SQL query should be profiled, based on the configured
+   * sample rate.
+   *
+   * @return true if the query should be profiled.
+   */
+  boolean isQueryProfileSampled();
+
+  /**
+   * Adds the given sample to the {@link QueryProfile} of its query shape. When the max number of
+   * query shapes is reached, a batch of the profiles with the lowest total SQL time is evicted.
+   *
+   * @param sample the {@link QuerySample}.
+   */
+  void addQueryProfile(QuerySample sample);
+
+  /**
+   * Returns the {@link QueryProfile} objects with the highest max SQL time.
+   *
+   * @param max the max number of profiles to return.
+   * @return a list of {@link QueryProfile} sorted by max SQL time, slowest first.
+   */
+  List<QueryProfile> getSlowestQueryProfiles(int max);
+
+  /**
+   * Returns the {@link QueryProfile} objects with the highest number of executions.
+   *
+   * @param max the max number of profiles to return.
+   * @return a list of {@link QueryProfile} sorted by count, most frequent first.
+   */
+  List<QueryProfile> getMostFrequentQueryProfiles(int max);
+
+  /** Removes all {@link QueryProfile} objects. */
+  void removeQueryProfiles();
 }
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.analyze;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Date;
+import java.util.List;
+import java.util.regex.Pattern;
+import lombok.Getter;
+import org.apache.commons.math3.util.Precision;
+
+/**
+ * Profile of an analytics SQL query shape. Queries which only differ by literal values have the
+ * same shape. The profile aggregates the sampled executions of the shape and holds the statement
+ * and planner decisions of the latest sample.
+ */
+@Getter
+public class QueryProfile {
+  private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+
+  private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+
+  private static final Pattern LITERAL_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  @JsonProperty private final String shape;
+
+  @JsonProperty private String sql;
+
+  @JsonProperty private String tableName;
+
+  @JsonProperty private List<String> partitions;
+
+  @JsonProperty private String periodType;
+
+  @JsonProperty private long count;
+
+  @JsonProperty private long rows;
+
+  @JsonProperty private double totalSqlTimeInMillis;
+
+  @JsonProperty private double maxSqlTimeInMillis;
+
+  @JsonProperty private double totalPostProcessingTimeInMillis;
+
+  @JsonProperty private Date lastExecuted;
+
+  public QueryProfile(String shape) {
+    this.shape = shape;
+  }
+
+  /**
+   * Copy constructor.
+   *
+   * @param profile the {@link QueryProfile} to copy.
+   */
+  public QueryProfile(QueryProfile profile) {
+    this.shape = profile.shape;
+    this.sql = profile.sql;
+    this.tableName = profile.tableName;
+    this.partitions = profile.partitions;
+    this.periodType = profile.periodType;
+    this.count = profile.count;
+    this.rows = profile.rows;
+    this.totalSqlTimeInMillis = profile.totalSqlTimeInMillis;
+    this.maxSqlTimeInMillis = profile.maxSqlTimeInMillis;
+    this.totalPostProcessingTimeInMillis = profile.totalPostProcessingTimeInMillis;
+    this.lastExecuted = profile.lastExecuted;
+  }
+
+  /**
+   * Adds the given sample to this profile.
+   *
+   * @param sample the {@link QuerySample}.
+   */
+  public void add(QuerySample sample) {
+    this.sql = sample.sql();
+    this.tableName = sample.tableName();
+    this.partitions = sample.partitions();
+    this.periodType = sample.periodType();
+    this.rows = sample.rows();
+    this.count++;
+    this.totalSqlTimeInMillis = Precision.round(totalSqlTimeInMillis + sample.sqlTimeInMillis(), 3);
+    this.maxSqlTimeInMillis = Math.max(maxSqlTimeInMillis, sample.sqlTimeInMillis());
+    this.totalPostProcessingTimeInMillis =
+        Precision.round(totalPostProcessingTimeInMillis + sample.postProcessingTimeInMillis(), 3);
+    this.lastExecuted = new Date();
+  }
+
+  @JsonProperty
+  public double getAverageSqlTimeInMillis() {
+    return count > 0 ? Precision.round(totalSqlTimeInMillis / count, 3) : 0d;
+  }
+
+  /**
+   * Returns the shape of the given SQL statement, where string and number literals are replaced by
+   * placeholders, lists of literals are collapsed to a single placeholder and whitespace is
+   * normalized.
+   *
+   * @param sql the SQL statement.
+   * @return the shape of the SQL statement.
+   */
+  public static String getShape(String sql) {
+    String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+    shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+    shape = LITERAL_LIST.matcher(shape).replaceAll("(?)");
+    return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+  }
+}
@@ -36,17 +36,23 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nonnull;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.math3.util.Precision;
 import org.hisp.dhis.analytics.common.SqlQuery;
 import org.hisp.dhis.common.ExecutionPlan;
+import org.hisp.dhis.common.PerformanceMetrics;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
@@ -60,8 +66,20 @@ import org.springframework.stereotype.Service;
 @Slf4j
 @Service
 public class RequestExecutionPlanStore implements ExecutionPlanStore {
+  /** Divisor of the number of query profiles giving the number to evict when full. */
+  private static final int PROFILING_EVICTION_DIVISOR = 4;
+
   private final Map<String, List<ExecutionPlan>> executionPlanMap = new HashMap<>();
 
+  private final Map<String, PerformanceMetrics> queryTimesMap = new ConcurrentHashMap<>();
+
+  /** Query profiles by query shape. Guarded by this. */
+  private final Map<String, QueryProfile> queryProfiles = new HashMap<>();
+
+  private final double profilingSampleRate;
+
+  private final int profilingMaxShapes;
+
   @Nonnull private final JdbcTemplate jdbcTemplate;
 
   @Nonnull
@@ -71,8 +89,14 @@ public class RequestExecutionPlanStore implements ExecutionPlanStore {
   @Nonnull private final ScheduledExecutorService executorService;
 
   public RequestExecutionPlanStore(
-      @Qualifier("executionPlanJdbcTemplate") JdbcTemplate jdbcTemplate) {
+      @Qualifier("executionPlanJdbcTemplate") JdbcTemplate jdbcTemplate,
+      DhisConfigurationProvider config) {
     this.jdbcTemplate = jdbcTemplate;
+    this.profilingSampleRate =
+        Double.parseDouble(
+            config.getProperty(ConfigurationKey.ANALYTICS_QUERY_PROFILING_SAMPLE_RATE));
+    this.profilingMaxShapes =
+        Integer.parseInt(config.getProperty(ConfigurationKey.ANALYTICS_QUERY_PROFILING_MAX_SHAPES));
     this.executorService = Executors.newScheduledThreadPool(10);
     this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
   }
@@ -111,9 +135,93 @@ public class RequestExecutionPlanStore implements ExecutionPlanStore {
     return new ArrayList<>();
   }
 
+  @Override
+  public void addQueryTimes(String key, double queueTimeInMillis, double sqlTimeInMillis) {
+    queryTimesMap.compute(
+        key,
+        (k, times) -> {
+          PerformanceMetrics metrics = times != null ? times : new PerformanceMetrics();
+          metrics.setQueueTimeInMillis(
+              Precision.round(metrics.getQueueTimeInMillis() + queueTimeInMillis, 3));
+          metrics.setSqlTimeInMillis(
+              Precision.round(metrics.getSqlTimeInMillis() + sqlTimeInMillis, 3));
+          return metrics;
+        });
+  }
+
+  @Override
+  public PerformanceMetrics getQueryTimes(String key) {
+    return queryTimesMap.get(key);
+  }
+
   @Override
   public void removeExecutionPlans(String key) {
     executorService.schedule(() -> executionPlanMap.remove(key), 2, TimeUnit.SECONDS);
+    executorService.schedule(() -> queryTimesMap.remove(key), 2, TimeUnit.SECONDS);
+  }
+
+  @Override
+  public boolean isQueryProfileSampled() {
+    return profilingSampleRate > 0
+        && ThreadLocalRandom.current().nextDouble() < profilingSampleRate;
+  }
+
+  @Override
+  public synchronized void addQueryProfile(QuerySample sample) {
+    String shape = QueryProfile.getShape(sample.sql());
+
+    if (!queryProfiles.containsKey(shape) && queryProfiles.size() >= profilingMaxShapes) {
+      evictQueryProfiles();
+    }
+
+    queryProfiles.computeIfAbsent(shape, QueryProfile::new).add(sample);
+  }
+
+  /**
+   * Evicts the quarter of the query profiles with the lowest total SQL time, at least one. Evicting
+   * in batches leaves room for new shapes to collect samples before the next eviction, rather than
+   * having each new shape evict the previous one.
+   */
+  private void evictQueryProfiles() {
+    int evictions = Math.max(1, queryProfiles.size() / PROFILING_EVICTION_DIVISOR);
+
+    queryProfiles.values().stream()
+        .sorted(Comparator.comparingDouble(QueryProfile::getTotalSqlTimeInMillis))
+        .limit(evictions)
+        .map(QueryProfile::getShape)
+        .toList()
+        .forEach(queryProfiles::remove);
+  }
+
+  @Override
+  public List<QueryProfile> getSlowestQueryProfiles(int max) {
+    return getQueryProfiles(Comparator.comparingDouble(QueryProfile::getMaxSqlTimeInMillis), max);
+  }
+
+  @Override
+  public List<QueryProfile> getMostFrequentQueryProfiles(int max) {
+    return getQueryProfiles(Comparator.comparingLong(QueryProfile::getCount), max);
+  }
+
+  @Override
+  public synchronized void removeQueryProfiles() {
+    queryProfiles.clear();
+  }
+
+  /**
+   * Returns copies of the query profiles sorted in descending order by the given comparator.
+   *
+   * @param comparator the {@link Comparator}.
+   * @param max the max number of profiles to return.
+   * @return a list of {@link QueryProfile}.
+   */
+  private synchronized List<QueryProfile> getQueryProfiles(
+      Comparator<QueryProfile> comparator, int max) {
+    return queryProfiles.values().stream()
+        .sorted(comparator.reversed())
+        .limit(Math.max(0, max))
+        .map(QueryProfile::new)
+        .toList();
   }
 
   /**
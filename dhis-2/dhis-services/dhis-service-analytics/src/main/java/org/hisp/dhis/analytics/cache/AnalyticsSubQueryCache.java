@@ -0,0 +1,318 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.cache;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.hisp.dhis.common.DimensionalObject.DIMENSION_SEP;
+import static org.hisp.dhis.common.DimensionalObject.ORGUNIT_DIM_ID;
+import static org.hisp.dhis.common.DimensionalObject.PERIOD_DIM_ID;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.QueryKey;
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.common.DimensionalItemObject;
+import org.hisp.dhis.common.DimensionalObject;
+import org.hisp.dhis.period.Period;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache for the results of the sub-queries which the query planner produces for aggregate data
+ * queries. Results are cached in slices, one entry per period, holding the values of each org unit
+ * separately. A sub-query which overlaps with previously executed sub-queries is narrowed down to
+ * the periods and org units which are not cached, so that only the missing slices are computed.
+ *
+ * <p>Slices are keyed on the normalized data items, filters, aggregation type and the remaining
+ * properties of the sub-query which affect the SQL, independently of the order of the items and of
+ * the partitions of the sub-query.
+ */
+@Slf4j
+@Component
+public class AnalyticsSubQueryCache {
+  /** Slice key used for the values of a sub-query without an org unit dimension. */
+  private static final String NO_ORG_UNIT = "";
+
+  private final AnalyticsCacheSettings analyticsCacheSettings;
+
+  private final Cache<Map<String, Map<String, Object>>> sliceCache;
+
+  public AnalyticsSubQueryCache(
+      CacheProvider cacheProvider, AnalyticsCacheSettings analyticsCacheSettings) {
+    checkNotNull(cacheProvider);
+    checkNotNull(analyticsCacheSettings);
+
+    this.analyticsCacheSettings = analyticsCacheSettings;
+    this.sliceCache = cacheProvider.createAnalyticsSubQueryCache();
+  }
+
+  /**
+   * Indicates whether the results of the given sub-query can be cached in slices. This requires
+   * periods to be a dimension, and the values of each period and org unit to be independent of the
+   * other periods and org units of the sub-query.
+   *
+   * @param params the sub-query {@link DataQueryParams}.
+   * @return true if the given sub-query can be cached.
+   */
+  public boolean isCacheable(DataQueryParams params) {
+    return analyticsCacheSettings.isCachingEnabled()
+        && !params.analyzeOnly()
+        && params.getAggregationType() != null
+        && !params.getAggregationType().isFirstOrLastOrLastInPeriodAggregationType()
+        && !params.isDisaggregation()
+        && !params.hasSubexpressions()
+        && !params.isDataApproval()
+        && !params.isTimely()
+        && !params.hasStartDate()
+        && !params.hasEndDate()
+        && !params.hasStartEndDateRestriction()
+        && !params.isRestrictByOrgUnitOpeningClosedDate()
+        && !params.isRestrictByCategoryOptionStartEndDate()
+        && isSliceDimension(params.getDimension(PERIOD_DIM_ID))
+        && (params.getDimension(ORGUNIT_DIM_ID) == null
+            || isSliceDimension(params.getDimension(ORGUNIT_DIM_ID)));
+  }
+
+  /**
+   * Looks up the cached slices of the given sub-query.
+   *
+   * @param params the sub-query {@link DataQueryParams}, must be cacheable.
+   * @return the {@link SubQuery} holding the cached values and the remaining query, if any.
+   */
+  public SubQuery getSubQuery(DataQueryParams params) {
+    String key = getKey(params);
+    List<String> orgUnits = getOrgUnits(params);
+
+    Map<String, Object> values = new HashMap<>();
+    List<DimensionalItemObject> missingPeriods = new ArrayList<>();
+    Set<String> missingOrgUnits = new LinkedHashSet<>();
+    boolean uncachedPeriods = false;
+
+    for (DimensionalItemObject period : params.getPeriods()) {
+      Optional<Map<String, Map<String, Object>>> slice = sliceCache.get(getSliceKey(key, period));
+
+      if (slice.isEmpty()) {
+        missingPeriods.add(period);
+        uncachedPeriods = true;
+        continue;
+      }
+
+      boolean complete = true;
+
+      for (String orgUnit : orgUnits) {
+        Map<String, Object> orgUnitValues = slice.get().get(orgUnit);
+
+        if (orgUnitValues == null) {
+          missingOrgUnits.add(orgUnit);
+          complete = false;
+        } else {
+          values.putAll(orgUnitValues);
+        }
+      }
+
+      if (!complete) {
+        missingPeriods.add(period);
+      }
+    }
+
+    if (missingPeriods.isEmpty()) {
+      return new SubQuery(values, null);
+    }
+
+    DataQueryParams.Builder remaining = DataQueryParams.newBuilder(params);
+
+    DimensionalObject periodDim = params.getDimension(PERIOD_DIM_ID);
+    remaining.addOrSetDimensionOptions(
+        PERIOD_DIM_ID, periodDim.getDimensionType(), periodDim.getDimensionName(), missingPeriods);
+
+    // Narrow down org units only when all missing periods are partially
+    // cached, otherwise the remaining query must cover all org units
+
+    if (!uncachedPeriods) {
+      DimensionalObject orgUnitDim = params.getDimension(ORGUNIT_DIM_ID);
+      remaining.addOrSetDimensionOptions(
+          ORGUNIT_DIM_ID,
+          orgUnitDim.getDimensionType(),
+          orgUnitDim.getDimensionName(),
+          orgUnitDim.getItems().stream()
+              .filter(ou -> missingOrgUnits.contains(ou.getDimensionItem()))
+              .toList());
+    }
+
+    return new SubQuery(values, remaining.build());
+  }
+
+  /**
+   * Caches the values of the given sub-query in slices.
+   *
+   * @param params the sub-query {@link DataQueryParams}, must be cacheable.
+   * @param values the values of the sub-query.
+   */
+  public void put(DataQueryParams params, Map<String, Object> values) {
+    String key = getKey(params);
+    List<String> orgUnits = getOrgUnits(params);
+    int dimensionCount = params.getDimensions().size();
+    int periodIndex = params.getPeriodDimensionIndex();
+    int orgUnitIndex = params.getDimensions().indexOf(params.getDimension(ORGUNIT_DIM_ID));
+
+    Map<String, Map<String, Map<String, Object>>> slices = new HashMap<>();
+
+    for (Map.Entry<String, Object> entry : values.entrySet()) {
+      String[] items = entry.getKey().split(DIMENSION_SEP, -1);
+
+      if (items.length != dimensionCount) {
+        log.debug("Sub-query result key not sliceable: '{}'", entry.getKey());
+        return;
+      }
+
+      String orgUnit = orgUnitIndex == -1 ? NO_ORG_UNIT : items[orgUnitIndex];
+
+      slices
+          .computeIfAbsent(items[periodIndex], k -> new HashMap<>())
+          .computeIfAbsent(orgUnit, k -> new HashMap<>())
+          .put(entry.getKey(), entry.getValue());
+    }
+
+    for (DimensionalItemObject period : params.getPeriods()) {
+      String sliceKey = getSliceKey(key, period);
+      Map<String, Map<String, Object>> periodValues =
+          slices.getOrDefault(period.getDimensionItem(), Map.of());
+
+      Map<String, Map<String, Object>> slice =
+          new HashMap<>(sliceCache.get(sliceKey).orElse(Map.of()));
+
+      for (String orgUnit : orgUnits) {
+        slice.put(orgUnit, periodValues.getOrDefault(orgUnit, new HashMap<>()));
+      }
+
+      sliceCache.put(sliceKey, slice, getTimeToLive(period));
+    }
+  }
+
+  /** Clears the current cache by removing all existing entries. */
+  public void invalidateAll() {
+    sliceCache.invalidateAll();
+
+    log.info("Analytics sub-query cache cleared");
+  }
+
+  // -------------------------------------------------------------------------
+  // Supportive methods
+  // -------------------------------------------------------------------------
+
+  /**
+   * Returns a key for the given sub-query which excludes the period and org unit items. Items of
+   * the remaining dimensions and filters are sorted.
+   */
+  String getKey(DataQueryParams params) {
+    QueryKey key =
+        new QueryKey()
+            .add("tableName", params.getTableName())
+            .add("dataType", params.getDataType())
+            .add("aggregationType", params.getAggregationType())
+            .addIgnoreNull("periodType", params.getPeriodType());
+
+    for (DimensionalObject dimension : params.getDimensions()) {
+      key.add("dimension", dimension.getDimension())
+          .add("dimensionName", dimension.getDimensionName())
+          .add("queryMods", params.getQueryModsId(dimension))
+          .addIgnoreNull("filter", dimension.getFilter());
+
+      if (!PERIOD_DIM_ID.equals(dimension.getDimension())
+          && !ORGUNIT_DIM_ID.equals(dimension.getDimension())) {
+        key.add("items", getSortedItems(dimension));
+      }
+    }
+
+    for (DimensionalObject filter : params.getFilters()) {
+      key.add("filter", filter.getDimension())
+          .add("dimensionName", filter.getDimensionName())
+          .add("items", getSortedItems(filter));
+    }
+
+    return key.add("measureCriteria", params.getMeasureCriteria())
+        .add("preAggregateMeasureCriteria", params.getPreAggregateMeasureCriteria())
+        .build();
+  }
+
+  private String getSliceKey(String key, DimensionalItemObject period) {
+    return key + DIMENSION_SEP + period.getDimensionItem();
+  }
+
+  private List<String> getOrgUnits(DataQueryParams params) {
+    DimensionalObject orgUnitDim = params.getDimension(ORGUNIT_DIM_ID);
+
+    return orgUnitDim == null
+        ? List.of(NO_ORG_UNIT)
+        : orgUnitDim.getItems().stream().map(DimensionalItemObject::getDimensionItem).toList();
+  }
+
+  private String getSortedItems(DimensionalObject dimension) {
+    return String.join(
+        ",",
+        dimension.getItems().stream()
+            .map(DimensionalItemObject::getDimensionItem)
+            .sorted()
+            .toList());
+  }
+
+  private boolean isSliceDimension(DimensionalObject dimension) {
+    return dimension != null && !dimension.isFixed() && dimension.getDimensionName() != null;
+  }
+
+  private long getTimeToLive(DimensionalItemObject period) {
+    if (analyticsCacheSettings.isProgressiveCachingEnabled() && period instanceof Period) {
+      return analyticsCacheSettings.progressiveExpirationTimeOrDefault(
+          ((Period) period).getEndDate());
+    }
+
+    return analyticsCacheSettings.fixedExpirationTimeOrDefault();
+  }
+
+  /** Cached values of a sub-query and the query for the values which are not cached, if any. */
+  @Getter
+  @RequiredArgsConstructor
+  public static class SubQuery {
+    private final Map<String, Object> cachedValues;
+
+    private final DataQueryParams remainingQuery;
+
+    public Optional<DataQueryParams> getRemainingQuery() {
+      return Optional.ofNullable(remainingQuery);
+    }
+  }
+}
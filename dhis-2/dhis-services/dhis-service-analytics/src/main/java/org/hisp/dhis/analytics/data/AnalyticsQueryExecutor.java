@@ -0,0 +1,399 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.data;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.hisp.dhis.external.conf.ConfigurationKey.ANALYTICS_QUERY_REQUEST_CONCURRENCY;
+import static org.hisp.dhis.external.conf.ConfigurationKey.ANALYTICS_QUERY_THREADS;
+import static org.hisp.dhis.external.conf.ConfigurationKey.ANALYTICS_QUERY_TIMEOUT;
+import static org.hisp.dhis.external.conf.ConfigurationKey.ANALYTICS_QUERY_USER_CONCURRENCY;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.hisp.dhis.common.QueryRuntimeException;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.feedback.ErrorCode;
+import org.hisp.dhis.user.CurrentUserUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Executes analytics SQL queries on a dedicated thread pool. Queued queries of the least recently
+ * served user are started first, subject to a per-user and a per-request concurrency limit, so that
+ * a single large request cannot take over the pool. A request is identified by the thread
+ * submitting the queries.
+ *
+ * <p>Cancelling a query cancels its running JDBC statement, see {@link
+ * #registerStatement(Statement)}. Queries are cancelled when the configured deadline passes while
+ * waiting for them.
+ */
+@Slf4j
+@Component
+public class AnalyticsQueryExecutor {
+  private static final ThreadLocal<QueryTask<?>> CURRENT_TASK = new ThreadLocal<>();
+
+  private static final String SYSTEM_USER = "system";
+
+  private final int threads;
+
+  private final int userConcurrency;
+
+  private final int requestConcurrency;
+
+  private final long timeoutMillis;
+
+  private final ExecutorService executor;
+
+  /** Queued tasks by user, in order of submission. Guarded by this. */
+  private final Map<String, Deque<QueryTask<?>>> queued = new LinkedHashMap<>();
+
+  /**
+   * Sequence number of the last task started by user, for users with queued or running tasks.
+   * Guarded by this.
+   */
+  private final Map<String, Long> lastServed = new HashMap<>();
+
+  /** Number of tasks started. Guarded by this. */
+  private long served;
+
+  /** Number of running tasks by user. Guarded by this. */
+  private final Map<String, Integer> runningByUser = new HashMap<>();
+
+  /** Number of running tasks by request. Guarded by this. */
+  private final Map<Long, Integer> runningByRequest = new HashMap<>();
+
+  /** Number of running tasks. Guarded by this. */
+  private int running;
+
+  @Autowired
+  public AnalyticsQueryExecutor(DhisConfigurationProvider config) {
+    this(
+        Integer.parseInt(config.getProperty(ANALYTICS_QUERY_THREADS)),
+        Integer.parseInt(config.getProperty(ANALYTICS_QUERY_USER_CONCURRENCY)),
+        Integer.parseInt(config.getProperty(ANALYTICS_QUERY_REQUEST_CONCURRENCY)),
+        Long.parseLong(config.getProperty(ANALYTICS_QUERY_TIMEOUT)) * 1000);
+  }
+
+  AnalyticsQueryExecutor(
+      int threads, int userConcurrency, int requestConcurrency, long timeoutMillis) {
+    this.threads = Math.max(1, threads);
+    this.userConcurrency = Math.max(1, userConcurrency);
+    this.requestConcurrency = Math.max(1, requestConcurrency);
+    this.timeoutMillis = Math.max(0, timeoutMillis);
+    this.executor =
+        Executors.newFixedThreadPool(
+            this.threads,
+            new ThreadFactoryBuilder().setNameFormat("analytics-query-%d").setDaemon(true).build());
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Submits the given query on behalf of the current user and request.
+   *
+   * @param query the query to execute.
+   * @return a {@link QueryTask} representing the pending query.
+   */
+  public <T> QueryTask<T> submit(Callable<T> query) {
+    return submit(Objects.toString(CurrentUserUtil.getCurrentUsername(), SYSTEM_USER), query);
+  }
+
+  <T> QueryTask<T> submit(String user, Callable<T> query) {
+    QueryTask<T> task = new QueryTask<>(query, user, Thread.currentThread().getId());
+
+    synchronized (this) {
+      queued.computeIfAbsent(user, key -> new ArrayDeque<>()).add(task);
+    }
+
+    schedule();
+
+    return task;
+  }
+
+  /**
+   * Registers the given statement with the query executing on the current thread, if any, so that
+   * the statement is cancelled when the query is cancelled. Applies the remaining time until the
+   * query deadline as statement timeout. Can be used as a {@link
+   * org.springframework.jdbc.core.PreparedStatementSetter}.
+   *
+   * @param statement the {@link Statement} about to be executed.
+   * @throws SQLException if the statement could not be configured.
+   */
+  public static void registerStatement(Statement statement) throws SQLException {
+    QueryTask<?> task = CURRENT_TASK.get();
+
+    if (task == null) {
+      return;
+    }
+
+    task.statement = statement;
+
+    if (task.hasDeadline()) {
+      long remainingMillis = Math.max(1, (task.deadline - System.nanoTime()) / 1_000_000);
+      statement.setQueryTimeout((int) Math.ceil(remainingMillis / 1000d));
+    }
+
+    if (task.isCancelled()) {
+      statement.cancel();
+    }
+  }
+
+  // -------------------------------------------------------------------------
+  // Supportive methods
+  // -------------------------------------------------------------------------
+
+  /** Starts queued tasks as long as threads are available and tasks are eligible. */
+  private void schedule() {
+    List<QueryTask<?>> admitted = new ArrayList<>();
+
+    synchronized (this) {
+      QueryTask<?> task;
+
+      while (running < threads && (task = pollEligible()) != null) {
+        running++;
+        runningByUser.merge(task.user, 1, Integer::sum);
+        runningByRequest.merge(task.request, 1, Integer::sum);
+        admitted.add(task);
+      }
+    }
+
+    for (QueryTask<?> task : admitted) {
+      try {
+        executor.execute(task);
+      } catch (RejectedExecutionException ex) {
+        task.cancel(false);
+        complete(task);
+      }
+    }
+  }
+
+  /**
+   * Removes and returns the next queued task which is within the concurrency limits. Tasks of the
+   * least recently served user are preferred, and tasks of the same user are started in order of
+   * submission.
+   *
+   * @return a {@link QueryTask}, or null if no task is eligible.
+   */
+  private QueryTask<?> pollEligible() {
+    QueryTask<?> next = null;
+
+    for (Map.Entry<String, Deque<QueryTask<?>>> user : queued.entrySet()) {
+      if (runningByUser.getOrDefault(user.getKey(), 0) >= userConcurrency
+          || (next != null && getLastServed(user.getKey()) >= getLastServed(next.user))) {
+        continue;
+      }
+
+      for (QueryTask<?> task : user.getValue()) {
+        if (runningByRequest.getOrDefault(task.request, 0) < requestConcurrency) {
+          next = task;
+          break;
+        }
+      }
+    }
+
+    if (next != null) {
+      Deque<QueryTask<?>> tasks = queued.get(next.user);
+      tasks.remove(next);
+
+      if (tasks.isEmpty()) {
+        queued.remove(next.user);
+      }
+
+      lastServed.put(next.user, ++served);
+    }
+
+    return next;
+  }
+
+  private long getLastServed(String user) {
+    return lastServed.getOrDefault(user, 0L);
+  }
+
+  private void complete(QueryTask<?> task) {
+    synchronized (this) {
+      running--;
+      runningByUser.computeIfPresent(task.user, (key, count) -> count > 1 ? count - 1 : null);
+      runningByRequest.computeIfPresent(task.request, (key, count) -> count > 1 ? count - 1 : null);
+      removeIfIdle(task.user);
+    }
+
+    schedule();
+  }
+
+  private synchronized void dequeue(QueryTask<?> task) {
+    Deque<QueryTask<?>> tasks = queued.get(task.user);
+
+    if (tasks != null && tasks.remove(task) && tasks.isEmpty()) {
+      queued.remove(task.user);
+      removeIfIdle(task.user);
+    }
+  }
+
+  /** Forgets when the given user was last served if the user has no queued or running tasks. */
+  private void removeIfIdle(String user) {
+    if (!queued.containsKey(user) && !runningByUser.containsKey(user)) {
+      lastServed.remove(user);
+    }
+  }
+
+  /** A query submitted to the {@link AnalyticsQueryExecutor}. */
+  public final class QueryTask<T> extends FutureTask<T> {
+    private final String user;
+
+    private final long request;
+
+    private final long submitted = System.nanoTime();
+
+    /** Deadline in nanos, only applicable if a timeout is configured. */
+    private final long deadline;
+
+    private long started;
+
+    /** Time in nanos queued before the task started, or -1 if not yet started. */
+    private volatile long queueNanos = -1;
+
+    /** Time in nanos the task executed, or -1 if not yet finished. */
+    private volatile long sqlNanos = -1;
+
+    private volatile Statement statement;
+
+    private QueryTask(Callable<T> query, String user, long request) {
+      super(query);
+      this.user = user;
+      this.request = request;
+      this.deadline = submitted + timeoutMillis * 1_000_000;
+    }
+
+    @Override
+    public void run() {
+      started = System.nanoTime();
+      queueNanos = started - submitted;
+      CURRENT_TASK.set(this);
+
+      try {
+        super.run();
+      } finally {
+        CURRENT_TASK.remove();
+        statement = null;
+        sqlNanos = System.nanoTime() - started;
+        complete(this);
+      }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      boolean cancelled = super.cancel(mayInterruptIfRunning);
+
+      if (cancelled) {
+        dequeue(this);
+        cancelStatement();
+      }
+
+      return cancelled;
+    }
+
+    /**
+     * Waits for the query to complete, at most until the deadline. The query is cancelled if the
+     * deadline passes or the waiting thread is interrupted.
+     *
+     * @return the query result.
+     * @throws ExecutionException if the query failed.
+     * @throws QueryRuntimeException if the query was cancelled or timed out.
+     */
+    public T await() throws ExecutionException {
+      try {
+        return hasDeadline()
+            ? get(Math.max(0, deadline - System.nanoTime()), NANOSECONDS)
+            : get();
+      } catch (TimeoutException ex) {
+        cancel(true);
+        throw new QueryRuntimeException(ErrorCode.E7131);
+      } catch (InterruptedException ex) {
+        cancel(true);
+        Thread.currentThread().interrupt();
+        throw new QueryRuntimeException(ErrorCode.E7131);
+      } catch (CancellationException ex) {
+        throw new QueryRuntimeException(ErrorCode.E7131);
+      }
+    }
+
+    private boolean hasDeadline() {
+      return timeoutMillis > 0;
+    }
+
+    /** Returns the time in milliseconds the query waited before it started. */
+    public double getQueueTimeInMillis() {
+      long queue = queueNanos;
+      return (queue >= 0 ? queue : System.nanoTime() - submitted) / 1_000_000d;
+    }
+
+    /** Returns the time in milliseconds the query executed, or 0 if not yet started. */
+    public double getSqlTimeInMillis() {
+      if (queueNanos < 0) {
+        return 0;
+      }
+
+      long sql = sqlNanos;
+      return (sql >= 0 ? sql : System.nanoTime() - started) / 1_000_000d;
+    }
+
+    private void cancelStatement() {
+      Statement current = statement;
+
+      if (current != null) {
+        try {
+          current.cancel();
+        } catch (SQLException ex) {
+          log.debug("Failed to cancel analytics query statement", ex);
+        }
+      }
+    }
+  }
+}
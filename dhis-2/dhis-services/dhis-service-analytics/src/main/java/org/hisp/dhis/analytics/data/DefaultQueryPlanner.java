@@ -52,6 +52,7 @@ import org.hisp.dhis.analytics.Partitions;
 import org.hisp.dhis.analytics.QueryPlanner;
 import org.hisp.dhis.analytics.QueryPlannerParams;
 import org.hisp.dhis.analytics.partition.PartitionManager;
+import org.hisp.dhis.analytics.rollup.RollupManager;
 import org.hisp.dhis.analytics.table.PartitionUtils;
 import org.hisp.dhis.analytics.util.PeriodOffsetUtils;
 import org.hisp.dhis.common.BaseDimensionalObject;
@@ -65,6 +66,7 @@ import org.hisp.dhis.commons.collection.PaginatedList;
 import org.hisp.dhis.dataelement.DataElement;
 import org.hisp.dhis.dataelement.DataElementGroup;
 import org.hisp.dhis.feedback.ErrorCode;
+import org.hisp.dhis.period.MonthlyPeriodType;
 import org.hisp.dhis.period.Period;
 import org.hisp.dhis.period.PeriodType;
 import org.hisp.dhis.system.util.MathUtils;
@@ -80,6 +82,8 @@ import org.springframework.stereotype.Component;
 public class DefaultQueryPlanner implements QueryPlanner {
   private final PartitionManager partitionManager;
 
+  private final RollupManager rollupManager;
+
   // -------------------------------------------------------------------------
   // QueryPlanner implementation
   // -------------------------------------------------------------------------
@@ -119,6 +123,15 @@ public class DefaultQueryPlanner implements QueryPlanner {
       currentQueries.forEach(query -> queries.addAll(grouper.apply(query)));
     }
 
+    // ---------------------------------------------------------------------
+    // Route queries to rollup tables or monthly sub-partitions where possible
+    // ---------------------------------------------------------------------
+
+    if (plannerParams.getTableType() == AnalyticsTableType.DATA_VALUE) {
+      queries.replaceAll(this::withRollupTable);
+      queries.replaceAll(this::withSubPartitions);
+    }
+
     // ---------------------------------------------------------------------
     // Split queries until optimal number
     // ---------------------------------------------------------------------
@@ -169,6 +182,87 @@ public class DefaultQueryPlanner implements QueryPlanner {
     return DataQueryParams.newBuilder(params).withPartitions(partitions).build();
   }
 
+  // -------------------------------------------------------------------------
+  // Supportive methods
+  // -------------------------------------------------------------------------
+
+  /**
+   * Sets the table name of the given query to the smallest rollup table which can answer the query,
+   * if any. Rollup tables are not partitioned.
+   *
+   * @param params the {@link DataQueryParams}.
+   * @return a {@link DataQueryParams}.
+   */
+  private DataQueryParams withRollupTable(DataQueryParams params) {
+    return rollupManager
+        .getRollup(params)
+        .map(
+            rollup ->
+                DataQueryParams.newBuilder(params)
+                    .withTableName(rollup.getTableName())
+                    .withPartitions(new Partitions())
+                    .build())
+        .orElse(params);
+  }
+
+  /**
+   * Restricts the partitions of the given query to the monthly sub-partitions of the queried
+   * months, if the query has monthly periods only and the queried yearly partitions are
+   * sub-partitioned. First and last value aggregation reads values of earlier periods, which are
+   * not in the sub-partitions of the queried months, and always reads the yearly partitions.
+   *
+   * @param params the {@link DataQueryParams}.
+   * @return a {@link DataQueryParams}.
+   */
+  private DataQueryParams withSubPartitions(DataQueryParams params) {
+    if (params.isSkipPartitioning()
+        || !params.hasPartitions()
+        || params.hasStartEndDate()
+        || params.isFirstOrLastOrLastInPeriodAggregationType()) {
+      return params;
+    }
+
+    List<DimensionalItemObject> periods = params.getAllPeriods();
+
+    if (periods.isEmpty() || !periods.stream().allMatch(this::isMonthlyPeriod)) {
+      return params;
+    }
+
+    Partitions partitions = new Partitions(params.getPartitions());
+
+    for (DimensionalItemObject period : periods) {
+      String isoPeriod = period.getDimensionItem();
+      Integer year = Integer.valueOf(isoPeriod.substring(0, 4));
+
+      if (!partitions.getPartitions().contains(year)) {
+        return params;
+      }
+
+      partitions.addSubPartition(year, Integer.valueOf(isoPeriod.substring(4, 6)));
+    }
+
+    // Yearly partitions are either split into all sub-partitions or none
+
+    boolean subPartitioned =
+        partitions.getPartitions().stream()
+            .filter(year -> !partitions.getSubPartitions(year).isEmpty())
+            .allMatch(
+                year ->
+                    partitionManager.tableExists(
+                        PartitionUtils.getSubPartitionName(
+                            PartitionUtils.getPartitionName(params.getTableName(), year), 0)));
+
+    return subPartitioned
+        ? DataQueryParams.newBuilder(params).withPartitions(partitions).build()
+        : params;
+  }
+
+  private boolean isMonthlyPeriod(DimensionalItemObject period) {
+    return period instanceof Period
+        && ((Period) period).getPeriodType() instanceof MonthlyPeriodType
+        && period.getDimensionItem().matches("\\d{6}");
+  }
+
   // -------------------------------------------------------------------------
   // Supportive split methods
   // -------------------------------------------------------------------------
@@ -59,6 +59,7 @@ import static org.hisp.dhis.util.DateUtils.getMediumDateString;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
@@ -80,6 +81,7 @@ import org.hisp.dhis.analytics.MeasureFilter;
 import org.hisp.dhis.analytics.Partitions;
 import org.hisp.dhis.analytics.QueryPlanner;
 import org.hisp.dhis.analytics.analyze.ExecutionPlanStore;
+import org.hisp.dhis.analytics.analyze.QuerySample;
 import org.hisp.dhis.analytics.table.PartitionUtils;
 import org.hisp.dhis.analytics.util.AnalyticsSqlUtils;
 import org.hisp.dhis.analytics.util.AnalyticsUtils;
@@ -100,8 +102,8 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.jdbc.BadSqlGrammarException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlRowSetResultSetExtractor;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.AsyncResult;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
@@ -167,7 +169,6 @@ public class JdbcAnalyticsManager implements AnalyticsManager {
   // -------------------------------------------------------------------------
 
   @Override
-  @Async
   public Future<Map<String, Object>> getAggregatedDataValues(
       DataQueryParams params, AnalyticsTableType tableType, int maxLimit) {
     assertQuery(params);
@@ -434,18 +435,16 @@ public class JdbcAnalyticsManager implements AnalyticsManager {
    * @return a SQL from source clause.
    */
   protected String getFromSourceClause(DataQueryParams params) {
-    if (!params.isSkipPartitioning() && params.hasPartitions() && params.getPartitions().hasOne()) {
-      Integer partition = params.getPartitions().getAny();
+    if (!params.isSkipPartitioning() && params.hasPartitions()) {
+      List<String> partitionNames = getPartitionNames(params);
 
-      return PartitionUtils.getPartitionName(params.getTableName(), partition);
-    } else if (!params.isSkipPartitioning()
-        && params.hasPartitions()
-        && params.getPartitions().hasMultiple()) {
-      String sql = "(";
+      if (partitionNames.size() == 1) {
+        return partitionNames.get(0);
+      }
 
-      for (Integer partition : params.getPartitions().getPartitions()) {
-        String partitionName = PartitionUtils.getPartitionName(params.getTableName(), partition);
+      String sql = "(";
 
+      for (String partitionName : partitionNames) {
         sql += "select ap.* from " + partitionName + " as ap union all ";
       }
 
@@ -455,6 +454,32 @@ public class JdbcAnalyticsManager implements AnalyticsManager {
     }
   }
 
+  /**
+   * Returns the names of the partition tables to query. Monthly sub-partitions are used instead of
+   * the yearly partition where the query specifies sub-partitions.
+   *
+   * @param params the {@link DataQueryParams}.
+   * @return a list of partition table names.
+   */
+  private List<String> getPartitionNames(DataQueryParams params) {
+    List<String> partitionNames = new ArrayList<>();
+
+    for (Integer partition : params.getPartitions().getPartitions()) {
+      String partitionName = PartitionUtils.getPartitionName(params.getTableName(), partition);
+      Set<Integer> months = params.getPartitions().getSubPartitions(partition);
+
+      if (months.isEmpty()) {
+        partitionNames.add(partitionName);
+      } else {
+        months.stream()
+            .sorted()
+            .forEach(m -> partitionNames.add(PartitionUtils.getSubPartitionName(partitionName, m)));
+      }
+    }
+
+    return partitionNames;
+  }
+
   /**
    * Generates the where clause of the query SQL.
    *
@@ -924,12 +949,21 @@ public class JdbcAnalyticsManager implements AnalyticsManager {
 
     log.debug(String.format("Analytics SQL: %s", sql));
 
-    SqlRowSet rowSet = jdbcTemplate.queryForRowSet(sql);
+    boolean profiled = executionPlanStore.isQueryProfileSampled();
+    long start = System.nanoTime();
+
+    SqlRowSet rowSet =
+        jdbcTemplate.query(
+            sql, AnalyticsQueryExecutor::registerStatement, new SqlRowSetResultSetExtractor());
+
+    long queried = System.nanoTime();
 
     int counter = 0;
 
     while (rowSet.next()) {
-      boolean exceedsMaxLimit = maxLimit > 0 && ++counter > maxLimit;
+      counter++;
+
+      boolean exceedsMaxLimit = maxLimit > 0 && counter > maxLimit;
 
       if (exceedsMaxLimit) {
         throwIllegalQueryEx(ErrorCode.E7128, maxLimit);
@@ -960,9 +994,40 @@ public class JdbcAnalyticsManager implements AnalyticsManager {
       }
     }
 
+    if (profiled) {
+      addQueryProfile(params, sql, counter, queried - start, System.nanoTime() - queried);
+    }
+
     return map;
   }
 
+  /**
+   * Adds a profile of the given query to the {@link ExecutionPlanStore}.
+   *
+   * @param params the {@link DataQueryParams}.
+   * @param sql the SQL query.
+   * @param rows the number of rows returned.
+   * @param sqlNanos the time in nanoseconds the SQL query executed.
+   * @param postProcessingNanos the time in nanoseconds spent processing the rows.
+   */
+  private void addQueryProfile(
+      DataQueryParams params, String sql, int rows, long sqlNanos, long postProcessingNanos) {
+    List<String> partitions =
+        !params.isSkipPartitioning() && params.hasPartitions()
+            ? getPartitionNames(params)
+            : List.of(params.getTableName());
+
+    executionPlanStore.addQueryProfile(
+        new QuerySample(
+            sql,
+            params.getTableName(),
+            partitions,
+            params.getPeriodType(),
+            rows,
+            sqlNanos / 1_000_000d,
+            postProcessingNanos / 1_000_000d));
+  }
+
   /**
    * Generates a list of the dimension names of the given dimensions where each dimension name is
    * quoted. Dimensions which are considered fixed will be excluded.
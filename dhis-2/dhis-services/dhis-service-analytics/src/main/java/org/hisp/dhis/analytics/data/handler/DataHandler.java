@@ -113,7 +113,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.Future;
+import java.util.concurrent.ExecutionException;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
@@ -129,6 +129,10 @@ import org.hisp.dhis.analytics.QueryPlanner;
 import org.hisp.dhis.analytics.QueryPlannerParams;
 import org.hisp.dhis.analytics.RawAnalyticsManager;
 import org.hisp.dhis.analytics.analyze.ExecutionPlanStore;
+import org.hisp.dhis.analytics.cache.AnalyticsSubQueryCache;
+import org.hisp.dhis.analytics.cache.AnalyticsSubQueryCache.SubQuery;
+import org.hisp.dhis.analytics.data.AnalyticsQueryExecutor;
+import org.hisp.dhis.analytics.data.AnalyticsQueryExecutor.QueryTask;
 import org.hisp.dhis.analytics.event.EventAnalyticsService;
 import org.hisp.dhis.analytics.event.EventQueryParams;
 import org.hisp.dhis.analytics.resolver.ExpressionResolver;
@@ -141,6 +145,7 @@ import org.hisp.dhis.common.DimensionalItemObject;
 import org.hisp.dhis.common.DimensionalObject;
 import org.hisp.dhis.common.ExecutionPlan;
 import org.hisp.dhis.common.Grid;
+import org.hisp.dhis.common.PerformanceMetrics;
 import org.hisp.dhis.common.ReportingRateMetric;
 import org.hisp.dhis.constant.ConstantService;
 import org.hisp.dhis.dataelement.DataElementOperand;
@@ -191,6 +196,10 @@ public class DataHandler {
 
   private final ExecutionPlanStore executionPlanStore;
 
+  private final AnalyticsQueryExecutor queryExecutor;
+
+  private final AnalyticsSubQueryCache subQueryCache;
+
   /**
    * Adds performance metrics.
    *
@@ -205,6 +214,13 @@ public class DataHandler {
 
       grid.addPerformanceMetrics(plans);
 
+      PerformanceMetrics queryTimes = executionPlanStore.getQueryTimes(key);
+
+      if (grid.getPerformanceMetrics() != null && queryTimes != null) {
+        grid.getPerformanceMetrics().setQueueTimeInMillis(queryTimes.getQueueTimeInMillis());
+        grid.getPerformanceMetrics().setSqlTimeInMillis(queryTimes.getSqlTimeInMillis());
+      }
+
       executionPlanStore.removeExecutionPlans(key);
     }
   }
@@ -1237,7 +1253,10 @@ public class DataHandler {
   }
 
   /**
-   * Executes the given list of queries in parallel.
+   * Executes the given list of queries in parallel on the {@link AnalyticsQueryExecutor}. Values of
+   * queries which are cached in the {@link AnalyticsSubQueryCache} are reused, and only the
+   * remaining slices are executed. Queries which are still pending when one query fails or times
+   * out are cancelled.
    *
    * @param tableType the {@link AnalyticsTableType}.
    * @param maxLimit the max limit of records to retrieve.
@@ -1249,30 +1268,91 @@ public class DataHandler {
       int maxLimit,
       Map<String, Object> map,
       List<DataQueryParams> queries) {
-    List<Future<Map<String, Object>>> futures = new ArrayList<>();
+    List<QueryTask<Map<String, Object>>> tasks = new ArrayList<>();
 
     for (DataQueryParams query : queries) {
-      futures.add(analyticsManager.getAggregatedDataValues(query, tableType, maxLimit));
+      if (subQueryCache.isCacheable(query)) {
+        SubQuery subQuery = subQueryCache.getSubQuery(query);
+
+        map.putAll(subQuery.getCachedValues());
+
+        subQuery
+            .getRemainingQuery()
+            .ifPresent(
+                remaining ->
+                    tasks.add(
+                        queryExecutor.submit(
+                            () -> getAndCacheValues(remaining, tableType, maxLimit))));
+      } else {
+        tasks.add(
+            queryExecutor.submit(
+                () -> analyticsManager.getAggregatedDataValues(query, tableType, maxLimit).get()));
+      }
     }
 
-    for (Future<Map<String, Object>> future : futures) {
-      try {
-        Map<String, Object> taskValues = future.get();
+    try {
+      for (QueryTask<Map<String, Object>> task : tasks) {
+        Map<String, Object> taskValues = task.await();
 
         if (taskValues != null) {
           map.putAll(taskValues);
         }
-      } catch (Exception ex) {
-        log.error(getStackTrace(ex));
-        log.error(getStackTrace(ex.getCause()));
-
-        if (ex.getCause() instanceof RuntimeException) {
-          // Throw the real exception
-          throw (RuntimeException) ex.getCause();
-        } else {
-          throw new RuntimeException("Error during execution of aggregation query task", ex);
-        }
       }
+    } catch (ExecutionException ex) {
+      log.error(getStackTrace(ex));
+      log.error(getStackTrace(ex.getCause()));
+
+      if (ex.getCause() instanceof RuntimeException) {
+        // Throw the real exception
+        throw (RuntimeException) ex.getCause();
+      } else {
+        throw new RuntimeException("Error during execution of aggregation query task", ex);
+      }
+    } finally {
+      tasks.forEach(task -> task.cancel(true));
+    }
+
+    addQueryTimes(queries, tasks);
+  }
+
+  /**
+   * Executes the given sub-query and caches the values in the {@link AnalyticsSubQueryCache}.
+   *
+   * @param query the {@link DataQueryParams}.
+   * @param tableType the {@link AnalyticsTableType}.
+   * @param maxLimit the max limit of records to retrieve.
+   * @return a mapping between a dimension key and the aggregated value.
+   */
+  private Map<String, Object> getAndCacheValues(
+      DataQueryParams query, AnalyticsTableType tableType, int maxLimit) throws Exception {
+    Map<String, Object> values =
+        analyticsManager.getAggregatedDataValues(query, tableType, maxLimit).get();
+
+    subQueryCache.put(query, values);
+
+    return values;
+  }
+
+  /**
+   * Logs the time the given query tasks spent queued and executing, and records the times for
+   * queries which are analyzed.
+   *
+   * @param queries the list of {@link DataQueryParams}.
+   * @param tasks the list of completed {@link QueryTask}.
+   */
+  private void addQueryTimes(
+      List<DataQueryParams> queries, List<QueryTask<Map<String, Object>>> tasks) {
+    double queueTime = tasks.stream().mapToDouble(QueryTask::getQueueTimeInMillis).sum();
+    double sqlTime = tasks.stream().mapToDouble(QueryTask::getSqlTimeInMillis).sum();
+
+    log.debug(
+        "Executed {} analytics queries, queue time: {} ms, SQL time: {} ms",
+        tasks.size(),
+        queueTime,
+        sqlTime);
+
+    if (!queries.isEmpty() && queries.get(0).analyzeOnly()) {
+      executionPlanStore.addQueryTimes(queries.get(0).getExplainOrderId(), queueTime, sqlTime);
     }
   }
 
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.rollup;
+
+import static org.hisp.dhis.analytics.DataQueryParams.LEVEL_PREFIX;
+import static org.hisp.dhis.common.DimensionalObject.ATTRIBUTEOPTIONCOMBO_DIM_ID;
+import static org.hisp.dhis.common.DimensionalObject.CATEGORYOPTIONCOMBO_DIM_ID;
+import static org.hisp.dhis.common.DimensionalObject.DATA_X_DIM_ID;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.period.PeriodType;
+
+/**
+ * An analytics rollup table, which holds the sum of data values of the analytics table aggregated
+ * to an org unit level and a period type. The rollup keeps the data, category option combo and
+ * attribute option combo columns, the org unit columns up to and including the level, and the
+ * columns of the period type and all less frequent period types. The rollup table also keeps the
+ * year column, so that the years with updated data can be refreshed.
+ *
+ * @param level the org unit level.
+ * @param periodType the period type.
+ */
+public record AnalyticsRollup(int level, PeriodType periodType) {
+  private static final String TABLE_PREFIX =
+      AnalyticsTableType.DATA_VALUE.getTableName() + "_rollup_";
+
+  /** Returns the name of the rollup table, e.g. {@code analytics_rollup_yearly_2}. */
+  public String getTableName() {
+    return TABLE_PREFIX + periodType.getName().toLowerCase() + "_" + level;
+  }
+
+  /** Returns the names of the dimension columns kept by the rollup table. */
+  public List<String> getColumns() {
+    List<String> columns =
+        new ArrayList<>(
+            List.of(DATA_X_DIM_ID, CATEGORYOPTIONCOMBO_DIM_ID, ATTRIBUTEOPTIONCOMBO_DIM_ID));
+
+    for (int i = 1; i <= level; i++) {
+      columns.add(LEVEL_PREFIX + i);
+    }
+
+    for (PeriodType type : PeriodType.getAvailablePeriodTypes()) {
+      if (type.getFrequencyOrder() >= periodType.getFrequencyOrder()) {
+        columns.add(type.getName().toLowerCase());
+      }
+    }
+
+    return columns;
+  }
+}
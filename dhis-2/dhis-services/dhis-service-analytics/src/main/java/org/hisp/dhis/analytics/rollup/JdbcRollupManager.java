@@ -0,0 +1,492 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.rollup;
+
+import static java.util.stream.Collectors.joining;
+import static org.hisp.dhis.analytics.AggregationType.SUM;
+import static org.hisp.dhis.analytics.util.AnalyticsSqlUtils.quote;
+import static org.hisp.dhis.common.DimensionalObject.DATA_X_DIM_ID;
+import static org.hisp.dhis.common.DimensionalObject.VALUE_COLUMN_NAME;
+import static org.hisp.dhis.commons.util.TextUtils.getQuotedCommaDelimitedString;
+import static org.hisp.dhis.external.conf.ConfigurationKey.ANALYTICS_ROLLUP_DATA_ELEMENT_GROUPS;
+import static org.hisp.dhis.external.conf.ConfigurationKey.ANALYTICS_ROLLUP_DATA_SETS;
+import static org.hisp.dhis.external.conf.ConfigurationKey.ANALYTICS_ROLLUP_ORG_UNIT_LEVELS;
+import static org.hisp.dhis.external.conf.ConfigurationKey.ANALYTICS_ROLLUP_PERIOD_TYPES;
+import static org.hisp.dhis.scheduling.JobProgress.FailurePolicy.SKIP_ITEM;
+import static org.hisp.dhis.util.DateUtils.getLongDateString;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.hisp.dhis.analytics.AnalyticsAggregationType;
+import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.DataType;
+import org.hisp.dhis.analytics.partition.PartitionManager;
+import org.hisp.dhis.analytics.util.AnalyticsSqlUtils;
+import org.hisp.dhis.common.CodeGenerator;
+import org.hisp.dhis.common.ValueType;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.period.PeriodType;
+import org.hisp.dhis.scheduling.JobProgress;
+import org.hisp.dhis.setting.SettingKey;
+import org.hisp.dhis.setting.SystemSettingManager;
+import org.hisp.dhis.util.DateUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Generates rollup tables with {@code create table as select} statements from the analytics table
+ * and resolves queries to rollup tables. The data elements contained in each generated rollup table
+ * are kept in the {@code _analyticsrollup} table, so that all nodes resolve queries against the
+ * same state. Queries are only resolved to rollup tables which exist, as rollup tables are dropped
+ * together with the analytics tables. A latest partition update only refreshes the years of the
+ * updated data.
+ */
+@Slf4j
+@Service("org.hisp.dhis.analytics.rollup.RollupManager")
+@RequiredArgsConstructor
+public class JdbcRollupManager implements RollupManager {
+  private static final String ANALYTICS_TABLE = AnalyticsTableType.DATA_VALUE.getTableName();
+
+  /** Holds the data elements contained in each generated rollup table. */
+  static final String STATE_TABLE = "_analyticsrollup";
+
+  private static final String YEAR_COLUMN = "year";
+
+  /**
+   * Condition on the state table which holds for rollup tables which exist. Rollup tables are
+   * dropped with the analytics tables, which leaves their state behind.
+   */
+  private static final String TABLE_EXISTS_CONDITION = "to_regclass(tablename) is not null";
+
+  private final DhisConfigurationProvider config;
+
+  private final PartitionManager partitionManager;
+
+  private final SystemSettingManager systemSettingManager;
+
+  @Qualifier("analyticsJdbcTemplate")
+  private final JdbcTemplate jdbcTemplate;
+
+  /** Whether the state table is known to exist, it is never dropped once created. */
+  private volatile boolean stateTableExists;
+
+  // -------------------------------------------------------------------------
+  // RollupManager implementation
+  // -------------------------------------------------------------------------
+
+  @Override
+  public List<AnalyticsRollup> getRollups() {
+    if (getConfiguredUids(ANALYTICS_ROLLUP_DATA_ELEMENT_GROUPS).isEmpty()
+        && getConfiguredUids(ANALYTICS_ROLLUP_DATA_SETS).isEmpty()) {
+      return List.of();
+    }
+
+    List<AnalyticsRollup> rollups = new ArrayList<>();
+
+    for (String level : getConfiguredValues(ANALYTICS_ROLLUP_ORG_UNIT_LEVELS)) {
+      for (String periodType : getConfiguredValues(ANALYTICS_ROLLUP_PERIOD_TYPES)) {
+        PeriodType type = PeriodType.getByNameIgnoreCase(periodType);
+
+        if (type != null) {
+          rollups.add(new AnalyticsRollup(Integer.parseInt(level), type));
+        } else {
+          log.warn("Ignoring unknown rollup period type: '{}'", periodType);
+        }
+      }
+    }
+
+    return rollups;
+  }
+
+  @Override
+  public void generateRollups(AnalyticsTableUpdateParams params, JobProgress progress) {
+    List<AnalyticsRollup> rollups = getRollups();
+
+    if (rollups.isEmpty()) {
+      return;
+    }
+
+    if (params.isLatestUpdate()) {
+      refreshRollups(params, rollups, progress);
+      return;
+    }
+
+    List<String> dataElements = getRollupDataElements();
+
+    if (dataElements.isEmpty()) {
+      log.warn("No numeric data elements with sum aggregation type configured for rollups");
+      return;
+    }
+
+    createStateTable();
+
+    progress.startingStage("Generating analytics rollup tables", rollups.size(), SKIP_ITEM);
+    progress.runStage(
+        rollups, AnalyticsRollup::getTableName, rollup -> generateRollup(rollup, dataElements));
+  }
+
+  @Override
+  public Optional<AnalyticsRollup> getRollup(DataQueryParams params) {
+    if (!isRollupEligible(params)) {
+      return Optional.empty();
+    }
+
+    Set<String> columns = new HashSet<>();
+    params.getDimensionsAndFilters().forEach(dim -> columns.add(dim.getDimensionName()));
+
+    List<AnalyticsRollup> candidates =
+        getRollups().stream().filter(rollup -> rollup.getColumns().containsAll(columns)).toList();
+
+    if (candidates.isEmpty() || !stateTableExists()) {
+      return Optional.empty();
+    }
+
+    Set<String> dataElements = new HashSet<>();
+    params.getDimensionOrFilterItems(DATA_X_DIM_ID).forEach(de -> dataElements.add(de.getUid()));
+
+    String sql =
+        "select tablename from "
+            + STATE_TABLE
+            + " where tablename in ("
+            + getQuotedCommaDelimitedString(
+                candidates.stream().map(AnalyticsRollup::getTableName).toList())
+            + ") and dx in ("
+            + getQuotedCommaDelimitedString(dataElements)
+            + ") and "
+            + TABLE_EXISTS_CONDITION
+            + " group by tablename having count(*) = "
+            + dataElements.size();
+
+    Set<String> generated = new HashSet<>(jdbcTemplate.queryForList(sql, String.class));
+
+    return candidates.stream()
+        .filter(rollup -> generated.contains(rollup.getTableName()))
+        .min(
+            Comparator.comparingInt(AnalyticsRollup::level)
+                .thenComparing(rollup -> -rollup.periodType().getFrequencyOrder()));
+  }
+
+  // -------------------------------------------------------------------------
+  // Supportive methods
+  // -------------------------------------------------------------------------
+
+  /**
+   * Indicates whether the given query only uses the sum of numeric values without constraints on
+   * columns which are not kept by rollup tables. Whether the dimensions of the query are kept is
+   * checked against each rollup.
+   *
+   * @param params the {@link DataQueryParams}.
+   * @return true if the query can be answered by a rollup table.
+   */
+  boolean isRollupEligible(DataQueryParams params) {
+    AnalyticsAggregationType aggregationType = params.getAggregationType();
+
+    return ANALYTICS_TABLE.equals(params.getTableName())
+        && aggregationType != null
+        && aggregationType.isAggregationType(SUM)
+        && aggregationType.isPeriodAggregationType(SUM)
+        && aggregationType.isNumericDataType()
+        && !aggregationType.isDisaggregation()
+        && params.isDataType(DataType.NUMERIC)
+        && VALUE_COLUMN_NAME.equals(params.getValueColumn())
+        && !params.hasSubexpressions()
+        && !params.hasPreAggregateMeasureCriteria()
+        && !params.isDataApproval()
+        && !params.isTimely()
+        && !params.hasStartDate()
+        && !params.hasEndDate()
+        && !(params.hasStartEndDateRestriction()
+            && (params.isRestrictByOrgUnitOpeningClosedDate()
+                || params.isRestrictByCategoryOptionStartEndDate()))
+        && !params.getDimensionOrFilterItems(DATA_X_DIM_ID).isEmpty()
+        && params.getDimensionOrFilterItems(DATA_X_DIM_ID).stream()
+            .allMatch(DataElement.class::isInstance);
+  }
+
+  private boolean stateTableExists() {
+    if (!stateTableExists) {
+      stateTableExists = partitionManager.tableExists(STATE_TABLE);
+    }
+
+    return stateTableExists;
+  }
+
+  private void createStateTable() {
+    jdbcTemplate.execute(
+        "create table if not exists "
+            + STATE_TABLE
+            + " (tablename varchar(64) not null, dx varchar(11) not null, "
+            + "primary key (tablename, dx))");
+    stateTableExists = true;
+  }
+
+  /**
+   * Returns the UIDs of numeric data elements with sum aggregation type in the configured data
+   * element groups and data sets.
+   */
+  private List<String> getRollupDataElements() {
+    Set<String> groups = getConfiguredUids(ANALYTICS_ROLLUP_DATA_ELEMENT_GROUPS);
+    Set<String> dataSets = getConfiguredUids(ANALYTICS_ROLLUP_DATA_SETS);
+
+    String sql =
+        "select de.uid from dataelement de "
+            + "where de.aggregationtype = '"
+            + SUM.name()
+            + "' "
+            + "and de.valuetype in ("
+            + getQuotedCommaDelimitedString(
+                ValueType.NUMERIC_TYPES.stream().map(Enum::name).toList())
+            + ") "
+            + "and (de.dataelementid in ("
+            + "select degm.dataelementid from dataelementgroupmembers degm "
+            + "inner join dataelementgroup deg on degm.dataelementgroupid = deg.dataelementgroupid "
+            + "where deg.uid in ("
+            + getQuotedCommaDelimitedString(groups.isEmpty() ? Set.of("") : groups)
+            + ")) "
+            + "or de.dataelementid in ("
+            + "select dse.dataelementid from datasetelement dse "
+            + "inner join dataset ds on dse.datasetid = ds.datasetid "
+            + "where ds.uid in ("
+            + getQuotedCommaDelimitedString(dataSets.isEmpty() ? Set.of("") : dataSets)
+            + ")))";
+
+    return jdbcTemplate.queryForList(sql, String.class);
+  }
+
+  /**
+   * Generates the rollup table from the full analytics table. Queries are not resolved to the
+   * rollup while it is generated, and after a failed generation.
+   */
+  private void generateRollup(AnalyticsRollup rollup, List<String> dataElements) {
+    String tableName = rollup.getTableName();
+    String tempTableName = tableName + "_temp";
+    String columns = getColumns(rollup);
+    String dataElementList = getQuotedCommaDelimitedString(dataElements);
+
+    jdbcTemplate.update("delete from " + STATE_TABLE + " where tablename = ?", tableName);
+    jdbcTemplate.execute("drop table if exists " + tempTableName);
+    jdbcTemplate.execute(
+        "create table "
+            + tempTableName
+            + " as "
+            + getSelectSql(columns, "in (" + dataElementList + ")", "true"));
+    createIndex(tableName, tempTableName, DATA_X_DIM_ID);
+    createIndex(tableName, tempTableName, YEAR_COLUMN);
+    jdbcTemplate.execute("analyze " + tempTableName);
+    jdbcTemplate.execute("drop table if exists " + tableName);
+    jdbcTemplate.execute("alter table " + tempTableName + " rename to " + tableName);
+    jdbcTemplate.batchUpdate(
+        "insert into " + STATE_TABLE + " (tablename, dx) values (?, ?)",
+        dataElements.stream().map(dx -> new Object[] {tableName, dx}).toList());
+
+    log.info("Generated analytics rollup table: '{}'", tableName);
+  }
+
+  /**
+   * Refreshes the years of the generated rollup tables which contain data updated since the last
+   * analytics table update, keeping the data elements of each rollup. The state of rollup tables
+   * which no longer exist is removed.
+   */
+  private void refreshRollups(
+      AnalyticsTableUpdateParams params, List<AnalyticsRollup> rollups, JobProgress progress) {
+    if (!stateTableExists()) {
+      return;
+    }
+
+    jdbcTemplate.update("delete from " + STATE_TABLE + " where to_regclass(tablename) is null");
+
+    Set<String> generated =
+        new HashSet<>(
+            jdbcTemplate.queryForList(
+                "select distinct tablename from " + STATE_TABLE, String.class));
+    List<AnalyticsRollup> refresh =
+        rollups.stream().filter(rollup -> generated.contains(rollup.getTableName())).toList();
+    List<Integer> years = getUpdatedYears(params);
+
+    if (refresh.isEmpty() || years.isEmpty()) {
+      return;
+    }
+
+    progress.startingStage(
+        "Refreshing analytics rollup tables for years " + years, refresh.size(), SKIP_ITEM);
+    progress.runStage(
+        refresh, AnalyticsRollup::getTableName, rollup -> refreshRollup(rollup, years));
+  }
+
+  /**
+   * Returns the years of the periods of data values updated or deleted since the last full or
+   * latest partition analytics table update.
+   */
+  private List<Integer> getUpdatedYears(AnalyticsTableUpdateParams params) {
+    Date lastLatestPartitionUpdate =
+        systemSettingManager.getDateSetting(
+            SettingKey.LAST_SUCCESSFUL_LATEST_ANALYTICS_PARTITION_UPDATE);
+    Date startDate =
+        DateUtils.getLatest(lastLatestPartitionUpdate, params.getLastSuccessfulUpdate());
+
+    String sql =
+        "select distinct ps.year from datavalue dv "
+            + "inner join _periodstructure ps on dv.periodid = ps.periodid "
+            + "where dv.lastupdated >= '"
+            + getLongDateString(startDate)
+            + "' "
+            + "and dv.lastupdated < '"
+            + getLongDateString(params.getStartTime())
+            + "'";
+
+    return jdbcTemplate.queryForList(sql, Integer.class);
+  }
+
+  /**
+   * Replaces the rows of the given years in a single statement. Queries are no longer resolved to
+   * the rollup if the refresh fails, until it is generated again.
+   */
+  private void refreshRollup(AnalyticsRollup rollup, List<Integer> years) {
+    String tableName = rollup.getTableName();
+    String columns = getColumns(rollup);
+    String yearList = years.stream().map(String::valueOf).collect(joining(","));
+
+    try {
+      jdbcTemplate.execute(
+          "with removed as (delete from "
+              + tableName
+              + " where "
+              + quote(YEAR_COLUMN)
+              + " in ("
+              + yearList
+              + ")) insert into "
+              + tableName
+              + " ("
+              + columns
+              + ","
+              + quote(YEAR_COLUMN)
+              + ","
+              + quote(VALUE_COLUMN_NAME)
+              + ") "
+              + getSelectSql(
+                  columns,
+                  "in (select dx from " + STATE_TABLE + " where tablename = '" + tableName + "')",
+                  quote(YEAR_COLUMN) + " in (" + yearList + ")"));
+    } catch (RuntimeException ex) {
+      jdbcTemplate.update("delete from " + STATE_TABLE + " where tablename = ?", tableName);
+      throw ex;
+    }
+
+    log.info("Refreshed analytics rollup table: '{}' for years: {}", tableName, years);
+  }
+
+  private String getColumns(AnalyticsRollup rollup) {
+    return rollup.getColumns().stream().map(AnalyticsSqlUtils::quote).collect(joining(","));
+  }
+
+  /**
+   * Returns the select statement which sums the analytics table to the given columns and the year.
+   *
+   * @param columns the quoted, comma separated rollup columns.
+   * @param dataElementCondition the condition on the data element column.
+   * @param yearCondition the condition on the year column.
+   */
+  private String getSelectSql(String columns, String dataElementCondition, String yearCondition) {
+    return "select "
+        + columns
+        + ","
+        + quote(YEAR_COLUMN)
+        + ", sum("
+        + quote(VALUE_COLUMN_NAME)
+        + ") as "
+        + quote(VALUE_COLUMN_NAME)
+        + " from "
+        + ANALYTICS_TABLE
+        + " where "
+        + quote(DATA_X_DIM_ID)
+        + " "
+        + dataElementCondition
+        + " and "
+        + yearCondition
+        + " and "
+        + quote(VALUE_COLUMN_NAME)
+        + " is not null group by "
+        + columns
+        + ","
+        + quote(YEAR_COLUMN);
+  }
+
+  private void createIndex(String tableName, String tempTableName, String column) {
+    jdbcTemplate.execute(
+        "create index in_"
+            + tableName
+            + "_"
+            + column
+            + "_"
+            + CodeGenerator.generateCode(5).toLowerCase()
+            + " on "
+            + tempTableName
+            + " ("
+            + quote(column)
+            + ")");
+  }
+
+  private Set<String> getConfiguredUids(ConfigurationKey key) {
+    Set<String> uids = new HashSet<>();
+
+    for (String uid : getConfiguredValues(key)) {
+      if (CodeGenerator.isValidUid(uid)) {
+        uids.add(uid);
+      } else {
+        log.warn("Ignoring invalid UID in '{}': '{}'", key.getKey(), uid);
+      }
+    }
+
+    return uids;
+  }
+
+  private List<String> getConfiguredValues(ConfigurationKey key) {
+    List<String> values = new ArrayList<>();
+
+    for (String value : StringUtils.split(config.getProperty(key), ',')) {
+      if (StringUtils.isNotBlank(value)) {
+        values.add(value.trim());
+      }
+    }
+
+    return values;
+  }
+}
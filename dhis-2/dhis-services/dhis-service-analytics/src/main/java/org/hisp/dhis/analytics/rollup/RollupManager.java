@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.rollup;
+
+import java.util.List;
+import java.util.Optional;
+import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.scheduling.JobProgress;
+
+/** Manager for pre-aggregated analytics rollup tables. */
+public interface RollupManager {
+  /**
+   * Returns the configured rollups. The list is empty if no data element groups or data sets are
+   * configured for rollups.
+   *
+   * @return a list of {@link AnalyticsRollup}.
+   */
+  List<AnalyticsRollup> getRollups();
+
+  /**
+   * Generates the configured rollup tables from the analytics table. For a latest partition update,
+   * only the years with updated data of the already generated rollup tables are refreshed. Must be
+   * invoked after the analytics table has been updated.
+   *
+   * @param params the {@link AnalyticsTableUpdateParams}.
+   * @param progress the {@link JobProgress}.
+   */
+  void generateRollups(AnalyticsTableUpdateParams params, JobProgress progress);
+
+  /**
+   * Returns the smallest generated rollup which can answer the given query with the same result as
+   * the analytics table, if any.
+   *
+   * @param params the {@link DataQueryParams}.
+   * @return an {@link AnalyticsRollup}, or empty if the query must use the analytics table.
+   */
+  Optional<AnalyticsRollup> getRollup(DataQueryParams params);
+}
@@ -38,6 +38,7 @@ import static org.hisp.dhis.analytics.util.AnalyticsSqlUtils.quote;
 import static org.hisp.dhis.util.DateUtils.getLongDateString;
 
 import com.google.common.base.Preconditions;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
@@ -191,13 +192,13 @@ public abstract class AbstractJdbcTableManager implements AnalyticsTableManager
         tableExists,
         skipMasterTable);
 
-    table.getTablePartitions().stream()
-        .forEach(p -> swapTable(p.getTempTableName(), p.getTableName()));
+    table.getTablePartitions().stream().forEach(this::swapTablePartition);
 
     if (!skipMasterTable) {
       swapTable(table.getTempTableName(), table.getTableName());
     } else {
       table.getTablePartitions().stream()
+          .filter(p -> !p.isSubPartition())
           .forEach(
               p ->
                   swapInheritance(
@@ -365,35 +366,57 @@ public abstract class AbstractJdbcTableManager implements AnalyticsTableManager
    */
   protected void createTempTablePartitions(AnalyticsTable table) {
     for (AnalyticsTablePartition partition : table.getTablePartitions()) {
-      String tableName = partition.getTempTableName();
-      List<String> checks = getPartitionChecks(partition);
+      createInheritingTable(
+          partition.getTempTableName(), getPartitionChecks(partition), table.getTempTableName());
+    }
+  }
 
-      StringBuilder sqlCreate = new StringBuilder();
+  /**
+   * Creates a partition table with the given checks which inherits the given parent table.
+   *
+   * @param tableName the name of the table to create.
+   * @param checks the list of table checks (constraints).
+   * @param parentTableName the name of the parent table.
+   */
+  protected void createInheritingTable(
+      String tableName, List<String> checks, String parentTableName) {
+    StringBuilder sqlCreate = new StringBuilder();
 
-      sqlCreate
-          .append("create ")
-          .append(analyticsExportSettings.getTableType())
-          .append(" table ")
-          .append(tableName)
-          .append("(");
-
-      if (!checks.isEmpty()) {
-        StringBuilder sqlCheck = new StringBuilder();
-        checks.stream().forEach(check -> sqlCheck.append("check (" + check + "), "));
-        sqlCreate.append(TextUtils.removeLastComma(sqlCheck.toString()));
-      }
+    sqlCreate
+        .append("create ")
+        .append(analyticsExportSettings.getTableType())
+        .append(" table ")
+        .append(tableName)
+        .append("(");
 
-      sqlCreate
-          .append(") inherits (")
-          .append(table.getTempTableName())
-          .append(") ")
-          .append(getTableOptions());
+    if (!checks.isEmpty()) {
+      StringBuilder sqlCheck = new StringBuilder();
+      checks.stream().forEach(check -> sqlCheck.append("check (" + check + "), "));
+      sqlCreate.append(TextUtils.removeLastComma(sqlCheck.toString()));
+    }
 
-      log.info("Creating partition table: '{}'", tableName);
-      log.debug("Create SQL: {}", sqlCreate);
+    sqlCreate.append(") inherits (").append(parentTableName).append(") ").append(getTableOptions());
 
-      jdbcTemplate.execute(sqlCreate.toString());
-    }
+    log.info("Creating partition table: '{}'", tableName);
+    log.debug("Create SQL: {}", sqlCreate);
+
+    jdbcTemplate.execute(sqlCreate.toString());
+  }
+
+  /**
+   * Returns the estimated number of rows of the given table based on the table statistics. The
+   * table should be analyzed first.
+   *
+   * @param tableName the table name.
+   * @return the estimated number of rows.
+   */
+  protected long getEstimatedRowCount(String tableName) {
+    String sql =
+        "select coalesce(max(reltuples), 0)::bigint from pg_class where relname = '"
+            + tableName
+            + "'";
+
+    return jdbcTemplate.queryForObject(sql, Long.class);
   }
 
   /** Returns a table options SQL statement. */
@@ -621,6 +644,30 @@ public abstract class AbstractJdbcTableManager implements AnalyticsTableManager
     executeSafely(sqlSteps, true);
   }
 
+  /**
+   * Swaps a table partition. Unchanged sub-partition tables of the real partition table are moved
+   * to the temporary partition table in the same transaction, before the real partition table is
+   * dropped.
+   *
+   * @param partition the {@link AnalyticsTablePartition}.
+   */
+  private void swapTablePartition(AnalyticsTablePartition partition) {
+    List<String> sqlSteps = new ArrayList<>();
+
+    for (Integer month : partition.getUnchangedSubPartitions()) {
+      String subPartitionName = PartitionUtils.getSubPartitionName(partition.getTableName(), month);
+
+      sqlSteps.add("alter table " + subPartitionName + " no inherit " + partition.getTableName());
+      sqlSteps.add("alter table " + subPartitionName + " inherit " + partition.getTempTableName());
+    }
+
+    sqlSteps.add("drop table if exists " + partition.getTableName() + " cascade");
+    sqlSteps.add(
+        "alter table " + partition.getTempTableName() + " rename to " + partition.getTableName());
+
+    executeSafely(sqlSteps.toArray(new String[0]), true);
+  }
+
   /**
    * Updates table inheritance of a table partition from the temp master table to the real master
    * table.
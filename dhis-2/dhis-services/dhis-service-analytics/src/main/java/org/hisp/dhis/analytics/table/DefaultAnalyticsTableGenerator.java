@@ -44,6 +44,8 @@ import org.hisp.dhis.analytics.AnalyticsTableService;
 import org.hisp.dhis.analytics.AnalyticsTableType;
 import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
 import org.hisp.dhis.analytics.cache.AnalyticsCache;
+import org.hisp.dhis.analytics.cache.AnalyticsSubQueryCache;
+import org.hisp.dhis.analytics.rollup.RollupManager;
 import org.hisp.dhis.resourcetable.ResourceTableService;
 import org.hisp.dhis.scheduling.JobProgress;
 import org.hisp.dhis.setting.SettingKey;
@@ -66,6 +68,10 @@ public class DefaultAnalyticsTableGenerator implements AnalyticsTableGenerator {
 
   private final AnalyticsCache analyticsCache;
 
+  private final AnalyticsSubQueryCache subQueryCache;
+
+  private final RollupManager rollupManager;
+
   // TODO introduce last successful timestamps per table type
 
   @Override
@@ -106,11 +112,19 @@ public class DefaultAnalyticsTableGenerator implements AnalyticsTableGenerator {
       }
     }
 
+    if (!skipTypes.contains(AnalyticsTableType.DATA_VALUE)) {
+      rollupManager.generateRollups(params, progress);
+    }
+
     progress.startingStage("Updating settings");
     progress.runStage(() -> updateLastSuccessfulSystemSettings(params, clock));
 
     progress.startingStage("Invalidate analytics caches", SKIP_STAGE);
-    progress.runStage(analyticsCache::invalidateAll);
+    progress.runStage(
+        () -> {
+          analyticsCache.invalidateAll();
+          subQueryCache.invalidateAll();
+        });
     progress.completedProcess("Analytics tables updated: " + clock.time());
   }
 
@@ -35,7 +35,9 @@ import static org.hisp.dhis.util.DateUtils.getLongDateString;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.hisp.dhis.analytics.AnalyticsIndex;
@@ -143,6 +145,12 @@ public class DefaultAnalyticsTableService implements AnalyticsTableService {
     tableUpdates += applyAggregationLevels(tableType, partitions, progress);
     clock.logTime("Applied aggregation levels");
 
+    progress.startingStage("Creating sub-partitions " + tableType, partitions.size());
+    if (createSubPartitions(partitions, progress)) {
+      partitions = PartitionUtils.getTablePartitions(tables);
+    }
+    clock.logTime("Created sub-partitions");
+
     if (tableUpdates > 0) {
       progress.startingStage("Vacuuming tables " + tableType, partitions.size());
       vacuumTables(partitions, progress);
@@ -253,6 +261,27 @@ public class DefaultAnalyticsTableService implements AnalyticsTableService {
     return aggLevels;
   }
 
+  /**
+   * Splits the given analytics tables into sub-partitions where the table manager finds this
+   * worthwhile, and adds the sub-partitions to the master tables.
+   *
+   * @return true if any sub-partitions were created.
+   */
+  private boolean createSubPartitions(
+      List<AnalyticsTablePartition> partitions, JobProgress progress) {
+    Queue<AnalyticsTablePartition> subPartitions = new ConcurrentLinkedQueue<>();
+
+    progress.runStageInParallel(
+        getParallelJobs(),
+        partitions,
+        AnalyticsTablePartition::getTableName,
+        partition -> subPartitions.addAll(tableManager.createSubPartitions(partition)));
+
+    subPartitions.forEach(p -> p.getMasterTable().addSubPartitionTable(p));
+
+    return !subPartitions.isEmpty();
+  }
+
   /** Vacuums the given analytics tables. */
   private void vacuumTables(List<AnalyticsTablePartition> partitions, JobProgress progress) {
     progress.runStageInParallel(
@@ -43,7 +43,10 @@ import com.google.common.collect.Sets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
@@ -81,6 +84,7 @@ import org.hisp.dhis.system.util.MathUtils;
 import org.hisp.dhis.util.DateUtils;
 import org.hisp.dhis.util.ObjectUtils;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -104,6 +108,8 @@ import org.springframework.transaction.annotation.Transactional;
 @Slf4j
 @Service("org.hisp.dhis.analytics.AnalyticsTableManager")
 public class JdbcAnalyticsTableManager extends AbstractJdbcTableManager {
+  private static final String MONTHLY_COL = quote("monthly");
+
   private static final List<AnalyticsTableColumn> FIXED_COLS =
       List.of(
           new AnalyticsTableColumn(quote("dx"), CHARACTER_11, NOT_NULL, "de.uid"),
@@ -248,6 +254,181 @@ public class JdbcAnalyticsTableManager extends AbstractJdbcTableManager {
             "pestartdate < '" + DateUtils.getMediumDateString(partition.getEndDate()) + "'");
   }
 
+  @Override
+  public List<AnalyticsTablePartition> createSubPartitions(AnalyticsTablePartition partition) {
+    long minRows = analyticsExportSettings.getSubPartitionMinRows();
+
+    if (minRows <= 0 || partition.isLatestPartition() || partition.isSubPartition()) {
+      return List.of();
+    }
+
+    String tableName = partition.getTempTableName();
+
+    analyzeTable(tableName);
+
+    long rows = getEstimatedRowCount(tableName);
+
+    if (rows < minRows) {
+      log.info("Not sub-partitioning table: '{}' with estimated rows: {}", tableName, rows);
+      return List.of();
+    }
+
+    List<String> months = new ArrayList<>();
+    Map<Integer, String> checks = new LinkedHashMap<>();
+
+    for (int month = 1; month <= 12; month++) {
+      String period = "'" + partition.getYear() + String.format("%02d", month) + "'";
+      months.add(period);
+      checks.put(month, MONTHLY_COL + " = " + period);
+    }
+
+    // Data for periods longer than a month has no monthly period
+
+    checks.put(
+        0,
+        MONTHLY_COL + " is null or " + MONTHLY_COL + " not in (" + String.join(",", months) + ")");
+
+    Map<Integer, String> fingerprints = getSubPartitionFingerprints(tableName, months);
+    List<AnalyticsTablePartition> subPartitions = new ArrayList<>();
+
+    checks.forEach(
+        (month, check) -> {
+          String fingerprint = fingerprints.getOrDefault(month, fingerprints.get(null));
+
+          if (isUnchangedSubPartition(partition, month, fingerprint)) {
+            partition.addUnchangedSubPartition(month);
+          } else {
+            subPartitions.add(createSubPartition(partition, month, check, fingerprint));
+          }
+        });
+
+    invokeTimeAndLog("truncate only " + tableName, "Truncate sub-partitioned " + tableName);
+
+    return subPartitions;
+  }
+
+  /**
+   * Returns fingerprints of the content of the monthly sub-partitions of the given temporary
+   * partition table, mapped by month, where zero is the month of data of periods longer than a
+   * month. The fingerprint of months without data is mapped to null. A fingerprint combines the
+   * table columns, the row count and a sum of 64-bit row hashes.
+   *
+   * @param tableName the temporary partition table name.
+   * @param months the quoted monthly periods of the partition.
+   * @return a map of fingerprints.
+   */
+  private Map<Integer, String> getSubPartitionFingerprints(String tableName, List<String> months) {
+    String columns =
+        jdbcTemplate.queryForObject(
+            "select md5(string_agg(attname || ' ' || format_type(atttypid, atttypmod), ',' "
+                + "order by attnum)) from pg_attribute where attrelid = '"
+                + tableName
+                + "'::regclass and attnum > 0 and not attisdropped",
+            String.class);
+
+    String sql =
+        "select case when "
+            + MONTHLY_COL
+            + " in ("
+            + String.join(",", months)
+            + ") then cast(substring("
+            + MONTHLY_COL
+            + ", 5, 2) as integer) else 0 end as month, "
+            + "count(*) || ':' || sum(('x' || left(md5(t::text), 16))::bit(64)::bigint::numeric) "
+            + "as fingerprint from only "
+            + tableName
+            + " t group by 1";
+
+    Map<Integer, String> fingerprints = new HashMap<>();
+
+    fingerprints.put(null, columns + ":0");
+
+    jdbcTemplate.query(
+        sql,
+        rs -> {
+          fingerprints.put(rs.getInt("month"), columns + ":" + rs.getString("fingerprint"));
+        });
+
+    return fingerprints;
+  }
+
+  /**
+   * Indicates whether the existing sub-partition table of the given month has the given content
+   * fingerprint, and can be moved to the given temporary partition table when swapping. Moving is
+   * verified by attaching the sub-partition table to the temporary partition table and detaching it
+   * again in one transaction.
+   *
+   * @param partition the yearly {@link AnalyticsTablePartition}.
+   * @param month the month.
+   * @param fingerprint the content fingerprint of the month.
+   * @return true if the existing sub-partition table can be reused.
+   */
+  private boolean isUnchangedSubPartition(
+      AnalyticsTablePartition partition, int month, String fingerprint) {
+    String tableName = PartitionUtils.getSubPartitionName(partition.getTableName(), month);
+
+    String existing =
+        jdbcTemplate.queryForObject(
+            "select obj_description(to_regclass('" + tableName + "'), 'pg_class')", String.class);
+
+    if (fingerprint == null || !fingerprint.equals(existing)) {
+      return false;
+    }
+
+    try {
+      jdbcTemplate.execute(
+          "alter table "
+              + tableName
+              + " inherit "
+              + partition.getTempTableName()
+              + ";alter table "
+              + tableName
+              + " no inherit "
+              + partition.getTempTableName()
+              + ";");
+
+      log.info("Reusing unchanged sub-partition table: '{}'", tableName);
+
+      return true;
+    } catch (DataAccessException ex) {
+      log.warn("Sub-partition table: '{}' can not be reused: {}", tableName, ex.getMessage());
+
+      return false;
+    }
+  }
+
+  /**
+   * Creates a monthly sub-partition of the given partition and moves the rows matching the given
+   * check from the partition to the sub-partition. The content fingerprint is stored as the table
+   * comment.
+   *
+   * @param partition the yearly {@link AnalyticsTablePartition}.
+   * @param month the month, or zero for data of periods longer than a month.
+   * @param check the check (constraint) of the sub-partition.
+   * @param fingerprint the content fingerprint of the sub-partition.
+   * @return the sub-partition.
+   */
+  private AnalyticsTablePartition createSubPartition(
+      AnalyticsTablePartition partition, int month, String check, String fingerprint) {
+    AnalyticsTablePartition subPartition = new AnalyticsTablePartition(partition, month);
+    String tableName = subPartition.getTempTableName();
+
+    createInheritingTable(tableName, List.of(check), partition.getTempTableName());
+
+    invokeTimeAndLog(
+        "insert into "
+            + tableName
+            + " select * from only "
+            + partition.getTempTableName()
+            + " where "
+            + check,
+        "Populate " + tableName);
+
+    jdbcTemplate.execute("comment on table " + tableName + " is '" + fingerprint + "'");
+
+    return subPartition;
+  }
+
   @Override
   protected void populateTable(
       AnalyticsTableUpdateParams params, AnalyticsTablePartition partition) {
@@ -256,4 +256,15 @@ public class PartitionUtils {
   public static String getPartitionName(String tableName, Integer partition) {
     return tableName + SEP + partition;
   }
+
+  /**
+   * Returns the name of the monthly sub-partition of the given partition.
+   *
+   * @param partitionName the partition name.
+   * @param month the month, or zero for data of periods longer than a month.
+   * @return the sub-partition name.
+   */
+  public static String getSubPartitionName(String partitionName, Integer month) {
+    return partitionName + SEP + String.format("%02d", month);
+  }
 }
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.analyze;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class RequestExecutionPlanStoreTest {
+  @Mock private JdbcTemplate jdbcTemplate;
+
+  @Mock private DhisConfigurationProvider config;
+
+  private RequestExecutionPlanStore subject;
+
+  @BeforeEach
+  void setUp() {
+    when(config.getProperty(ConfigurationKey.ANALYTICS_QUERY_PROFILING_SAMPLE_RATE))
+        .thenReturn("1");
+    when(config.getProperty(ConfigurationKey.ANALYTICS_QUERY_PROFILING_MAX_SHAPES)).thenReturn("2");
+
+    subject = new RequestExecutionPlanStore(jdbcTemplate, config);
+  }
+
+  @Test
+  void testGetShape() {
+    assertEquals(
+        "select ax.\"dx\" from analytics_2015 as ax where ax.\"dx\" in (?) and ax.\"year\" = ? limit ?",
+        QueryProfile.getShape(
+            "select ax.\"dx\"  from analytics_2015 as ax\n"
+                + "where ax.\"dx\" in ('fbfJHSPpUQD', 'cYeuwXTCPkU') and ax.\"year\" = 2015 limit 20001"));
+  }
+
+  @Test
+  void testIsQueryProfileSampled() {
+    assertTrue(subject.isQueryProfileSampled());
+  }
+
+  @Test
+  void testAddQueryProfileSameShape() {
+    subject.addQueryProfile(sample("select * from analytics where dx = 'A'", 10));
+    subject.addQueryProfile(sample("select * from analytics where dx = 'B'", 30));
+
+    List<QueryProfile> profiles = subject.getMostFrequentQueryProfiles(10);
+
+    assertEquals(1, profiles.size());
+    assertEquals(2, profiles.get(0).getCount());
+    assertEquals(40, profiles.get(0).getTotalSqlTimeInMillis());
+    assertEquals(30, profiles.get(0).getMaxSqlTimeInMillis());
+    assertEquals(20, profiles.get(0).getAverageSqlTimeInMillis());
+    assertEquals("select * from analytics where dx = 'B'", profiles.get(0).getSql());
+  }
+
+  @Test
+  void testGetSlowestAndMostFrequentQueryProfiles() {
+    subject.addQueryProfile(sample("select * from analytics where dx = 'A'", 5));
+    subject.addQueryProfile(sample("select * from analytics where dx = 'B'", 5));
+    subject.addQueryProfile(sample("select * from analytics where ou = 'A'", 50));
+
+    assertEquals(
+        "select * from analytics where ou = ?",
+        subject.getSlowestQueryProfiles(1).get(0).getShape());
+    assertEquals(
+        "select * from analytics where dx = ?",
+        subject.getMostFrequentQueryProfiles(1).get(0).getShape());
+  }
+
+  @Test
+  void testAddQueryProfileEvictsLowestTotalTime() {
+    subject.addQueryProfile(sample("select * from analytics where dx = 'A'", 5));
+    subject.addQueryProfile(sample("select * from analytics where ou = 'A'", 50));
+    subject.addQueryProfile(sample("select * from analytics where co = 'A'", 20));
+
+    List<QueryProfile> profiles = subject.getSlowestQueryProfiles(10);
+
+    assertEquals(2, profiles.size());
+    assertFalse(
+        profiles.stream()
+            .anyMatch(p -> p.getShape().equals("select * from analytics where dx = ?")));
+  }
+
+  @Test
+  void testAddQueryProfileEvictsInBatches() {
+    when(config.getProperty(ConfigurationKey.ANALYTICS_QUERY_PROFILING_MAX_SHAPES)).thenReturn("8");
+    subject = new RequestExecutionPlanStore(jdbcTemplate, config);
+
+    List<String> columns = List.of("a", "b", "c", "d", "e", "f", "g", "h", "i", "j");
+
+    for (int i = 0; i < 8; i++) {
+      subject.addQueryProfile(
+          sample("select * from analytics where " + columns.get(i) + " = 'A'", i));
+    }
+
+    subject.addQueryProfile(sample("select * from analytics where i = 'A'", 1));
+
+    List<QueryProfile> profiles = subject.getSlowestQueryProfiles(10);
+
+    assertEquals(7, profiles.size());
+    assertFalse(
+        profiles.stream()
+            .anyMatch(
+                p ->
+                    p.getShape().equals("select * from analytics where a = ?")
+                        || p.getShape().equals("select * from analytics where b = ?")));
+
+    subject.addQueryProfile(sample("select * from analytics where j = 'A'", 1));
+
+    assertEquals(8, subject.getSlowestQueryProfiles(10).size());
+  }
+
+  @Test
+  void testRemoveQueryProfiles() {
+    subject.addQueryProfile(sample("select * from analytics where dx = 'A'", 5));
+    subject.removeQueryProfiles();
+
+    assertTrue(subject.getSlowestQueryProfiles(10).isEmpty());
+  }
+
+  private QuerySample sample(String sql, double sqlTimeInMillis) {
+    return new QuerySample(
+        sql, "analytics", List.of("analytics"), "monthly", 1, sqlTimeInMillis, 1);
+  }
+}
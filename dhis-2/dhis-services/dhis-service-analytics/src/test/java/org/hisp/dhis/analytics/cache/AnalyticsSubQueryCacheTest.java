@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.cache;
+
+import static org.hisp.dhis.DhisConvenienceTest.createDataElement;
+import static org.hisp.dhis.DhisConvenienceTest.createOrganisationUnit;
+import static org.hisp.dhis.common.DimensionalObject.DATA_X_DIM_ID;
+import static org.hisp.dhis.common.DimensionalObject.ORGUNIT_DIM_ID;
+import static org.hisp.dhis.common.DimensionalObject.PERIOD_DIM_ID;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.hisp.dhis.analytics.AggregationType;
+import org.hisp.dhis.analytics.AnalyticsAggregationType;
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.DataType;
+import org.hisp.dhis.analytics.cache.AnalyticsSubQueryCache.SubQuery;
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.CacheBuilder;
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.cache.LocalCache;
+import org.hisp.dhis.cache.SimpleCacheBuilder;
+import org.hisp.dhis.common.BaseDimensionalObject;
+import org.hisp.dhis.common.DimensionType;
+import org.hisp.dhis.common.DimensionalItemObject;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.period.Period;
+import org.hisp.dhis.period.PeriodType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+@MockitoSettings(strictness = Strictness.LENIENT)
+@ExtendWith(MockitoExtension.class)
+class AnalyticsSubQueryCacheTest {
+  @Mock private CacheProvider cacheProvider;
+
+  @Mock private AnalyticsCacheSettings analyticsCacheSettings;
+
+  private AnalyticsSubQueryCache subject;
+
+  private DataElement deA;
+
+  private DataElement deB;
+
+  private OrganisationUnit ouA;
+
+  private OrganisationUnit ouB;
+
+  @BeforeEach
+  void setUp() {
+    CacheBuilder<Map<String, Map<String, Object>>> cacheBuilder = new SimpleCacheBuilder<>();
+    cacheBuilder.expireAfterWrite(1L, TimeUnit.MINUTES);
+
+    Mockito.<Cache<Map<String, Map<String, Object>>>>when(
+            cacheProvider.createAnalyticsSubQueryCache())
+        .thenReturn(new LocalCache<>(cacheBuilder));
+    when(analyticsCacheSettings.isCachingEnabled()).thenReturn(true);
+    when(analyticsCacheSettings.fixedExpirationTimeOrDefault()).thenReturn(60L);
+
+    subject = new AnalyticsSubQueryCache(cacheProvider, analyticsCacheSettings);
+
+    deA = createDataElement('A');
+    deB = createDataElement('B');
+    ouA = createOrganisationUnit('A');
+    ouB = createOrganisationUnit('B');
+  }
+
+  @Test
+  void testIsCacheable() {
+    assertTrue(subject.isCacheable(createParams(List.of(deA), List.of(ouA), "202001")));
+
+    DataQueryParams periodFilter =
+        DataQueryParams.newBuilder()
+            .withAggregationType(getSum())
+            .withDataElements(List.of(deA))
+            .withFilterPeriods(List.of(PeriodType.getPeriodFromIsoString("202001")))
+            .build();
+
+    assertFalse(subject.isCacheable(periodFilter));
+
+    when(analyticsCacheSettings.isCachingEnabled()).thenReturn(false);
+
+    assertFalse(subject.isCacheable(createParams(List.of(deA), List.of(ouA), "202001")));
+  }
+
+  @Test
+  void testGetSubQueryNotCached() {
+    DataQueryParams params = createParams(List.of(deA), List.of(ouA), "202001", "202002");
+
+    SubQuery subQuery = subject.getSubQuery(params);
+
+    assertTrue(subQuery.getCachedValues().isEmpty());
+    assertEquals(params.getPeriods(), subQuery.getRemainingQuery().get().getPeriods());
+  }
+
+  @Test
+  void testGetSubQueryRollingPeriods() {
+    subject.put(
+        createParams(List.of(deA), List.of(ouA), "202001", "202002", "202003"),
+        Map.of(
+            key(deA, ouA, "202001"), 1d, key(deA, ouA, "202002"), 2d, key(deA, ouA, "202003"), 3d));
+
+    SubQuery subQuery =
+        subject.getSubQuery(createParams(List.of(deA), List.of(ouA), "202002", "202003", "202004"));
+
+    assertEquals(
+        Map.of(key(deA, ouA, "202002"), 2d, key(deA, ouA, "202003"), 3d),
+        subQuery.getCachedValues());
+
+    DataQueryParams remaining = subQuery.getRemainingQuery().get();
+
+    assertEquals(List.of("202004"), getItems(remaining.getPeriods()));
+    assertEquals(List.of(ouA.getUid()), getItems(remaining.getOrganisationUnits()));
+    assertEquals("monthly", remaining.getDimension(PERIOD_DIM_ID).getDimensionName());
+  }
+
+  @Test
+  void testGetSubQueryAddedOrgUnit() {
+    subject.put(
+        createParams(List.of(deA), List.of(ouA), "202001", "202002"),
+        Map.of(key(deA, ouA, "202001"), 1d));
+
+    SubQuery subQuery =
+        subject.getSubQuery(createParams(List.of(deA), List.of(ouA, ouB), "202001", "202002"));
+
+    assertEquals(Map.of(key(deA, ouA, "202001"), 1d), subQuery.getCachedValues());
+
+    DataQueryParams remaining = subQuery.getRemainingQuery().get();
+
+    assertEquals(List.of("202001", "202002"), getItems(remaining.getPeriods()));
+    assertEquals(List.of(ouB.getUid()), getItems(remaining.getOrganisationUnits()));
+
+    subject.put(remaining, Map.of(key(deA, ouB, "202002"), 4d));
+
+    subQuery =
+        subject.getSubQuery(createParams(List.of(deA), List.of(ouB, ouA), "202001", "202002"));
+
+    assertEquals(
+        Map.of(key(deA, ouA, "202001"), 1d, key(deA, ouB, "202002"), 4d),
+        subQuery.getCachedValues());
+    assertTrue(subQuery.getRemainingQuery().isEmpty());
+  }
+
+  @Test
+  void testGetSubQueryNormalizesDataItems() {
+    Map<String, Object> values = new HashMap<>();
+    values.put(key(deA, ouA, "202001"), 1d);
+    values.put(key(deB, ouA, "202001"), 2d);
+
+    subject.put(createParams(List.of(deA, deB), List.of(ouA), "202001"), values);
+
+    SubQuery subQuery =
+        subject.getSubQuery(createParams(List.of(deB, deA), List.of(ouA), "202001"));
+
+    assertEquals(values, subQuery.getCachedValues());
+    assertTrue(subQuery.getRemainingQuery().isEmpty());
+
+    subQuery = subject.getSubQuery(createParams(List.of(deA), List.of(ouA), "202001"));
+
+    assertTrue(subQuery.getCachedValues().isEmpty());
+  }
+
+  @Test
+  void testInvalidateAll() {
+    DataQueryParams params = createParams(List.of(deA), List.of(ouA), "202001");
+
+    subject.put(params, Map.of(key(deA, ouA, "202001"), 1d));
+    subject.invalidateAll();
+
+    assertTrue(subject.getSubQuery(params).getRemainingQuery().isPresent());
+  }
+
+  private DataQueryParams createParams(
+      List<DataElement> dataElements, List<OrganisationUnit> orgUnits, String... periods) {
+    List<Period> periodList =
+        List.of(periods).stream().map(PeriodType::getPeriodFromIsoString).toList();
+
+    return DataQueryParams.newBuilder()
+        .withDataType(DataType.NUMERIC)
+        .withTableName("analytics")
+        .withAggregationType(getSum())
+        .addDimension(
+            new BaseDimensionalObject(
+                DATA_X_DIM_ID, DimensionType.DATA_X, List.copyOf(dataElements)))
+        .addDimension(
+            new BaseDimensionalObject(
+                ORGUNIT_DIM_ID,
+                DimensionType.ORGANISATION_UNIT,
+                "uidlevel1",
+                null,
+                List.copyOf(orgUnits)))
+        .addDimension(
+            new BaseDimensionalObject(
+                PERIOD_DIM_ID, DimensionType.PERIOD, "monthly", null, List.copyOf(periodList)))
+        .build();
+  }
+
+  private AnalyticsAggregationType getSum() {
+    return new AnalyticsAggregationType(
+        AggregationType.SUM, AggregationType.SUM, DataType.NUMERIC, false);
+  }
+
+  private String key(DataElement dataElement, OrganisationUnit orgUnit, String period) {
+    return dataElement.getUid() + "-" + orgUnit.getUid() + "-" + period;
+  }
+
+  private List<String> getItems(List<DimensionalItemObject> items) {
+    return items.stream().map(DimensionalItemObject::getDimensionItem).toList();
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.hisp.dhis.analytics.data.AnalyticsQueryExecutor.QueryTask;
+import org.hisp.dhis.common.QueryRuntimeException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/** Tests {@link AnalyticsQueryExecutor}. */
+class AnalyticsQueryExecutorTest {
+  private AnalyticsQueryExecutor executor;
+
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  private final List<String> started = new CopyOnWriteArrayList<>();
+
+  @AfterEach
+  void tearDown() {
+    release.countDown();
+    executor.shutdown();
+  }
+
+  @Test
+  void testQueuedQueriesAreStartedRoundRobinByUser() throws ExecutionException {
+    executor = new AnalyticsQueryExecutor(1, 8, 8, 0);
+
+    QueryTask<String> a1 = executor.submit("userA", () -> query("A1"));
+    QueryTask<String> a2 = executor.submit("userA", () -> query("A2"));
+    QueryTask<String> a3 = executor.submit("userA", () -> query("A3"));
+    QueryTask<String> b1 = executor.submit("userB", () -> query("B1"));
+
+    release.countDown();
+
+    for (QueryTask<String> task : List.of(a1, a2, a3, b1)) {
+      task.await();
+    }
+
+    assertEquals(List.of("A1", "B1", "A2", "A3"), started);
+  }
+
+  @Test
+  void testRequestConcurrencyLimit() throws Exception {
+    executor = new AnalyticsQueryExecutor(4, 8, 1, 0);
+
+    QueryTask<String> first = executor.submit("userA", () -> query("first"));
+    QueryTask<String> second = executor.submit("userA", () -> query("second"));
+
+    TimeUnit.MILLISECONDS.sleep(100);
+
+    assertEquals(List.of("first"), started);
+    assertEquals(0, second.getSqlTimeInMillis());
+
+    release.countDown();
+
+    assertEquals("first", first.await());
+    assertEquals("second", second.await());
+    assertTrue(second.getQueueTimeInMillis() > 0);
+  }
+
+  @Test
+  void testCancelCancelsRegisteredStatement() throws Exception {
+    executor = new AnalyticsQueryExecutor(1, 8, 8, 0);
+    Statement statement = mock(Statement.class);
+    CountDownLatch registered = new CountDownLatch(1);
+
+    QueryTask<String> task =
+        executor.submit(
+            "userA",
+            () -> {
+              AnalyticsQueryExecutor.registerStatement(statement);
+              registered.countDown();
+              return query("A1");
+            });
+    QueryTask<String> queued = executor.submit("userA", () -> query("A2"));
+
+    assertTrue(registered.await(5, TimeUnit.SECONDS));
+    assertTrue(queued.cancel(true));
+    assertTrue(task.cancel(true));
+
+    verify(statement).cancel();
+    assertThrows(QueryRuntimeException.class, task::await);
+    assertFalse(started.contains("A2"));
+  }
+
+  @Test
+  void testDeadlineCancelsQuery() throws Exception {
+    executor = new AnalyticsQueryExecutor(1, 8, 8, 200);
+    Statement statement = mock(Statement.class);
+
+    QueryTask<String> task =
+        executor.submit(
+            "userA",
+            () -> {
+              AnalyticsQueryExecutor.registerStatement(statement);
+              return query("A1");
+            });
+
+    assertThrows(QueryRuntimeException.class, task::await);
+
+    verify(statement).setQueryTimeout(1);
+    verify(statement, timeout(1000)).cancel();
+    assertTrue(task.isCancelled());
+  }
+
+  private String query(String name) throws InterruptedException {
+    started.add(name);
+    release.await(5, TimeUnit.SECONDS);
+    return name;
+  }
+}
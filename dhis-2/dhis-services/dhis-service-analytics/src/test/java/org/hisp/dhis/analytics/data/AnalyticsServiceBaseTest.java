@@ -42,6 +42,7 @@ import org.hisp.dhis.analytics.RawAnalyticsManager;
 import org.hisp.dhis.analytics.analyze.ExecutionPlanStore;
 import org.hisp.dhis.analytics.cache.AnalyticsCache;
 import org.hisp.dhis.analytics.cache.AnalyticsCacheSettings;
+import org.hisp.dhis.analytics.cache.AnalyticsSubQueryCache;
 import org.hisp.dhis.analytics.data.handler.DataAggregator;
 import org.hisp.dhis.analytics.data.handler.DataHandler;
 import org.hisp.dhis.analytics.data.handler.HeaderHandler;
@@ -94,6 +95,8 @@ abstract class AnalyticsServiceBaseTest {
 
   @Mock private AnalyticsCacheSettings analyticsCacheSettings;
 
+  @Mock private AnalyticsSubQueryCache subQueryCache;
+
   @Mock private ExpressionResolvers resolvers;
 
   @Mock private NestedIndicatorCyclicDependencyInspector nestedIndicatorCyclicDependencyInspector;
@@ -119,7 +122,9 @@ abstract class AnalyticsServiceBaseTest {
             systemSettingManager,
             analyticsManager,
             organisationUnitService,
-            executionPlanStore);
+            executionPlanStore,
+            new AnalyticsQueryExecutor(4, 4, 4, 0),
+            subQueryCache);
 
     target = new DataAggregator(headerHandler, metadataHandler, dataHandler);
     target.feedHandlers();
@@ -35,16 +35,25 @@ import static org.hisp.dhis.common.DimensionalObject.DATA_X_DIM_ID;
 import static org.hisp.dhis.common.DimensionalObject.ORGUNIT_DIM_ID;
 import static org.hisp.dhis.common.DimensionalObject.PERIOD_DIM_ID;
 import static org.hisp.dhis.common.DimensionalObjectUtils.getList;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import org.hisp.dhis.analytics.AggregationType;
 import org.hisp.dhis.analytics.AnalyticsAggregationType;
 import org.hisp.dhis.analytics.AnalyticsTableType;
 import org.hisp.dhis.analytics.DataQueryParams;
 import org.hisp.dhis.analytics.DataType;
+import org.hisp.dhis.analytics.Partitions;
 import org.hisp.dhis.analytics.QueryPlanner;
 import org.hisp.dhis.analytics.analyze.ExecutionPlanStore;
 import org.hisp.dhis.analytics.partition.PartitionManager;
+import org.hisp.dhis.analytics.rollup.RollupManager;
 import org.hisp.dhis.common.BaseDimensionalObject;
 import org.hisp.dhis.common.DimensionType;
 import org.hisp.dhis.common.ValueType;
@@ -61,6 +70,8 @@ import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.SqlRowSetResultSetExtractor;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 
 /**
@@ -72,6 +83,8 @@ class JdbcAnalyticsManagerTest {
 
   @Mock private PartitionManager partitionManager;
 
+  @Mock private RollupManager rollupManager;
+
   @Mock private JdbcTemplate jdbcTemplate;
 
   @Mock private SqlRowSet rowSet;
@@ -86,11 +99,15 @@ class JdbcAnalyticsManagerTest {
 
   @BeforeEach
   public void setUp() {
-    QueryPlanner queryPlanner = new DefaultQueryPlanner(partitionManager);
+    QueryPlanner queryPlanner = new DefaultQueryPlanner(partitionManager, rollupManager);
 
     mockRowSet();
 
-    when(jdbcTemplate.queryForRowSet(sql.capture())).thenReturn(rowSet);
+    when(jdbcTemplate.query(
+            sql.capture(),
+            any(PreparedStatementSetter.class),
+            any(SqlRowSetResultSetExtractor.class)))
+        .thenReturn(rowSet);
 
     subject = new JdbcAnalyticsManager(queryPlanner, jdbcTemplate, executionPlanStore);
   }
@@ -165,6 +182,59 @@ class JdbcAnalyticsManagerTest {
     assertExpectedMaxMinSumOrgUnitSql("min");
   }
 
+  @Test
+  void verifyQueryGeneratedWithSubPartitions() {
+    DataQueryParams params =
+        DataQueryParams.newBuilder(createParams(AggregationType.SUM))
+            .withPartitions(
+                new Partitions(new HashSet<>(Set.of(2015)))
+                    .addSubPartition(2015, 2)
+                    .addSubPartition(2015, 1))
+            .build();
+
+    subject.getAggregatedDataValues(params, AnalyticsTableType.DATA_VALUE, 20000);
+
+    assertThat(
+        sql.getValue(),
+        containsString(
+            "from (select ap.* from analytics_2015_01 as ap union all "
+                + "select ap.* from analytics_2015_02 as ap ) as ax"));
+  }
+
+  @Test
+  void verifyQueryProfileAddedWhenSampled() {
+    when(executionPlanStore.isQueryProfileSampled()).thenReturn(true);
+
+    DataQueryParams params =
+        DataQueryParams.newBuilder(createParams(AggregationType.SUM))
+            .withPartitions(new Partitions(new HashSet<>(Set.of(2015))))
+            .build();
+
+    subject.getAggregatedDataValues(params, AnalyticsTableType.DATA_VALUE, 20000);
+
+    verify(executionPlanStore)
+        .addQueryProfile(
+            argThat(
+                sample ->
+                    sample.sql().equals(sql.getValue())
+                        && sample.tableName().equals("analytics")
+                        && sample.partitions().equals(List.of("analytics_2015"))
+                        && sample.rows() == 0));
+  }
+
+  @Test
+  void verifyQueryProfileCountsRowsWithSameKey() {
+    when(executionPlanStore.isQueryProfileSampled()).thenReturn(true);
+    when(rowSet.next()).thenReturn(true, true, false);
+    when(rowSet.getString(anyString())).thenReturn("A");
+    when(rowSet.getDouble(anyString())).thenReturn(1d);
+
+    subject.getAggregatedDataValues(
+        createParams(AggregationType.SUM), AnalyticsTableType.DATA_VALUE, 0);
+
+    verify(executionPlanStore).addQueryProfile(argThat(sample -> sample.rows() == 2));
+  }
+
   // -------------------------------------------------------------------------
   // Supportive methods
   // -------------------------------------------------------------------------
@@ -48,6 +48,7 @@ import org.hisp.dhis.analytics.DataType;
 import org.hisp.dhis.analytics.QueryPlanner;
 import org.hisp.dhis.analytics.analyze.ExecutionPlanStore;
 import org.hisp.dhis.analytics.partition.PartitionManager;
+import org.hisp.dhis.analytics.rollup.RollupManager;
 import org.hisp.dhis.category.CategoryOptionCombo;
 import org.hisp.dhis.common.BaseDimensionalObject;
 import org.hisp.dhis.common.DimensionType;
@@ -74,6 +75,8 @@ import org.springframework.jdbc.core.JdbcTemplate;
 class JdbcSubexpressionQueryGeneratorTest {
   @Mock private PartitionManager partitionManager;
 
+  @Mock private RollupManager rollupManager;
+
   @Mock private JdbcTemplate jdbcTemplate;
 
   private JdbcAnalyticsManager jam;
@@ -85,7 +88,7 @@ class JdbcSubexpressionQueryGeneratorTest {
 
   @BeforeAll
   public void setUp() {
-    QueryPlanner queryPlanner = new DefaultQueryPlanner(partitionManager);
+    QueryPlanner queryPlanner = new DefaultQueryPlanner(partitionManager, rollupManager);
 
     jam = new JdbcAnalyticsManager(queryPlanner, jdbcTemplate, executionPlanStore);
   }
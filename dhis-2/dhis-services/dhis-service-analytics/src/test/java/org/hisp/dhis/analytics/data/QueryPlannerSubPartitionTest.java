@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.data;
+
+import static org.hisp.dhis.DhisConvenienceTest.createDataElement;
+import static org.hisp.dhis.DhisConvenienceTest.createOrganisationUnit;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.hisp.dhis.analytics.AggregationType;
+import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.Partitions;
+import org.hisp.dhis.analytics.QueryPlanner;
+import org.hisp.dhis.analytics.QueryPlannerParams;
+import org.hisp.dhis.analytics.partition.PartitionManager;
+import org.hisp.dhis.analytics.rollup.RollupManager;
+import org.hisp.dhis.common.ValueType;
+import org.hisp.dhis.period.PeriodType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+@MockitoSettings(strictness = Strictness.LENIENT)
+@ExtendWith(MockitoExtension.class)
+class QueryPlannerSubPartitionTest {
+  @Mock private PartitionManager partitionManager;
+
+  @Mock private RollupManager rollupManager;
+
+  private QueryPlanner subject;
+
+  @BeforeEach
+  void setUp() {
+    when(rollupManager.getRollup(ArgumentMatchers.any())).thenReturn(Optional.empty());
+
+    subject = new DefaultQueryPlanner(partitionManager, rollupManager);
+  }
+
+  @Test
+  void testMonthlyPeriodsUseSubPartitions() {
+    when(partitionManager.tableExists("analytics_2020_00")).thenReturn(true);
+
+    Partitions partitions = planQuery("202001", "202002");
+
+    assertEquals(Set.of(1, 2), partitions.getSubPartitions(2020));
+  }
+
+  @Test
+  void testMonthlyPeriodsAcrossYearsUseSubPartitions() {
+    when(partitionManager.tableExists("analytics_2019_00")).thenReturn(true);
+    when(partitionManager.tableExists("analytics_2020_00")).thenReturn(true);
+
+    Partitions partitions = planQuery("201912", "202001");
+
+    assertEquals(Set.of(12), partitions.getSubPartitions(2019));
+    assertEquals(Set.of(1), partitions.getSubPartitions(2020));
+  }
+
+  @Test
+  void testPartitionNotSubPartitioned() {
+    when(partitionManager.tableExists("analytics_2020_00")).thenReturn(false);
+
+    assertFalse(planQuery("202001", "202002").hasSubPartitions());
+  }
+
+  @Test
+  void testQuarterlyPeriodsDoNotUseSubPartitions() {
+    when(partitionManager.tableExists("analytics_2020_00")).thenReturn(true);
+
+    Partitions partitions = planQuery("2020Q1");
+
+    assertTrue(partitions.getPartitions().contains(2020));
+    assertFalse(partitions.hasSubPartitions());
+  }
+
+  @Test
+  void testLastValueAggregationDoesNotUseSubPartitions() {
+    when(partitionManager.tableExists("analytics_2020_00")).thenReturn(true);
+
+    List<DataQueryParams> queries = planQueries(AggregationType.LAST, "202001", "202002");
+
+    assertFalse(queries.isEmpty());
+    assertTrue(queries.stream().allMatch(q -> q.getPartitions().getPartitions().contains(2020)));
+    assertTrue(queries.stream().noneMatch(q -> q.getPartitions().hasSubPartitions()));
+  }
+
+  private Partitions planQuery(String... periods) {
+    List<DataQueryParams> queries = planQueries(AggregationType.SUM, periods);
+
+    assertEquals(1, queries.size());
+
+    return queries.get(0).getPartitions();
+  }
+
+  private List<DataQueryParams> planQueries(AggregationType aggregationType, String... periods) {
+    DataQueryParams params =
+        DataQueryParams.newBuilder()
+            .withDataElements(List.of(createDataElement('A', ValueType.INTEGER, aggregationType)))
+            .withOrganisationUnits(List.of(createOrganisationUnit('A')))
+            .withPeriods(List.of(periods).stream().map(PeriodType::getPeriodFromIsoString).toList())
+            .build();
+
+    return subject
+        .planQuery(
+            params,
+            QueryPlannerParams.newBuilder().withTableType(AnalyticsTableType.DATA_VALUE).build())
+        .getAllQueries();
+  }
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.rollup;
+
+import static org.hisp.dhis.DhisConvenienceTest.createDataElement;
+import static org.hisp.dhis.DhisConvenienceTest.createOrganisationUnit;
+import static org.hisp.dhis.common.DimensionalObject.DATA_X_DIM_ID;
+import static org.hisp.dhis.common.DimensionalObject.ORGUNIT_DIM_ID;
+import static org.hisp.dhis.common.DimensionalObject.PERIOD_DIM_ID;
+import static org.hisp.dhis.common.DimensionalObjectUtils.getList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import org.hisp.dhis.analytics.AggregationType;
+import org.hisp.dhis.analytics.AnalyticsAggregationType;
+import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.DataType;
+import org.hisp.dhis.analytics.partition.PartitionManager;
+import org.hisp.dhis.common.BaseDimensionalObject;
+import org.hisp.dhis.common.DimensionType;
+import org.hisp.dhis.common.ValueType;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.period.MonthlyPeriodType;
+import org.hisp.dhis.period.PeriodType;
+import org.hisp.dhis.period.YearlyPeriodType;
+import org.hisp.dhis.scheduling.NoopJobProgress;
+import org.hisp.dhis.setting.SystemSettingManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@MockitoSettings(strictness = Strictness.LENIENT)
+@ExtendWith(MockitoExtension.class)
+class JdbcRollupManagerTest {
+  @Mock private DhisConfigurationProvider config;
+
+  @Mock private PartitionManager partitionManager;
+
+  @Mock private SystemSettingManager systemSettingManager;
+
+  @Mock private JdbcTemplate jdbcTemplate;
+
+  private JdbcRollupManager subject;
+
+  private DataElement deA;
+
+  @BeforeEach
+  void setUp() {
+    deA = createDataElement('A', ValueType.INTEGER, AggregationType.SUM);
+
+    when(config.getProperty(ConfigurationKey.ANALYTICS_ROLLUP_DATA_ELEMENT_GROUPS))
+        .thenReturn("deGroupUidA");
+    when(config.getProperty(ConfigurationKey.ANALYTICS_ROLLUP_DATA_SETS)).thenReturn("");
+    when(config.getProperty(ConfigurationKey.ANALYTICS_ROLLUP_ORG_UNIT_LEVELS)).thenReturn("1,2");
+    when(config.getProperty(ConfigurationKey.ANALYTICS_ROLLUP_PERIOD_TYPES))
+        .thenReturn("Yearly, Monthly");
+    when(partitionManager.tableExists(anyString())).thenReturn(true);
+    when(jdbcTemplate.queryForList(startsWith("select tablename"), eq(String.class)))
+        .thenReturn(
+            List.of(
+                "analytics_rollup_yearly_1",
+                "analytics_rollup_monthly_1",
+                "analytics_rollup_yearly_2",
+                "analytics_rollup_monthly_2"));
+    when(jdbcTemplate.queryForList(startsWith("select de.uid"), eq(String.class)))
+        .thenReturn(List.of(deA.getUid()));
+
+    subject = new JdbcRollupManager(config, partitionManager, systemSettingManager, jdbcTemplate);
+  }
+
+  @Test
+  void testGetRollups() {
+    List<AnalyticsRollup> rollups = subject.getRollups();
+
+    assertEquals(4, rollups.size());
+    assertTrue(rollups.contains(new AnalyticsRollup(2, new MonthlyPeriodType())));
+    assertEquals("analytics_rollup_monthly_2", rollups.get(3).getTableName());
+  }
+
+  @Test
+  void testGetRollupsNotConfigured() {
+    when(config.getProperty(ConfigurationKey.ANALYTICS_ROLLUP_DATA_ELEMENT_GROUPS)).thenReturn("");
+
+    assertTrue(subject.getRollups().isEmpty());
+  }
+
+  @Test
+  void testGetRollupColumns() {
+    List<String> columns = new AnalyticsRollup(2, new MonthlyPeriodType()).getColumns();
+
+    assertTrue(columns.containsAll(List.of("dx", "co", "ao", "uidlevel1", "uidlevel2")));
+    assertTrue(columns.containsAll(List.of("monthly", "quarterly", "yearly")));
+    assertFalse(columns.contains("uidlevel3"));
+    assertFalse(columns.contains("weekly"));
+  }
+
+  @Test
+  void testGetRollupSmallestAdequate() {
+    assertEquals(
+        Optional.of(new AnalyticsRollup(1, new YearlyPeriodType())),
+        subject.getRollup(createParams(1, "2020")));
+    assertEquals(
+        Optional.of(new AnalyticsRollup(2, new YearlyPeriodType())),
+        subject.getRollup(createParams(2, "2020")));
+    assertEquals(
+        Optional.of(new AnalyticsRollup(2, new MonthlyPeriodType())),
+        subject.getRollup(createParams(2, "202001")));
+  }
+
+  @Test
+  void testGetRollupNotAdequate() {
+    assertTrue(subject.getRollup(createParams(3, "2020")).isEmpty());
+    assertTrue(subject.getRollup(createParams(2, "2020W1")).isEmpty());
+
+    DataQueryParams average =
+        DataQueryParams.newBuilder(createParams(1, "2020"))
+            .withAggregationType(
+                new AnalyticsAggregationType(
+                    AggregationType.AVERAGE, AggregationType.AVERAGE, DataType.NUMERIC, false))
+            .build();
+
+    assertTrue(subject.getRollup(average).isEmpty());
+  }
+
+  @Test
+  void testGetRollupDataElementNotInRollup() {
+    when(jdbcTemplate.queryForList(startsWith("select tablename"), eq(String.class)))
+        .thenReturn(List.of());
+
+    assertTrue(subject.getRollup(createParams(1, "2020")).isEmpty());
+    verify(jdbcTemplate)
+        .queryForList(
+            argThat(
+                (String sql) ->
+                    sql.contains("from _analyticsrollup")
+                        && sql.contains("and dx in ('" + deA.getUid() + "')")
+                        && sql.contains("and to_regclass(tablename) is not null")
+                        && sql.endsWith("having count(*) = 1")),
+            eq(String.class));
+  }
+
+  @Test
+  void testGetRollupNotGenerated() {
+    when(partitionManager.tableExists(JdbcRollupManager.STATE_TABLE)).thenReturn(false);
+
+    assertTrue(subject.getRollup(createParams(1, "2020")).isEmpty());
+    verify(jdbcTemplate, never()).queryForList(startsWith("select tablename"), eq(String.class));
+  }
+
+  @Test
+  void testGenerateRollups() {
+    subject.generateRollups(
+        AnalyticsTableUpdateParams.newBuilder().build(), NoopJobProgress.INSTANCE);
+
+    verify(jdbcTemplate)
+        .update("delete from _analyticsrollup where tablename = ?", "analytics_rollup_yearly_1");
+    verify(jdbcTemplate)
+        .execute(
+            argThat(
+                (String sql) ->
+                    sql.startsWith(
+                            "create table analytics_rollup_yearly_1_temp as select \"dx\",\"co\",\"ao\",\"uidlevel1\",")
+                        && sql.contains(
+                            "\"year\", sum(\"value\") as \"value\" from analytics where \"dx\" in ('"
+                                + deA.getUid()
+                                + "')")));
+    verify(jdbcTemplate)
+        .execute(
+            "alter table analytics_rollup_monthly_2_temp rename to analytics_rollup_monthly_2");
+    verify(jdbcTemplate, times(4))
+        .batchUpdate(eq("insert into _analyticsrollup (tablename, dx) values (?, ?)"), anyList());
+  }
+
+  @Test
+  void testGenerateRollupsLatestUpdateRefreshesUpdatedYears() {
+    when(jdbcTemplate.queryForList(startsWith("select distinct tablename"), eq(String.class)))
+        .thenReturn(List.of("analytics_rollup_yearly_1"));
+    when(jdbcTemplate.queryForList(startsWith("select distinct ps.year"), eq(Integer.class)))
+        .thenReturn(List.of(2023, 2024));
+
+    subject.generateRollups(latestUpdateParams(), NoopJobProgress.INSTANCE);
+
+    verify(jdbcTemplate)
+        .execute(
+            argThat(
+                (String sql) ->
+                    sql.startsWith(
+                            "with removed as (delete from analytics_rollup_yearly_1 where \"year\" in (2023,2024)) "
+                                + "insert into analytics_rollup_yearly_1 (")
+                        && sql.contains(
+                            "where \"dx\" in (select dx from _analyticsrollup where tablename = 'analytics_rollup_yearly_1') "
+                                + "and \"year\" in (2023,2024)")));
+    verify(jdbcTemplate)
+        .update("delete from _analyticsrollup where to_regclass(tablename) is null");
+    verify(jdbcTemplate, never()).execute(startsWith("create table analytics_rollup"));
+    verify(jdbcTemplate, never()).execute(contains("analytics_rollup_monthly_2"));
+  }
+
+  @Test
+  void testGenerateRollupsLatestUpdateWithoutUpdatedData() {
+    when(jdbcTemplate.queryForList(startsWith("select distinct tablename"), eq(String.class)))
+        .thenReturn(List.of("analytics_rollup_yearly_1"));
+    when(jdbcTemplate.queryForList(startsWith("select distinct ps.year"), eq(Integer.class)))
+        .thenReturn(List.of());
+
+    subject.generateRollups(latestUpdateParams(), NoopJobProgress.INSTANCE);
+
+    verify(jdbcTemplate, never()).execute(anyString());
+  }
+
+  @Test
+  void testFailedRefreshStopsResolvingToRollup() {
+    when(jdbcTemplate.queryForList(startsWith("select distinct tablename"), eq(String.class)))
+        .thenReturn(List.of("analytics_rollup_yearly_1"));
+    when(jdbcTemplate.queryForList(startsWith("select distinct ps.year"), eq(Integer.class)))
+        .thenReturn(List.of(2024));
+    doThrow(new DataAccessResourceFailureException("refresh failed"))
+        .when(jdbcTemplate)
+        .execute(startsWith("with removed as"));
+
+    subject.generateRollups(latestUpdateParams(), NoopJobProgress.INSTANCE);
+
+    verify(jdbcTemplate)
+        .update("delete from _analyticsrollup where tablename = ?", "analytics_rollup_yearly_1");
+  }
+
+  private AnalyticsTableUpdateParams latestUpdateParams() {
+    return AnalyticsTableUpdateParams.newBuilder()
+        .withLatestPartition()
+        .withLastSuccessfulUpdate(new Date(0))
+        .withStartTime(new Date())
+        .build();
+  }
+
+  private DataQueryParams createParams(int level, String period) {
+    OrganisationUnit ouA = createOrganisationUnit('A');
+    PeriodType periodType = PeriodType.getPeriodFromIsoString(period).getPeriodType();
+
+    return DataQueryParams.newBuilder()
+        .withDataType(DataType.NUMERIC)
+        .withTableName("analytics")
+        .withAggregationType(
+            new AnalyticsAggregationType(
+                AggregationType.SUM, AggregationType.SUM, DataType.NUMERIC, false))
+        .addDimension(new BaseDimensionalObject(DATA_X_DIM_ID, DimensionType.DATA_X, getList(deA)))
+        .addDimension(
+            new BaseDimensionalObject(
+                ORGUNIT_DIM_ID,
+                DimensionType.ORGANISATION_UNIT,
+                "uidlevel" + level,
+                null,
+                getList(ouA)))
+        .addDimension(
+            new BaseDimensionalObject(
+                PERIOD_DIM_ID,
+                DimensionType.PERIOD,
+                periodType.getName().toLowerCase(),
+                null,
+                getList(PeriodType.getPeriodFromIsoString(period))))
+        .build();
+  }
+}
@@ -32,17 +32,21 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.hisp.dhis.analytics.AnalyticsExportSettings;
 import org.hisp.dhis.analytics.AnalyticsTable;
 import org.hisp.dhis.analytics.AnalyticsTableHookService;
 import org.hisp.dhis.analytics.AnalyticsTableManager;
 import org.hisp.dhis.analytics.AnalyticsTablePartition;
+import org.hisp.dhis.analytics.AnalyticsTableType;
 import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
 import org.hisp.dhis.analytics.partition.PartitionManager;
 import org.hisp.dhis.category.CategoryService;
@@ -179,6 +183,82 @@ class JdbcAnalyticsTableManagerTest {
     assertEquals(startTime, partition.getEndDate());
   }
 
+  @Test
+  void testCreateSubPartitions() {
+    AnalyticsTablePartition partition = createPartition(2020);
+
+    when(analyticsExportSettings.getSubPartitionMinRows()).thenReturn(1000L);
+    when(analyticsExportSettings.getTableType()).thenReturn("unlogged");
+    when(jdbcTemplate.queryForObject(Mockito.anyString(), ArgumentMatchers.eq(Long.class)))
+        .thenReturn(5000L);
+
+    List<AnalyticsTablePartition> subPartitions = subject.createSubPartitions(partition);
+
+    assertEquals(13, subPartitions.size());
+    assertEquals("analytics_temp_2020_01", subPartitions.get(0).getTempTableName());
+    assertEquals("analytics_2020_12", subPartitions.get(11).getTableName());
+    assertEquals("analytics_2020_00", subPartitions.get(12).getTableName());
+
+    verify(jdbcTemplate)
+        .execute(
+            "create unlogged table analytics_temp_2020_03(check (\"monthly\" = '202003')) "
+                + "inherits (analytics_temp_2020) with(autovacuum_enabled = false)");
+    verify(jdbcTemplate)
+        .execute(
+            "insert into analytics_temp_2020_03 select * from only analytics_temp_2020 "
+                + "where \"monthly\" = '202003'");
+    verify(jdbcTemplate).execute("truncate only analytics_temp_2020");
+  }
+
+  @Test
+  void testCreateSubPartitionsReusesUnchangedMonth() {
+    AnalyticsTablePartition partition = createPartition(2020);
+
+    when(analyticsExportSettings.getSubPartitionMinRows()).thenReturn(1000L);
+    when(analyticsExportSettings.getTableType()).thenReturn("unlogged");
+    when(jdbcTemplate.queryForObject(Mockito.anyString(), ArgumentMatchers.eq(Long.class)))
+        .thenReturn(5000L);
+    when(jdbcTemplate.queryForObject(
+            ArgumentMatchers.contains("from pg_attribute"), ArgumentMatchers.eq(String.class)))
+        .thenReturn("cols");
+    when(jdbcTemplate.queryForObject(
+            ArgumentMatchers.contains("to_regclass('analytics_2020_03')"),
+            ArgumentMatchers.eq(String.class)))
+        .thenReturn("cols:0");
+
+    List<AnalyticsTablePartition> subPartitions = subject.createSubPartitions(partition);
+
+    assertEquals(12, subPartitions.size());
+    assertEquals(Set.of(3), partition.getUnchangedSubPartitions());
+    assertTrue(subPartitions.stream().noneMatch(p -> p.getMonth() == 3));
+
+    verify(jdbcTemplate)
+        .execute(
+            "alter table analytics_2020_03 inherit analytics_temp_2020;"
+                + "alter table analytics_2020_03 no inherit analytics_temp_2020;");
+    verify(jdbcTemplate, never())
+        .execute(ArgumentMatchers.startsWith("insert into analytics_temp_2020_03 "));
+    verify(jdbcTemplate).execute("comment on table analytics_temp_2020_04 is 'cols:0'");
+  }
+
+  @Test
+  void testCreateSubPartitionsBelowMinRows() {
+    when(analyticsExportSettings.getSubPartitionMinRows()).thenReturn(1000L);
+    when(jdbcTemplate.queryForObject(Mockito.anyString(), ArgumentMatchers.eq(Long.class)))
+        .thenReturn(500L);
+
+    assertTrue(subject.createSubPartitions(createPartition(2020)).isEmpty());
+  }
+
+  @Test
+  void testCreateSubPartitionsDisabled() {
+    when(analyticsExportSettings.getSubPartitionMinRows()).thenReturn(0L);
+
+    assertTrue(subject.createSubPartitions(createPartition(2020)).isEmpty());
+    verify(jdbcTemplate, never())
+        .queryForObject(Mockito.anyString(), ArgumentMatchers.eq(Long.class));
+  }
+
   @Test
   void testGetLatestAnalyticsTableNoFullTableUpdate() {
     Date lastLatestPartitionUpdate = new DateTime(2019, 3, 1, 9, 0).toDate();
@@ -199,4 +279,13 @@ class JdbcAnalyticsTableManagerTest {
         .thenReturn(lastLatestPartitionUpdate);
     assertThrows(IllegalArgumentException.class, () -> subject.getAnalyticsTables(params));
   }
+
+  private AnalyticsTablePartition createPartition(int year) {
+    AnalyticsTable table =
+        new AnalyticsTable(AnalyticsTableType.DATA_VALUE, List.of(), List.of())
+            .addPartitionTable(
+                year, PartitionUtils.getStartDate(year), PartitionUtils.getEndDate(year));
+
+    return table.getTablePartitions().get(0);
+  }
 }
@@ -28,6 +28,7 @@
 package org.hisp.dhis.analytics;
 
 import static org.apache.commons.lang3.StringUtils.EMPTY;
+import static org.hisp.dhis.external.conf.ConfigurationKey.ANALYTICS_TABLE_SUBPARTITION_MIN_ROWS;
 import static org.hisp.dhis.external.conf.ConfigurationKey.ANALYTICS_TABLE_UNLOGGED;
 import static org.hisp.dhis.setting.SettingKey.ANALYTICS_MAX_PERIOD_YEARS_OFFSET;
 
@@ -65,6 +66,17 @@ public class AnalyticsExportSettings {
     return EMPTY;
   }
 
+  /**
+   * Returns the minimum number of rows of a yearly table partition for it to be split into monthly
+   * sub-partitions. See {@link ANALYTICS_TABLE_SUBPARTITION_MIN_ROWS}.
+   *
+   * @return the minimum number of rows, or 0 if sub-partitioning is disabled.
+   */
+  public long getSubPartitionMinRows() {
+    return Long.parseLong(
+        dhisConfigurationProvider.getProperty(ANALYTICS_TABLE_SUBPARTITION_MIN_ROWS));
+  }
+
   /**
    * Returns the years' offset defined for the period generation. See {@link
    * ANALYTICS_MAX_PERIOD_YEARS_OFFSET}.
@@ -27,12 +27,18 @@
  */
 package org.hisp.dhis.category.hibernate;
 
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 import org.hibernate.NonUniqueResultException;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.query.Query;
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.CacheProvider;
 import org.hisp.dhis.category.CategoryCombo;
 import org.hisp.dhis.category.CategoryOption;
 import org.hisp.dhis.category.CategoryOptionCombo;
@@ -47,6 +53,13 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 
 /**
+ * Category option combos are resolved from a category combo and a set of category options through
+ * an in-memory index per category combo, mapping sets of category option IDs to category option
+ * combo IDs. The index is built with a single query and replaced rather than modified. An index
+ * entry is verified against the loaded category option combo before it is used, and the index of
+ * the category combo is evicted when found to be stale, so that a category option combo which is
+ * added, changed or deleted elsewhere is picked up on the next lookup.
+ *
  * @author Lars Helge Overland
  */
 @Repository("org.hisp.dhis.category.CategoryOptionComboStore")
@@ -55,13 +68,16 @@ public class HibernateCategoryOptionComboStore
     implements CategoryOptionComboStore {
   private final DbmsManager dbmsManager;
 
+  private final Cache<Map<Set<Long>, Long>> optionComboIndexCache;
+
   public HibernateCategoryOptionComboStore(
       SessionFactory sessionFactory,
       JdbcTemplate jdbcTemplate,
       ApplicationEventPublisher publisher,
       CurrentUserService currentUserService,
       AclService aclService,
-      DbmsManager dbmsManager) {
+      DbmsManager dbmsManager,
+      CacheProvider cacheProvider) {
     super(
         sessionFactory,
         jdbcTemplate,
@@ -71,11 +87,93 @@ public class HibernateCategoryOptionComboStore
         aclService,
         true);
     this.dbmsManager = dbmsManager;
+    this.optionComboIndexCache = cacheProvider.createCategoryOptionComboIndexCache();
   }
 
   @Override
   public CategoryOptionCombo getCategoryOptionCombo(
       CategoryCombo categoryCombo, Set<CategoryOption> categoryOptions) {
+    if (categoryCombo == null || categoryCombo.getId() == 0) {
+      return queryCategoryOptionCombo(categoryCombo, categoryOptions);
+    }
+
+    String key = String.valueOf(categoryCombo.getId());
+    Set<Long> optionIds =
+        categoryOptions.stream().map(CategoryOption::getId).collect(Collectors.toSet());
+
+    Long id =
+        optionComboIndexCache.get(key, k -> getOptionComboIndex(categoryCombo)).get(optionIds);
+
+    CategoryOptionCombo categoryOptionCombo =
+        id != null ? getSession().get(CategoryOptionCombo.class, id) : null;
+
+    if (isMatch(categoryOptionCombo, categoryCombo, optionIds)) {
+      return categoryOptionCombo;
+    }
+
+    categoryOptionCombo = queryCategoryOptionCombo(categoryCombo, categoryOptions);
+
+    if (id != null || isMatch(categoryOptionCombo, categoryCombo, optionIds)) {
+      optionComboIndexCache.invalidate(key); // Index is stale
+    }
+
+    return categoryOptionCombo;
+  }
+
+  /**
+   * Returns an immutable index of the category option combos of the given category combo, mapping
+   * the set of category option IDs of each category option combo to its ID. Sets of category
+   * options shared by more than one category option combo are left out, as such lookups are
+   * ambiguous.
+   */
+  private Map<Set<Long>, Long> getOptionComboIndex(CategoryCombo categoryCombo) {
+    String sql =
+        "select cc.categoryoptioncomboid, coc.categoryoptionid "
+            + "from categorycombos_optioncombos cc "
+            + "inner join categoryoptioncombos_categoryoptions coc "
+            + "on cc.categoryoptioncomboid = coc.categoryoptioncomboid "
+            + "where cc.categorycomboid = ?";
+
+    Map<Long, Set<Long>> optionIdsByCombo = new HashMap<>();
+
+    jdbcTemplate.query(
+        sql,
+        rs -> {
+          optionIdsByCombo.computeIfAbsent(rs.getLong(1), k -> new HashSet<>()).add(rs.getLong(2));
+        },
+        categoryCombo.getId());
+
+    Map<Set<Long>, Long> index = new HashMap<>();
+    Set<Set<Long>> ambiguous = new HashSet<>();
+
+    optionIdsByCombo.forEach(
+        (id, optionIds) -> {
+          if (index.putIfAbsent(optionIds, id) != null) {
+            ambiguous.add(optionIds);
+          }
+        });
+
+    index.keySet().removeAll(ambiguous);
+
+    return Map.copyOf(index);
+  }
+
+  private boolean isMatch(
+      CategoryOptionCombo categoryOptionCombo, CategoryCombo categoryCombo, Set<Long> optionIds) {
+    if (categoryOptionCombo == null
+        || categoryOptionCombo.getCategoryCombo() == null
+        || categoryOptionCombo.getCategoryCombo().getId() != categoryCombo.getId()) {
+      return false;
+    }
+
+    Set<CategoryOption> categoryOptions = categoryOptionCombo.getCategoryOptions();
+
+    return categoryOptions.size() == optionIds.size()
+        && categoryOptions.stream().allMatch(option -> optionIds.contains(option.getId()));
+  }
+
+  private CategoryOptionCombo queryCategoryOptionCombo(
+      CategoryCombo categoryCombo, Set<CategoryOption> categoryOptions) {
     StringBuilder hql =
         new StringBuilder("from CategoryOptionCombo co where co.categoryCombo = :categoryCombo");
 
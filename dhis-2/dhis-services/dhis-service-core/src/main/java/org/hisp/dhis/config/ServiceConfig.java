@@ -32,6 +32,8 @@ import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import org.hisp.dhis.common.DeliveryChannel;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.i18n.I18nManager;
 import org.hisp.dhis.i18n.ui.resourcebundle.DefaultResourceBundleManager;
 import org.hisp.dhis.i18n.ui.resourcebundle.ResourceBundleManager;
@@ -76,12 +78,18 @@ public class ServiceConfig {
 
   @Bean("org.hisp.dhis.outboundmessage.OutboundMessageService")
   public DefaultOutboundMessageBatchService defaultOutboundMessageBatchService(
-      SmsMessageSender smsMessageSender, EmailMessageSender emailMessageSender) {
+      SmsMessageSender smsMessageSender,
+      EmailMessageSender emailMessageSender,
+      DhisConfigurationProvider config) {
     Map<DeliveryChannel, MessageSender> channels = new HashMap<>();
     channels.put(DeliveryChannel.SMS, smsMessageSender);
     channels.put(DeliveryChannel.EMAIL, emailMessageSender);
 
-    DefaultOutboundMessageBatchService service = new DefaultOutboundMessageBatchService();
+    DefaultOutboundMessageBatchService service =
+        new DefaultOutboundMessageBatchService(
+            Integer.parseInt(config.getProperty(ConfigurationKey.SYSTEM_MESSAGE_SEND_PARALLELISM)),
+            Double.parseDouble(
+                config.getProperty(ConfigurationKey.SYSTEM_MESSAGE_SEND_RATE_LIMIT)));
 
     service.setMessageSenders(channels);
 
@@ -28,6 +28,7 @@
 package org.hisp.dhis.config;
 
 import org.hibernate.SessionFactory;
+import org.hisp.dhis.cache.HibernateCacheManager;
 import org.hisp.dhis.category.CategoryService;
 import org.hisp.dhis.configuration.ConfigurationService;
 import org.hisp.dhis.dataelement.DataElementDefaultDimensionPopulator;
@@ -42,6 +43,7 @@ import org.hisp.dhis.scheduling.JobScheduler;
 import org.hisp.dhis.setting.SystemSettingManager;
 import org.hisp.dhis.startup.ConfigurationPopulator;
 import org.hisp.dhis.startup.DefaultAdminUserPopulator;
+import org.hisp.dhis.startup.HibernateCacheWarmUp;
 import org.hisp.dhis.startup.I18nLocalePopulator;
 import org.hisp.dhis.startup.ModelUpgrader;
 import org.hisp.dhis.startup.SchedulerStart;
@@ -131,4 +133,14 @@ public class StartupConfig {
     schedulerStart.setSkipInTests(true);
     return schedulerStart;
   }
+
+  @Bean("org.hisp.dhis.startup.HibernateCacheWarmUp")
+  public HibernateCacheWarmUp hibernateCacheWarmUp(
+      HibernateCacheManager cacheManager, DhisConfigurationProvider dhisConfigurationProvider) {
+    HibernateCacheWarmUp warmUp = new HibernateCacheWarmUp(cacheManager, dhisConfigurationProvider);
+    warmUp.setName("HibernateCacheWarmUp");
+    warmUp.setRunlevel(16);
+    warmUp.setSkipInTests(true);
+    return warmUp;
+  }
 }
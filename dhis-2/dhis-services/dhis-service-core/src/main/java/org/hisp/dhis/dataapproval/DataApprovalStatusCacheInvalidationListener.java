@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.dataapproval;
+
+import java.util.List;
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hisp.dhis.category.CategoryOption;
+import org.springframework.stereotype.Component;
+
+/**
+ * Invalidates the cached data approval statuses when metadata they are based on is changed. This
+ * covers approval levels, workflows and category options, whose sharing decides which attribute
+ * option combos a user can see. Changes of approvals themselves are handled by the {@link
+ * DataApprovalStore}.
+ *
+ * @see DataApprovalStore#getCachedDataApprovalStatuses
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DataApprovalStatusCacheInvalidationListener
+    implements PostCommitInsertEventListener,
+        PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+  private static final List<Class<?>> SOURCE_TYPES =
+      List.of(DataApprovalLevel.class, DataApprovalWorkflow.class, CategoryOption.class);
+
+  @PersistenceUnit private EntityManagerFactory emf;
+
+  private final DataApprovalStore dataApprovalStore;
+
+  @PostConstruct
+  protected void init() {
+    EventListenerRegistry registry =
+        emf.unwrap(SessionFactoryImpl.class)
+            .getServiceRegistry()
+            .getService(EventListenerRegistry.class);
+
+    registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+    registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+    registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+  }
+
+  private void onChange(Object entity) {
+    if (SOURCE_TYPES.stream().anyMatch(type -> type.isInstance(entity))) {
+      log.debug("Invalidating cached data approval statuses after change of {}", entity);
+      dataApprovalStore.invalidateCachedDataApprovalStatuses();
+    }
+  }
+
+  @Override
+  public boolean requiresPostCommitHanding(EntityPersister persister) {
+    return SOURCE_TYPES.contains(persister.getMappedClass());
+  }
+
+  @Override
+  public void onPostInsert(PostInsertEvent event) {
+    onChange(event.getEntity());
+  }
+
+  @Override
+  public void onPostUpdate(PostUpdateEvent event) {
+    onChange(event.getEntity());
+  }
+
+  @Override
+  public void onPostDelete(PostDeleteEvent event) {
+    onChange(event.getEntity());
+  }
+
+  @Override
+  public void onPostInsertCommitFailed(PostInsertEvent event) {
+    // nothing changed
+  }
+
+  @Override
+  public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    // nothing changed
+  }
+
+  @Override
+  public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    // nothing changed
+  }
+}
@@ -41,6 +41,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -143,7 +144,7 @@ public class DefaultDataApprovalService implements DataApprovalService {
 
     validateAttributeOptionCombos(dataApprovalList);
 
-    Map<String, DataApprovalStatus> statusMap = getStatusMap(dataApprovalList);
+    Map<String, DataApprovalStatus> statusMap = getStatusMap(dataApprovalList, false);
 
     List<DataApproval> checkedList = new ArrayList<>();
 
@@ -254,7 +255,7 @@ public class DefaultDataApprovalService implements DataApprovalService {
 
     User currentUser = currentUserService.getCurrentUser();
 
-    Map<String, DataApprovalStatus> statusMap = getStatusMap(dataApprovalList);
+    Map<String, DataApprovalStatus> statusMap = getStatusMap(dataApprovalList, false);
 
     List<DataApproval> checkedList = new ArrayList<>();
 
@@ -304,7 +305,7 @@ public class DefaultDataApprovalService implements DataApprovalService {
 
     User currentUser = currentUserService.getCurrentUser();
 
-    Map<String, DataApprovalStatus> statusMap = getStatusMap(dataApprovalList);
+    Map<String, DataApprovalStatus> statusMap = getStatusMap(dataApprovalList, false);
 
     List<DataApproval> checkedList = new ArrayList<>();
 
@@ -359,7 +360,7 @@ public class DefaultDataApprovalService implements DataApprovalService {
 
     User currentUser = currentUserService.getCurrentUser();
 
-    Map<String, DataApprovalStatus> statusMap = getStatusMap(dataApprovalList);
+    Map<String, DataApprovalStatus> statusMap = getStatusMap(dataApprovalList, false);
 
     List<DataApproval> checkedList = new ArrayList<>();
 
@@ -440,11 +441,31 @@ public class DefaultDataApprovalService implements DataApprovalService {
     return da != null && dataApprovalStore.dataApprovalExists(da);
   }
 
+  @Override
+  @Transactional(readOnly = true)
+  public Predicate<OrganisationUnit> getIsApprovedPredicate(
+      DataApprovalWorkflow workflow, Period period, CategoryOptionCombo attributeOptionCombo) {
+    if (workflow == null) {
+      return organisationUnit -> false;
+    }
+
+    Set<String> approvalKeys =
+        dataApprovalStore.getDataApprovalKeys(workflow, period, attributeOptionCombo);
+
+    return organisationUnit -> {
+      DataApproval da =
+          DataApproval.getLowestApproval(
+              new DataApproval(null, workflow, period, organisationUnit, attributeOptionCombo));
+
+      return da != null && approvalKeys.contains(da.getCacheKey());
+    };
+  }
+
   @Override
   @Transactional
   public Map<DataApproval, DataApprovalStatus> getDataApprovalStatuses(
       List<DataApproval> dataApprovalList) {
-    Map<String, DataApprovalStatus> statusMap = getStatusMap(dataApprovalList);
+    Map<String, DataApprovalStatus> statusMap = getStatusMap(dataApprovalList, true);
 
     DataApprovalPermissionsEvaluator permissionsEvaluator = makePermissionsEvaluator();
 
@@ -488,7 +509,7 @@ public class DefaultDataApprovalService implements DataApprovalService {
     DataApprovalStatus status;
 
     List<DataApprovalStatus> statuses =
-        dataApprovalStore.getDataApprovalStatuses(
+        dataApprovalStore.getCachedDataApprovalStatuses(
             workflow,
             period,
             Lists.newArrayList(organisationUnit),
@@ -544,7 +565,7 @@ public class DefaultDataApprovalService implements DataApprovalService {
       CategoryCombo attributeCombo,
       Set<CategoryOptionCombo> attributeOptionCombos) {
     List<DataApprovalStatus> statusList =
-        dataApprovalStore.getDataApprovalStatuses(
+        dataApprovalStore.getCachedDataApprovalStatuses(
             workflow,
             period,
             orgUnit == null ? null : Lists.newArrayList(orgUnit),
@@ -643,8 +664,12 @@ public class DefaultDataApprovalService implements DataApprovalService {
   /**
    * Returns a mapping from data approval key to data approval status for the given list of data
    * approvals.
+   *
+   * @param cached whether statuses may be served from the status cache. Must be false when the
+   *     statuses decide on approval state changes.
    */
-  private Map<String, DataApprovalStatus> getStatusMap(List<DataApproval> dataApprovalList) {
+  private Map<String, DataApprovalStatus> getStatusMap(
+      List<DataApproval> dataApprovalList, boolean cached) {
     Map<String, DataApprovalStatus> statusMap = new HashMap<>();
 
     DataApprovalPermissionsEvaluator evaluator = makePermissionsEvaluator();
@@ -659,18 +684,35 @@ public class DefaultDataApprovalService implements DataApprovalService {
 
       DataApproval da = dataApprovals.get(0);
 
+      List<DataApprovalLevel> userApprovalLevels =
+          dataApprovalLevelService.getUserDataApprovalLevelsOrLowestLevel(
+              currentUserService.getCurrentUser(), da.getWorkflow());
+      Map<Integer, DataApprovalLevel> levelMap = dataApprovalLevelService.getDataApprovalLevelMap();
+      int orgUnitLevel = da.getOrganisationUnit().getHierarchyLevel();
+      Set<CategoryOptionCombo> attributeOptionCombos = getCategoryOptionCombos(dataApprovals);
+
       List<DataApprovalStatus> statuses =
-          dataApprovalStore.getDataApprovalStatuses(
-              da.getWorkflow(),
-              da.getPeriod(),
-              orgUnits,
-              da.getOrganisationUnit().getHierarchyLevel(),
-              null,
-              null,
-              getCategoryOptionCombos(dataApprovals),
-              dataApprovalLevelService.getUserDataApprovalLevelsOrLowestLevel(
-                  currentUserService.getCurrentUser(), da.getWorkflow()),
-              dataApprovalLevelService.getDataApprovalLevelMap());
+          cached
+              ? dataApprovalStore.getCachedDataApprovalStatuses(
+                  da.getWorkflow(),
+                  da.getPeriod(),
+                  orgUnits,
+                  orgUnitLevel,
+                  null,
+                  null,
+                  attributeOptionCombos,
+                  userApprovalLevels,
+                  levelMap)
+              : dataApprovalStore.getDataApprovalStatuses(
+                  da.getWorkflow(),
+                  da.getPeriod(),
+                  orgUnits,
+                  orgUnitLevel,
+                  null,
+                  null,
+                  attributeOptionCombos,
+                  userApprovalLevels,
+                  levelMap);
 
       for (DataApprovalStatus status : statuses) {
         evaluator.evaluatePermissions(status, da.getWorkflow());
@@ -703,13 +745,14 @@ public class DefaultDataApprovalService implements DataApprovalService {
   }
 
   /**
-   * Returns a key consisting of organisation unit, period, and workflow. Approval status with these
-   * three values in common can be fetched in one call for many values of attributeOptionCombo.
+   * Returns a key consisting of organisation unit level, period, and workflow. Approval status with
+   * these three values in common can be fetched in one call for many organisation units and many
+   * values of attributeOptionCombo.
    */
   private String statusKey(DataApproval approval) {
     return approval == null
         ? null
-        : approval.getOrganisationUnit().getId()
+        : approval.getOrganisationUnit().getHierarchyLevel()
             + IdentifiableObjectUtils.SEPARATOR
             + approval.getPeriod().getId()
             + IdentifiableObjectUtils.SEPARATOR
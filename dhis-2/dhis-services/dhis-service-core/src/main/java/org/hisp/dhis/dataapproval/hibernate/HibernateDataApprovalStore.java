@@ -36,8 +36,10 @@ import static org.hisp.dhis.dataapproval.DataApprovalState.UNAPPROVED_ABOVE;
 import static org.hisp.dhis.dataapproval.DataApprovalState.UNAPPROVED_READY;
 import static org.hisp.dhis.dataapproval.DataApprovalState.UNAPPROVED_WAITING;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -52,6 +54,7 @@ import org.hisp.dhis.cache.CacheProvider;
 import org.hisp.dhis.category.CategoryCombo;
 import org.hisp.dhis.category.CategoryOptionCombo;
 import org.hisp.dhis.category.CategoryService;
+import org.hisp.dhis.common.IdentifiableObject;
 import org.hisp.dhis.common.IdentifiableObjectUtils;
 import org.hisp.dhis.dataapproval.DataApproval;
 import org.hisp.dhis.dataapproval.DataApprovalLevel;
@@ -77,6 +80,8 @@ import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
  * @author Jim Grace
@@ -94,6 +99,8 @@ public class HibernateDataApprovalStore extends HibernateGenericStore<DataApprov
 
   private final Cache<Boolean> isApprovedCache;
 
+  private final Cache<ArrayList<CachedDataApprovalStatus>> statusCache;
+
   // -------------------------------------------------------------------------
   // Dependencies
   // -------------------------------------------------------------------------
@@ -142,6 +149,7 @@ public class HibernateDataApprovalStore extends HibernateGenericStore<DataApprov
     this.systemSettingManager = systemSettingManager;
     this.statementBuilder = statementBuilder;
     this.isApprovedCache = cacheProvider.createIsDataApprovedCache();
+    this.statusCache = cacheProvider.createDataApprovalStatusCache();
     this.organisationUnitService = organisationUnitService;
   }
 
@@ -151,7 +159,7 @@ public class HibernateDataApprovalStore extends HibernateGenericStore<DataApprov
 
   @Override
   public void addDataApproval(DataApproval dataApproval) {
-    isApprovedCache.invalidateAll();
+    invalidateCaches();
 
     dataApproval.setPeriod(periodService.reloadPeriod(dataApproval.getPeriod()));
 
@@ -160,7 +168,7 @@ public class HibernateDataApprovalStore extends HibernateGenericStore<DataApprov
 
   @Override
   public void updateDataApproval(DataApproval dataApproval) {
-    isApprovedCache.invalidateAll();
+    invalidateCaches();
 
     dataApproval.setPeriod(periodService.reloadPeriod(dataApproval.getPeriod()));
 
@@ -169,7 +177,7 @@ public class HibernateDataApprovalStore extends HibernateGenericStore<DataApprov
 
   @Override
   public void deleteDataApproval(DataApproval dataApproval) {
-    isApprovedCache.invalidateAll();
+    invalidateCaches();
 
     dataApproval.setPeriod(periodService.reloadPeriod(dataApproval.getPeriod()));
 
@@ -178,13 +186,34 @@ public class HibernateDataApprovalStore extends HibernateGenericStore<DataApprov
 
   @Override
   public void deleteDataApprovals(OrganisationUnit organisationUnit) {
-    isApprovedCache.invalidateAll();
+    invalidateCaches();
 
     String hql = "delete from DataApproval d where d.organisationUnit = :unit";
 
     getSession().createQuery(hql).setParameter("unit", organisationUnit).executeUpdate();
   }
 
+  /**
+   * Invalidates the approval caches. As approval status may have been read and cached by other
+   * transactions before this transaction commits, the caches are invalidated again when the
+   * transaction completes.
+   */
+  private void invalidateCaches() {
+    isApprovedCache.invalidateAll();
+    statusCache.invalidateAll();
+
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+              isApprovedCache.invalidateAll();
+              statusCache.invalidateAll();
+            }
+          });
+    }
+  }
+
   @Override
   public DataApproval getDataApproval(DataApproval dataApproval) {
     return getDataApproval(
@@ -275,6 +304,184 @@ public class HibernateDataApprovalStore extends HibernateGenericStore<DataApprov
     return jdbcTemplate.queryForList(sql).size() > 0;
   }
 
+  @Override
+  public Set<String> getDataApprovalKeys(
+      DataApprovalWorkflow workflow, Period period, CategoryOptionCombo attributeOptionCombo) {
+    Period storedPeriod = periodStore.reloadPeriod(period);
+
+    if (storedPeriod == null) {
+      return Set.of();
+    }
+
+    String sql =
+        "select dal.uid as leveluid, ou.uid as orgunituid "
+            + "from dataapproval da "
+            + "join dataapprovallevel dal on dal.dataapprovallevelid = da.dataapprovallevelid "
+            + "join organisationunit ou on ou.organisationunitid = da.organisationunitid "
+            + "where da.workflowid = ? "
+            + "and da.periodid = ? "
+            + "and da.attributeoptioncomboid = ?";
+
+    Set<String> keys = new HashSet<>();
+
+    jdbcTemplate.query(
+        sql,
+        rs -> {
+          keys.add(
+              DataApproval.getCacheKey(
+                  rs.getString("leveluid"),
+                  workflow.getUid(),
+                  period.getUid(),
+                  rs.getString("orgunituid"),
+                  attributeOptionCombo.getUid()));
+        },
+        workflow.getId(),
+        storedPeriod.getId(),
+        attributeOptionCombo.getId());
+
+    return keys;
+  }
+
+  @Override
+  public List<DataApprovalStatus> getCachedDataApprovalStatuses(
+      DataApprovalWorkflow workflow,
+      Period period,
+      Collection<OrganisationUnit> orgUnits,
+      int orgUnitLevel,
+      OrganisationUnit orgUnitFilter,
+      CategoryCombo attributeCombo,
+      Set<CategoryOptionCombo> attributeOptionCombos,
+      List<DataApprovalLevel> userApprovalLevels,
+      Map<Integer, DataApprovalLevel> levelMap) {
+    String cacheKey =
+        getStatusCacheKey(
+            currentUserService.getCurrentUser(),
+            workflow,
+            period,
+            orgUnits,
+            orgUnitLevel,
+            orgUnitFilter,
+            attributeCombo,
+            attributeOptionCombos,
+            userApprovalLevels);
+
+    List<CachedDataApprovalStatus> statuses =
+        statusCache.get(
+            cacheKey,
+            key ->
+                getDataApprovalStatuses(
+                        workflow,
+                        period,
+                        orgUnits,
+                        orgUnitLevel,
+                        orgUnitFilter,
+                        attributeCombo,
+                        attributeOptionCombos,
+                        userApprovalLevels,
+                        levelMap)
+                    .stream()
+                    .map(CachedDataApprovalStatus::of)
+                    .collect(Collectors.toCollection(ArrayList::new)));
+
+    // Callers set permissions on the statuses, so each call returns new statuses
+
+    return statuses.stream()
+        .map(status -> status.toStatus(levelMap))
+        .collect(Collectors.toCollection(ArrayList::new));
+  }
+
+  @Override
+  public void invalidateCachedDataApprovalStatuses() {
+    statusCache.invalidateAll();
+  }
+
+  /**
+   * A {@link DataApprovalStatus} as it is cached. Approval levels are kept by their level number,
+   * so that cached statuses are serializable and can be shared by the servers of a cluster.
+   */
+  record CachedDataApprovalStatus(
+      DataApprovalState state,
+      Integer approvedLevel,
+      long approvedOrgUnitId,
+      Integer actionLevel,
+      String organisationUnitUid,
+      String organisationUnitName,
+      String attributeOptionComboUid,
+      boolean accepted)
+      implements Serializable {
+
+    static CachedDataApprovalStatus of(DataApprovalStatus status) {
+      return new CachedDataApprovalStatus(
+          status.getState(),
+          getLevel(status.getApprovedLevel()),
+          status.getApprovedOrgUnitId(),
+          getLevel(status.getActionLevel()),
+          status.getOrganisationUnitUid(),
+          status.getOrganisationUnitName(),
+          status.getAttributeOptionComboUid(),
+          status.isAccepted());
+    }
+
+    DataApprovalStatus toStatus(Map<Integer, DataApprovalLevel> levelMap) {
+      return DataApprovalStatus.builder()
+          .state(state)
+          .approvedLevel(approvedLevel == null ? null : levelMap.get(approvedLevel))
+          .approvedOrgUnitId(approvedOrgUnitId)
+          .actionLevel(actionLevel == null ? null : levelMap.get(actionLevel))
+          .organisationUnitUid(organisationUnitUid)
+          .organisationUnitName(organisationUnitName)
+          .attributeOptionComboUid(attributeOptionComboUid)
+          .accepted(accepted)
+          .build();
+    }
+
+    private static Integer getLevel(DataApprovalLevel level) {
+      return level == null ? null : level.getLevel();
+    }
+  }
+
+  /**
+   * Returns a cache key for approval statuses, consisting of the user, the user's organisation
+   * units, user groups and dimension constraints, and the identifiers of all arguments which affect
+   * the statuses. Changes to the user's access then result in a different key.
+   */
+  static String getStatusCacheKey(
+      User user,
+      DataApprovalWorkflow workflow,
+      Period period,
+      Collection<OrganisationUnit> orgUnits,
+      int orgUnitLevel,
+      OrganisationUnit orgUnitFilter,
+      CategoryCombo attributeCombo,
+      Set<CategoryOptionCombo> attributeOptionCombos,
+      List<DataApprovalLevel> userApprovalLevels) {
+    return StringUtils.joinWith(
+        "-",
+        user.getUid(),
+        user.isSuper(),
+        getSortedUids(user.getDataViewOrganisationUnitsWithFallback()),
+        getSortedUids(user.getGroups()),
+        getSortedUids(user.getCogsDimensionConstraints()),
+        getSortedUids(user.getCatDimensionConstraints()),
+        workflow.getUid(),
+        period.getIsoDate(),
+        getSortedUids(orgUnits),
+        orgUnitLevel,
+        orgUnitFilter != null ? orgUnitFilter.getUid() : null,
+        attributeCombo != null ? attributeCombo.getUid() : null,
+        getSortedUids(attributeOptionCombos),
+        getSortedUids(userApprovalLevels));
+  }
+
+  private static String getSortedUids(Collection<? extends IdentifiableObject> objects) {
+    return objects == null
+        ? null
+        : objects.stream()
+            .map(IdentifiableObject::getUid)
+            .sorted()
+            .collect(Collectors.joining(","));
+  }
+
   @Override
   public List<DataApprovalStatus> getDataApprovalStatuses(
       DataApprovalWorkflow workflow,
@@ -361,13 +568,21 @@ public class HibernateDataApprovalStore extends HibernateGenericStore<DataApprov
     }
 
     if (orgUnits != null) {
+      List<OrganisationUnit> visibleOrgUnits = new ArrayList<>();
+
       for (OrganisationUnit orgUnit : orgUnits) {
-        if (!organisationUnitService.isDescendant(orgUnit, userOrgUnits)) {
+        if (organisationUnitService.isDescendant(orgUnit, userOrgUnits)) {
+          visibleOrgUnits.add(orgUnit);
+        } else {
           log.debug("User " + user.getUsername() + " can't see orgUnit " + orgUnit.getName());
-
-          return new ArrayList<>(); // Unapprovable.
         }
       }
+
+      if (visibleOrgUnits.isEmpty()) {
+        return new ArrayList<>(); // Unapprovable.
+      }
+
+      orgUnits = visibleOrgUnits;
     }
 
     // ---------------------------------------------------------------------
@@ -464,7 +679,7 @@ public class HibernateDataApprovalStore extends HibernateGenericStore<DataApprov
     if (orgUnits != null) {
       orgUnitIds = StringUtils.join(IdentifiableObjectUtils.getIdentifiers(orgUnits), ",");
 
-      highestApprovedOrgUnitCompare = "da.organisationunitid in (" + orgUnitIds + ") ";
+      highestApprovedOrgUnitCompare = "da.organisationunitid = o.organisationunitid ";
     } else {
       highestApprovedOrgUnitJoin =
           "join organisationunit dao on dao.organisationunitid = da.organisationunitid ";
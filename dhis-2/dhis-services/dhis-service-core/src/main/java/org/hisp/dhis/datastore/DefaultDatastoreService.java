@@ -104,6 +104,39 @@ public class DefaultDatastoreService implements DatastoreService {
     return readProtectedIn(query.getNamespace(), null, () -> store.getEntries(query, transform));
   }
 
+  @Override
+  @Transactional(readOnly = true)
+  public List<DatastoreAggregate> getAggregates(
+      DatastoreQuery query, String groupPath, String sumPath) throws ConflictException {
+    DatastoreQueryValidator.validate(query);
+    String group = DatastoreQuery.normalisePath(groupPath);
+    String sum = sumPath == null ? null : DatastoreQuery.normalisePath(sumPath);
+    return readProtectedIn(
+        query.getNamespace(), emptyList(), () -> store.getAggregates(query, group, sum));
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<String> getIndexedPaths(String namespace) {
+    return readProtectedIn(namespace, emptyList(), () -> store.getIndexedPaths(namespace));
+  }
+
+  /**
+   * Not transactional as indexes are created concurrently which is not possible within a
+   * transaction.
+   */
+  @Override
+  public void addIndex(String namespace, String path) {
+    String normalised = DatastoreQuery.normalisePath(path);
+    writeProtectedIn(namespace, List::of, () -> store.createIndex(namespace, normalised));
+  }
+
+  @Override
+  public void removeIndex(String namespace, String path) {
+    String normalised = DatastoreQuery.normalisePath(path);
+    writeProtectedIn(namespace, List::of, () -> store.dropIndex(namespace, normalised));
+  }
+
   @Override
   public DatastoreQuery plan(DatastoreQuery query) throws ConflictException {
     DatastoreQueryValidator.validate(query);
@@ -39,6 +39,7 @@ import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import lombok.AllArgsConstructor;
 import org.hisp.dhis.datastore.DatastoreQuery;
 import org.hisp.dhis.datastore.DatastoreQuery.Comparison;
@@ -70,6 +71,46 @@ public class DatastoreQueryBuilder {
         fields, tableAndBaseFilterHql, nonNullFilters, filters, orders);
   }
 
+  /**
+   * Creates the HQL to count (and optionally sum) the matching entries grouped by the value at the
+   * group path. Only the filters of the query are used, fields and order are ignored.
+   *
+   * @param groupPath path of the value to group by
+   * @param sumPath path of the value to sum, or {@code null} to only count
+   * @return HQL selecting group value, count and (if requested) sum
+   */
+  public String createAggregateHQL(String groupPath, String sumPath) {
+    String group = toValueAtPathAsTextHQL(toValueAtPathHQL(groupPath));
+    String sum = "";
+    if (sumPath != null) {
+      String value = toValueAtPathHQL(sumPath);
+      // non-numeric values do not contribute to the sum
+      sum =
+          format(
+              ", sum(case when jsonb_typeof(%s) = 'number' then cast(%s as double) else 0.0 end)",
+              value, toValueAtPathAsTextHQL(value));
+    }
+    return format(
+        "select %1$s, count(*)%2$s %3$s and (%4$s) group by %1$s order by count(*) desc, %1$s",
+        group, sum, tableAndBaseFilterHql, createFilterHQL());
+  }
+
+  /**
+   * The SQL expressions of an index on the provided path that matches the expressions used by
+   * filters and orders on that path. The first is the JSON value used for typed comparison and
+   * ordering, the second the text value used for string comparison.
+   *
+   * @param path the path to index
+   * @param column name of the JSON value column
+   * @return index expressions for the path
+   */
+  public static List<String> createIndexExpressionsSQL(String path, String column) {
+    String value = toValueAtPathHQL(path);
+    return Stream.of(value, toValueAtPathAsTextHQL(value))
+        .map(expr -> expr.replace("jbPlainValue", column))
+        .collect(toList());
+  }
+
   public void applyParameterValues(BiConsumer<String, Object> setParameter) {
     int i = 0;
     for (Filter f : query.getFilters()) {
@@ -27,11 +27,18 @@
  */
 package org.hisp.dhis.datastore.hibernate;
 
+import static java.lang.String.format;
 import static java.util.Arrays.asList;
 import static java.util.Arrays.copyOfRange;
 import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.toList;
+import static org.hisp.dhis.system.util.SqlUtils.singleQuote;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.function.Function;
 import java.util.stream.Stream;
@@ -39,6 +46,7 @@ import javax.persistence.criteria.CriteriaBuilder;
 import org.hibernate.SessionFactory;
 import org.hibernate.query.Query;
 import org.hisp.dhis.common.hibernate.HibernateIdentifiableObjectStore;
+import org.hisp.dhis.datastore.DatastoreAggregate;
 import org.hisp.dhis.datastore.DatastoreEntry;
 import org.hisp.dhis.datastore.DatastoreFields;
 import org.hisp.dhis.datastore.DatastoreQuery;
@@ -55,6 +63,12 @@ import org.springframework.stereotype.Repository;
 @Repository
 public class HibernateDatastoreStore extends HibernateIdentifiableObjectStore<DatastoreEntry>
     implements DatastoreStore {
+  private static final String INDEX_PREFIX = "in_datastore_";
+
+  private static final int EXPORT_FETCH_SIZE = 1000;
+
+  private static final int MAX_AGGREGATE_GROUPS = 1000;
+
   public HibernateDatastoreStore(
       SessionFactory sessionFactory,
       JdbcTemplate jdbcTemplate,
@@ -130,6 +144,9 @@ public class HibernateDatastoreStore extends HibernateIdentifiableObjectStore<Da
       int offset = Math.max(0, (query.getPage() - 1) * size);
       hQuery.setMaxResults(size);
       hQuery.setFirstResult(offset);
+    } else {
+      // unpaged exports are streamed using a cursor instead of loading all rows at once
+      hQuery.setFetchSize(EXPORT_FETCH_SIZE);
     }
 
     if (query.getFields().isEmpty()) {
@@ -147,6 +164,84 @@ public class HibernateDatastoreStore extends HibernateIdentifiableObjectStore<Da
                         (String) row[0], asList(copyOfRange(row, 1, row.length, String[].class)))));
   }
 
+  @Override
+  public List<DatastoreAggregate> getAggregates(
+      DatastoreQuery query, String groupPath, String sumPath) {
+    DatastoreQueryBuilder builder =
+        new DatastoreQueryBuilder("from DatastoreEntry where namespace = :namespace", query);
+    Query<Object[]> hQuery =
+        getSession()
+            .createQuery(builder.createAggregateHQL(groupPath, sumPath), Object[].class)
+            .setParameter("namespace", query.getNamespace())
+            .setMaxResults(MAX_AGGREGATE_GROUPS)
+            .setCacheable(false);
+    builder.applyParameterValues(hQuery::setParameter);
+    return hQuery.stream()
+        .map(
+            row ->
+                new DatastoreAggregate(
+                    (String) row[0],
+                    ((Number) row[1]).longValue(),
+                    sumPath == null ? null : ((Number) row[2]).doubleValue()))
+        .collect(toList());
+  }
+
+  @Override
+  public List<String> getIndexedPaths(String namespace) {
+    String sql =
+        "select distinct obj_description(c.oid, 'pg_class') from pg_class c"
+            + " where c.relkind = 'i' and c.relname like '"
+            + INDEX_PREFIX
+            + "%'";
+    String prefix = namespace + ":";
+    return jdbcTemplate.queryForList(sql, String.class).stream()
+        .filter(
+            comment ->
+                comment != null
+                    && comment.startsWith(prefix)
+                    && comment.lastIndexOf(':') == namespace.length())
+        .map(comment -> comment.substring(prefix.length()))
+        .sorted()
+        .collect(toList());
+  }
+
+  @Override
+  public void createIndex(String namespace, String path) {
+    List<String> expressions = DatastoreQueryBuilder.createIndexExpressionsSQL(path, "jbvalue");
+    String[] suffixes = {"_json", "_text"};
+    for (int i = 0; i < suffixes.length; i++) {
+      String name = getIndexName(namespace, path) + suffixes[i];
+      jdbcTemplate.execute(
+          format(
+              "create index concurrently if not exists %s on keyjsonvalue (namespace, (%s))",
+              name, expressions.get(i)));
+      jdbcTemplate.execute(
+          format("comment on index %s is %s", name, singleQuote(namespace + ":" + path)));
+    }
+  }
+
+  @Override
+  public void dropIndex(String namespace, String path) {
+    String name = getIndexName(namespace, path);
+    jdbcTemplate.execute(format("drop index concurrently if exists %s_json", name));
+    jdbcTemplate.execute(format("drop index concurrently if exists %s_text", name));
+  }
+
+  /**
+   * Index names are derived from a hash of namespace and path as both may be longer than the
+   * maximum name length and the namespace may contain characters not allowed in names.
+   */
+  private static String getIndexName(String namespace, String path) {
+    try {
+      byte[] hash =
+          MessageDigest.getInstance("SHA-256")
+              .digest((namespace + ":" + path).getBytes(StandardCharsets.UTF_8));
+      return INDEX_PREFIX + HexFormat.of().formatHex(hash, 0, 12);
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
   @Override
   public DatastoreEntry getEntry(String namespace, String key) {
 
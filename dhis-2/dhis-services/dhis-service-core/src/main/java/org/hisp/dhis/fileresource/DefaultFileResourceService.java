@@ -33,7 +33,6 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
 import java.util.List;
-import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.function.Predicate;
@@ -78,8 +77,6 @@ public class DefaultFileResourceService implements FileResourceService {
 
   private final FileResourceContentStore fileResourceContentStore;
 
-  private final ImageProcessingService imageProcessingService;
-
   private final ApplicationEventPublisher fileEventPublisher;
 
   // -------------------------------------------------------------------------
@@ -167,10 +164,7 @@ public class DefaultFileResourceService implements FileResourceService {
 
     if (FileResource.isImage(fileResource.getContentType())
         && FileResourceDomain.isDomainForMultipleImages(fileResource.getDomain())) {
-      Map<ImageFileDimension, File> imageFiles =
-          imageProcessingService.createImages(fileResource, file);
-
-      fileEventPublisher.publishEvent(new ImageFileSavedEvent(fileResource.getUid(), imageFiles));
+      fileEventPublisher.publishEvent(new ImageFileSavedEvent(fileResource.getUid(), file));
       return;
     }
 
@@ -246,6 +240,15 @@ public class DefaultFileResourceService implements FileResourceService {
     fileResourceContentStore.copyContent(fileResource.getStorageKey(), outputStream);
   }
 
+  @Override
+  @Transactional(readOnly = true)
+  public void copyFileResourceContent(
+      FileResource fileResource, OutputStream outputStream, long offset, long length)
+      throws IOException, NoSuchElementException {
+    fileResourceContentStore.copyContent(
+        fileResource.getStorageKey(), outputStream, offset, length);
+  }
+
   @Override
   @Transactional(readOnly = true)
   public byte[] copyFileResourceContent(FileResource fileResource)
@@ -27,19 +27,35 @@
  */
 package org.hisp.dhis.fileresource;
 
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingOutputStream;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.awt.image.BufferedImage;
 import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URLConnection;
-import java.util.EnumMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import javax.annotation.PreDestroy;
 import javax.imageio.ImageIO;
 import lombok.extern.slf4j.Slf4j;
 import org.hisp.dhis.commons.util.DebugUtils;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.imgscalr.Scalr;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 /**
@@ -54,40 +70,110 @@ public class DefaultImageProcessingService implements ImageProcessingService {
           ImageFileDimension.MEDIUM, new ImageSize(512, 512),
           ImageFileDimension.LARGE, new ImageSize(1024, 1024));
 
+  /**
+   * Number of resize tasks which may wait for a worker, per worker. When the queue is full, resize
+   * tasks run in the submitting thread, which slows down the producers of new images.
+   */
+  private static final int QUEUE_CAPACITY_PER_WORKER = 16;
+
+  private final ThreadPoolExecutor executor;
+
+  private final AtomicLong processedImages = new AtomicLong();
+
+  private final AtomicLong processingMillis = new AtomicLong();
+
+  @Autowired
+  public DefaultImageProcessingService(DhisConfigurationProvider config) {
+    this(
+        Integer.parseInt(config.getProperty(ConfigurationKey.SYSTEM_IMAGE_PROCESSING_PARALLELISM)));
+  }
+
+  DefaultImageProcessingService(int parallelism) {
+    this.executor =
+        new ThreadPoolExecutor(
+            parallelism,
+            parallelism,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(parallelism * QUEUE_CAPACITY_PER_WORKER),
+            new ThreadFactoryBuilder().setNameFormat("image-processing-%d").setDaemon(true).build(),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
   @Override
-  public Map<ImageFileDimension, File> createImages(FileResource fileResource, File file) {
+  public List<ImageFileVariant> createImageVariants(FileResource fileResource, File file) {
     if (!isInputValid(fileResource, file)) {
-      return new EnumMap<>(ImageFileDimension.class);
+      return List.of();
     }
 
-    Map<ImageFileDimension, File> images = new EnumMap<>(ImageFileDimension.class);
+    long startTime = System.currentTimeMillis();
+
+    BufferedImage image;
 
     try {
-      BufferedImage image = ImageIO.read(file);
+      image = ImageIO.read(file);
+    } catch (IOException e) {
+      log.error("Image file resource cannot be processed", e);
+      return List.of();
+    }
 
-      for (ImageFileDimension dimension : ImageFileDimension.values()) {
-        if (ImageFileDimension.ORIGINAL == dimension) {
-          images.put(dimension, file);
-          continue;
-        }
+    if (image == null) {
+      log.error("Image file resource cannot be decoded: " + fileResource.getUid());
+      return List.of();
+    }
 
-        ImageSize size = IMAGE_FILE_SIZES.get(dimension);
+    List<Future<ImageFileVariant>> futures =
+        Stream.of(ImageFileDimension.values())
+            .filter(IMAGE_FILE_SIZES::containsKey)
+            .map(
+                dimension ->
+                    executor.submit(
+                        () -> createImageVariant(image, dimension, fileResource.getFormat())))
+            .toList();
 
-        BufferedImage resizedImage = resize(image, size);
+    List<ImageFileVariant> imageVariants = new ArrayList<>();
 
-        File tempFile = new File(file.getPath() + dimension.getDimension());
+    try {
+      for (Future<ImageFileVariant> future : futures) {
+        imageVariants.add(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return List.of();
+    } catch (ExecutionException e) {
+      log.error("Image file resource cannot be processed", e.getCause());
+      return List.of();
+    } finally {
+      futures.forEach(future -> future.cancel(true));
+    }
+
+    logThroughput(fileResource, System.currentTimeMillis() - startTime);
+
+    return imageVariants;
+  }
 
-        ImageIO.write(resizedImage, fileResource.getFormat(), tempFile);
+  /**
+   * Resizes the given image and encodes it in memory, computing the MD5 hash of the encoded image
+   * while it is written.
+   */
+  private ImageFileVariant createImageVariant(
+      BufferedImage image, ImageFileDimension dimension, String format) throws IOException {
+    BufferedImage resizedImage = resize(image, IMAGE_FILE_SIZES.get(dimension));
 
-        images.put(dimension, tempFile);
+    ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+    try (HashingOutputStream out = new HashingOutputStream(Hashing.md5(), content)) {
+      if (!ImageIO.write(resizedImage, format, out)) {
+        throw new IOException("No image writer found for format: " + format);
       }
-    } catch (IOException e) {
-      log.error("Image file resource cannot be processed");
-      DebugUtils.getStackTrace(e);
-      return new EnumMap<>(ImageFileDimension.class);
-    }
 
-    return images;
+      return new ImageFileVariant(dimension, content.toByteArray(), out.hash().toString());
+    }
   }
 
   private BufferedImage resize(BufferedImage image, ImageSize dimensions) {
@@ -95,6 +181,20 @@ public class DefaultImageProcessingService implements ImageProcessingService {
         image, Scalr.Method.BALANCED, Scalr.Mode.FIT_TO_WIDTH, dimensions.width, dimensions.height);
   }
 
+  private void logThroughput(FileResource fileResource, long millis) {
+    long images = processedImages.incrementAndGet();
+    long totalMillis = processingMillis.addAndGet(millis);
+
+    log.debug(
+        String.format(
+            "Image variants for file resource '%s' created in %d ms, %d resize tasks queued, %d images processed in %d ms on average",
+            fileResource.getUid(),
+            millis,
+            executor.getQueue().size(),
+            images,
+            totalMillis / images));
+  }
+
   private boolean isInputValid(FileResource fileResource, File file) {
     if (fileResource == null || file == null) {
       log.error("FileResource and associated File must not be null");
@@ -28,7 +28,7 @@
 package org.hisp.dhis.fileresource;
 
 import java.io.File;
-import java.util.Map;
+import java.util.List;
 import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
@@ -53,10 +53,15 @@ public class FileResourceEventListener {
 
   private final FileResourceContentStore fileResourceContentStore;
 
+  private final ImageProcessingService imageProcessingService;
+
   public FileResourceEventListener(
-      FileResourceService fileResourceService, FileResourceContentStore contentStore) {
+      FileResourceService fileResourceService,
+      FileResourceContentStore contentStore,
+      ImageProcessingService imageProcessingService) {
     this.fileResourceService = fileResourceService;
     this.fileResourceContentStore = contentStore;
+    this.imageProcessingService = imageProcessingService;
   }
 
   @TransactionalEventListener
@@ -81,14 +86,20 @@ public class FileResourceEventListener {
   public void saveImageFile(ImageFileSavedEvent imageFileSavedEvent) {
     DateTime startTime = DateTime.now();
 
-    Map<ImageFileDimension, File> imageFiles = imageFileSavedEvent.getImageFiles();
+    File file = imageFileSavedEvent.getFile();
 
     FileResource fileResource =
         fileResourceService.getFileResource(imageFileSavedEvent.getFileResource());
 
-    String storageId = fileResourceContentStore.saveFileResourceContent(fileResource, imageFiles);
+    // Variants are created before the original file is consumed by the upload
+
+    List<ImageFileVariant> imageVariants =
+        imageProcessingService.createImageVariants(fileResource, file);
+
+    String storageId = fileResourceContentStore.saveFileResourceContent(fileResource, file);
 
-    if (storageId != null) {
+    if (storageId != null
+        && fileResourceContentStore.saveFileResourceContent(fileResource, imageVariants) != null) {
       fileResource.setHasMultipleStorageFiles(true);
 
       fileResourceService.updateFileResource(fileResource);
@@ -38,6 +38,8 @@ import java.util.List;
 import java.util.UUID;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.scheduling.Job;
 import org.hisp.dhis.scheduling.JobConfiguration;
 import org.hisp.dhis.scheduling.JobProgress;
@@ -47,7 +49,7 @@ import org.springframework.stereotype.Component;
 /**
  * Job will fetch all the image FileResources with flag hasMultiple set to false. It will process
  * those image FileResources create three images files for each of them. Once created, images will
- * be stored at EWS and flag hasMultiple is set to true.
+ * be stored at EWS and flag hasMultiple is set to true. FileResources are processed in parallel.
  *
  * @author Zubair Asghar.
  */
@@ -61,6 +63,8 @@ public class ImageResizingJob implements Job {
 
   private final ImageProcessingService imageProcessingService;
 
+  private final DhisConfigurationProvider config;
+
   @Override
   public JobType getJobType() {
     return JobType.IMAGE_PROCESSING;
@@ -72,7 +76,11 @@ public class ImageResizingJob implements Job {
 
     List<FileResource> images = fileResourceService.getAllUnProcessedImagesFiles();
     progress.startingStage("Creating and storing images", images.size(), SKIP_ITEM_OUTLIER);
-    progress.runStage(images, FileResource::getStorageKey, this::storeImageFiles);
+    progress.runStageInParallel(
+        Integer.parseInt(config.getProperty(ConfigurationKey.SYSTEM_IMAGE_PROCESSING_PARALLELISM)),
+        images,
+        FileResource::getStorageKey,
+        this::storeImageFiles);
 
     progress.completedProcess(format("Number of FileResources processed: %d", images.size()));
   }
@@ -92,7 +100,7 @@ public class ImageResizingJob implements Job {
 
       String storageKey =
           fileResourceContentStore.saveFileResourceContent(
-              image, imageProcessingService.createImages(image, tmpFile));
+              image, imageProcessingService.createImageVariants(image, tmpFile));
 
       if (storageKey != null) {
         image.setHasMultipleStorageFiles(true);
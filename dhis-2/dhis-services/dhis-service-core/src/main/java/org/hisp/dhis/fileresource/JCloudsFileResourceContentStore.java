@@ -30,7 +30,6 @@ package org.hisp.dhis.fileresource;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.common.hash.HashCode;
-import com.google.common.hash.Hashing;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -51,7 +50,9 @@ import org.hisp.dhis.external.location.LocationManager;
 import org.jclouds.ContextBuilder;
 import org.jclouds.blobstore.*;
 import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.BlobMetadata;
 import org.jclouds.blobstore.internal.RequestSigningUnsupported;
+import org.jclouds.blobstore.options.GetOptions;
 import org.jclouds.domain.Credentials;
 import org.jclouds.domain.Location;
 import org.jclouds.domain.LocationBuilder;
@@ -209,13 +210,13 @@ public class JCloudsFileResourceContentStore implements FileResourceContentStore
 
   @Override
   public long getFileResourceContentLength(String key) {
-    final Blob blob = getBlob(key);
+    final BlobMetadata metadata = blobStore.blobMetadata(config.container, key);
 
-    if (blob == null) {
+    if (metadata == null) {
       return 0;
     }
 
-    return blob.getMetadata().getContentMetadata().getContentLength();
+    return metadata.getContentMetadata().getContentLength();
   }
 
   @Override
@@ -261,40 +262,18 @@ public class JCloudsFileResourceContentStore implements FileResourceContentStore
 
   @Override
   public String saveFileResourceContent(
-      FileResource fileResource, Map<ImageFileDimension, File> imageFiles) {
-    if (imageFiles.isEmpty()) {
+      FileResource fileResource, List<ImageFileVariant> imageVariants) {
+    if (imageVariants.isEmpty()) {
       return null;
     }
 
-    Blob blob;
-
-    for (Map.Entry<ImageFileDimension, File> entry : imageFiles.entrySet()) {
-      File file = entry.getValue();
-
-      String contentMd5;
+    for (ImageFileVariant imageVariant : imageVariants) {
+      Blob blob = createBlob(fileResource, imageVariant);
 
       try {
-        HashCode hash = com.google.common.io.Files.asByteSource(file).hash(Hashing.md5());
-        contentMd5 = hash.toString();
-      } catch (IOException e) {
-        log.error("Hashing error: " + e.getMessage(), e);
-        return null;
-      }
-
-      blob = createBlob(fileResource, entry.getKey().getDimension(), file, contentMd5);
-
-      if (blob != null) {
-        try {
-          blobStore.putBlob(config.container, blob);
-
-          Files.deleteIfExists(file.toPath());
-        } catch (ContainerNotFoundException e) {
-          log.error("Container not found", e);
-          return null;
-        } catch (IOException ioe) {
-          log.warn(String.format("Temporary file '%s' could not be deleted: ", file.toPath()), ioe);
-        }
-      } else {
+        blobStore.putBlob(config.container, blob);
+      } catch (Exception e) {
+        log.error("File upload failed: ", e);
         return null;
       }
     }
@@ -334,22 +313,23 @@ public class JCloudsFileResourceContentStore implements FileResourceContentStore
   @Override
   public void copyContent(String key, OutputStream output)
       throws IOException, NoSuchElementException {
-    if (!blobExists(key)) {
-      throw new NoSuchElementException("key '" + key + "' not found.");
+    try (InputStream in = getContentStream(key, GetOptions.NONE)) {
+      IOUtils.copyLarge(in, output);
     }
+  }
 
-    try (InputStream in = getBlob(key).getPayload().openStream()) {
-      IOUtils.copy(in, output);
+  @Override
+  public void copyContent(String key, OutputStream output, long offset, long length)
+      throws IOException, NoSuchElementException {
+    try (InputStream in =
+        getContentStream(key, GetOptions.Builder.range(offset, offset + length - 1))) {
+      IOUtils.copyLarge(in, output, 0, length);
     }
   }
 
   @Override
   public byte[] copyContent(String key) throws IOException, NoSuchElementException {
-    if (!blobExists(key)) {
-      throw new NoSuchElementException("key '" + key + "' not found.");
-    }
-
-    try (InputStream in = getBlob(key).getPayload().openStream()) {
+    try (InputStream in = getContentStream(key, GetOptions.NONE)) {
       return IOUtils.toByteArray(in);
     }
   }
@@ -362,6 +342,21 @@ public class JCloudsFileResourceContentStore implements FileResourceContentStore
     return blobStore.getBlob(config.container, key);
   }
 
+  /**
+   * Opens a stream to the content stored under the given key, fetching the blob in a single request
+   * to the file store.
+   */
+  private InputStream getContentStream(String key, GetOptions options)
+      throws IOException, NoSuchElementException {
+    Blob blob = key != null ? blobStore.getBlob(config.container, key, options) : null;
+
+    if (blob == null) {
+      throw new NoSuchElementException("key '" + key + "' not found.");
+    }
+
+    return blob.getPayload().openStream();
+  }
+
   private boolean blobExists(String key) {
     return key != null && blobStore.blobExists(config.container, key);
   }
@@ -393,6 +388,19 @@ public class JCloudsFileResourceContentStore implements FileResourceContentStore
         .build();
   }
 
+  private Blob createBlob(FileResource fileResource, ImageFileVariant imageVariant) {
+    String fileDimension = imageVariant.getDimension().getDimension();
+
+    return blobStore
+        .blobBuilder(StringUtils.join(fileResource.getStorageKey(), fileDimension))
+        .payload(imageVariant.getContent())
+        .contentLength(imageVariant.getContent().length)
+        .contentMD5(HashCode.fromString(imageVariant.getContentMd5()))
+        .contentType(fileResource.getContentType())
+        .contentDisposition("filename=" + fileResource.getName() + fileDimension)
+        .build();
+  }
+
   private boolean requestSigningSupported(BlobRequestSigner signer) {
     return !(signer instanceof RequestSigningUnsupported)
         && !(signer instanceof LocalBlobRequestSigner);
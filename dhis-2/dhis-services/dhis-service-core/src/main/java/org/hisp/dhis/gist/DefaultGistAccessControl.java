@@ -158,4 +158,15 @@ public class DefaultGistAccessControl implements GistAccessControl {
     return JpaQueryUtils.generateHqlQueryForSharingCheck(
         tableName, currentUser, AclService.LIKE_READ_METADATA);
   }
+
+  @Override
+  public String createAccessFilterSQL(String sharingColumn) {
+    if (currentUser.isSuper() || currentUser.isAuthorized("Test_skipSharingCheck")) {
+      return "1=1";
+    }
+    return "("
+        + JpaQueryUtils.generateSQlQueryForSharingCheck(
+            sharingColumn, currentUser, AclService.LIKE_READ_METADATA)
+        + ")";
+  }
 }
@@ -38,13 +38,24 @@ import java.util.Date;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.HibernateException;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.spi.MetamodelImplementor;
+import org.hibernate.persister.collection.AbstractCollectionPersister;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.SingleTableEntityPersister;
+import org.hibernate.query.NativeQuery;
 import org.hibernate.query.Query;
+import org.hibernate.type.CollectionType;
 import org.hisp.dhis.attribute.Attribute;
 import org.hisp.dhis.attribute.AttributeService;
 import org.hisp.dhis.common.IdentifiableObject;
+import org.hisp.dhis.gist.GistSqlBuilder.CollectionTable;
 import org.hisp.dhis.schema.RelativePropertyContext;
 import org.hisp.dhis.schema.Schema;
 import org.hisp.dhis.schema.SchemaService;
@@ -57,9 +68,11 @@ import org.springframework.web.util.UriComponentsBuilder;
 /**
  * @author Jan Bernitt
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
-public class DefaultGistService implements GistService, GistBuilder.GistBuilderSupport {
+public class DefaultGistService
+    implements GistService, GistBuilder.GistBuilderSupport, GistSqlBuilder.GistSqlMapping {
   /**
    * Instead of an actual date value users may use string {@code now} to always get current moment
    * as time for a {@link Date} value.
@@ -103,18 +116,51 @@ public class DefaultGistService implements GistService, GistBuilder.GistBuilderS
     return queryBuilder.transform(rows);
   }
 
+  @Override
+  public Optional<GistJsonPage> gistAsJson(GistQuery query) {
+    GistAccessControl access = createGistAccessControl();
+    RelativePropertyContext context = createPropertyContext(query);
+    new GistValidator(query, context, access).validateQuery();
+    GistSqlBuilder queryBuilder = createSqlFetchBuilder(query, context, access);
+    Optional<String> sql = queryBuilder.buildFetchSQL();
+    if (sql.isEmpty()) {
+      log.debug(
+          "Gist query falls back to HQL, not supported by native SQL: {}",
+          queryBuilder.getUnsupportedFeature());
+      return Optional.empty();
+    }
+    NativeQuery<?> nativeQuery = getSession().createNativeQuery(sql.get());
+    queryBuilder.addFetchParameters(nativeQuery::setParameter, this::parseFilterArgument);
+    Object[] row = (Object[]) nativeQuery.getSingleResult();
+    int size = ((Number) row[1]).intValue();
+    Integer total = row[2] == null ? null : ((Number) row[2]).intValue();
+    return Optional.of(new GistJsonPage(size == 0 ? "[]" : (String) row[0], size, total));
+  }
+
   @Override
   public GistPager pager(GistQuery query, List<?> rows, Map<String, String[]> params) {
+    return pager(query, rows.size(), null, params);
+  }
+
+  @Override
+  public GistPager pager(GistQuery query, GistJsonPage page, Map<String, String[]> params) {
+    return pager(query, page.getSize(), page.getTotal(), params);
+  }
+
+  private GistPager pager(
+      GistQuery query, int size, Integer knownTotal, Map<String, String[]> params) {
     int page = 1 + (query.getPageOffset() / query.getPageSize());
     Schema schema = schemaService.getDynamicSchema(query.getElementType());
     String prev = null;
     String next = null;
     Integer total = null;
     if (query.isTotal()) {
-      if (rows.size() < query.getPageSize() && !rows.isEmpty()) {
+      if (knownTotal != null) {
+        total = knownTotal;
+      } else if (size < query.getPageSize() && size > 0) {
         // NB. only do this when rows are returned as otherwise the page
         // simply might not exist which leads to zero rows
-        total = query.getPageOffset() + rows.size();
+        total = query.getPageOffset() + size;
       } else {
         GistAccessControl access = createGistAccessControl();
         RelativePropertyContext context = createPropertyContext(query);
@@ -133,8 +179,8 @@ public class DefaultGistService implements GistService, GistBuilder.GistBuilderS
                 .build()
                 .toString();
       }
-      if (total != null && query.getPageOffset() + rows.size() < total
-          || total == null && query.getPageSize() == rows.size()) {
+      if (total != null && query.getPageOffset() + size < total
+          || total == null && query.getPageSize() == size) {
         next =
             UriComponentsBuilder.fromUri(baseURL)
                 .replaceQueryParam("page", page + 1)
@@ -188,12 +234,37 @@ public class DefaultGistService implements GistService, GistBuilder.GistBuilderS
       Map<String, Object> params = new LinkedHashMap<>();
       fetchBuilder.addFetchParameters(params::put, this::parseFilterArgument);
       description.put("hql.parameters", params);
+      if (planned.isNativeSql()) {
+        describeNativeSQL(planned, context, access, description);
+      }
     }
 
     description.put("status", "ok");
     return description;
   }
 
+  private void describeNativeSQL(
+      GistQuery query,
+      RelativePropertyContext context,
+      GistAccessControl access,
+      Map<String, Object> description) {
+    GistSqlBuilder sqlBuilder = createSqlFetchBuilder(query, context, access);
+    Optional<String> sql = sqlBuilder.buildFetchSQL();
+    if (sql.isEmpty()) {
+      description.put("sql.unsupported", sqlBuilder.getUnsupportedFeature());
+      return;
+    }
+    description.put("sql.fetch", sql.get());
+    Map<String, Object> params = new LinkedHashMap<>();
+    sqlBuilder.addFetchParameters(params::put, this::parseFilterArgument);
+    description.put("sql.parameters", params);
+  }
+
+  private GistSqlBuilder createSqlFetchBuilder(
+      GistQuery query, RelativePropertyContext context, GistAccessControl access) {
+    return GistSqlBuilder.createFetchBuilder(query, context, access, this, this);
+  }
+
   private GistAccessControl createGistAccessControl() {
     return new DefaultGistAccessControl(
         currentUserService.getCurrentUser(), aclService, userService, this);
@@ -258,4 +329,72 @@ public class DefaultGistService implements GistService, GistBuilder.GistBuilderS
       return value;
     }
   }
+
+  @Override
+  public String getTableName(Class<?> type) {
+    AbstractEntityPersister persister = getEntityPersister(type);
+    return persister == null ? null : persister.getTableName();
+  }
+
+  @Override
+  public String getIdColumnName(Class<?> type) {
+    AbstractEntityPersister persister = getEntityPersister(type);
+    return persister == null ? null : singleColumn(persister.getIdentifierColumnNames());
+  }
+
+  @Override
+  public String getColumnName(Class<?> type, String fieldName) {
+    AbstractEntityPersister persister = getEntityPersister(type);
+    if (persister == null) {
+      return null;
+    }
+    try {
+      if (!persister.getTableName().equals(persister.getPropertyTableName(fieldName))) {
+        return null;
+      }
+      return singleColumn(persister.getPropertyColumnNames(fieldName));
+    } catch (HibernateException ex) {
+      return null;
+    }
+  }
+
+  @Override
+  public CollectionTable getCollectionTable(Class<?> type, String fieldName) {
+    AbstractEntityPersister persister = getEntityPersister(type);
+    if (persister == null) {
+      return null;
+    }
+    try {
+      if (!(persister.getPropertyType(fieldName) instanceof CollectionType collectionType)
+          || !(getMetamodel().collectionPersister(collectionType.getRole())
+              instanceof AbstractCollectionPersister collection)) {
+        return null;
+      }
+      String key = singleColumn(collection.getKeyColumnNames());
+      String element = singleColumn(collection.getElementColumnNames());
+      return key == null || element == null
+          ? null
+          : new CollectionTable(collection.getTableName(), key, element);
+    } catch (HibernateException ex) {
+      return null;
+    }
+  }
+
+  private AbstractEntityPersister getEntityPersister(Class<?> type) {
+    try {
+      return getMetamodel().entityPersister(type) instanceof SingleTableEntityPersister persister
+          ? persister
+          : null;
+    } catch (HibernateException ex) {
+      return null;
+    }
+  }
+
+  private MetamodelImplementor getMetamodel() {
+    return sessionFactory.unwrap(SessionFactoryImplementor.class).getMetamodel();
+  }
+
+  private static String singleColumn(String[] columns) {
+    return columns == null || columns.length != 1 ? null : columns[0];
+  }
 }
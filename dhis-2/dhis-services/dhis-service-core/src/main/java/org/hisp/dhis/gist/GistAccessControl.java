@@ -98,4 +98,12 @@ public interface GistAccessControl {
   Access asAccess(Class<? extends IdentifiableObject> type, Sharing value);
 
   String createAccessFilterHQL(String tableName);
+
+  /**
+   * Native SQL variant of {@link #createAccessFilterHQL(String)}.
+   *
+   * @param sharingColumn qualified name of the {@code sharing} column to check
+   * @return SQL condition that is true for rows the current user can read
+   */
+  String createAccessFilterSQL(String sharingColumn);
 }
@@ -67,6 +67,9 @@ public final class GistParams {
 
   boolean references = true;
 
+  /** Run the query as native SQL that directly returns the JSON result (if the query allows it). */
+  boolean nativeSql = false;
+
   Junction.Type rootJunction = Junction.Type.AND;
 
   String fields;
@@ -140,6 +140,12 @@ public final class GistQuery {
 
   private final boolean typedAttributeValues;
 
+  /**
+   * Use a native SQL query that projects the result to JSON in the database when the query allows
+   * it. Default false.
+   */
+  @JsonProperty private final boolean nativeSql;
+
   /** The extend to which fields are included by default */
   @JsonProperty(value = "auto")
   private final GistAutoType autoType;
@@ -184,6 +190,7 @@ public final class GistQuery {
         .headless(params.isHeadless())
         .describe(params.isDescribe())
         .references(params.isReferences())
+        .nativeSql(params.isNativeSql())
         .anyFilter(params.getRootJunction() == Junction.Type.OR)
         .fields(
             getStrings(params.getFields(), FIELD_SPLIT).stream()
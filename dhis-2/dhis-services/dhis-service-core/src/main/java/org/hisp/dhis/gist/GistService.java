@@ -29,6 +29,7 @@ package org.hisp.dhis.gist;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * The GIST API gives convenient access to (potentially large) collections. Good performance is
@@ -62,6 +63,16 @@ public interface GistService {
    */
   List<?> gist(GistQuery query);
 
+  /**
+   * Run a gist query as a single native SQL query that projects the matches to JSON in the
+   * database. No entities or rows are created in between.
+   *
+   * @param query query to run and which has been {@link #plan(GistQuery)}ned
+   * @return the JSON result or empty in case the query uses features that cannot be expressed in
+   *     native SQL, in which case {@link #gist(GistQuery)} should be used
+   */
+  Optional<GistJsonPage> gistAsJson(GistQuery query);
+
   /**
    * Create a pager for the given {@link GistQuery}, its results rows and the request params.
    *
@@ -72,6 +83,17 @@ public interface GistService {
    */
   GistPager pager(GistQuery query, List<?> rows, Map<String, String[]> params);
 
+  /**
+   * Create a pager for the given {@link GistQuery}, its {@link #gistAsJson(GistQuery)} result and
+   * the request params.
+   *
+   * @param query a query build from params
+   * @param page the result of running the query as native SQL
+   * @param params The request params used to build the query
+   * @return the pager suitable for the provided situation
+   */
+  GistPager pager(GistQuery query, GistJsonPage page, Map<String, String[]> params);
+
   /**
    * Describes the query execution without actually running the query.
    *
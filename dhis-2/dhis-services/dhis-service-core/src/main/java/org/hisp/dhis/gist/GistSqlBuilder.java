@@ -0,0 +1,949 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.gist;
+
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+import static org.hisp.dhis.gist.GistLogic.getBaseType;
+import static org.hisp.dhis.gist.GistLogic.isAccessProperty;
+import static org.hisp.dhis.gist.GistLogic.isAttributeFlagProperty;
+import static org.hisp.dhis.gist.GistLogic.isAttributeValuesProperty;
+import static org.hisp.dhis.gist.GistLogic.isCollectionSizeFilter;
+import static org.hisp.dhis.gist.GistLogic.isHrefProperty;
+import static org.hisp.dhis.gist.GistLogic.isNonNestedPath;
+import static org.hisp.dhis.gist.GistLogic.isPersistentCollectionField;
+import static org.hisp.dhis.gist.GistLogic.isPersistentReferenceField;
+import static org.hisp.dhis.gist.GistLogic.isStringLengthFilter;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.hisp.dhis.attribute.Attribute;
+import org.hisp.dhis.gist.GistBuilder.GistBuilderSupport;
+import org.hisp.dhis.gist.GistQuery.Comparison;
+import org.hisp.dhis.gist.GistQuery.Field;
+import org.hisp.dhis.gist.GistQuery.Filter;
+import org.hisp.dhis.gist.GistQuery.Order;
+import org.hisp.dhis.gist.GistQuery.Owner;
+import org.hisp.dhis.period.Period;
+import org.hisp.dhis.period.PeriodType;
+import org.hisp.dhis.query.JpaQueryUtils;
+import org.hisp.dhis.schema.Property;
+import org.hisp.dhis.schema.RelativePropertyContext;
+import org.hisp.dhis.schema.Schema;
+import org.hisp.dhis.schema.annotation.Gist.Transform;
+import org.hisp.dhis.security.acl.AclService;
+
+/**
+ * Builds a single native PostgreSQL query for a planned {@link GistQuery} that lets the database
+ * project the selected fields directly to JSON. The result is a single row with the JSON array of
+ * the page elements, the number of elements on the page and (if requested) the total number of
+ * matches. No entities are loaded and no post-processing of rows is needed.
+ *
+ * <p>Only a subset of gist queries can be expressed this way. Whenever the query uses a feature
+ * that needs the post-processing of the {@link GistBuilder} (attributes, {@code access}, {@code
+ * from} transformation, embedded objects, nested collections) {@link #buildFetchSQL()} returns
+ * empty and the caller should fall back to the HQL based query.
+ *
+ * <p>The JSON produced is the same as the one of the HQL based query rendered with {@code
+ * JsonBuilder#skipNullOrEmpty()}: members with a null value are omitted, collections are either
+ * non-empty arrays or omitted and fields of a nested path like {@code parent.name} become members
+ * of a nested object.
+ *
+ * <p>Within the SQL naming conventions are:
+ *
+ * <pre>
+ *   e => member collection element table
+ *   o => owner table
+ *   r_{index}_{depth} => referenced object table
+ *   c_{index} => collection (join) table
+ *   i_{index} => collection item table
+ * </pre>
+ *
+ * @see GistBuilder
+ */
+@RequiredArgsConstructor
+final class GistSqlBuilder {
+  private static final String GIST_PATH = "/gist";
+
+  private static final String ID_PROPERTY = "id";
+
+  private static final String SHARING_PROPERTY = "sharing";
+
+  private static final String TRANSLATIONS_PROPERTY = "translations";
+
+  /** {@code json_build_object} is limited to 100 arguments, that is 50 key-value pairs */
+  private static final int MAX_FIELDS = 50;
+
+  /** Placeholder used while building a query that turned out to be unsupported */
+  private static final CollectionTable UNMAPPED_COLLECTION_TABLE =
+      new CollectionTable("null", "null", "null");
+
+  /**
+   * Resolves the database names of the tables and columns backing entity types and their
+   * properties. All methods return {@code null} when the type or property is not mapped to a single
+   * table or column.
+   */
+  interface GistSqlMapping {
+    String getTableName(Class<?> type);
+
+    String getIdColumnName(Class<?> type);
+
+    String getColumnName(Class<?> type, String fieldName);
+
+    CollectionTable getCollectionTable(Class<?> type, String fieldName);
+  }
+
+  /**
+   * The table holding the members of a collection property. For many-to-many collections this is
+   * the join table, for one-to-many collections it is the item table itself.
+   */
+  @Value
+  static class CollectionTable {
+    String tableName;
+
+    /** Column referencing the owner of the collection */
+    String keyColumn;
+
+    /** Column referencing the item in the collection */
+    String elementColumn;
+  }
+
+  static GistSqlBuilder createFetchBuilder(
+      GistQuery query,
+      RelativePropertyContext context,
+      GistAccessControl access,
+      GistBuilderSupport support,
+      GistSqlMapping mapping) {
+    return new GistSqlBuilder(access, query, context, support, mapping);
+  }
+
+  private final GistAccessControl access;
+
+  private final GistQuery query;
+
+  private final RelativePropertyContext context;
+
+  private final GistBuilderSupport support;
+
+  private final GistSqlMapping mapping;
+
+  /** URLs of the {@link Field#REFS_PATH} field, sorted by field name */
+  private final Map<String, String> endpoints = new TreeMap<>();
+
+  /** Parameters introduced by fields, only known once the fields are built */
+  private final Map<String, Object> fieldParameters = new LinkedHashMap<>();
+
+  /** The first feature of the query found that cannot be expressed in native SQL */
+  private String unsupportedFeature;
+
+  /*
+   * SQL query building...
+   */
+
+  /**
+   * @return native SQL returning a single row of JSON array text, page element count and total, or
+   *     empty when the query cannot be expressed in native SQL, see {@link
+   *     #getUnsupportedFeature()}
+   */
+  public Optional<String> buildFetchSQL() {
+    List<Field> fields = query.getFields();
+    if (fields.isEmpty() || fields.size() > MAX_FIELDS) {
+      unsupported("number of fields: " + fields.size());
+      return Optional.empty();
+    }
+    String element = createElementSQL(fields);
+    String orders = createOrdersSQL();
+    String total = query.isTotal() ? "count(*) over ()" : "null";
+    String sql =
+        String.format(
+            "select cast(json_agg(g.o order by g.rn) as text), count(*), max(g.total) from ("
+                + "select %s as o, row_number() over (order by %s) as rn, %s as total "
+                + "from %s e where (%s) and (%s) and (%s) order by %s limit %d offset %d) g",
+            element,
+            orders,
+            total,
+            getTableName(query.getElementType()),
+            createOwnerFilterSQL(),
+            createFiltersSQL(),
+            createAccessFilterSQL(context, "e"),
+            orders,
+            Math.max(1, query.getPageSize()),
+            query.getPageOffset());
+    return unsupportedFeature == null ? Optional.of(sql) : Optional.empty();
+  }
+
+  /**
+   * @return the first feature of the query that cannot be expressed in native SQL, or null if
+   *     {@link #buildFetchSQL()} returned a query
+   */
+  public String getUnsupportedFeature() {
+    return unsupportedFeature;
+  }
+
+  private String createElementSQL(List<Field> fields) {
+    String[] values = new String[fields.size()];
+    for (int i = 0; i < values.length; i++) {
+      Field f = fields.get(i);
+      if (!Field.REFS_PATH.equals(f.getPropertyPath())) {
+        values[i] = createFieldSQL(i, f);
+      }
+    }
+    // endpoints are known once all other fields are done
+    for (int i = 0; i < values.length; i++) {
+      if (Field.REFS_PATH.equals(fields.get(i).getPropertyPath())) {
+        values[i] = createEndpointsSQL();
+      }
+    }
+    if (values.length == 1) {
+      return values[0];
+    }
+    // like JsonBuilder a field parent.name becomes member name of the member object parent
+    Map<String, String> members = new LinkedHashMap<>();
+    Map<String, List<String>> nestedMembers = new LinkedHashMap<>();
+    for (int i = 0; i < values.length; i++) {
+      String name = fields.get(i).getName();
+      int dot = name.indexOf('.');
+      if (dot < 0) {
+        if (members.put(name, values[i]) != null || nestedMembers.containsKey(name)) {
+          return unsupported("field of same name " + name);
+        }
+      } else {
+        String parent = name.substring(0, dot);
+        if (members.containsKey(parent) && !nestedMembers.containsKey(parent)) {
+          return unsupported("field of same name " + parent);
+        }
+        members.put(parent, null);
+        nestedMembers
+            .computeIfAbsent(parent, key -> new ArrayList<>())
+            .add(literal(name.substring(dot + 1)) + ", " + values[i]);
+      }
+    }
+    nestedMembers.forEach(
+        (parent, nested) ->
+            members.put(parent, createNonEmptyObjectSQL(String.join(", ", nested))));
+    return "json_strip_nulls(json_build_object("
+        + members.entrySet().stream()
+            .map(e -> literal(e.getKey()) + ", " + e.getValue())
+            .collect(joining(", "))
+        + "))";
+  }
+
+  private String createOwnerFilterSQL() {
+    Owner owner = query.getOwner();
+    if (owner == null) {
+      return "1=1";
+    }
+    Property collection =
+        context.switchedTo(owner.getType()).resolveMandatory(owner.getCollectionProperty());
+    CollectionTable members = getCollectionTable(owner.getType(), collection);
+    String ownerUid =
+        getColumnName(
+            owner.getType(),
+            context.switchedTo(owner.getType()).resolveMandatory(ID_PROPERTY).getFieldName());
+    return String.format(
+        "e.%1$s %2$s (select c.%3$s from %4$s c join %5$s o on o.%6$s = c.%7$s where o.%8$s ="
+            + " :OwnerId)",
+        getIdColumnName(query.getElementType()),
+        query.isInverse() ? "not in" : "in",
+        members.getElementColumn(),
+        members.getTableName(),
+        getTableName(owner.getType()),
+        getIdColumnName(owner.getType()),
+        members.getKeyColumn(),
+        ownerUid);
+  }
+
+  private String createAccessFilterSQL(RelativePropertyContext context, String tableName) {
+    if (!isFilterBySharing(context)) {
+      return "1=1";
+    }
+    Property sharing = context.resolveMandatory(SHARING_PROPERTY);
+    return access.createAccessFilterSQL(
+        tableName + "." + getColumnName(context.getHome().getKlass(), sharing.getFieldName()));
+  }
+
+  private boolean isFilterBySharing(RelativePropertyContext context) {
+    Property sharing = context.resolve(SHARING_PROPERTY);
+    return sharing != null && sharing.isPersisted() && !access.isSuperuser();
+  }
+
+  /*
+   * Fields...
+   */
+
+  private String createFieldSQL(int index, Field field) {
+    String path = field.getPropertyPath();
+    if (field.isAttribute()) {
+      return unsupported("attribute field " + path);
+    }
+    List<Property> propertyPath = context.resolvePath(path);
+    Property property = propertyPath.get(propertyPath.size() - 1);
+    if (isAttributeValuesProperty(property)
+        || isAccessProperty(property)
+        || query.getElementType() == Attribute.class && isAttributeFlagProperty(property)
+        || field.getTransformation() == Transform.FROM) {
+      return unsupported("computed field " + path);
+    }
+    if (isHrefProperty(property)) {
+      if (!isNonNestedPath(path)) {
+        return unsupported("nested href " + path);
+      }
+      String endpointRoot = getEndpointRoot(context.getHome());
+      return endpointRoot == null ? "null" : toEndpointURL(endpointRoot, getUidSQL(), GIST_PATH);
+    }
+    if (isPersistentCollectionField(property)) {
+      if (!isNonNestedPath(path)) {
+        return unsupported("nested collection " + path);
+      }
+      return createCollectionFieldSQL(index, field, property);
+    }
+    if (property.isCollection()) {
+      return unsupported("non-persistent collection " + path);
+    }
+    List<Property> parents = propertyPath.subList(0, propertyPath.size() - 1);
+    if (isPersistentReferenceField(property)) {
+      return createReferenceFieldSQL(index, field, parents, property);
+    }
+    return createNestedSQL(
+        index,
+        0,
+        "e",
+        query.getElementType(),
+        parents,
+        (alias, type) -> createSimpleFieldSQL(alias, type, property, query.isTranslate()));
+  }
+
+  /**
+   * Follows the chain of references from the table {@code alias} of type {@code type} via scalar
+   * sub-selects so that the value of the leaf property is selected in the context of its owner.
+   */
+  private String createNestedSQL(
+      int index,
+      int depth,
+      String alias,
+      Class<?> type,
+      List<Property> parents,
+      BiFunction<String, Class<?>, String> leaf) {
+    if (parents.isEmpty()) {
+      return leaf.apply(alias, type);
+    }
+    Property ref = parents.get(0);
+    if (!isPersistentReferenceField(ref) || ref.isCollection()) {
+      return unsupported("nested path through " + ref.getName());
+    }
+    Class<?> refType = ref.getKlass();
+    String refAlias = "r_" + index + "_" + depth;
+    return String.format(
+        "(select %s from %s %s where %s.%s = %s.%s)",
+        createNestedSQL(
+            index, depth + 1, refAlias, refType, parents.subList(1, parents.size()), leaf),
+        getTableName(refType),
+        refAlias,
+        refAlias,
+        getIdColumnName(refType),
+        alias,
+        getColumnName(type, ref.getFieldName()));
+  }
+
+  private String createSimpleFieldSQL(
+      String alias, Class<?> type, Property property, boolean translate) {
+    String column = alias + "." + getColumnName(type, property.getFieldName());
+    Class<?> klass = property.getKlass();
+    if (Date.class.isAssignableFrom(klass)) {
+      return "to_char(" + column + ", 'YYYY-MM-DD\"T\"HH24:MI:SS.MS')";
+    }
+    if (!isJsonValueType(klass)) {
+      return unsupported("property type " + klass.getSimpleName());
+    }
+    if (translate && property.isTranslatable() && query.getTranslationLocale() != null) {
+      return createTranslatedFieldSQL(alias, type, property, column);
+    }
+    return column;
+  }
+
+  private String createTranslatedFieldSQL(
+      String alias, Class<?> type, Property property, String column) {
+    Property translations = context.switchedTo(type).resolve(TRANSLATIONS_PROPERTY);
+    if (translations == null || !translations.isPersisted()) {
+      return column;
+    }
+    fieldParameters.put("locale", query.getTranslationLocale().toString());
+    fieldParameters.put("language", query.getTranslationLocale().getLanguage() + "%");
+    // exact locale match is preferred over a match of the language only
+    return String.format(
+        "coalesce((select t->>'value' from jsonb_array_elements(%s.%s) t "
+            + "where lower(t->>'property') = lower(%s) and t->>'value' <> '' "
+            + "and (lower(t->>'locale') = lower(:locale) or t->>'locale' like :language) "
+            + "order by lower(t->>'locale') = lower(:locale) desc limit 1), %s)",
+        alias,
+        getColumnName(type, translations.getFieldName()),
+        literal(property.getTranslationKey()),
+        column);
+  }
+
+  private String createReferenceFieldSQL(
+      int index, Field field, List<Property> parents, Property property) {
+    Class<?> refType = property.getKlass();
+    if (PeriodType.class.isAssignableFrom(refType)) {
+      return unsupported("period type reference " + field.getPropertyPath());
+    }
+    RelativePropertyContext fieldContext = context.switchedTo(refType);
+    Property referenced = determineReferenceProperty(field, fieldContext);
+    if (referenced == null || fieldContext.getHome().getRelativeApiEndpoint() == null) {
+      return unsupported("embedded object " + field.getPropertyPath());
+    }
+    List<Property> path = Stream.concat(parents.stream(), Stream.of(property)).collect(toList());
+    String value =
+        createNestedSQL(
+            index,
+            0,
+            "e",
+            query.getElementType(),
+            path,
+            (alias, type) -> createSimpleFieldSQL(alias, type, referenced, false));
+
+    if (property.isIdentifiableObject()) {
+      String endpointRoot = getEndpointRoot(fieldContext.getHome());
+      if (endpointRoot != null && query.isReferences()) {
+        endpoints.put(
+            field.getName(),
+            String.format(
+                "case when %s is not null then %s end",
+                value, toEndpointURL(endpointRoot, value, GIST_PATH)));
+      }
+    }
+    if (field.getTransformation() == Transform.ID_OBJECTS) {
+      return String.format(
+          "case when %1$s is not null then json_build_object('id', %1$s) end", value);
+    }
+    return value;
+  }
+
+  private String createCollectionFieldSQL(int index, Field field, Property property) {
+    Transform transform = field.getTransformation();
+    String value;
+    String hasValue;
+    switch (transform) {
+      case SIZE:
+        value = createCountSQL(index, property, "");
+        hasValue = value + " > 0";
+        break;
+      case IS_EMPTY:
+        value = createCountSQL(index, property, " = 0");
+        hasValue = "true";
+        break;
+      case IS_NOT_EMPTY:
+        value = createCountSQL(index, property, " > 0");
+        hasValue = "true";
+        break;
+      case MEMBER:
+        value = createHasMemberSQL(index, field, property, " > 0");
+        hasValue = "true";
+        break;
+      case NOT_MEMBER:
+        value = createHasMemberSQL(index, field, property, " = 0");
+        hasValue = "true";
+        break;
+      case IDS:
+      case ID_OBJECTS:
+      case PLUCK:
+        value = createPluckSQL(index, field, property);
+        hasValue = value + " is not null";
+        break;
+      default:
+        value = "null";
+        hasValue = "false";
+    }
+    String endpointRoot = getEndpointRoot(context.getHome());
+    if (endpointRoot != null && query.isReferences()) {
+      endpoints.put(
+          field.getName(),
+          String.format(
+              "case when %s then %s end",
+              hasValue,
+              toEndpointURL(endpointRoot, getUidSQL(), "/" + property.key() + GIST_PATH)));
+    }
+    return value;
+  }
+
+  private String createCountSQL(int index, Property property, String compare) {
+    return "(select count(*) " + createMembersSQL(index, property) + ")" + compare;
+  }
+
+  private String createHasMemberSQL(int index, Field field, Property property, String compare) {
+    fieldParameters.put("p_" + index, field.getTransformationArgument());
+    String itemAlias = "i_" + index;
+    String uidColumn =
+        getColumnName(
+            property.getItemKlass(),
+            context
+                .switchedTo(property.getItemKlass())
+                .resolveMandatory(ID_PROPERTY)
+                .getFieldName());
+    return String.format(
+        "(select count(*) %s and %s.%s = :p_%d)%s",
+        createMembersSQL(index, property, true), itemAlias, uidColumn, index, compare);
+  }
+
+  private String createPluckSQL(int index, Field field, Property property) {
+    Class<?> itemType = property.getItemKlass();
+    RelativePropertyContext itemContext = context.switchedTo(itemType);
+    String plucked = field.getTransformationArgument();
+    if (plucked != null && plucked.contains(",")) {
+      return unsupported("multi-pluck " + field.getPropertyPath());
+    }
+    Property referenced = determineReferenceProperty(field, itemContext);
+    if (referenced == null || itemType == Period.class) {
+      // give up (same as HQL)
+      return createCountSQL(index, property, "");
+    }
+    if (referenced.getKlass() != String.class) {
+      return unsupported("non-textual pluck " + field.getPropertyPath());
+    }
+    String item = "i_" + index + "." + getColumnName(itemType, referenced.getFieldName());
+    if (field.getTransformation() == Transform.ID_OBJECTS) {
+      item = "json_build_object('id', " + item + ")";
+    }
+    return "(select json_agg(" + item + ") " + createMembersSQL(index, property, true) + ")";
+  }
+
+  private String createMembersSQL(int index, Property property) {
+    RelativePropertyContext itemContext = context.switchedTo(property.getItemKlass());
+    return createMembersSQL(index, property, isFilterBySharing(itemContext));
+  }
+
+  /**
+   * @return the from and where part of a sub-select of all members of the collection property of
+   *     the element {@code e}
+   */
+  private String createMembersSQL(int index, Property property, boolean joinItems) {
+    String collectionAlias = "c_" + index;
+    CollectionTable members = getCollectionTable(query.getElementType(), property);
+    String from = members.getTableName() + " " + collectionAlias;
+    String where =
+        String.format(
+            "%s.%s = e.%s",
+            collectionAlias, members.getKeyColumn(), getIdColumnName(query.getElementType()));
+    if (!joinItems) {
+      return "from " + from + " where " + where;
+    }
+    Class<?> itemType = property.getItemKlass();
+    String itemAlias = "i_" + index;
+    return String.format(
+        "from %s join %s %s on %s.%s = %s.%s where %s and %s",
+        from,
+        getTableName(itemType),
+        itemAlias,
+        itemAlias,
+        getIdColumnName(itemType),
+        collectionAlias,
+        members.getElementColumn(),
+        where,
+        createAccessFilterSQL(context.switchedTo(itemType), itemAlias));
+  }
+
+  private String createEndpointsSQL() {
+    if (endpoints.isEmpty()) {
+      return "null";
+    }
+    return createNonEmptyObjectSQL(
+        endpoints.entrySet().stream()
+            .map(e -> literal(e.getKey()) + ", " + e.getValue())
+            .collect(joining(", ")));
+  }
+
+  /**
+   * @return a JSON object of the given key-value pairs without null members, or null if all values
+   *     are null
+   */
+  private static String createNonEmptyObjectSQL(String keyValuePairs) {
+    return "cast(nullif(cast(json_strip_nulls(json_build_object("
+        + keyValuePairs
+        + ")) as text), '{}') as json)";
+  }
+
+  private Property determineReferenceProperty(Field field, RelativePropertyContext fieldContext) {
+    if (field.getTransformationArgument() != null) {
+      return fieldContext.resolveMandatory(field.getTransformationArgument());
+    }
+    for (String name : new String[] {ID_PROPERTY, "code", "name"}) {
+      Property p = fieldContext.resolve(name);
+      if (p != null && p.isPersisted()) {
+        return p;
+      }
+    }
+    return null;
+  }
+
+  private String getUidSQL() {
+    return "e."
+        + getColumnName(
+            query.getElementType(), context.resolveMandatory(ID_PROPERTY).getFieldName());
+  }
+
+  private String getEndpointRoot(Schema schema) {
+    String relativeApiEndpoint = schema.getRelativeApiEndpoint();
+    return relativeApiEndpoint == null ? null : query.getEndpointRoot() + relativeApiEndpoint;
+  }
+
+  private String toEndpointURL(String endpointRoot, String id, String suffix) {
+    String params = query.isAbsoluteUrls() ? "?absoluteUrls=true" : "";
+    return literal(endpointRoot + "/") + " || " + id + " || " + literal(suffix + params);
+  }
+
+  /*
+   * Filters...
+   */
+
+  private String createFiltersSQL() {
+    List<Filter> filters = query.getFilters();
+    if (filters.isEmpty()) {
+      return "1=1";
+    }
+    String rootJunction = query.isAnyFilter() ? " or " : " and ";
+    if (!query.hasFilterGroups()) {
+      StringBuilder sql = new StringBuilder();
+      for (int i = 0; i < filters.size(); i++) {
+        if (i > 0) {
+          sql.append(rootJunction);
+        }
+        sql.append(createFilterSQL(i, filters.get(i)));
+      }
+      return sql.toString();
+    }
+    String groupJunction = query.isAnyFilter() ? " and " : " or ";
+    Map<Integer, List<Integer>> grouped = new LinkedHashMap<>();
+    for (int i = 0; i < filters.size(); i++) {
+      grouped.computeIfAbsent(filters.get(i).getGroup(), key -> new ArrayList<>()).add(i);
+    }
+    return grouped.entrySet().stream()
+        .map(
+            group ->
+                group.getValue().stream()
+                    .map(i -> createFilterSQL(i, filters.get(i)))
+                    .collect(joining(group.getKey() >= 0 ? groupJunction : rootJunction, "(", ")")))
+        .collect(joining(rootJunction));
+  }
+
+  private String createFilterSQL(int index, Filter filter) {
+    String path = filter.getPropertyPath();
+    if (filter.isAttribute() || !isNonNestedPath(path)) {
+      return unsupported("filter " + path);
+    }
+    Property property = context.resolveMandatory(path);
+    Comparison operator = filter.getOperator();
+    if (operator.isAccessCompare()) {
+      if (isPersistentCollectionField(property) || isPersistentReferenceField(property)) {
+        return unsupported("access filter " + path);
+      }
+      return createAccessFilterSQL(filter);
+    }
+    String field;
+    if (isCollectionSizeFilter(filter, property)) {
+      if (!isPersistentCollectionField(property)) {
+        return unsupported("size filter " + path);
+      }
+      field = "(select count(*) " + createMembersSQL(index, property, false) + ")";
+    } else if (property.isCollection() || isPersistentReferenceField(property)) {
+      return unsupported("filter " + path);
+    } else {
+      field = "e." + getColumnName(query.getElementType(), property.getFieldName());
+      if (isStringLengthFilter(filter, property)) {
+        field = "length(" + field + ")";
+      } else if (operator.isCaseInsensitive()) {
+        field = "lower(" + field + ")";
+      }
+    }
+    StringBuilder sql = new StringBuilder(field);
+    sql.append(' ').append(createOperatorLeftSideSQL(operator));
+    if (!operator.isUnary()) {
+      sql.append(" :f_").append(index);
+      if (operator.isContainsCompare()) {
+        sql.append(')');
+      }
+    }
+    return sql.toString();
+  }
+
+  private String createAccessFilterSQL(Filter filter) {
+    String userId = filter.getValue()[0];
+    Property sharing = context.resolveMandatory(SHARING_PROPERTY);
+    return "("
+        + JpaQueryUtils.generateSQlQueryForSharingCheck(
+            "e." + getColumnName(query.getElementType(), sharing.getFieldName()),
+            userId,
+            support.getUserGroupIdsByUserId(userId),
+            getAccessPattern(filter))
+        + ")";
+  }
+
+  private static String getAccessPattern(Filter filter) {
+    switch (filter.getOperator()) {
+      default:
+      case CAN_READ:
+        return AclService.LIKE_READ_METADATA;
+      case CAN_WRITE:
+        return AclService.LIKE_WRITE_METADATA;
+      case CAN_DATA_READ:
+        return AclService.LIKE_READ_DATA;
+      case CAN_DATA_WRITE:
+        return AclService.LIKE_WRITE_DATA;
+      case CAN_ACCESS:
+        return filter.getValue()[1];
+    }
+  }
+
+  private static String createOperatorLeftSideSQL(Comparison operator) {
+    switch (operator) {
+      case NULL:
+        return "is null";
+      case NOT_NULL:
+        return "is not null";
+      case EQ:
+      case IEQ:
+        return "=";
+      case NE:
+        return "!=";
+      case LT:
+        return "<";
+      case GT:
+        return ">";
+      case LE:
+        return "<=";
+      case GE:
+        return ">=";
+      case IN:
+        return "in (";
+      case NOT_IN:
+        return "not in (";
+      case EMPTY:
+        return "= 0";
+      case NOT_EMPTY:
+        return "> 0";
+      case LIKE:
+      case STARTS_LIKE:
+      case ENDS_LIKE:
+      case ILIKE:
+      case STARTS_WITH:
+      case ENDS_WITH:
+        return "like";
+      case NOT_LIKE:
+      case NOT_STARTS_LIKE:
+      case NOT_ENDS_LIKE:
+      case NOT_ILIKE:
+      case NOT_STARTS_WITH:
+      case NOT_ENDS_WITH:
+        return "not like";
+      default:
+        return "";
+    }
+  }
+
+  /*
+   * Orders...
+   */
+
+  private String createOrdersSQL() {
+    List<Order> orders = query.getOrders();
+    if (orders.isEmpty()) {
+      return "e." + getIdColumnName(query.getElementType()) + " asc";
+    }
+    return orders.stream().map(this::createOrderSQL).collect(joining(", "));
+  }
+
+  private String createOrderSQL(Order order) {
+    String path = order.getPropertyPath();
+    Property property = context.resolveMandatory(path);
+    if (!isNonNestedPath(path) || !property.isSimple()) {
+      return unsupported("order " + path);
+    }
+    return "e."
+        + getColumnName(query.getElementType(), property.getFieldName())
+        + " "
+        + order.getDirection().name().toLowerCase();
+  }
+
+  /*
+   * SQL query parameter mapping...
+   */
+
+  /**
+   * Adds the parameters used by the query returned by {@link #buildFetchSQL()} which must be called
+   * first.
+   *
+   * <p>In contrast to HQL parameters enum values are bound by name as native queries have no
+   * knowledge of the enum mapping.
+   */
+  public void addFetchParameters(
+      BiConsumer<String, Object> dest, BiFunction<String, Class<?>, Object> argumentParser) {
+    fieldParameters.forEach(dest);
+    Owner owner = query.getOwner();
+    if (owner != null) {
+      dest.accept("OwnerId", owner.getId());
+    }
+    List<Filter> filters = query.getFilters();
+    for (int i = 0; i < filters.size(); i++) {
+      Filter filter = filters.get(i);
+      Comparison operator = filter.getOperator();
+      if (!operator.isUnary() && !operator.isAccessCompare()) {
+        Property property = context.resolveMandatory(filter.getPropertyPath());
+        dest.accept("f_" + i, getParameterValue(property, filter, argumentParser));
+      }
+    }
+  }
+
+  private Object getParameterValue(
+      Property property, Filter filter, BiFunction<String, Class<?>, Object> argumentParser) {
+    Comparison operator = filter.getOperator();
+    String[] value = filter.getValue();
+    if (value.length == 0) {
+      return "";
+    }
+    UnaryOperator<Object> toParameter =
+        v ->
+            operator.isStringCompare()
+                ? completeLikeExpression(operator, stringParameterValue(operator, v))
+                : v instanceof Enum<?> e ? e.name() : v;
+    if (value.length == 1 && !operator.isContainsCompare()) {
+      return toParameter.apply(getParameterValue(property, filter, value[0], argumentParser));
+    }
+    return Stream.of(value)
+        .map(v -> toParameter.apply(getParameterValue(property, filter, v, argumentParser)))
+        .collect(toList());
+  }
+
+  private static Object getParameterValue(
+      Property property,
+      Filter filter,
+      String value,
+      BiFunction<String, Class<?>, Object> argumentParser) {
+    if (isStringLengthFilter(filter, property) || isCollectionSizeFilter(filter, property)) {
+      return argumentParser.apply(value, Integer.class);
+    }
+    if (value == null || property.getKlass() == String.class) {
+      return value;
+    }
+    return argumentParser.apply(value, getBaseType(property));
+  }
+
+  private static String stringParameterValue(Comparison operator, Object value) {
+    return value == null
+        ? null
+        : operator.isCaseInsensitive() ? value.toString().toLowerCase() : value.toString();
+  }
+
+  private static Object completeLikeExpression(Comparison operator, String value) {
+    switch (operator) {
+      case LIKE:
+      case ILIKE:
+      case NOT_ILIKE:
+      case NOT_LIKE:
+        return value != null && (value.contains("*") || value.contains("?"))
+            ? value.replace("*", "%").replace("?", "_")
+            : "%" + value + "%";
+      case STARTS_LIKE:
+      case STARTS_WITH:
+      case NOT_STARTS_LIKE:
+      case NOT_STARTS_WITH:
+        return value + "%";
+      case ENDS_LIKE:
+      case ENDS_WITH:
+      case NOT_ENDS_LIKE:
+      case NOT_ENDS_WITH:
+        return "%" + value;
+      default:
+        return value;
+    }
+  }
+
+  /*
+   * Mapping helpers...
+   */
+
+  private String getTableName(Class<?> type) {
+    return mandatory(mapping.getTableName(type), type.getSimpleName());
+  }
+
+  private String getIdColumnName(Class<?> type) {
+    return mandatory(mapping.getIdColumnName(type), type.getSimpleName() + ".id");
+  }
+
+  private String getColumnName(Class<?> type, String fieldName) {
+    return mandatory(
+        mapping.getColumnName(type, fieldName), type.getSimpleName() + "." + fieldName);
+  }
+
+  private CollectionTable getCollectionTable(Class<?> type, Property collection) {
+    CollectionTable table = mapping.getCollectionTable(type, collection.getFieldName());
+    if (table == null) {
+      unsupported("mapping of " + type.getSimpleName() + "." + collection.getFieldName());
+      return UNMAPPED_COLLECTION_TABLE;
+    }
+    return table;
+  }
+
+  private String mandatory(String name, String mappedName) {
+    return name == null ? unsupported("mapping of " + mappedName) : name;
+  }
+
+  private static boolean isJsonValueType(Class<?> type) {
+    return type == String.class
+        || type.isPrimitive()
+        || Number.class.isAssignableFrom(type)
+        || type == Boolean.class
+        || type.isEnum();
+  }
+
+  private static String literal(String value) {
+    return "'" + value.replace("'", "''") + "'";
+  }
+
+  /**
+   * Records the first feature of the query that cannot be expressed in native SQL.
+   *
+   * @return a placeholder for the SQL fragment of the feature, the SQL it is used in is never
+   *     returned by {@link #buildFetchSQL()}
+   */
+  private String unsupported(String feature) {
+    if (unsupportedFeature == null) {
+      unsupportedFeature = feature;
+    }
+    return "null";
+  }
+}
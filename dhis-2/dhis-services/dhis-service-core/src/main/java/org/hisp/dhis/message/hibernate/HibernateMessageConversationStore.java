@@ -152,8 +152,10 @@ public class HibernateMessageConversationStore
   public long getUnreadUserMessageConversationCount(User user) {
     Assert.notNull(user, "User must be specified");
 
-    String hql =
-        "select count(*) from MessageConversation m join m.userMessages u where u.user = :user and u.read = false";
+    // User messages are deleted with their message conversation, so the
+    // join to message conversations is not needed for counting
+
+    String hql = "select count(*) from UserMessage u where u.user = :user and u.read = false";
 
     Query<Long> query = getTypedQuery(hql);
     query.setParameter("user", user);
@@ -27,27 +27,74 @@
  */
 package org.hisp.dhis.outboundmessage;
 
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
-import lombok.NoArgsConstructor;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.hisp.dhis.common.DeliveryChannel;
 import org.hisp.dhis.message.MessageSender;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
+ * Sends outbound message batches through the message sender of their delivery channel. Batches are
+ * split into smaller batches which are sent concurrently, with a separate concurrency and rate
+ * limit for each delivery channel.
+ *
  * @author Halvdan Hoem Grelland
  */
 @Slf4j
-@NoArgsConstructor
 public class DefaultOutboundMessageBatchService implements OutboundMessageBatchService {
+  /** Maximum number of messages handed to a message sender at once. */
+  static final int MAX_MESSAGES_PER_SEND = 50;
+
   private Map<DeliveryChannel, MessageSender> messageSenders;
 
+  private final Map<DeliveryChannel, ExecutorService> executors =
+      new EnumMap<>(DeliveryChannel.class);
+
+  private final Map<DeliveryChannel, RateLimiter> rateLimiters =
+      new EnumMap<>(DeliveryChannel.class);
+
+  /**
+   * @param parallelism the number of batches sent concurrently per delivery channel.
+   * @param messagesPerSecond the maximum number of messages sent per second per delivery channel, 0
+   *     means no limit.
+   */
+  public DefaultOutboundMessageBatchService(int parallelism, double messagesPerSecond) {
+    for (DeliveryChannel channel : DeliveryChannel.values()) {
+      executors.put(
+          channel,
+          Executors.newFixedThreadPool(
+              parallelism,
+              new ThreadFactoryBuilder()
+                  .setNameFormat("outbound-message-" + channel.name().toLowerCase() + "-%d")
+                  .setDaemon(true)
+                  .build()));
+
+      if (messagesPerSecond > 0) {
+        rateLimiters.put(channel, RateLimiter.create(messagesPerSecond));
+      }
+    }
+  }
+
   public void setMessageSenders(Map<DeliveryChannel, MessageSender> messageSenders) {
     this.messageSenders = messageSenders;
   }
 
+  @PreDestroy
+  public void shutdown() {
+    executors.values().forEach(ExecutorService::shutdownNow);
+  }
+
   // ---------------------------------------------------------------------
   // OutboundMessageService implementation
   // ---------------------------------------------------------------------
@@ -55,19 +102,51 @@ public class DefaultOutboundMessageBatchService implements OutboundMessageBatchS
   @Override
   @Transactional(readOnly = true)
   public List<OutboundMessageResponseSummary> sendBatches(List<OutboundMessageBatch> batches) {
-    // Partition by channel (sender) first to avoid sender config checks
-    return batches.stream()
-        .collect(Collectors.groupingBy(OutboundMessageBatch::getDeliveryChannel))
-        .entrySet()
-        .stream()
-        .flatMap(entry -> entry.getValue().stream().map(this::send))
-        .collect(Collectors.toList());
+    List<Future<OutboundMessageResponseSummary>> futures = new ArrayList<>();
+
+    for (OutboundMessageBatch batch : batches) {
+      for (OutboundMessageBatch part : split(batch)) {
+        futures.add(executors.get(part.getDeliveryChannel()).submit(() -> send(part)));
+      }
+    }
+
+    List<OutboundMessageResponseSummary> summaries = new ArrayList<>();
+
+    try {
+      for (Future<OutboundMessageResponseSummary> future : futures) {
+        summaries.add(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Sending of outbound messages was interrupted", e);
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof RuntimeException
+          ? (RuntimeException) e.getCause()
+          : new IllegalStateException(e.getCause());
+    } finally {
+      futures.forEach(future -> future.cancel(true));
+    }
+
+    return summaries;
   }
 
   // ---------------------------------------------------------------------
   // Supportive Methods
   // ---------------------------------------------------------------------
 
+  /** Splits the given batch into batches of at most {@link #MAX_MESSAGES_PER_SEND} messages. */
+  static List<OutboundMessageBatch> split(OutboundMessageBatch batch) {
+    if (batch.size() <= MAX_MESSAGES_PER_SEND) {
+      return List.of(batch);
+    }
+
+    return Lists.partition(batch.getMessages(), MAX_MESSAGES_PER_SEND).stream()
+        .map(
+            messages ->
+                new OutboundMessageBatch(new ArrayList<>(messages), batch.getDeliveryChannel()))
+        .toList();
+  }
+
   private OutboundMessageResponseSummary send(OutboundMessageBatch batch) {
     DeliveryChannel channel = batch.getDeliveryChannel();
     MessageSender sender = messageSenders.get(channel);
@@ -88,6 +167,12 @@ public class DefaultOutboundMessageBatchService implements OutboundMessageBatchS
           errorMessage, channel, OutboundMessageBatchStatus.FAILED);
     }
 
+    RateLimiter rateLimiter = rateLimiters.get(channel);
+
+    if (rateLimiter != null && batch.size() > 0) {
+      rateLimiter.acquire(batch.size());
+    }
+
     log.info("Invoking message sender: " + sender.getClass().getSimpleName());
 
     return sender.sendMessageBatch(batch);
@@ -165,13 +165,7 @@ public class DefaultPeriodService implements PeriodService {
   @Override
   @Transactional
   public List<Period> reloadPeriods(Collection<Period> periods) {
-    List<Period> reloaded = new ArrayList<>();
-
-    for (Period period : periods) {
-      reloaded.add(periodStore.reloadForceAddPeriod(period));
-    }
-
-    return reloaded;
+    return periodStore.reloadForceAddPeriods(periods);
   }
 
   @Override
@@ -258,14 +252,14 @@ public class DefaultPeriodService implements PeriodService {
     List<Period> periods = new ArrayList<>();
 
     for (String iso : isoPeriods) {
-      Period period = reloadIsoPeriod(iso);
+      Period period = PeriodType.getPeriodFromIsoString(iso);
 
       if (period != null) {
         periods.add(period);
       }
     }
 
-    return periods;
+    return periodStore.reloadForceAddPeriods(periods);
   }
 
   @Override
@@ -27,9 +27,17 @@
  */
 package org.hisp.dhis.period.hibernate;
 
+import com.google.common.collect.Lists;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import lombok.extern.slf4j.Slf4j;
@@ -54,7 +62,10 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 
 /**
- * Implements the PeriodStore interface.
+ * Implements the PeriodStore interface. Periods are immutable once stored, so the IDs of periods
+ * and period types are cached in memory, and periods are loaded by ID from the session or the
+ * second-level cache instead of being queried by dates. A cached ID of a period which has been
+ * deleted, for instance on another node, is detected when loading and evicted.
  *
  * @author Torgeir Lorange Ostby
  */
@@ -62,8 +73,13 @@ import org.springframework.stereotype.Repository;
 @Slf4j
 public class HibernatePeriodStore extends HibernateIdentifiableObjectStore<Period>
     implements PeriodStore {
+  /** Max number of periods looked up by dates in one query. */
+  private static final int PERIOD_QUERY_BATCH_SIZE = 500;
+
   private final Cache<Long> periodIdCache;
 
+  private final Map<Class<? extends PeriodType>, Integer> periodTypeIds = new ConcurrentHashMap<>();
+
   public HibernatePeriodStore(
       SessionFactory sessionFactory,
       JdbcTemplate jdbcTemplate,
@@ -97,14 +113,7 @@ public class HibernatePeriodStore extends HibernateIdentifiableObjectStore<Perio
 
   @Override
   public Period getPeriod(Date startDate, Date endDate, PeriodType periodType) {
-    String query =
-        "from Period p where p.startDate =:startDate and p.endDate =:endDate and p.periodType =:periodType";
-
-    return getSingleResult(
-        getQuery(query)
-            .setParameter("startDate", startDate)
-            .setParameter("endDate", endDate)
-            .setParameter("periodType", reloadPeriodType(periodType)));
+    return getStoredPeriod(startDate, endDate, periodType);
   }
 
   @Override
@@ -160,15 +169,7 @@ public class HibernatePeriodStore extends HibernateIdentifiableObjectStore<Perio
 
   @Override
   public Period getPeriodFromDates(Date startDate, Date endDate, PeriodType periodType) {
-    String query =
-        "from Period p where p.startDate =:startDate and p.endDate =:endDate and p.periodType.id =:periodType";
-
-    Query<Period> typedQuery =
-        getQuery(query)
-            .setParameter("startDate", startDate)
-            .setParameter("endDate", endDate)
-            .setParameter("periodType", reloadPeriodType(periodType).getId());
-    return getSingleResult(typedQuery);
+    return getStoredPeriod(startDate, endDate, periodType);
   }
 
   @Override
@@ -179,20 +180,48 @@ public class HibernatePeriodStore extends HibernateIdentifiableObjectStore<Perio
       return period; // Already in session, no reload needed
     }
 
-    Long id =
-        periodIdCache.get(
-            period.getCacheKey(),
-            key -> getPeriodId(period.getStartDate(), period.getEndDate(), period.getPeriodType()));
+    Period storedPeriod =
+        getStoredPeriod(period.getStartDate(), period.getEndDate(), period.getPeriodType());
+
+    return storedPeriod != null ? storedPeriod.copyTransientProperties(period) : null;
+  }
+
+  /**
+   * Returns the stored period with the given dates and period type, or null if it does not exist.
+   * The ID of the period is taken from the period ID cache if present.
+   */
+  private Period getStoredPeriod(Date startDate, Date endDate, PeriodType periodType) {
+    String key = Period.getCacheKey(periodType, startDate, endDate);
+
+    Long id = periodIdCache.get(key, k -> getPeriodId(startDate, endDate, periodType));
 
     Period storedPeriod = id != null ? getSession().get(Period.class, id) : null;
 
-    return storedPeriod != null ? storedPeriod.copyTransientProperties(period) : null;
+    if (id != null && storedPeriod == null) {
+      periodIdCache.invalidate(key); // Period was deleted
+
+      id = getPeriodId(startDate, endDate, periodType);
+
+      if (id != null) {
+        periodIdCache.put(key, id);
+        storedPeriod = getSession().get(Period.class, id);
+      }
+    }
+
+    return storedPeriod;
   }
 
   private Long getPeriodId(Date startDate, Date endDate, PeriodType periodType) {
-    Period period = getPeriod(startDate, endDate, periodType);
+    String query =
+        "select p.id from Period p where p.startDate =:startDate and p.endDate =:endDate "
+            + "and p.periodType.id =:periodType";
 
-    return period != null ? period.getId() : null;
+    return getSession()
+        .createQuery(query, Long.class)
+        .setParameter("startDate", startDate)
+        .setParameter("endDate", endDate)
+        .setParameter("periodType", reloadPeriodType(periodType).getId())
+        .uniqueResult();
   }
 
   @Override
@@ -208,6 +237,110 @@ public class HibernatePeriodStore extends HibernateIdentifiableObjectStore<Perio
     return storedPeriod;
   }
 
+  @Override
+  public List<Period> reloadForceAddPeriods(Collection<Period> periods) {
+    Map<String, Period> storedPeriods = getStoredPeriods(periods);
+
+    List<Period> reloaded = new ArrayList<>(periods.size());
+
+    for (Period period : periods) {
+      Period storedPeriod = storedPeriods.get(period.getCacheKey());
+
+      if (storedPeriod == null) {
+        addPeriod(period);
+        storedPeriods.put(period.getCacheKey(), period);
+        reloaded.add(period);
+      } else {
+        reloaded.add(
+            storedPeriod == period ? period : storedPeriod.copyTransientProperties(period));
+      }
+    }
+
+    return reloaded;
+  }
+
+  /**
+   * Returns the stored periods among the given periods mapped by cache key. Periods with a cached
+   * ID are loaded by ID in one go, the other periods are queried by dates in batches.
+   */
+  private Map<String, Period> getStoredPeriods(Collection<Period> periods) {
+    Session session = getSession();
+
+    Map<String, Period> storedPeriods = new HashMap<>();
+
+    Map<String, Long> cachedIds = new HashMap<>();
+
+    List<Period> uncachedPeriods = new ArrayList<>();
+
+    for (Period period : periods) {
+      String key = period.getCacheKey();
+
+      if (session.contains(period)) {
+        storedPeriods.put(key, period);
+      } else {
+        periodIdCache
+            .getIfPresent(key)
+            .ifPresentOrElse(id -> cachedIds.put(key, id), () -> uncachedPeriods.add(period));
+      }
+    }
+
+    if (!cachedIds.isEmpty()) {
+      for (Period period :
+          session.byMultipleIds(Period.class).multiLoad(new ArrayList<>(cachedIds.values()))) {
+        if (period != null) {
+          storedPeriods.putIfAbsent(period.getCacheKey(), period);
+        }
+      }
+
+      for (Period period : periods) {
+        String key = period.getCacheKey();
+
+        if (cachedIds.containsKey(key) && !storedPeriods.containsKey(key)) {
+          periodIdCache.invalidate(key); // Period was deleted
+          uncachedPeriods.add(period);
+        }
+      }
+    }
+
+    for (List<Period> batch : Lists.partition(uncachedPeriods, PERIOD_QUERY_BATCH_SIZE)) {
+      for (Period period : getPeriodsByDates(batch)) {
+        String key = period.getCacheKey();
+
+        periodIdCache.put(key, period.getId());
+        storedPeriods.putIfAbsent(key, period);
+      }
+    }
+
+    return storedPeriods;
+  }
+
+  /**
+   * Returns stored periods with the period types and dates of the given periods. The result may
+   * contain periods which combine the period type and dates of different given periods, which is
+   * harmless as such periods are only ever looked up by cache key.
+   */
+  private List<Period> getPeriodsByDates(List<Period> periods) {
+    Set<Integer> periodTypes = new HashSet<>();
+    Set<Date> startDates = new HashSet<>();
+    Set<Date> endDates = new HashSet<>();
+
+    for (Period period : periods) {
+      periodTypes.add(reloadPeriodType(period.getPeriodType()).getId());
+      startDates.add(period.getStartDate());
+      endDates.add(period.getEndDate());
+    }
+
+    String query =
+        "from Period p where p.periodType.id in (:periodTypes) "
+            + "and p.startDate in (:startDates) and p.endDate in (:endDates)";
+
+    return getQuery(query)
+        .setParameterList("periodTypes", periodTypes)
+        .setParameterList("startDates", startDates)
+        .setParameterList("endDates", endDates)
+        .list();
+  }
+
   // -------------------------------------------------------------------------
   // PeriodType (do not use generic store which is linked to Period)
   // -------------------------------------------------------------------------
@@ -224,6 +357,7 @@ public class HibernatePeriodStore extends HibernateIdentifiableObjectStore<Perio
     Session session = sessionFactory.getCurrentSession();
 
     session.delete(periodType);
+    periodTypeIds.remove(periodType.getClass());
   }
 
   @Override
@@ -261,11 +395,19 @@ public class HibernatePeriodStore extends HibernateIdentifiableObjectStore<Perio
       return periodType;
     }
 
-    PeriodType reloadedPeriodType = getPeriodType(periodType.getClass());
+    Integer id = periodTypeIds.get(periodType.getClass());
+
+    PeriodType reloadedPeriodType = id != null ? session.get(PeriodType.class, id) : null;
 
     if (reloadedPeriodType == null) {
-      throw new InvalidIdentifierReferenceException(
-          "The PeriodType referenced by the Period is not in database: " + periodType.getName());
+      reloadedPeriodType = getPeriodType(periodType.getClass());
+
+      if (reloadedPeriodType == null) {
+        throw new InvalidIdentifierReferenceException(
+            "The PeriodType referenced by the Period is not in database: " + periodType.getName());
+      }
+
+      periodTypeIds.put(periodType.getClass(), reloadedPeriodType.getId());
     }
 
     return reloadedPeriodType;
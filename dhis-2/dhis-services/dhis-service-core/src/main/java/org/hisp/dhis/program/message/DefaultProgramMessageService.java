@@ -30,8 +30,11 @@ package org.hisp.dhis.program.message;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.hisp.dhis.common.DeliveryChannel;
@@ -331,15 +334,44 @@ public class DefaultProgramMessageService implements ProgramMessageService {
   }
 
   private void saveProgramMessages(List<ProgramMessage> messageBatch, BatchResponseStatus status) {
-    messageBatch.parallelStream()
-        .map(pm -> setParameters(pm, status))
+    Map<String, Enrollment> enrollments =
+        getByUid(
+            Enrollment.class,
+            messageBatch.stream().map(ProgramMessage::getEnrollment).filter(Objects::nonNull));
+    Map<String, Event> events =
+        getByUid(
+            Event.class,
+            messageBatch.stream().map(ProgramMessage::getEvent).filter(Objects::nonNull));
+
+    Date processedDate = new Date();
+
+    messageBatch.stream()
+        .map(pm -> setParameters(pm, status, enrollments, events, processedDate))
         .forEach(this::saveProgramMessage);
   }
 
-  private ProgramMessage setParameters(ProgramMessage message, BatchResponseStatus status) {
-    message.setEnrollment(getEnrollment(message));
-    message.setEvent(getEvent(message));
-    message.setProcessedDate(new Date());
+  /** Loads the given objects by UID in a single query, mapped by UID. */
+  private <T extends IdentifiableObject> Map<String, T> getByUid(Class<T> type, Stream<T> objects) {
+    List<String> uids = objects.map(IdentifiableObject::getUid).distinct().toList();
+
+    if (uids.isEmpty()) {
+      return Map.of();
+    }
+
+    return manager.getByUid(type, uids).stream()
+        .collect(Collectors.toMap(IdentifiableObject::getUid, o -> o));
+  }
+
+  private ProgramMessage setParameters(
+      ProgramMessage message,
+      BatchResponseStatus status,
+      Map<String, Enrollment> enrollments,
+      Map<String, Event> events,
+      Date processedDate) {
+    message.setEnrollment(
+        message.getEnrollment() != null ? enrollments.get(message.getEnrollment().getUid()) : null);
+    message.setEvent(message.getEvent() != null ? events.get(message.getEvent().getUid()) : null);
+    message.setProcessedDate(processedDate);
     message.setMessageStatus(
         status.isOk() ? ProgramMessageStatus.SENT : ProgramMessageStatus.FAILED);
 
@@ -353,22 +385,6 @@ public class DefaultProgramMessageService implements ProgramMessageService {
         .collect(Collectors.toList());
   }
 
-  private Enrollment getEnrollment(ProgramMessage programMessage) {
-    if (programMessage.getEnrollment() != null) {
-      return manager.get(Enrollment.class, programMessage.getEnrollment().getUid());
-    }
-
-    return null;
-  }
-
-  private Event getEvent(ProgramMessage programMessage) {
-    if (programMessage.getEvent() != null) {
-      return manager.get(Event.class, programMessage.getEvent().getUid());
-    }
-
-    return null;
-  }
-
   private ProgramMessage setAttributesBasedOnStrategy(ProgramMessage message) {
     Set<DeliveryChannel> channels = message.getDeliveryChannels();
 
@@ -42,6 +42,9 @@ import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hisp.dhis.common.Objects;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.textpattern.TextPattern;
 import org.hisp.dhis.textpattern.TextPatternGenerationException;
 import org.hisp.dhis.textpattern.TextPatternMethod;
@@ -65,6 +68,8 @@ public class DefaultReservedValueService implements ReservedValueService {
 
   private final ValueGeneratorService valueGeneratorService;
 
+  private final DhisConfigurationProvider config;
+
   @Override
   @Transactional
   public List<ReservedValue> reserve(
@@ -107,6 +112,8 @@ public class DefaultReservedValueService implements ReservedValueService {
             .expiryDate(expires)
             .build();
 
+    boolean isPooled = isPooled(textPattern, generatedSegment);
+
     checkIfEnoughValues(numberOfReservations, generatedSegment, reservedValue);
 
     if (generatedSegment == null) {
@@ -119,12 +126,16 @@ public class DefaultReservedValueService implements ReservedValueService {
         return reservedValues;
       }
     } else {
-      int numberOfValuesLeftToGenerate = numberOfReservations;
-
       boolean isPersistable = generatedSegment.getMethod().isPersistable();
 
       reservedValue.setTrackedEntityAttributeId(trackedEntityAttribute.getId());
 
+      if (isPooled) {
+        resultList.addAll(claimPooledValues(reservedValue, numberOfReservations));
+      }
+
+      int numberOfValuesLeftToGenerate = numberOfReservations - resultList.size();
+
       try {
         List<String> generatedValues = new ArrayList<>();
 
@@ -144,6 +155,7 @@ public class DefaultReservedValueService implements ReservedValueService {
               textPattern,
               reservedValue,
               isPersistable,
+              isPooled,
               resolvedPatterns);
 
           numberOfValuesLeftToGenerate = numberOfReservations - resultList.size();
@@ -209,6 +221,7 @@ public class DefaultReservedValueService implements ReservedValueService {
       TextPattern textPattern,
       ReservedValue reservedValue,
       boolean isPersistable,
+      boolean isPooled,
       List<String> resolvedPatterns) {
     if (isPersistable) {
       List<ReservedValue> availableValues =
@@ -218,7 +231,15 @@ public class DefaultReservedValueService implements ReservedValueService {
               textPattern.getOwnerObject().name());
 
       List<ReservedValue> requiredValues =
-          availableValues.subList(0, Math.min(availableValues.size(), numberOfReservations));
+          availableValues.subList(
+              0, Math.min(availableValues.size(), numberOfReservations - resultList.size()));
+
+      if (isPooled) {
+        // a value reserved directly must not be handed out from the pool later
+        reservedValueStore.removePooledValues(
+            reservedValue,
+            requiredValues.stream().map(ReservedValue::getValue).collect(Collectors.toList()));
+      }
 
       reservedValueStore.bulkInsertReservedValues(requiredValues);
 
@@ -231,6 +252,10 @@ public class DefaultReservedValueService implements ReservedValueService {
     }
   }
 
+  /**
+   * Pooled values are not counted against the capacity of the pattern, as they are still available
+   * and are handed out by the reservation itself.
+   */
   private boolean hasEnoughValuesLeft(
       ReservedValue reservedValue, long totalValues, int valuesRequired) {
     int used = reservedValueStore.getNumberOfUsedValues(reservedValue);
@@ -238,6 +263,109 @@ public class DefaultReservedValueService implements ReservedValueService {
     return totalValues >= valuesRequired + used;
   }
 
+  private boolean isPooled(TextPattern textPattern, TextPatternSegment generatedSegment) {
+    return generatedSegment != null
+        && generatedSegment.getMethod() == TextPatternMethod.RANDOM
+        && textPattern.getOwnerObject() == Objects.TRACKEDENTITYATTRIBUTE
+        && config.isEnabled(ConfigurationKey.RESERVED_VALUE_POOL_ENABLED);
+  }
+
+  private List<ReservedValue> claimPooledValues(
+      ReservedValue reservedValue, int numberOfReservations) {
+    reservedValueStore.updatePoolLastRequested(reservedValue);
+
+    List<String> claimed =
+        reservedValueStore.claimPooledValues(reservedValue, numberOfReservations);
+
+    if (claimed.isEmpty()) {
+      return List.of();
+    }
+
+    // values could have been used or reserved otherwise since they were pooled
+    List<ReservedValue> availableValues =
+        reservedValueStore.getAvailableValues(
+            reservedValue, new ArrayList<>(claimed), reservedValue.getOwnerObject());
+
+    reservedValueStore.bulkInsertReservedValues(availableValues);
+
+    return availableValues;
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<ReservedValue> getActivePools(Date since) {
+    return reservedValueStore.getPools(since);
+  }
+
+  @Override
+  @Transactional
+  public int removeInactivePools(Date requestedBefore) {
+    return reservedValueStore.removePools(requestedBefore);
+  }
+
+  @Override
+  @Transactional
+  public int fillPool(TrackedEntityAttribute trackedEntityAttribute, String key, int size)
+      throws ReserveValueException {
+    TextPattern textPattern = trackedEntityAttribute.getTextPattern();
+
+    TextPatternSegment generatedSegment =
+        textPattern == null
+            ? null
+            : textPattern.getSegments().stream()
+                .filter(tp -> tp.getMethod().isGenerated())
+                .findFirst()
+                .orElse(null);
+
+    if (!Boolean.TRUE.equals(trackedEntityAttribute.isGenerated())
+        || !isPooled(textPattern, generatedSegment)) {
+      return 0;
+    }
+
+    ReservedValue pool =
+        ReservedValue.builder()
+            .created(new Date())
+            .ownerObject(textPattern.getOwnerObject().name())
+            .ownerUid(textPattern.getOwnerUid())
+            .key(key)
+            .value(key.replaceAll(Pattern.quote(generatedSegment.getRawSegment()), "%"))
+            .trackedEntityAttributeId(trackedEntityAttribute.getId())
+            .build();
+
+    int pooled = reservedValueStore.getNumberOfPooledValues(pool);
+    long valuesLeft =
+        TextPatternValidationUtils.getTotalValuesPotential(generatedSegment)
+            - reservedValueStore.getNumberOfUsedValues(pool)
+            - pooled;
+    int missing = (int) Math.min(size - pooled, valuesLeft);
+
+    if (missing <= 0) {
+      return 0;
+    }
+
+    int added = 0;
+    int attemptsLeft = RESERVED_VALUE_GENERATION_ATTEMPT;
+
+    while (attemptsLeft-- > 0 && added < missing) {
+      List<String> values =
+          valueGeneratorService
+              .generateValues(generatedSegment, textPattern, key, missing - added)
+              .stream()
+              .map(value -> key.replace(generatedSegment.getRawSegment(), value))
+              .distinct()
+              .collect(Collectors.toList());
+
+      List<ReservedValue> availableValues =
+          reservedValueStore.getAvailableValues(pool, values, pool.getOwnerObject());
+
+      added +=
+          reservedValueStore.addPooledValues(
+              availableValues.subList(0, Math.min(availableValues.size(), missing - added)));
+    }
+
+    return added;
+  }
+
   @Override
   @Transactional
   public boolean useReservedValue(TextPattern textPattern, String value) {
@@ -255,6 +383,10 @@ public class DefaultReservedValueService implements ReservedValueService {
   @Transactional
   public void deleteReservedValueByUid(String uid) {
     reservedValueStore.deleteReservedValueByUid(uid);
+
+    if (config.isEnabled(ConfigurationKey.RESERVED_VALUE_POOL_ENABLED)) {
+      reservedValueStore.deletePoolsByUid(uid);
+    }
   }
 
   @Override
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.reservedvalue;
+
+import static java.lang.String.format;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.scheduling.Job;
+import org.hisp.dhis.scheduling.JobConfiguration;
+import org.hisp.dhis.scheduling.JobProgress;
+import org.hisp.dhis.scheduling.JobType;
+import org.hisp.dhis.trackedentity.TrackedEntityAttribute;
+import org.hisp.dhis.trackedentity.TrackedEntityAttributeService;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the pools of pre-generated values filled for all text pattern keys values were recently
+ * requested for so that reserving values only needs to claim pooled values.
+ */
+@Component
+@RequiredArgsConstructor
+public class RefillReservedValuePoolsJob implements Job {
+  private final ReservedValueService reservedValueService;
+
+  private final TrackedEntityAttributeService attributeService;
+
+  private final DhisConfigurationProvider config;
+
+  @Override
+  public JobType getJobType() {
+    return JobType.RESERVED_VALUE_POOL_REFILL;
+  }
+
+  @Override
+  public void execute(JobConfiguration jobConfiguration, JobProgress progress) {
+    progress.startingProcess("Refill reserved value pools");
+
+    if (!config.isEnabled(ConfigurationKey.RESERVED_VALUE_POOL_ENABLED)) {
+      progress.completedProcess("Reserved value pools are disabled");
+      return;
+    }
+
+    int size = Integer.parseInt(config.getProperty(ConfigurationKey.RESERVED_VALUE_POOL_SIZE));
+    int days =
+        Integer.parseInt(config.getProperty(ConfigurationKey.RESERVED_VALUE_POOL_DEMAND_DAYS));
+    Date since = Date.from(Instant.now().minus(days, ChronoUnit.DAYS));
+
+    progress.startingStage("Removing pools without recent requests");
+    progress.runStage(
+        0,
+        removed -> format("%d pooled values removed", removed),
+        () -> reservedValueService.removeInactivePools(since));
+
+    progress.startingStage("Loading pools with recent requests");
+    List<ReservedValue> pools =
+        progress.runStage(List.of(), () -> reservedValueService.getActivePools(since));
+
+    progress.startingStage("Filling pools", pools.size());
+    progress.runStage(
+        pools,
+        pool -> format("Filling pool for %s with key %s", pool.getOwnerUid(), pool.getKey()),
+        pool -> fillPool(pool, size));
+
+    progress.completedProcess(null);
+  }
+
+  private void fillPool(ReservedValue pool, int size) {
+    TrackedEntityAttribute attribute =
+        attributeService.getTrackedEntityAttribute(pool.getOwnerUid());
+    if (attribute == null) {
+      return;
+    }
+    try {
+      reservedValueService.fillPool(attribute, pool.getKey(), size);
+    } catch (ReserveValueException ex) {
+      throw new IllegalStateException(ex.getMessage(), ex);
+    }
+  }
+}
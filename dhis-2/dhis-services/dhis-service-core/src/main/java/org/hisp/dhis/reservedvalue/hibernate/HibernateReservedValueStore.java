@@ -30,11 +30,14 @@ package org.hisp.dhis.reservedvalue.hibernate;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.hisp.dhis.common.Objects.TRACKEDENTITYATTRIBUTE;
 
+import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.hibernate.SessionFactory;
+import org.hibernate.query.NativeQuery;
 import org.hibernate.query.Query;
 import org.hisp.dhis.common.Objects;
 import org.hisp.dhis.hibernate.HibernateGenericStore;
@@ -206,4 +209,111 @@ public class HibernateReservedValueStore extends HibernateGenericStore<ReservedV
 
     log.info("... Completed deleting expired or used reserved values");
   }
+
+  @Override
+  public void updatePoolLastRequested(ReservedValue pool) {
+    String sql =
+        "insert into reservedvaluepoolkey (ownerobject, owneruid, key, lastrequested) "
+            + "values (:ownerObject, :ownerUid, :key, now()) "
+            + "on conflict (ownerobject, owneruid, key) do update set lastrequested = now()";
+    setPoolParameters(getSession().createNativeQuery(sql), pool).executeUpdate();
+  }
+
+  @Override
+  public List<ReservedValue> getPools(Date since) {
+    String sql =
+        "select ownerobject, owneruid, key from reservedvaluepoolkey where lastrequested >= ?";
+    return jdbcTemplate.query(
+        sql,
+        (rs, rowNum) ->
+            ReservedValue.builder()
+                .ownerObject(rs.getString(1))
+                .ownerUid(rs.getString(2))
+                .key(rs.getString(3))
+                .build(),
+        since);
+  }
+
+  @Override
+  public int removePools(Date requestedBefore) {
+    int removed =
+        jdbcTemplate.update(
+            "delete from reservedvaluepool p using reservedvaluepoolkey k "
+                + "where p.ownerobject = k.ownerobject and p.owneruid = k.owneruid "
+                + "and p.key = k.key and k.lastrequested < ?",
+            requestedBefore);
+    jdbcTemplate.update(
+        "delete from reservedvaluepoolkey where lastrequested < ?", requestedBefore);
+    return removed;
+  }
+
+  @Override
+  public int getNumberOfPooledValues(ReservedValue pool) {
+    String sql =
+        "select count(*) from reservedvaluepool "
+            + "where ownerobject = :ownerObject and owneruid = :ownerUid and key = :key";
+    return ((Number) setPoolParameters(getSession().createNativeQuery(sql), pool).getSingleResult())
+        .intValue();
+  }
+
+  @Override
+  public int addPooledValues(List<ReservedValue> values) {
+    String sql =
+        "insert into reservedvaluepool (ownerobject, owneruid, key, value, created) "
+            + "values (?, ?, ?, ?, now()) on conflict do nothing";
+    int[] added =
+        jdbcTemplate.batchUpdate(
+            sql,
+            values.stream()
+                .map(
+                    v ->
+                        new Object[] {
+                          v.getOwnerObject(), v.getOwnerUid(), v.getKey(), v.getValue()
+                        })
+                .collect(Collectors.toList()));
+    return Arrays.stream(added).filter(count -> count > 0).sum();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<String> claimPooledValues(ReservedValue pool, int limit) {
+    String sql =
+        "delete from reservedvaluepool "
+            + "where ownerobject = :ownerObject and owneruid = :ownerUid and key = :key "
+            + "and value in (select value from reservedvaluepool "
+            + "where ownerobject = :ownerObject and owneruid = :ownerUid and key = :key "
+            + "limit :limit for update skip locked) "
+            + "returning value";
+    return setPoolParameters(getSession().createNativeQuery(sql), pool)
+        .setParameter("limit", limit)
+        .getResultList();
+  }
+
+  @Override
+  public void removePooledValues(ReservedValue pool, List<String> values) {
+    if (values.isEmpty()) {
+      return;
+    }
+    String sql =
+        "delete from reservedvaluepool "
+            + "where ownerobject = :ownerObject and owneruid = :ownerUid and key = :key "
+            + "and lower(value) in (:values)";
+    setPoolParameters(getSession().createNativeQuery(sql), pool)
+        .setParameterList(
+            "values", values.stream().map(String::toLowerCase).collect(Collectors.toList()))
+        .executeUpdate();
+  }
+
+  @Override
+  public void deletePoolsByUid(String ownerUid) {
+    jdbcTemplate.update("delete from reservedvaluepool where owneruid = ?", ownerUid);
+    jdbcTemplate.update("delete from reservedvaluepoolkey where owneruid = ?", ownerUid);
+  }
+
+  private static <T> NativeQuery<T> setPoolParameters(NativeQuery<T> query, ReservedValue pool) {
+    return query
+        .setParameter("ownerObject", pool.getOwnerObject())
+        .setParameter("ownerUid", pool.getOwnerUid())
+        .setParameter("key", pool.getKey());
+  }
 }
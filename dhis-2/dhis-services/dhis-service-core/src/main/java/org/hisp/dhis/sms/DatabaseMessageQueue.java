@@ -27,50 +27,41 @@
  */
 package org.hisp.dhis.sms;
 
-import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.hisp.dhis.sms.incoming.IncomingSms;
-import org.hisp.dhis.sms.incoming.IncomingSmsService;
+import org.hisp.dhis.sms.incoming.IncomingSmsStore;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
+/**
+ * {@link MessageQueue} backed by the incoming SMS table. Messages are claimed with row locks which
+ * skip rows locked by concurrent claims, and are leased to a consumer so that messages claimed by a
+ * node which stopped are processed again once the lease expires.
+ */
 @RequiredArgsConstructor
 @Component("org.hisp.dhis.sms.MessageQueue")
-public class DatabaseSupportedInternalMemoryMessageQueue implements MessageQueue {
-  private List<IncomingSms> queue = new ArrayList<>();
+public class DatabaseMessageQueue implements MessageQueue {
+  /** Milliseconds a claimed message is reserved for the consumer which claimed it. */
+  private static final long LEASE_MILLIS = 10 * 60 * 1000L;
 
-  private final IncomingSmsService incomingSmsService;
+  private final IncomingSmsStore incomingSmsStore;
 
   // -------------------------------------------------------------------------
   // Implementation
   // -------------------------------------------------------------------------
 
   @Override
-  public void put(IncomingSms message) {
-    queue.add(message);
-  }
-
-  @Override
-  public IncomingSms get() {
-    if (queue != null && queue.size() > 0) {
-      return queue.get(0);
-    }
-
-    return null;
+  @Transactional
+  public List<IncomingSms> claim(int limit) {
+    return incomingSmsStore.claimIncomingMessages(
+        limit, new Date(System.currentTimeMillis() + LEASE_MILLIS));
   }
 
   @Override
-  public void remove(IncomingSms message) {
-    queue.remove(message);
-  }
-
-  @Override
-  public void initialize() {
-    Collection<IncomingSms> messages = incomingSmsService.getAllUnparsedMessages();
-
-    if (messages != null) {
-      queue.addAll(messages);
-    }
+  @Transactional(readOnly = true)
+  public long getBacklog() {
+    return incomingSmsStore.countIncomingMessages();
   }
 }
@@ -27,63 +27,189 @@
  */
 package org.hisp.dhis.sms;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
 import java.util.List;
-import lombok.RequiredArgsConstructor;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.message.MessageSender;
 import org.hisp.dhis.sms.incoming.IncomingSms;
 import org.hisp.dhis.sms.incoming.IncomingSmsListener;
 import org.hisp.dhis.sms.incoming.IncomingSmsService;
 import org.hisp.dhis.sms.incoming.SmsMessageStatus;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
+/**
+ * Processes incoming SMS from the {@link MessageQueue}. Each run starts a number of consumers which
+ * claim messages in small batches and hand them to the first accepting {@link IncomingSmsListener},
+ * until the queue is empty.
+ */
 @Slf4j
-@RequiredArgsConstructor
 @Component("org.hisp.dhis.sms.SmsConsumerThread")
 public class SmsConsumerThread {
+  /** Max number of messages claimed by a consumer at once. */
+  static final int CLAIM_SIZE = 20;
+
   private List<IncomingSmsListener> listeners;
 
   private final MessageQueue messageQueue;
 
-  @Qualifier("smsMessageSender")
   private final MessageSender smsSender;
 
   private final IncomingSmsService incomingSmsService;
 
+  private final int parallelism;
+
+  private final ExecutorService executor;
+
+  private final MeterRegistry registry;
+
+  private final AtomicLong backlog = new AtomicLong();
+
+  private final Timer latency;
+
+  @Autowired
+  public SmsConsumerThread(
+      MessageQueue messageQueue,
+      @Qualifier("smsMessageSender") MessageSender smsSender,
+      IncomingSmsService incomingSmsService,
+      DhisConfigurationProvider config,
+      ObjectProvider<MeterRegistry> meterRegistry) {
+    this(
+        messageQueue,
+        smsSender,
+        incomingSmsService,
+        Integer.parseInt(config.getProperty(ConfigurationKey.SYSTEM_SMS_CONSUMER_PARALLELISM)),
+        meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+  }
+
+  SmsConsumerThread(
+      MessageQueue messageQueue,
+      MessageSender smsSender,
+      IncomingSmsService incomingSmsService,
+      int parallelism,
+      MeterRegistry registry) {
+    this.messageQueue = messageQueue;
+    this.smsSender = smsSender;
+    this.incomingSmsService = incomingSmsService;
+    this.parallelism = Math.max(1, parallelism);
+    this.executor =
+        Executors.newFixedThreadPool(
+            this.parallelism,
+            new ThreadFactoryBuilder().setNameFormat("sms-consumer-%d").setDaemon(true).build());
+    this.registry = registry;
+
+    Gauge.builder("sms.incoming.backlog", backlog::get)
+        .description("Number of incoming SMS waiting to be processed")
+        .register(registry);
+    this.latency =
+        Timer.builder("sms.incoming.latency")
+            .description("Time from receiving an incoming SMS until it is processed")
+            .register(registry);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  /** Processes incoming messages until the queue is empty. */
   public void spawnSmsConsumer() {
-    IncomingSms message = messageQueue.get();
-
-    while (message != null) {
-      log.info("Received SMS: " + message.getText());
-
-      try {
-        for (IncomingSmsListener listener : listeners) {
-          if (listener.accept(message)) {
-            listener.receive(message);
-            messageQueue.remove(message);
-            return;
-          }
-        }
+    backlog.set(messageQueue.getBacklog());
 
-        log.warn("No SMS command found in received data");
+    if (backlog.get() == 0) {
+      return;
+    }
 
-        message.setStatus(SmsMessageStatus.UNHANDLED);
+    log.info("Processing {} incoming SMS with {} consumers", backlog.get(), parallelism);
 
-        smsSender.sendMessage(null, "No command found", message.getOriginator());
-      } catch (Exception e) {
-        e.printStackTrace();
+    List<Future<?>> consumers = new ArrayList<>();
 
-        message.setStatus(SmsMessageStatus.FAILED);
-        message.setParsed(false);
-      } finally {
-        messageQueue.remove(message);
+    for (int i = 0; i < parallelism; i++) {
+      consumers.add(executor.submit(this::consume));
+    }
 
-        incomingSmsService.update(message);
+    try {
+      for (Future<?> consumer : consumers) {
+        consumer.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      log.error("Incoming SMS consumer failed", e.getCause());
+    } finally {
+      consumers.forEach(consumer -> consumer.cancel(true));
+      backlog.set(messageQueue.getBacklog());
+    }
+  }
+
+  private void consume() {
+    List<IncomingSms> messages = messageQueue.claim(CLAIM_SIZE);
+
+    while (!messages.isEmpty() && !Thread.currentThread().isInterrupted()) {
+      messages.forEach(this::process);
+
+      messages = messageQueue.claim(CLAIM_SIZE);
+    }
+  }
+
+  void process(IncomingSms message) {
+    log.info("Received SMS: " + message.getText());
+
+    try {
+      IncomingSmsListener listener =
+          listeners.stream().filter(l -> l.accept(message)).findFirst().orElse(null);
 
-        message = messageQueue.get();
+      if (listener != null) {
+        listener.receive(message);
+
+        if (message.getStatus() == SmsMessageStatus.PROCESSING) {
+          // Listener rejected the message without recording an outcome
+          message.setStatus(SmsMessageStatus.FAILED);
+          message.setParsed(false);
+        }
+      } else {
+        log.warn("No SMS command found in received data");
+
+        message.setStatus(SmsMessageStatus.UNHANDLED);
+
+        smsSender.sendMessage(null, "No command found", message.getOriginator());
       }
+    } catch (Exception e) {
+      log.error("Processing of SMS failed: " + message.getUid(), e);
+
+      message.setStatus(SmsMessageStatus.FAILED);
+      message.setParsed(false);
+    } finally {
+      incomingSmsService.update(message);
+
+      if (message.getReceivedDate() != null) {
+        latency.record(
+            System.currentTimeMillis() - message.getReceivedDate().getTime(),
+            TimeUnit.MILLISECONDS);
+      }
+
+      Counter.builder("sms.incoming.processed")
+          .description("Number of incoming SMS processed")
+          .tag("status", message.getStatus().name().toLowerCase())
+          .register(registry)
+          .increment();
     }
   }
 
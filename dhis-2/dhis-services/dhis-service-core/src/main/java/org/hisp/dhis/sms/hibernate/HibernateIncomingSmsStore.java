@@ -27,8 +27,11 @@
  */
 package org.hisp.dhis.sms.hibernate;
 
+import java.util.Date;
 import java.util.List;
 import javax.persistence.criteria.CriteriaBuilder;
+import org.hibernate.LockMode;
+import org.hibernate.LockOptions;
 import org.hibernate.SessionFactory;
 import org.hisp.dhis.common.hibernate.HibernateIdentifiableObjectStore;
 import org.hisp.dhis.hibernate.JpaQueryParameters;
@@ -119,6 +122,45 @@ public class HibernateIncomingSmsStore extends HibernateIdentifiableObjectStore<
         builder, newJpaParameters().addPredicate(root -> builder.equal(root.get("parsed"), false)));
   }
 
+  @Override
+  public List<IncomingSms> claimIncomingMessages(int limit, Date leaseExpiry) {
+    String hql =
+        "from IncomingSms where status = :incoming "
+            + "or (status = :processing and leaseExpiry < :now) order by id";
+
+    List<IncomingSms> messages =
+        getSession()
+            .createQuery(hql, IncomingSms.class)
+            .setParameter("incoming", SmsMessageStatus.INCOMING)
+            .setParameter("processing", SmsMessageStatus.PROCESSING)
+            .setParameter("now", new Date())
+            .setMaxResults(limit)
+            .setLockOptions(
+                new LockOptions(LockMode.PESSIMISTIC_WRITE).setTimeOut(LockOptions.SKIP_LOCKED))
+            .getResultList();
+
+    for (IncomingSms message : messages) {
+      message.setStatus(SmsMessageStatus.PROCESSING);
+      message.setLeaseExpiry(leaseExpiry);
+    }
+
+    return messages;
+  }
+
+  @Override
+  public long countIncomingMessages() {
+    String hql =
+        "select count(*) from IncomingSms where status = :incoming "
+            + "or (status = :processing and leaseExpiry < :now)";
+
+    return getSession()
+        .createQuery(hql, Long.class)
+        .setParameter("incoming", SmsMessageStatus.INCOMING)
+        .setParameter("processing", SmsMessageStatus.PROCESSING)
+        .setParameter("now", new Date())
+        .getSingleResult();
+  }
+
   @Override
   public List<IncomingSms> getSmsByStatus(
       SmsMessageStatus status, String keyword, Integer min, Integer max, boolean hasPagination) {
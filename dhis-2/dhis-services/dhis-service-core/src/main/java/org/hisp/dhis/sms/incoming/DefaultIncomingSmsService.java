@@ -32,9 +32,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import java.util.Date;
 import java.util.List;
 import org.apache.commons.lang3.StringUtils;
-import org.hisp.dhis.sms.MessageQueue;
 import org.hisp.dhis.user.User;
-import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -48,15 +46,10 @@ public class DefaultIncomingSmsService implements IncomingSmsService {
 
   private final IncomingSmsStore incomingSmsStore;
 
-  private final MessageQueue incomingSmsQueue;
-
-  public DefaultIncomingSmsService(
-      IncomingSmsStore incomingSmsStore, @Lazy MessageQueue incomingSmsQueue) {
-    checkNotNull(incomingSmsQueue);
+  public DefaultIncomingSmsService(IncomingSmsStore incomingSmsStore) {
     checkNotNull(incomingSmsStore);
 
     this.incomingSmsStore = incomingSmsStore;
-    this.incomingSmsQueue = incomingSmsQueue;
   }
 
   // -------------------------------------------------------------------------
@@ -88,7 +81,6 @@ public class DefaultIncomingSmsService implements IncomingSmsService {
     sms.setGatewayId(StringUtils.defaultIfBlank(sms.getGatewayId(), DEFAULT_GATEWAY));
 
     incomingSmsStore.save(sms);
-    incomingSmsQueue.put(sms);
     return sms.getId();
   }
 
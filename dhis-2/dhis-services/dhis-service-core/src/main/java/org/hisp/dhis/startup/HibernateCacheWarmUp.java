@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.startup;
+
+import static org.hisp.dhis.external.conf.ConfigurationKey.HIBERNATE_CACHE_WARMUP_ENABLED;
+import static org.hisp.dhis.external.conf.ConfigurationKey.HIBERNATE_CACHE_WARMUP_MAX_ENTRIES;
+import static org.hisp.dhis.external.conf.ConfigurationKey.HIBERNATE_CACHE_WARMUP_REGIONS;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.hisp.dhis.cache.HibernateCacheManager;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.system.startup.AbstractStartupRoutine;
+import org.hisp.dhis.system.util.Clock;
+
+/**
+ * Preloads the second-level cache regions of frequently accessed metadata so that a node does not
+ * start serving requests with a cold cache. The regions are configured through {@link
+ * org.hisp.dhis.external.conf.ConfigurationKey#HIBERNATE_CACHE_WARMUP_REGIONS}.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class HibernateCacheWarmUp extends AbstractStartupRoutine {
+  private final HibernateCacheManager cacheManager;
+
+  private final DhisConfigurationProvider config;
+
+  @Override
+  public void execute() {
+    if (!config.isEnabled(HIBERNATE_CACHE_WARMUP_ENABLED)) {
+      return;
+    }
+
+    int maxEntries = Integer.parseInt(config.getProperty(HIBERNATE_CACHE_WARMUP_MAX_ENTRIES));
+
+    Clock clock = new Clock(log).startClock().logTime("Starting Hibernate cache warm-up");
+
+    for (String entityName : getRegions()) {
+      try {
+        int count = cacheManager.warmUpRegion(entityName, maxEntries);
+
+        clock.logTime(String.format("Loaded %d entries into cache region '%s'", count, entityName));
+      } catch (RuntimeException ex) {
+        log.warn(String.format("Cache warm-up of region '%s' failed", entityName), ex);
+      }
+    }
+
+    clock.logTime("Hibernate cache warm-up done");
+  }
+
+  private List<String> getRegions() {
+    return Arrays.stream(config.getProperty(HIBERNATE_CACHE_WARMUP_REGIONS).split(","))
+        .map(StringUtils::trimToNull)
+        .filter(StringUtils::isNotEmpty)
+        .distinct()
+        .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.trackedentity;
+
+import static org.hisp.dhis.common.ValueType.EMAIL;
+import static org.hisp.dhis.common.ValueType.LONG_TEXT;
+import static org.hisp.dhis.common.ValueType.PHONE_NUMBER;
+import static org.hisp.dhis.common.ValueType.TEXT;
+import static org.hisp.dhis.common.ValueType.URL;
+import static org.hisp.dhis.common.ValueType.USERNAME;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.common.CodeGenerator;
+import org.hisp.dhis.common.IdentifiableObjectUtils;
+import org.hisp.dhis.common.ValueType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * JDBC implementation of {@link TrackedEntitySearchTableManager}. Search tables are named
+ * trackedentitysearch_X where X is the tracked entity type identifier. Every attribute column gets
+ * a btree index for equality and prefix searches, and text attributes additionally get a trigram
+ * index for "like" searches.
+ *
+ * <p>Search tables are kept current by a trigger on trackedentityattributevalue, see the
+ * trackedentitysearch_update database function, so that every write path is covered. The trigger
+ * exists only while search tables exist.
+ */
+@Slf4j
+@Component("org.hisp.dhis.trackedentity.TrackedEntitySearchTableManager")
+public class JdbcTrackedEntitySearchTableManager implements TrackedEntitySearchTableManager {
+  private static final String TABLE_PREFIX = "trackedentitysearch_";
+
+  private static final String TEMP_TABLE_SUFFIX = "_temp";
+
+  private static final String CHANGES_TABLE_SUFFIX = "_changes";
+
+  private static final String TRIGGER_NAME = "trackedentitysearch_update";
+
+  private static final Set<ValueType> TRIGRAM_VALUE_TYPES =
+      Set.of(TEXT, LONG_TEXT, PHONE_NUMBER, EMAIL, USERNAME, URL);
+
+  private static final String LIST_SEARCH_TABLE_TYPE_ID_QUERY =
+      "select cast(substring(tablename from '"
+          + TABLE_PREFIX
+          + "([0-9]+)$') as bigint) from pg_tables "
+          + "where schemaname = current_schema() and tablename ~ '^"
+          + TABLE_PREFIX
+          + "[0-9]+$'";
+
+  private static final String LIST_SEARCH_TABLE_COLUMN_QUERY =
+      "select attname from pg_attribute "
+          + "where attrelid = to_regclass(?) and attnum > 0 and not attisdropped "
+          + "and attname <> 'trackedentityid'";
+
+  private static final String TRIGGER_EXISTS_QUERY =
+      "select exists (select 1 from pg_trigger where tgname = '"
+          + TRIGGER_NAME
+          + "' and tgrelid = 'trackedentityattributevalue'::regclass)";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  private final TransactionTemplate transactionTemplate;
+
+  private final Cache<HashSet<String>> searchTableColumnCache;
+
+  public JdbcTrackedEntitySearchTableManager(
+      JdbcTemplate jdbcTemplate,
+      TransactionTemplate transactionTemplate,
+      CacheProvider cacheProvider) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.searchTableColumnCache = cacheProvider.createTrackedEntitySearchTableCache();
+  }
+
+  // -------------------------------------------------------------------------
+  // Implementation
+  // -------------------------------------------------------------------------
+
+  @Override
+  public String getSearchTableName(TrackedEntityType trackedEntityType) {
+    return getSearchTableName(trackedEntityType.getId());
+  }
+
+  @Override
+  public void generateSearchTable(
+      TrackedEntityType trackedEntityType, List<TrackedEntityAttribute> attributes) {
+    if (attributes.isEmpty()) {
+      dropSearchTable(trackedEntityType.getId());
+      return;
+    }
+
+    String table = getSearchTableName(trackedEntityType);
+    String tempTable = table + TEMP_TABLE_SUFFIX;
+    String changesTable = table + CHANGES_TABLE_SUFFIX;
+    Set<String> columns = IdentifiableObjectUtils.getUidsAsSet(attributes);
+
+    createTrigger();
+
+    try {
+      // Record tracked entities changed from now on, and wait for transactions which have changed
+      // attribute values before, so that the table generated below sees all other changes
+
+      jdbcTemplate.execute("drop table if exists " + changesTable);
+      jdbcTemplate.execute("create unlogged table " + changesTable + " (trackedentityid bigint)");
+      lockAttributeValues(() -> {});
+
+      jdbcTemplate.execute("drop table if exists " + tempTable);
+      jdbcTemplate.execute(
+          "create table "
+              + tempTable
+              + " as "
+              + getSelectStatement(trackedEntityType.getId(), columns, "true"));
+      jdbcTemplate.execute("alter table " + tempTable + " add primary key (trackedentityid)");
+
+      for (TrackedEntityAttribute attribute : attributes) {
+        createIndexes(trackedEntityType, attribute, tempTable);
+      }
+
+      // Catch up with recorded changes and swap the tables in one transaction, while attribute
+      // values cannot change
+
+      lockAttributeValues(
+          () -> {
+            String changed =
+                "te.trackedentityid in (select trackedentityid from " + changesTable + ")";
+            jdbcTemplate.execute(
+                "delete from "
+                    + tempTable
+                    + " where trackedentityid in (select trackedentityid from "
+                    + changesTable
+                    + ")");
+            jdbcTemplate.execute(
+                getInsertStatement(tempTable, trackedEntityType.getId(), columns, changed));
+            jdbcTemplate.execute("drop table if exists " + table);
+            jdbcTemplate.execute("alter table " + tempTable + " rename to " + table);
+            jdbcTemplate.execute("drop table " + changesTable);
+          });
+    } catch (RuntimeException ex) {
+      jdbcTemplate.execute("drop table if exists " + changesTable);
+      jdbcTemplate.execute("drop table if exists " + tempTable);
+      throw ex;
+    } finally {
+      searchTableColumnCache.invalidate(getCacheKey(trackedEntityType.getId()));
+    }
+
+    log.info("Generated search table: '{}' with {} attributes", table, attributes.size());
+  }
+
+  @Override
+  public void dropSearchTable(long trackedEntityTypeId) {
+    jdbcTemplate.execute("drop table if exists " + getSearchTableName(trackedEntityTypeId));
+    searchTableColumnCache.invalidate(getCacheKey(trackedEntityTypeId));
+
+    if (getTrackedEntityTypeIdsWithSearchTable().isEmpty()) {
+      jdbcTemplate.execute(
+          "drop trigger if exists " + TRIGGER_NAME + " on trackedentityattributevalue");
+    }
+  }
+
+  @Override
+  public List<Long> getTrackedEntityTypeIdsWithSearchTable() {
+    return jdbcTemplate.queryForList(LIST_SEARCH_TABLE_TYPE_ID_QUERY, Long.class);
+  }
+
+  @Override
+  public Set<String> getSearchTableAttributes(TrackedEntityType trackedEntityType) {
+    return searchTableColumnCache.get(
+        getCacheKey(trackedEntityType.getId()), key -> getSearchTableColumns(trackedEntityType));
+  }
+
+  // -------------------------------------------------------------------------
+  // Supportive methods
+  // -------------------------------------------------------------------------
+
+  private String getSearchTableName(long trackedEntityTypeId) {
+    return TABLE_PREFIX + trackedEntityTypeId;
+  }
+
+  private String getCacheKey(long trackedEntityTypeId) {
+    return String.valueOf(trackedEntityTypeId);
+  }
+
+  private HashSet<String> getSearchTableColumns(TrackedEntityType trackedEntityType) {
+    return new HashSet<>(
+        jdbcTemplate.queryForList(
+            LIST_SEARCH_TABLE_COLUMN_QUERY, String.class, getSearchTableName(trackedEntityType)));
+  }
+
+  private void createTrigger() {
+    if (Boolean.FALSE.equals(jdbcTemplate.queryForObject(TRIGGER_EXISTS_QUERY, Boolean.class))) {
+      jdbcTemplate.execute(
+          "create trigger "
+              + TRIGGER_NAME
+              + " after insert or update or delete on trackedentityattributevalue "
+              + "for each row execute procedure trackedentitysearch_update()");
+    }
+  }
+
+  /**
+   * Runs the given action in a transaction holding a share lock on trackedentityattributevalue. The
+   * lock is granted once all transactions writing attribute values have completed, and blocks new
+   * writes until the action is done.
+   */
+  private void lockAttributeValues(Runnable action) {
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          jdbcTemplate.execute("lock table trackedentityattributevalue in share mode");
+          action.run();
+        });
+  }
+
+  /**
+   * Returns a select statement with one row per tracked entity of the given type, and one column
+   * per given attribute UID holding the lower-cased attribute value. Only tracked entities with at
+   * least one of the attributes are included, as tracked entities without any value can never match
+   * an attribute search.
+   */
+  String getSelectStatement(long trackedEntityTypeId, Set<String> columns, String condition) {
+    String select =
+        columns.stream()
+            .sorted()
+            .map(
+                uid ->
+                    "max(case when tea.uid = '"
+                        + uid
+                        + "' then lower(teav.value) end) as \""
+                        + uid
+                        + "\"")
+            .collect(Collectors.joining(", "));
+
+    return "select te.trackedentityid, "
+        + select
+        + " from trackedentity te "
+        + "inner join trackedentityattributevalue teav on te.trackedentityid = teav.trackedentityid "
+        + "inner join trackedentityattribute tea on teav.trackedentityattributeid = tea.trackedentityattributeid "
+        + "where te.trackedentitytypeid = "
+        + trackedEntityTypeId
+        + " and tea.uid in ("
+        + columns.stream().sorted().map(uid -> "'" + uid + "'").collect(Collectors.joining(","))
+        + ") and "
+        + condition
+        + " group by te.trackedentityid";
+  }
+
+  private String getInsertStatement(
+      String table, long trackedEntityTypeId, Set<String> columns, String condition) {
+    String quoted =
+        columns.stream().sorted().map(uid -> "\"" + uid + "\"").collect(Collectors.joining(","));
+
+    return "insert into "
+        + table
+        + " (trackedentityid,"
+        + quoted
+        + ") "
+        + getSelectStatement(trackedEntityTypeId, columns, condition);
+  }
+
+  private void createIndexes(
+      TrackedEntityType trackedEntityType, TrackedEntityAttribute attribute, String table) {
+    String column = "\"" + attribute.getUid() + "\"";
+    String name =
+        "in_tesearch_"
+            + trackedEntityType.getId()
+            + "_"
+            + attribute.getId()
+            + "_"
+            + CodeGenerator.generateCode(5).toLowerCase();
+
+    // Long text values may exceed the btree row size limit
+
+    if (attribute.getValueType() != LONG_TEXT) {
+      jdbcTemplate.execute("create index " + name + "_bt on " + table + " (" + column + ")");
+    }
+
+    if (TRIGRAM_VALUE_TYPES.contains(attribute.getValueType())) {
+      jdbcTemplate.execute(
+          "create index " + name + "_gin on " + table + " using gin (" + column + " gin_trgm_ops)");
+    }
+  }
+}
@@ -31,6 +31,7 @@ import static java.lang.String.format;
 import static org.hisp.dhis.scheduling.JobProgress.FailurePolicy.SKIP_ITEM_OUTLIER;
 
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -38,6 +39,9 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.hisp.dhis.common.IdentifiableObject;
 import org.hisp.dhis.commons.collection.CollectionUtils;
+import org.hisp.dhis.program.Program;
+import org.hisp.dhis.program.ProgramService;
+import org.hisp.dhis.program.ProgramTrackedEntityAttribute;
 import org.hisp.dhis.scheduling.Job;
 import org.hisp.dhis.scheduling.JobConfiguration;
 import org.hisp.dhis.scheduling.JobProgress;
@@ -45,6 +49,10 @@ import org.hisp.dhis.scheduling.JobType;
 import org.hisp.dhis.scheduling.parameters.TrackerTrigramIndexJobParameters;
 import org.hisp.dhis.trackedentity.TrackedEntityAttribute;
 import org.hisp.dhis.trackedentity.TrackedEntityAttributeService;
+import org.hisp.dhis.trackedentity.TrackedEntitySearchTableManager;
+import org.hisp.dhis.trackedentity.TrackedEntityType;
+import org.hisp.dhis.trackedentity.TrackedEntityTypeAttribute;
+import org.hisp.dhis.trackedentity.TrackedEntityTypeService;
 import org.springframework.stereotype.Component;
 
 /**
@@ -58,6 +66,12 @@ public class TrackerTrigramIndexingJob implements Job {
 
   private final TrackedEntityAttributeTableManager trackedEntityAttributeTableManager;
 
+  private final TrackedEntityTypeService trackedEntityTypeService;
+
+  private final ProgramService programService;
+
+  private final TrackedEntitySearchTableManager trackedEntitySearchTableManager;
+
   // -------------------------------------------------------------------------
   // Implementation
   // -------------------------------------------------------------------------
@@ -93,6 +107,11 @@ public class TrackerTrigramIndexingJob implements Job {
         removeObsoleteTrigramIndexes(progress, allIndexableAttributes);
       }
     }
+
+    if (parameters.isGenerateSearchTables()) {
+      generateSearchTables(progress);
+    }
+
     progress.completedProcess("Job completed");
     log.info("Trigram Indexing job completed");
   }
@@ -188,6 +207,61 @@ public class TrackerTrigramIndexingJob implements Job {
     log.debug("Created {} trigram indexes", indexableAttributes.size());
   }
 
+  private void generateSearchTables(JobProgress progress) {
+    List<TrackedEntityType> types = trackedEntityTypeService.getAllTrackedEntityType();
+
+    progress.startingStage(
+        "Generating tracked entity search tables", types.size(), SKIP_ITEM_OUTLIER);
+    progress.runStage(
+        types,
+        TrackedEntityType::getName,
+        type ->
+            trackedEntitySearchTableManager.generateSearchTable(
+                type, getSearchableAttributes(type)));
+
+    Set<Long> typeIds = types.stream().map(IdentifiableObject::getId).collect(Collectors.toSet());
+    List<Long> obsoleteTypeIds =
+        trackedEntitySearchTableManager.getTrackedEntityTypeIdsWithSearchTable().stream()
+            .filter(id -> !typeIds.contains(id))
+            .toList();
+
+    progress.startingStage(
+        "Dropping obsolete tracked entity search tables",
+        obsoleteTypeIds.size(),
+        SKIP_ITEM_OUTLIER);
+    progress.runStage(
+        obsoleteTypeIds, Object::toString, trackedEntitySearchTableManager::dropSearchTable);
+  }
+
+  /**
+   * Returns the attributes which are searchable for the given tracked entity type, either through
+   * the type itself or through one of its programs, or which are unique.
+   */
+  List<TrackedEntityAttribute> getSearchableAttributes(TrackedEntityType type) {
+    Set<TrackedEntityAttribute> attributes = new LinkedHashSet<>();
+
+    for (TrackedEntityTypeAttribute attribute : type.getTrackedEntityTypeAttributes()) {
+      if (attribute != null
+          && isSearchable(attribute.isSearchable(), attribute.getTrackedEntityAttribute())) {
+        attributes.add(attribute.getTrackedEntityAttribute());
+      }
+    }
+
+    for (Program program : programService.getProgramsByTrackedEntityType(type)) {
+      for (ProgramTrackedEntityAttribute attribute : program.getProgramAttributes()) {
+        if (isSearchable(attribute.isSearchable(), attribute.getAttribute())) {
+          attributes.add(attribute.getAttribute());
+        }
+      }
+    }
+
+    return List.copyOf(attributes);
+  }
+
+  private static boolean isSearchable(Boolean searchable, TrackedEntityAttribute attribute) {
+    return Boolean.TRUE.equals(searchable) || Boolean.TRUE.equals(attribute.isUnique());
+  }
+
   private static String computeTrigramIndexingCreationSummary(int successful, int failed) {
     String summary =
         format(
@@ -0,0 +1,297 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.category.hibernate;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.hibernate.NonUniqueResultException;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.query.Query;
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.cache.SimpleCacheBuilder;
+import org.hisp.dhis.category.CategoryCombo;
+import org.hisp.dhis.category.CategoryOption;
+import org.hisp.dhis.category.CategoryOptionCombo;
+import org.hisp.dhis.dbms.DbmsManager;
+import org.hisp.dhis.security.acl.AclService;
+import org.hisp.dhis.user.CurrentUserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+/**
+ * Tests the category option combo index of {@link HibernateCategoryOptionComboStore} with a real
+ * local cache against an in-memory stand-in for the database.
+ */
+@ExtendWith(MockitoExtension.class)
+class HibernateCategoryOptionComboStoreTest {
+  @Mock private SessionFactory sessionFactory;
+
+  @Mock private Session session;
+
+  @Mock private Query<CategoryOptionCombo> query;
+
+  @Mock private JdbcTemplate jdbcTemplate;
+
+  @Mock private CacheProvider cacheProvider;
+
+  /** The category option combos "in the database" by ID */
+  private final Map<Long, CategoryOptionCombo> database = new HashMap<>();
+
+  private final List<Object> queryParameters = new ArrayList<>();
+
+  private HibernateCategoryOptionComboStore store;
+
+  private CategoryCombo categoryCombo;
+
+  private CategoryOption optionA;
+
+  private CategoryOption optionB;
+
+  private CategoryOption optionC;
+
+  private CategoryOption optionD;
+
+  @BeforeEach
+  void setUp() {
+    when(cacheProvider.<Map<Set<Long>, Long>>createCategoryOptionComboIndexCache())
+        .thenReturn(
+            new SimpleCacheBuilder<Map<Set<Long>, Long>>()
+                .forRegion("categoryOptionComboIndex")
+                .withMaximumSize(10)
+                .build());
+    lenient().when(sessionFactory.getCurrentSession()).thenReturn(session);
+    lenient()
+        .when(session.get(eq(CategoryOptionCombo.class), anyLong()))
+        .thenAnswer(invocation -> database.get((Long) invocation.getArgument(1)));
+    lenient().when(session.createQuery(anyString())).thenReturn(query);
+    lenient().when(query.setCacheable(anyBoolean())).thenReturn(query);
+    lenient().when(query.setHint(anyString(), any())).thenReturn(query);
+    lenient()
+        .when(query.setParameter(anyString(), any()))
+        .thenAnswer(
+            invocation -> {
+              queryParameters.add(invocation.getArgument(1));
+              return query;
+            });
+    lenient().when(query.uniqueResult()).thenAnswer(invocation -> queryCategoryOptionCombo());
+    lenient()
+        .doAnswer(
+            invocation -> {
+              RowCallbackHandler handler = invocation.getArgument(1);
+              long categoryComboId = invocation.getArgument(2);
+              for (CategoryOptionCombo coc : database.values()) {
+                if (coc.getCategoryCombo().getId() == categoryComboId) {
+                  for (CategoryOption option : coc.getCategoryOptions()) {
+                    handler.processRow(mockRow(coc.getId(), option.getId()));
+                  }
+                }
+              }
+              return null;
+            })
+        .when(jdbcTemplate)
+        .query(anyString(), any(RowCallbackHandler.class), any());
+
+    store =
+        new HibernateCategoryOptionComboStore(
+            sessionFactory,
+            jdbcTemplate,
+            mock(ApplicationEventPublisher.class),
+            mock(CurrentUserService.class),
+            mock(AclService.class),
+            mock(DbmsManager.class),
+            cacheProvider);
+
+    categoryCombo = new CategoryCombo();
+    categoryCombo.setId(1L);
+    categoryCombo.setAutoFields();
+    optionA = createCategoryOption(11L, "A");
+    optionB = createCategoryOption(12L, "B");
+    optionC = createCategoryOption(13L, "C");
+    optionD = createCategoryOption(14L, "D");
+  }
+
+  @Test
+  void testGetCategoryOptionCombo() {
+    CategoryOptionCombo cocAC = addCategoryOptionCombo(21L, optionA, optionC);
+    CategoryOptionCombo cocBD = addCategoryOptionCombo(22L, optionB, optionD);
+
+    assertSame(cocAC, store.getCategoryOptionCombo(categoryCombo, Set.of(optionA, optionC)));
+    assertSame(cocBD, store.getCategoryOptionCombo(categoryCombo, Set.of(optionD, optionB)));
+    assertSame(cocAC, store.getCategoryOptionCombo(categoryCombo, Set.of(optionC, optionA)));
+
+    verifyIndexLoaded(1);
+    verify(query, times(0)).uniqueResult();
+  }
+
+  @Test
+  void testGetCategoryOptionCombo_Deleted() {
+    CategoryOptionCombo cocAC = addCategoryOptionCombo(21L, optionA, optionC);
+    CategoryOptionCombo cocBD = addCategoryOptionCombo(22L, optionB, optionD);
+    assertSame(cocAC, store.getCategoryOptionCombo(categoryCombo, Set.of(optionA, optionC)));
+
+    database.remove(cocAC.getId());
+
+    // the cached index still has the deleted combo, which must not be returned
+    assertNull(store.getCategoryOptionCombo(categoryCombo, Set.of(optionA, optionC)));
+    // the stale index was evicted, so it is loaded again without the deleted combo
+    assertSame(cocBD, store.getCategoryOptionCombo(categoryCombo, Set.of(optionB, optionD)));
+    assertNull(store.getCategoryOptionCombo(categoryCombo, Set.of(optionA, optionC)));
+
+    verifyIndexLoaded(2);
+  }
+
+  @Test
+  void testGetCategoryOptionCombo_Replaced() {
+    addCategoryOptionCombo(21L, optionA, optionC);
+    assertSame(
+        database.get(21L), store.getCategoryOptionCombo(categoryCombo, Set.of(optionA, optionC)));
+
+    // the combo is deleted and generated again with a new ID
+    database.remove(21L);
+    CategoryOptionCombo cocAC = addCategoryOptionCombo(23L, optionA, optionC);
+
+    assertSame(cocAC, store.getCategoryOptionCombo(categoryCombo, Set.of(optionA, optionC)));
+    assertSame(cocAC, store.getCategoryOptionCombo(categoryCombo, Set.of(optionA, optionC)));
+
+    verifyIndexLoaded(2);
+  }
+
+  @Test
+  void testGetCategoryOptionCombo_NewlyGenerated() {
+    addCategoryOptionCombo(21L, optionA, optionC);
+    assertNull(store.getCategoryOptionCombo(categoryCombo, Set.of(optionB, optionD)));
+
+    // the combo is generated after the index was cached
+    CategoryOptionCombo cocBD = addCategoryOptionCombo(22L, optionB, optionD);
+
+    assertSame(cocBD, store.getCategoryOptionCombo(categoryCombo, Set.of(optionB, optionD)));
+    // the stale index was evicted, so the new combo is now found in the index
+    assertSame(cocBD, store.getCategoryOptionCombo(categoryCombo, Set.of(optionB, optionD)));
+
+    verifyIndexLoaded(2);
+    verify(query, times(2)).uniqueResult();
+  }
+
+  @Test
+  void testGetCategoryOptionCombo_Subset() {
+    CategoryOptionCombo cocAC = addCategoryOptionCombo(21L, optionA, optionC);
+    addCategoryOptionCombo(22L, optionB, optionC);
+    addCategoryOptionCombo(23L, optionB, optionD);
+
+    // a subset matching a single combo resolves it, like the query without index did
+    assertSame(cocAC, store.getCategoryOptionCombo(categoryCombo, Set.of(optionA)));
+    // a subset matching more than one combo is ambiguous
+    assertNull(store.getCategoryOptionCombo(categoryCombo, Set.of(optionB)));
+    assertNull(store.getCategoryOptionCombo(categoryCombo, Set.of(optionC)));
+
+    // subsets do not make the index stale
+    assertSame(cocAC, store.getCategoryOptionCombo(categoryCombo, Set.of(optionA, optionC)));
+    verifyIndexLoaded(1);
+  }
+
+  @Test
+  void testGetCategoryOptionCombo_UnsavedCategoryCombo() {
+    CategoryCombo unsaved = new CategoryCombo();
+
+    assertNull(store.getCategoryOptionCombo(unsaved, Set.of(optionA)));
+
+    verifyIndexLoaded(0);
+    verify(query, times(1)).uniqueResult();
+  }
+
+  private void verifyIndexLoaded(int times) {
+    verify(jdbcTemplate, times(times)).query(anyString(), any(RowCallbackHandler.class), any());
+  }
+
+  /** Simulates the HQL query of the store which matches combos with all the given options */
+  private CategoryOptionCombo queryCategoryOptionCombo() {
+    CategoryCombo queriedCombo = (CategoryCombo) queryParameters.get(0);
+    Set<Object> queriedOptions = new HashSet<>(queryParameters.subList(1, queryParameters.size()));
+    queryParameters.clear();
+    List<CategoryOptionCombo> matches =
+        database.values().stream()
+            .filter(coc -> coc.getCategoryCombo() == queriedCombo)
+            .filter(coc -> coc.getCategoryOptions().containsAll(queriedOptions))
+            .toList();
+    if (matches.size() > 1) {
+      throw new NonUniqueResultException(matches.size());
+    }
+    return matches.isEmpty() ? null : matches.get(0);
+  }
+
+  private CategoryOptionCombo addCategoryOptionCombo(long id, CategoryOption... options) {
+    CategoryOptionCombo coc = new CategoryOptionCombo();
+    coc.setId(id);
+    coc.setAutoFields();
+    coc.setCategoryCombo(categoryCombo);
+    coc.setCategoryOptions(Set.of(options));
+    database.put(id, coc);
+    return coc;
+  }
+
+  private static CategoryOption createCategoryOption(long id, String name) {
+    CategoryOption option = new CategoryOption(name);
+    option.setId(id);
+    option.setAutoFields();
+    return option;
+  }
+
+  private static ResultSet mockRow(long categoryOptionComboId, long categoryOptionId)
+      throws SQLException {
+    ResultSet rs = mock(ResultSet.class);
+    when(rs.getLong(1)).thenReturn(categoryOptionComboId);
+    when(rs.getLong(2)).thenReturn(categoryOptionId);
+    return rs;
+  }
+}
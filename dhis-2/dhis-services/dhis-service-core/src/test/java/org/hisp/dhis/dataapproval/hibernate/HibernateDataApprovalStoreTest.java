@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.dataapproval.hibernate;
+
+import static org.hisp.dhis.DhisConvenienceTest.createCategoryOptionCombo;
+import static org.hisp.dhis.DhisConvenienceTest.createOrganisationUnit;
+import static org.hisp.dhis.DhisConvenienceTest.createPeriod;
+import static org.hisp.dhis.DhisConvenienceTest.makeUser;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.hisp.dhis.category.CategoryOptionCombo;
+import org.hisp.dhis.dataapproval.DataApprovalLevel;
+import org.hisp.dhis.dataapproval.DataApprovalState;
+import org.hisp.dhis.dataapproval.DataApprovalStatus;
+import org.hisp.dhis.dataapproval.DataApprovalWorkflow;
+import org.hisp.dhis.dataapproval.hibernate.HibernateDataApprovalStore.CachedDataApprovalStatus;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.period.Period;
+import org.hisp.dhis.user.User;
+import org.hisp.dhis.user.UserGroup;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class HibernateDataApprovalStoreTest {
+  private User userA;
+
+  private User userB;
+
+  private DataApprovalWorkflow workflow;
+
+  private Period period;
+
+  private OrganisationUnit ouA;
+
+  private OrganisationUnit ouB;
+
+  private CategoryOptionCombo cocA;
+
+  private DataApprovalLevel level;
+
+  @BeforeEach
+  void setUp() {
+    userA = makeUser("A");
+    userB = makeUser("B");
+    workflow = new DataApprovalWorkflow("workflowA");
+    workflow.setAutoFields();
+    period = createPeriod("202001");
+    ouA = createOrganisationUnit('A');
+    ouB = createOrganisationUnit('B');
+    cocA = createCategoryOptionCombo('A');
+    level = new DataApprovalLevel("levelA", 2);
+    level.setAutoFields();
+  }
+
+  @Test
+  void testGetStatusCacheKeyIgnoresOrgUnitOrder() {
+    assertEquals(
+        getStatusCacheKey(userA, List.of(ouA, ouB)), getStatusCacheKey(userA, List.of(ouB, ouA)));
+  }
+
+  @Test
+  void testGetStatusCacheKeyIsPerUser() {
+    assertNotEquals(getStatusCacheKey(userA, List.of(ouA)), getStatusCacheKey(userB, List.of(ouA)));
+  }
+
+  @Test
+  void testGetStatusCacheKeyIsPerOrgUnits() {
+    assertNotEquals(
+        getStatusCacheKey(userA, List.of(ouA)), getStatusCacheKey(userA, List.of(ouA, ouB)));
+    assertNotEquals(getStatusCacheKey(userA, List.of(ouA)), getStatusCacheKey(userA, null));
+  }
+
+  @Test
+  void testGetStatusCacheKeyIsPerUserAccess() {
+    String key = getStatusCacheKey(userA, List.of(ouA));
+
+    userA.setDataViewOrganisationUnits(Set.of(ouB));
+    assertNotEquals(key, getStatusCacheKey(userA, List.of(ouA)));
+
+    key = getStatusCacheKey(userA, List.of(ouA));
+    UserGroup group = new UserGroup("groupA");
+    group.setAutoFields();
+    userA.getGroups().add(group);
+    assertNotEquals(key, getStatusCacheKey(userA, List.of(ouA)));
+  }
+
+  @Test
+  void testCachedDataApprovalStatusIsSerializable() throws Exception {
+    level.setLevel(1);
+    DataApprovalStatus status =
+        DataApprovalStatus.builder()
+            .state(DataApprovalState.APPROVED_HERE)
+            .approvedLevel(level)
+            .approvedOrgUnitId(42L)
+            .actionLevel(level)
+            .organisationUnitUid(ouA.getUid())
+            .organisationUnitName(ouA.getName())
+            .attributeOptionComboUid(cocA.getUid())
+            .accepted(true)
+            .build();
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(CachedDataApprovalStatus.of(status));
+    }
+    CachedDataApprovalStatus cached;
+    try (ObjectInputStream in =
+        new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      cached = (CachedDataApprovalStatus) in.readObject();
+    }
+
+    DataApprovalStatus actual = cached.toStatus(Map.of(1, level));
+    assertEquals(DataApprovalState.APPROVED_HERE, actual.getState());
+    assertSame(level, actual.getApprovedLevel());
+    assertSame(level, actual.getActionLevel());
+    assertEquals(42L, actual.getApprovedOrgUnitId());
+    assertEquals(ouA.getUid(), actual.getOrganisationUnitUid());
+    assertEquals(ouA.getName(), actual.getOrganisationUnitName());
+    assertEquals(cocA.getUid(), actual.getAttributeOptionComboUid());
+    assertTrue(actual.isAccepted());
+    assertNull(actual.getPermissions());
+  }
+
+  @Test
+  void testCachedDataApprovalStatusWithoutLevels() {
+    DataApprovalStatus status =
+        DataApprovalStatus.builder()
+            .state(DataApprovalState.UNAPPROVABLE)
+            .organisationUnitUid(ouA.getUid())
+            .build();
+
+    DataApprovalStatus actual = CachedDataApprovalStatus.of(status).toStatus(Map.of(1, level));
+    assertEquals(DataApprovalState.UNAPPROVABLE, actual.getState());
+    assertNull(actual.getApprovedLevel());
+    assertNull(actual.getActionLevel());
+  }
+
+  private String getStatusCacheKey(User user, List<OrganisationUnit> orgUnits) {
+    return HibernateDataApprovalStore.getStatusCacheKey(
+        user, workflow, period, orgUnits, 2, null, null, Set.of(cocA), List.of(level));
+  }
+}
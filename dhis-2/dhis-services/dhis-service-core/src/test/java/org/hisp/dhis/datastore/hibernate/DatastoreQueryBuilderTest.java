@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.datastore.hibernate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.hisp.dhis.datastore.DatastoreQuery;
+import org.junit.jupiter.api.Test;
+
+/** Tests the aggregate and index expressions created by the {@link DatastoreQueryBuilder}. */
+class DatastoreQueryBuilderTest {
+
+  private static final String FROM = "from DatastoreEntry where namespace = :namespace";
+
+  @Test
+  void testCreateIndexExpressionsSQL() {
+    assertEquals(
+        List.of(
+            "jsonb_extract_path(jbvalue, 'name', 'first' )",
+            "jsonb_extract_path_text(jbvalue, 'name', 'first' )"),
+        DatastoreQueryBuilder.createIndexExpressionsSQL("name.first", "jbvalue"));
+  }
+
+  @Test
+  void testCreateIndexExpressionsSQL_MatchesFilterExpression() {
+    String hql = createBuilder("name:eq:Miao").createFetchHQL();
+    String textExpression =
+        DatastoreQueryBuilder.createIndexExpressionsSQL("name", "jbPlainValue").get(1);
+    assertTrue(hql.contains(textExpression), hql);
+  }
+
+  @Test
+  void testCreateIndexExpressionsSQL_MatchesNumericFilterExpression() {
+    String hql = createBuilder("age:gt:4").createFetchHQL();
+    String jsonExpression =
+        DatastoreQueryBuilder.createIndexExpressionsSQL("age", "jbPlainValue").get(0);
+    assertTrue(hql.contains(jsonExpression), hql);
+  }
+
+  @Test
+  void testCreateAggregateHQL_Count() {
+    assertEquals(
+        "select jsonb_extract_path_text(jbPlainValue, 'cute' ), count(*) "
+            + FROM
+            + " and (1=1) group by jsonb_extract_path_text(jbPlainValue, 'cute' )"
+            + " order by count(*) desc, jsonb_extract_path_text(jbPlainValue, 'cute' )",
+        createBuilder().createAggregateHQL("cute", null));
+  }
+
+  @Test
+  void testCreateAggregateHQL_CountAndSum() {
+    String hql = createBuilder().createAggregateHQL("cute", "age");
+    assertTrue(
+        hql.startsWith(
+            "select jsonb_extract_path_text(jbPlainValue, 'cute' ), count(*),"
+                + " sum(case when jsonb_typeof(jsonb_extract_path(jbPlainValue, 'age' )) = 'number'"
+                + " then cast(jsonb_extract_path_text(jbPlainValue, 'age' ) as double) else 0.0 end) "),
+        hql);
+  }
+
+  @Test
+  void testCreateAggregateHQL_Filtered() {
+    DatastoreQueryBuilder builder = createBuilder("age:gt:4");
+    String hql = builder.createAggregateHQL("cute", null);
+    String filter = builder.createFetchHQL().replaceAll(".* and \\((.*)\\) order by .*", "$1");
+    assertTrue(hql.contains(" and (" + filter + ") group by "), hql);
+  }
+
+  private static DatastoreQueryBuilder createBuilder(String... filters) {
+    DatastoreQuery query =
+        DatastoreQuery.builder()
+            .namespace("pets")
+            .filters(DatastoreQuery.parseFilters(List.of(filters)))
+            .build();
+    return new DatastoreQueryBuilder(FROM, query);
+  }
+}
@@ -28,9 +28,7 @@
 package org.hisp.dhis.fileresource;
 
 import static org.hamcrest.MatcherAssert.assertThat;
-import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.is;
-import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.times;
@@ -38,7 +36,6 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.File;
-import java.util.Map;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hisp.dhis.common.IllegalQueryException;
@@ -69,8 +66,6 @@ class FileResourceServiceTest {
 
   @Mock private FileResourceContentStore fileResourceContentStore;
 
-  @Mock private ImageProcessingService imageProcessingService;
-
   @Mock private ApplicationEventPublisher fileEventPublisher;
 
   @Mock private Session session;
@@ -91,7 +86,6 @@ class FileResourceServiceTest {
             periodService,
             sessionFactory,
             fileResourceContentStore,
-            imageProcessingService,
             fileEventPublisher);
   }
 
@@ -156,10 +150,6 @@ class FileResourceServiceTest {
 
     File file = new File("");
 
-    Map<ImageFileDimension, File> imageFiles = Map.of(ImageFileDimension.LARGE, file);
-
-    when(imageProcessingService.createImages(fileResource, file)).thenReturn(imageFiles);
-
     when(sessionFactory.getCurrentSession()).thenReturn(session);
 
     fileResource.setUid("imageUid1");
@@ -174,9 +164,7 @@ class FileResourceServiceTest {
     ImageFileSavedEvent event = imageFileSavedEventCaptor.getValue();
 
     assertThat(event.getFileResource(), is("imageUid1"));
-    assertFalse(event.getImageFiles().isEmpty());
-    assertThat(event.getImageFiles().size(), is(1));
-    assertThat(event.getImageFiles(), hasKey(ImageFileDimension.LARGE));
+    assertThat(event.getFile(), is(file));
   }
 
   @Test
@@ -212,10 +200,6 @@ class FileResourceServiceTest {
 
     File file = new File("");
 
-    Map<ImageFileDimension, File> imageFiles = Map.of(ImageFileDimension.LARGE, file);
-
-    when(imageProcessingService.createImages(fileResource, file)).thenReturn(imageFiles);
-
     when(sessionFactory.getCurrentSession()).thenReturn(session);
 
     fileResource.setUid("imageUid1");
@@ -230,8 +214,6 @@ class FileResourceServiceTest {
     ImageFileSavedEvent event = imageFileSavedEventCaptor.getValue();
 
     assertThat(event.getFileResource(), is("imageUid1"));
-    assertFalse(event.getImageFiles().isEmpty());
-    assertThat(event.getImageFiles().size(), is(1));
-    assertThat(event.getImageFiles(), hasKey(ImageFileDimension.LARGE));
+    assertThat(event.getFile(), is(file));
   }
 }
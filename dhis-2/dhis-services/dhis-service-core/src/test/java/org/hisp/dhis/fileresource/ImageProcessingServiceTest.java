@@ -31,10 +31,14 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.google.common.hash.Hashing;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 import javax.imageio.ImageIO;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -57,12 +61,12 @@ class ImageProcessingServiceTest {
 
   @BeforeEach
   public void setUp() {
-    subject = new DefaultImageProcessingService();
+    subject = new DefaultImageProcessingService(2);
   }
 
   @Test
   void test_create_images_with_null_values() {
-    Map<ImageFileDimension, File> images = subject.createImages(new FileResource(), null);
+    List<ImageFileVariant> images = subject.createImageVariants(new FileResource(), null);
 
     assertTrue(images.isEmpty());
   }
@@ -75,7 +79,7 @@ class ImageProcessingServiceTest {
 
     File file = new File("complex.pdf");
 
-    Map<ImageFileDimension, File> images = subject.createImages(fileResource, file);
+    List<ImageFileVariant> images = subject.createImageVariants(fileResource, file);
 
     assertTrue(images.isEmpty());
 
@@ -90,23 +94,36 @@ class ImageProcessingServiceTest {
 
     File file = new ClassPathResource("images/dhis2.png").getFile();
 
-    Map<ImageFileDimension, File> images = subject.createImages(fileResource, file);
+    List<ImageFileVariant> images = subject.createImageVariants(fileResource, file);
 
     assertNotNull(images);
-    assertEquals(4, images.size());
+    assertEquals(3, images.size());
 
-    File smallImage = images.get(ImageFileDimension.SMALL);
-    File mediumImage = images.get(ImageFileDimension.MEDIUM);
-    File largeImage = images.get(ImageFileDimension.LARGE);
+    Map<ImageFileDimension, ImageFileVariant> variants =
+        images.stream().collect(Collectors.toMap(ImageFileVariant::getDimension, v -> v));
 
-    assertEquals(SMALL_IMAGE_WIDTH, ImageIO.read(smallImage).getWidth());
+    assertEquals(SMALL_IMAGE_WIDTH, getWidth(variants.get(ImageFileDimension.SMALL)));
 
-    assertEquals(MEDIUM_IMAGE_WIDTH, ImageIO.read(mediumImage).getWidth());
+    assertEquals(MEDIUM_IMAGE_WIDTH, getWidth(variants.get(ImageFileDimension.MEDIUM)));
 
-    assertEquals(LARGE_IMAGE_WIDTH, ImageIO.read(largeImage).getWidth());
+    assertEquals(LARGE_IMAGE_WIDTH, getWidth(variants.get(ImageFileDimension.LARGE)));
+  }
+
+  @Test
+  void test_create_image_content_md5() throws IOException {
+    FileResource fileResource = new FileResource();
+    fileResource.setName("test");
+    fileResource.setContentType("image/png");
+
+    File file = new ClassPathResource("images/dhis2.png").getFile();
+
+    for (ImageFileVariant variant : subject.createImageVariants(fileResource, file)) {
+      assertEquals(
+          Hashing.md5().hashBytes(variant.getContent()).toString(), variant.getContentMd5());
+    }
+  }
 
-    Files.deleteIfExists(smallImage.toPath());
-    Files.deleteIfExists(mediumImage.toPath());
-    Files.deleteIfExists(largeImage.toPath());
+  private int getWidth(ImageFileVariant variant) throws IOException {
+    return ImageIO.read(new ByteArrayInputStream(variant.getContent())).getWidth();
   }
 }
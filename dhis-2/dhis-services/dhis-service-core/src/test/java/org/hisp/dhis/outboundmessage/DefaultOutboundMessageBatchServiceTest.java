@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.outboundmessage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+import org.hisp.dhis.common.DeliveryChannel;
+import org.hisp.dhis.message.MessageSender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class DefaultOutboundMessageBatchServiceTest {
+  @Mock private MessageSender smsSender;
+
+  @Mock private MessageSender emailSender;
+
+  private DefaultOutboundMessageBatchService subject;
+
+  @BeforeEach
+  void setUp() {
+    subject = new DefaultOutboundMessageBatchService(2, 0);
+    subject.setMessageSenders(
+        Map.of(DeliveryChannel.SMS, smsSender, DeliveryChannel.EMAIL, emailSender));
+  }
+
+  @AfterEach
+  void tearDown() {
+    subject.shutdown();
+  }
+
+  @Test
+  void testSplit() {
+    List<OutboundMessageBatch> batches = DefaultOutboundMessageBatchService.split(createBatch(120));
+
+    assertEquals(3, batches.size());
+    assertEquals(50, batches.get(0).size());
+    assertEquals(20, batches.get(2).size());
+    assertEquals(DeliveryChannel.SMS, batches.get(2).getDeliveryChannel());
+  }
+
+  @Test
+  void testSplitSmallBatch() {
+    OutboundMessageBatch batch = createBatch(10);
+
+    assertEquals(List.of(batch), DefaultOutboundMessageBatchService.split(batch));
+  }
+
+  @Test
+  void testSendBatches() {
+    when(smsSender.isConfigured()).thenReturn(true);
+    when(smsSender.sendMessageBatch(any()))
+        .thenReturn(
+            new OutboundMessageResponseSummary(
+                null, DeliveryChannel.SMS, OutboundMessageBatchStatus.COMPLETED));
+
+    List<OutboundMessageResponseSummary> summaries = subject.sendBatches(List.of(createBatch(120)));
+
+    assertEquals(3, summaries.size());
+    verify(smsSender, times(3)).sendMessageBatch(any());
+    verify(emailSender, never()).sendMessageBatch(any());
+  }
+
+  @Test
+  void testSendBatchesNotConfigured() {
+    when(smsSender.isConfigured()).thenReturn(false);
+
+    List<OutboundMessageResponseSummary> summaries = subject.sendBatches(List.of(createBatch(10)));
+
+    assertEquals(1, summaries.size());
+    assertEquals(OutboundMessageBatchStatus.FAILED, summaries.get(0).getBatchStatus());
+    verify(smsSender, never()).sendMessageBatch(any());
+  }
+
+  private OutboundMessageBatch createBatch(int size) {
+    return new OutboundMessageBatch(
+        IntStream.range(0, size)
+            .mapToObj(i -> new OutboundMessage("subject", "text " + i, Set.of("4700" + i)))
+            .toList(),
+        DeliveryChannel.SMS);
+  }
+}
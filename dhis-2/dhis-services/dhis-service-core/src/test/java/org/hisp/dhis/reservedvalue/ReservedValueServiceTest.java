@@ -34,6 +34,8 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.anyList;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -42,8 +44,11 @@ import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import org.hisp.dhis.common.Objects;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.textpattern.DefaultTextPatternService;
 import org.hisp.dhis.textpattern.TextPattern;
 import org.hisp.dhis.textpattern.TextPatternGenerationException;
@@ -72,6 +77,8 @@ class ReservedValueServiceTest {
 
   @Mock private ValueGeneratorService valueGeneratorService;
 
+  @Mock private DhisConfigurationProvider config;
+
   @Captor private ArgumentCaptor<ReservedValue> reservedValue;
 
   private static final String simpleText = "\"FOO\"";
@@ -88,7 +95,7 @@ class ReservedValueServiceTest {
   void setUpClass() {
     reservedValueService =
         new DefaultReservedValueService(
-            textPatternService, reservedValueStore, valueGeneratorService);
+            textPatternService, reservedValueStore, valueGeneratorService, config);
     Calendar calendar = Calendar.getInstance();
     calendar.add(DATE, 1);
     futureDate = calendar.getTime();
@@ -221,6 +228,107 @@ class ReservedValueServiceTest {
     verify(reservedValueStore, times(1)).removeUsedOrExpiredReservations();
   }
 
+  @Test
+  void shouldReservePooledValuesRandomPattern()
+      throws TextPatternParser.TextPatternParsingException,
+          TextPatternGenerationException,
+          ReserveValueException {
+    when(config.isEnabled(ConfigurationKey.RESERVED_VALUE_POOL_ENABLED)).thenReturn(true);
+    when(reservedValueStore.claimPooledValues(any(), eq(2)))
+        .thenReturn(List.of("TEST-abc", "TEST-def"));
+    when(reservedValueStore.getAvailableValues(any(), any(), any()))
+        .thenReturn(
+            List.of(
+                ReservedValue.builder().value("TEST-abc").build(),
+                ReservedValue.builder().value("TEST-def").build()));
+    assertEquals(
+        2,
+        reservedValueService
+            .reserve(
+                createTrackedEntityAttribute(Objects.TRACKEDENTITYATTRIBUTE, ownerUid, randomText),
+                2,
+                new HashMap<>(),
+                futureDate)
+            .size());
+    verify(reservedValueStore).updatePoolLastRequested(any());
+    verify(reservedValueStore, times(1))
+        .bulkInsertReservedValues(argThat(list -> list.size() == 2));
+    verify(valueGeneratorService, never()).generateValues(any(), any(), any(), anyInt());
+  }
+
+  @Test
+  void shouldReservePooledValuesWhenPoolHoldsAllValues()
+      throws TextPatternParser.TextPatternParsingException,
+          TextPatternGenerationException,
+          ReserveValueException {
+    when(config.isEnabled(ConfigurationKey.RESERVED_VALUE_POOL_ENABLED)).thenReturn(true);
+    when(reservedValueStore.getNumberOfPooledValues(any())).thenReturn(26 * 26 * 26);
+    when(reservedValueStore.claimPooledValues(any(), eq(1))).thenReturn(List.of("TEST-ABC"));
+    when(reservedValueStore.getAvailableValues(any(), any(), any()))
+        .thenReturn(List.of(ReservedValue.builder().value("TEST-ABC").build()));
+    assertEquals(
+        1,
+        reservedValueService
+            .reserve(
+                createTrackedEntityAttribute(Objects.TRACKEDENTITYATTRIBUTE, ownerUid, randomText),
+                1,
+                new HashMap<>(),
+                futureDate)
+            .size());
+  }
+
+  @Test
+  void shouldNotUsePoolWhenDisabled()
+      throws TextPatternParser.TextPatternParsingException,
+          TextPatternGenerationException,
+          ReserveValueException {
+    when(reservedValueStore.getAvailableValues(any(), any(), any()))
+        .thenReturn(List.of(ReservedValue.builder().build()));
+    reservedValueService.reserve(
+        createTrackedEntityAttribute(Objects.TRACKEDENTITYATTRIBUTE, ownerUid, randomText),
+        1,
+        new HashMap<>(),
+        futureDate);
+    verify(reservedValueStore, never()).claimPooledValues(any(), anyInt());
+    verify(reservedValueStore, never()).removePooledValues(any(), any());
+  }
+
+  @Test
+  void shouldFillPoolRandomPattern()
+      throws TextPatternParser.TextPatternParsingException, ReserveValueException {
+    when(config.isEnabled(ConfigurationKey.RESERVED_VALUE_POOL_ENABLED)).thenReturn(true);
+    when(reservedValueStore.getNumberOfPooledValues(any())).thenReturn(8);
+    when(valueGeneratorService.generateValues(any(), any(), any(), eq(2)))
+        .thenReturn(List.of("abc", "def", "ghi"));
+    when(reservedValueStore.getAvailableValues(any(), any(), any()))
+        .thenReturn(
+            List.of(
+                ReservedValue.builder().value("TEST-abc").build(),
+                ReservedValue.builder().value("TEST-def").build(),
+                ReservedValue.builder().value("TEST-ghi").build()));
+    when(reservedValueStore.addPooledValues(anyList())).thenReturn(2);
+    assertEquals(
+        2,
+        reservedValueService.fillPool(
+            createTrackedEntityAttribute(Objects.TRACKEDENTITYATTRIBUTE, ownerUid, randomText),
+            "TEST-RANDOM(XXX)",
+            10));
+    verify(reservedValueStore, times(1)).addPooledValues(argThat(list -> list.size() == 2));
+  }
+
+  @Test
+  void shouldNotFillPoolSequentialPattern()
+      throws TextPatternParser.TextPatternParsingException, ReserveValueException {
+    when(config.isEnabled(ConfigurationKey.RESERVED_VALUE_POOL_ENABLED)).thenReturn(true);
+    assertEquals(
+        0,
+        reservedValueService.fillPool(
+            createTrackedEntityAttribute(Objects.TRACKEDENTITYATTRIBUTE, ownerUid, sequentialText),
+            "TEST-SEQUENTIAL(##)",
+            10));
+    verify(reservedValueStore, never()).addPooledValues(anyList());
+  }
+
   private static TrackedEntityAttribute createTrackedEntityAttribute(
       Objects objects, String uid, String pattern)
       throws TextPatternParser.TextPatternParsingException {
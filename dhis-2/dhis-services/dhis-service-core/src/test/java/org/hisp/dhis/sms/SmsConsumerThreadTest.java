@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.sms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Date;
+import java.util.List;
+import org.hisp.dhis.message.MessageSender;
+import org.hisp.dhis.sms.incoming.IncomingSms;
+import org.hisp.dhis.sms.incoming.IncomingSmsListener;
+import org.hisp.dhis.sms.incoming.IncomingSmsService;
+import org.hisp.dhis.sms.incoming.SmsMessageStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class SmsConsumerThreadTest {
+  @Mock private MessageQueue messageQueue;
+
+  @Mock private MessageSender smsSender;
+
+  @Mock private IncomingSmsService incomingSmsService;
+
+  @Mock private IncomingSmsListener listener;
+
+  private SimpleMeterRegistry registry;
+
+  private SmsConsumerThread subject;
+
+  @BeforeEach
+  void setUp() {
+    registry = new SimpleMeterRegistry();
+    subject = new SmsConsumerThread(messageQueue, smsSender, incomingSmsService, 2, registry);
+    subject.setListeners(List.of(listener));
+  }
+
+  @AfterEach
+  void tearDown() {
+    subject.shutdown();
+  }
+
+  @Test
+  void testSpawnSmsConsumerProcessesUntilQueueIsEmpty() {
+    IncomingSms smsA = createSms("A");
+    IncomingSms smsB = createSms("B");
+    IncomingSms smsC = createSms("C");
+
+    when(messageQueue.getBacklog()).thenReturn(3L, 0L);
+    when(messageQueue.claim(SmsConsumerThread.CLAIM_SIZE))
+        .thenReturn(List.of(smsA, smsB), List.of(smsC), List.of());
+    when(listener.accept(any())).thenReturn(true);
+    doAnswer(
+            invocation -> {
+              IncomingSms sms = invocation.getArgument(0);
+              sms.setStatus(SmsMessageStatus.PROCESSED);
+              sms.setParsed(true);
+              return null;
+            })
+        .when(listener)
+        .receive(any());
+
+    subject.spawnSmsConsumer();
+
+    verify(listener).receive(smsA);
+    verify(listener).receive(smsB);
+    verify(listener).receive(smsC);
+    verify(incomingSmsService).update(smsA);
+    verify(incomingSmsService).update(smsB);
+    verify(incomingSmsService).update(smsC);
+    assertEquals(
+        3, registry.get("sms.incoming.processed").tag("status", "processed").counter().count());
+    assertEquals(3, registry.get("sms.incoming.latency").timer().count());
+    assertEquals(0, registry.get("sms.incoming.backlog").gauge().value());
+  }
+
+  @Test
+  void testSpawnSmsConsumerWithEmptyQueue() {
+    when(messageQueue.getBacklog()).thenReturn(0L);
+
+    subject.spawnSmsConsumer();
+
+    verify(messageQueue, never()).claim(anyInt());
+  }
+
+  @Test
+  void testProcessUnhandled() {
+    IncomingSms sms = createSms("A");
+
+    when(listener.accept(sms)).thenReturn(false);
+
+    subject.process(sms);
+
+    assertEquals(SmsMessageStatus.UNHANDLED, sms.getStatus());
+    verify(smsSender).sendMessage(null, "No command found", sms.getOriginator());
+    verify(incomingSmsService).update(sms);
+  }
+
+  @Test
+  void testProcessWithoutOutcomeFails() {
+    IncomingSms sms = createSms("A");
+
+    when(listener.accept(sms)).thenReturn(true);
+
+    subject.process(sms);
+
+    assertEquals(SmsMessageStatus.FAILED, sms.getStatus());
+    assertFalse(sms.isParsed());
+    verify(incomingSmsService).update(sms);
+  }
+
+  @Test
+  void testProcessListenerError() {
+    IncomingSms sms = createSms("A");
+
+    when(listener.accept(sms)).thenReturn(true);
+    doThrow(new IllegalStateException("Failed")).when(listener).receive(sms);
+
+    subject.process(sms);
+
+    assertEquals(SmsMessageStatus.FAILED, sms.getStatus());
+    assertEquals(
+        1, registry.get("sms.incoming.processed").tag("status", "failed").counter().count());
+    verify(incomingSmsService).update(sms);
+  }
+
+  private static IncomingSms createSms(String text) {
+    IncomingSms sms = new IncomingSms();
+    sms.setText(text);
+    sms.setOriginator("4740000000");
+    sms.setReceivedDate(new Date());
+    sms.setStatus(SmsMessageStatus.PROCESSING);
+    return sms;
+  }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.trackedentity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.cache.SimpleCacheBuilder;
+import org.hisp.dhis.common.ValueType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class JdbcTrackedEntitySearchTableManagerTest {
+  @Mock private JdbcTemplate jdbcTemplate;
+
+  @Mock private TransactionTemplate transactionTemplate;
+
+  @Mock private CacheProvider cacheProvider;
+
+  private JdbcTrackedEntitySearchTableManager subject;
+
+  private TrackedEntityType type;
+
+  private TrackedEntityAttribute teaA;
+
+  private TrackedEntityAttribute teaB;
+
+  @BeforeEach
+  void setUp() {
+    when(cacheProvider.<HashSet<String>>createTrackedEntitySearchTableCache())
+        .thenReturn(
+            new SimpleCacheBuilder<HashSet<String>>()
+                .forRegion("trackedEntitySearchTableCache")
+                .withMaximumSize(10)
+                .build());
+    lenient()
+        .doAnswer(
+            invocation -> {
+              invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+              return null;
+            })
+        .when(transactionTemplate)
+        .executeWithoutResult(any());
+
+    subject =
+        new JdbcTrackedEntitySearchTableManager(jdbcTemplate, transactionTemplate, cacheProvider);
+
+    type = new TrackedEntityType();
+    type.setId(7L);
+
+    teaA = new TrackedEntityAttribute();
+    teaA.setId(11L);
+    teaA.setUid("teaUidA");
+    teaA.setValueType(ValueType.TEXT);
+
+    teaB = new TrackedEntityAttribute();
+    teaB.setId(12L);
+    teaB.setUid("teaUidB");
+    teaB.setValueType(ValueType.LONG_TEXT);
+  }
+
+  @Test
+  void testGetSelectStatement() {
+    assertEquals(
+        "select te.trackedentityid, "
+            + "max(case when tea.uid = 'teaUidA' then lower(teav.value) end) as \"teaUidA\", "
+            + "max(case when tea.uid = 'teaUidB' then lower(teav.value) end) as \"teaUidB\" "
+            + "from trackedentity te "
+            + "inner join trackedentityattributevalue teav on te.trackedentityid = teav.trackedentityid "
+            + "inner join trackedentityattribute tea on teav.trackedentityattributeid = tea.trackedentityattributeid "
+            + "where te.trackedentitytypeid = 7 and tea.uid in ('teaUidA','teaUidB') and true "
+            + "group by te.trackedentityid",
+        subject.getSelectStatement(7L, Set.of("teaUidB", "teaUidA"), "true"));
+  }
+
+  @Test
+  void testGenerateSearchTable() {
+    when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class))).thenReturn(false);
+
+    subject.generateSearchTable(type, List.of(teaA, teaB));
+
+    InOrder inOrder = inOrder(jdbcTemplate);
+    inOrder
+        .verify(jdbcTemplate)
+        .execute(
+            argThat((String sql) -> sql.startsWith("create trigger trackedentitysearch_update")));
+    inOrder
+        .verify(jdbcTemplate)
+        .execute("create unlogged table trackedentitysearch_7_changes (trackedentityid bigint)");
+    inOrder.verify(jdbcTemplate).execute("lock table trackedentityattributevalue in share mode");
+    inOrder
+        .verify(jdbcTemplate)
+        .execute(
+            argThat(
+                (String sql) ->
+                    sql.startsWith("create table trackedentitysearch_7_temp as select")));
+    inOrder.verify(jdbcTemplate).execute("lock table trackedentityattributevalue in share mode");
+    inOrder
+        .verify(jdbcTemplate)
+        .execute(
+            argThat(
+                (String sql) ->
+                    sql.startsWith(
+                            "insert into trackedentitysearch_7_temp (trackedentityid,\"teaUidA\",\"teaUidB\")")
+                        && sql.contains(
+                            "te.trackedentityid in (select trackedentityid from trackedentitysearch_7_changes)")));
+    inOrder.verify(jdbcTemplate).execute("drop table if exists trackedentitysearch_7");
+    inOrder
+        .verify(jdbcTemplate)
+        .execute("alter table trackedentitysearch_7_temp rename to trackedentitysearch_7");
+    inOrder.verify(jdbcTemplate).execute("drop table trackedentitysearch_7_changes");
+    verify(transactionTemplate, times(2)).executeWithoutResult(any());
+    verify(jdbcTemplate)
+        .execute(
+            argThat(
+                (String sql) ->
+                    sql.startsWith("create index in_tesearch_7_11_")
+                        && sql.endsWith("_bt on trackedentitysearch_7_temp (\"teaUidA\")")));
+    verify(jdbcTemplate)
+        .execute(
+            argThat(
+                (String sql) ->
+                    sql.startsWith("create index in_tesearch_7_12_")
+                        && sql.endsWith(
+                            "_gin on trackedentitysearch_7_temp using gin (\"teaUidB\" gin_trgm_ops)")));
+    verify(jdbcTemplate, never())
+        .execute(argThat((String sql) -> sql.contains("_bt on") && sql.contains("teaUidB")));
+  }
+
+  @Test
+  void testGenerateSearchTableFailureDropsWorkTables() {
+    when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class))).thenReturn(true);
+    lenient()
+        .doThrow(new DataAccessResourceFailureException("Failed"))
+        .when(jdbcTemplate)
+        .execute(argThat((String sql) -> sql.startsWith("create table")));
+
+    assertThrows(
+        DataAccessResourceFailureException.class,
+        () -> subject.generateSearchTable(type, List.of(teaA)));
+
+    verify(jdbcTemplate, never())
+        .execute(argThat((String sql) -> sql.startsWith("create trigger")));
+    verify(jdbcTemplate, times(2)).execute("drop table if exists trackedentitysearch_7_changes");
+    verify(jdbcTemplate, times(2)).execute("drop table if exists trackedentitysearch_7_temp");
+    verify(jdbcTemplate, never()).execute("drop table if exists trackedentitysearch_7");
+  }
+
+  @Test
+  void testGenerateSearchTableWithoutAttributes() {
+    when(jdbcTemplate.queryForList(anyString(), eq(Long.class))).thenReturn(List.of(8L));
+
+    subject.generateSearchTable(type, List.of());
+
+    verify(jdbcTemplate).execute("drop table if exists trackedentitysearch_7");
+    verify(jdbcTemplate, never()).execute(argThat((String sql) -> sql.startsWith("create")));
+    verify(jdbcTemplate, never()).execute(argThat((String sql) -> sql.startsWith("drop trigger")));
+  }
+
+  @Test
+  void testDropLastSearchTableDropsTrigger() {
+    when(jdbcTemplate.queryForList(anyString(), eq(Long.class))).thenReturn(List.of());
+
+    subject.dropSearchTable(7L);
+
+    verify(jdbcTemplate).execute("drop table if exists trackedentitysearch_7");
+    verify(jdbcTemplate)
+        .execute(
+            "drop trigger if exists trackedentitysearch_update on trackedentityattributevalue");
+  }
+
+  @Test
+  void testGetSearchTableAttributesIsCached() {
+    when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("trackedentitysearch_7")))
+        .thenReturn(List.of("teaUidA"));
+
+    assertEquals(Set.of("teaUidA"), subject.getSearchTableAttributes(type));
+    assertEquals(Set.of("teaUidA"), subject.getSearchTableAttributes(type));
+
+    verify(jdbcTemplate, times(1))
+        .queryForList(anyString(), eq(String.class), eq("trackedentitysearch_7"));
+  }
+}
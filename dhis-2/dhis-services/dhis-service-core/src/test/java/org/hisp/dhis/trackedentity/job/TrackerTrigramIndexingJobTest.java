@@ -32,14 +32,22 @@ import static org.mockito.Mockito.*;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import org.hisp.dhis.program.Program;
+import org.hisp.dhis.program.ProgramService;
+import org.hisp.dhis.program.ProgramTrackedEntityAttribute;
 import org.hisp.dhis.scheduling.JobConfiguration;
 import org.hisp.dhis.scheduling.NoopJobProgress;
 import org.hisp.dhis.scheduling.parameters.TrackerTrigramIndexJobParameters;
 import org.hisp.dhis.trackedentity.TrackedEntityAttribute;
 import org.hisp.dhis.trackedentity.TrackedEntityAttributeService;
+import org.hisp.dhis.trackedentity.TrackedEntitySearchTableManager;
+import org.hisp.dhis.trackedentity.TrackedEntityType;
+import org.hisp.dhis.trackedentity.TrackedEntityTypeAttribute;
+import org.hisp.dhis.trackedentity.TrackedEntityTypeService;
 import org.hisp.dhis.trackedentityattributevalue.TrackedEntityAttributeTableManager;
 import org.hisp.dhis.trackedentityattributevalue.TrackerTrigramIndexingJob;
 import org.junit.jupiter.api.BeforeEach;
@@ -58,9 +66,21 @@ public class TrackerTrigramIndexingJobTest {
   private final TrackedEntityAttributeTableManager trackedEntityAttributeTableManager =
       mock(TrackedEntityAttributeTableManager.class);
 
+  private final TrackedEntityTypeService trackedEntityTypeService =
+      mock(TrackedEntityTypeService.class);
+
+  private final ProgramService programService = mock(ProgramService.class);
+
+  private final TrackedEntitySearchTableManager trackedEntitySearchTableManager =
+      mock(TrackedEntitySearchTableManager.class);
+
   private final TrackerTrigramIndexingJob job =
       new TrackerTrigramIndexingJob(
-          trackedEntityAttributeService, trackedEntityAttributeTableManager);
+          trackedEntityAttributeService,
+          trackedEntityAttributeTableManager,
+          trackedEntityTypeService,
+          programService,
+          trackedEntitySearchTableManager);
 
   @BeforeEach
   public void setUp() {
@@ -138,4 +158,56 @@ public class TrackerTrigramIndexingJobTest {
 
     verify(trackedEntityAttributeTableManager, times(2)).createTrigramIndex(any());
   }
+
+  @Test
+  void testRunJobGeneratesSearchTables() {
+    TrackedEntityAttribute teaA = new TrackedEntityAttribute();
+    teaA.setUid("teaA");
+    TrackedEntityAttribute teaB = new TrackedEntityAttribute();
+    teaB.setUid("teaB");
+    teaB.setUnique(true);
+    TrackedEntityAttribute teaC = new TrackedEntityAttribute();
+    teaC.setUid("teaC");
+
+    TrackedEntityType type = new TrackedEntityType();
+    type.setId(1L);
+    type.setTrackedEntityTypeAttributes(
+        List.of(
+            new TrackedEntityTypeAttribute(type, teaA),
+            new TrackedEntityTypeAttribute(type, teaB)));
+    type.getTrackedEntityTypeAttributes().get(0).setSearchable(true);
+
+    Program program = new Program();
+    ProgramTrackedEntityAttribute programAttribute =
+        new ProgramTrackedEntityAttribute(program, teaC);
+    programAttribute.setSearchable(true);
+    program.setProgramAttributes(List.of(programAttribute));
+
+    when(trackedEntityTypeService.getAllTrackedEntityType()).thenReturn(List.of(type));
+    when(programService.getProgramsByTrackedEntityType(type)).thenReturn(List.of(program));
+    when(trackedEntitySearchTableManager.getTrackedEntityTypeIdsWithSearchTable())
+        .thenReturn(List.of(1L, 2L));
+
+    JobConfiguration jobConfiguration = new JobConfiguration();
+    TrackerTrigramIndexJobParameters jp = new TrackerTrigramIndexJobParameters();
+    jp.setSkipIndexDeletion(true);
+    jp.setGenerateSearchTables(true);
+    jobConfiguration.setJobParameters(jp);
+
+    job.execute(jobConfiguration, NoopJobProgress.INSTANCE);
+
+    verify(trackedEntitySearchTableManager).generateSearchTable(type, List.of(teaA, teaB, teaC));
+    verify(trackedEntitySearchTableManager).dropSearchTable(2L);
+    verify(trackedEntitySearchTableManager, never()).dropSearchTable(1L);
+  }
+
+  @Test
+  void testRunJobWithoutSearchTables() {
+    JobConfiguration jobConfiguration = new JobConfiguration();
+    jobConfiguration.setJobParameters(new TrackerTrigramIndexJobParameters());
+
+    job.execute(jobConfiguration, NoopJobProgress.INSTANCE);
+
+    verifyNoInteractions(trackedEntitySearchTableManager);
+  }
 }
@@ -29,6 +29,7 @@ package org.hisp.dhis.dataexchange.aggregate;
 
 import static java.lang.String.format;
 import static java.lang.String.join;
+import static java.util.stream.Collectors.partitioningBy;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import static org.hisp.dhis.common.DimensionalObject.DATA_X_DIM_ID;
 import static org.hisp.dhis.common.DimensionalObject.ORGUNIT_DIM_ID;
@@ -38,7 +39,10 @@ import static org.hisp.dhis.config.HibernateEncryptionConfig.AES_128_STRING_ENCR
 import static org.hisp.dhis.util.ObjectUtils.notNull;
 
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import javax.annotation.Nonnull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -48,19 +52,25 @@ import org.hisp.dhis.analytics.AnalyticsAggregationType;
 import org.hisp.dhis.analytics.AnalyticsService;
 import org.hisp.dhis.analytics.DataQueryParams;
 import org.hisp.dhis.analytics.DataQueryService;
+import org.hisp.dhis.common.DimensionalItemObject;
 import org.hisp.dhis.common.DimensionalObject;
 import org.hisp.dhis.common.Grid;
 import org.hisp.dhis.common.IdScheme;
 import org.hisp.dhis.common.IllegalQueryException;
 import org.hisp.dhis.dataexchange.client.Dhis2Client;
 import org.hisp.dhis.dxf2.common.ImportOptions;
+import org.hisp.dhis.dxf2.datavalue.DataValue;
 import org.hisp.dhis.dxf2.datavalueset.DataValueSet;
 import org.hisp.dhis.dxf2.datavalueset.DataValueSetService;
+import org.hisp.dhis.dxf2.importsummary.ImportCount;
 import org.hisp.dhis.dxf2.importsummary.ImportStatus;
 import org.hisp.dhis.dxf2.importsummary.ImportSummaries;
 import org.hisp.dhis.dxf2.importsummary.ImportSummary;
 import org.hisp.dhis.scheduling.JobProgress;
 import org.hisp.dhis.scheduling.JobProgress.FailurePolicy;
+import org.hisp.dhis.setting.SettingKey;
+import org.hisp.dhis.setting.SystemSettingManager;
+import org.hisp.dhis.system.util.CodecUtils;
 import org.jasypt.encryption.pbe.PBEStringCleanablePasswordEncryptor;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
@@ -76,6 +86,9 @@ import org.springframework.web.client.HttpClientErrorException;
 @Service
 @RequiredArgsConstructor
 public class AggregateDataExchangeService {
+  /** Max number of data values sent to the target in one request. */
+  static final int CHUNK_SIZE = 10_000;
+
   private final AnalyticsService analyticsService;
 
   private final AggregateDataExchangeStore aggregateDataExchangeStore;
@@ -84,6 +97,10 @@ public class AggregateDataExchangeService {
 
   private final DataValueSetService dataValueSetService;
 
+  private final AggregateDataExchangeValueStore aggregateDataExchangeValueStore;
+
+  private final SystemSettingManager systemSettingManager;
+
   @Qualifier(AES_128_STRING_ENCRYPTOR)
   private final PBEStringCleanablePasswordEncryptor encryptor;
 
@@ -116,7 +133,10 @@ public class AggregateDataExchangeService {
   }
 
   /**
-   * Runs the given analytics data exchange.
+   * Runs the given analytics data exchange. Incremental exchanges only send data values which
+   * changed since the last run, and are skipped if neither the analytics tables nor the exchange
+   * changed since the last run. After a successful incremental run, the recorded hashes of data
+   * values which are no longer part of the source data are removed.
    *
    * @param exchange the {@link AggregateDataExchange}.
    * @param progress {@link JobProgress} to track progress when running in a job context
@@ -126,18 +146,39 @@ public class AggregateDataExchangeService {
   public ImportSummaries exchangeData(AggregateDataExchange exchange, JobProgress progress) {
     ImportSummaries summaries = new ImportSummaries();
 
+    boolean incremental = isIncremental(exchange);
+    Date lastExchanged =
+        incremental ? aggregateDataExchangeValueStore.getLastExchanged(exchange.getId()) : null;
+    boolean skipUnchanged = lastExchanged != null && !isChangedSince(exchange, lastExchanged);
+    Date started = new Date();
+
     progress.startingStage(toStageDescription(exchange), FailurePolicy.SKIP_ITEM);
+
+    if (skipUnchanged && !isAnalyticsUpdatedSince(lastExchanged)) {
+      summaries.addImportSummary(
+          new ImportSummary(
+              ImportStatus.SUCCESS, "Analytics tables unchanged since last exchange"));
+      progress.completedStage("Analytics tables unchanged since last exchange");
+      return summaries;
+    }
+
     progress.runStage(
         exchange.getSource().getRequests().stream(),
         AggregateDataExchangeService::toItemDescription,
         AggregateDataExchangeService::toItemSummary,
         request -> {
-          ImportSummary summary = exchangeData(exchange, request);
+          ImportSummary summary =
+              exchangeData(exchange, request, incremental, skipUnchanged, started);
           summaries.addImportSummary(summary);
           return summary;
         },
         (success, failed) -> toStageSummary(success, failed, exchange));
 
+    if (incremental && summaries.getImportSummaries().stream().noneMatch(this::isFailed)) {
+      aggregateDataExchangeValueStore.setLastExchanged(exchange.getId(), started);
+      aggregateDataExchangeValueStore.deleteValueHashesBefore(exchange.getId(), started);
+    }
+
     return summaries;
   }
 
@@ -173,21 +214,45 @@ public class AggregateDataExchangeService {
 
   /**
    * Exchanges data from the source as defined by the given {@link SourceRequest} to the target as
-   * defined by the given {@link AggregateDataExchange}.
+   * defined by the given {@link AggregateDataExchange}. The source data is retrieved one period at
+   * a time, so that only the data values of a single period are held in memory.
    *
    * @param exchange the {@link AggregateDataExchange}.
    * @param request the {@link SourceRequest}.
+   * @param incremental whether to record the data values sent.
+   * @param skipUnchanged whether to skip data values which are unchanged since the last exchange.
+   * @param exchanged the time of the exchange, recorded for the data values sent.
    * @return an {@link ImportSummary} describing the outcome of the exchange.
    */
-  private ImportSummary exchangeData(AggregateDataExchange exchange, SourceRequest request) {
+  private ImportSummary exchangeData(
+      AggregateDataExchange exchange,
+      SourceRequest request,
+      boolean incremental,
+      boolean skipUnchanged,
+      Date exchanged) {
     try {
-      DataValueSet dataValueSet =
-          analyticsService.getAggregatedDataValueSet(
-              toDataQueryParams(request, new SourceDataQueryParams()));
-
-      return exchange.getTarget().getType() == TargetType.INTERNAL
-          ? pushToInternal(exchange, dataValueSet)
-          : pushToExternal(exchange, dataValueSet);
+      ImportSummary summary = new ImportSummary(ImportStatus.SUCCESS);
+      DataValueSet dataValueSet = null;
+      boolean empty = true;
+      int unchanged = 0;
+
+      for (DataQueryParams params :
+          toPeriodPages(toDataQueryParams(request, new SourceDataQueryParams()))) {
+        dataValueSet = analyticsService.getAggregatedDataValueSet(params);
+        empty &= dataValueSet.getDataValues().isEmpty();
+        unchanged +=
+            pushInChunks(exchange, dataValueSet, summary, incremental, skipUnchanged, exchanged);
+      }
+
+      if (empty && !incremental) {
+        return push(exchange, dataValueSet);
+      }
+
+      if (unchanged > 0) {
+        summary.setDescription(format("Skipped %d unchanged data values", unchanged));
+      }
+
+      return summary;
     } catch (HttpClientErrorException ex) {
       String message =
           format("Data import to target instance failed with status: '%s'", ex.getStatusCode());
@@ -200,6 +265,96 @@ public class AggregateDataExchangeService {
     }
   }
 
+  /**
+   * Splits the given query into one query per period, so that the data values of each period can be
+   * retrieved and pushed separately.
+   *
+   * @param params the {@link DataQueryParams}.
+   * @return the list of {@link DataQueryParams}, one per period.
+   */
+  List<DataQueryParams> toPeriodPages(DataQueryParams params) {
+    List<DimensionalItemObject> periods = params.getPeriods();
+
+    return periods.size() <= 1
+        ? List.of(params)
+        : mapToList(
+            periods, period -> DataQueryParams.newBuilder(params).withPeriod(period).build());
+  }
+
+  /**
+   * Pushes the data values of the given {@link DataValueSet} to the target in chunks of {@link
+   * #CHUNK_SIZE} data values. For incremental exchanges, data values which are unchanged since the
+   * last exchange are optionally skipped, and the hashes of data values which were imported without
+   * conflicts are recorded. The time of the exchange is recorded for skipped data values too, so
+   * that hashes of data values which are no longer part of the source data can be removed.
+   *
+   * @param exchange the {@link AggregateDataExchange}.
+   * @param dataValueSet the {@link DataValueSet}.
+   * @param summary the {@link ImportSummary} to add the outcome of each chunk to.
+   * @param incremental whether to record the data values sent.
+   * @param skipUnchanged whether to skip data values which are unchanged since the last exchange.
+   * @param exchanged the time of the exchange.
+   * @return the number of data values skipped as unchanged.
+   */
+  private int pushInChunks(
+      AggregateDataExchange exchange,
+      DataValueSet dataValueSet,
+      ImportSummary summary,
+      boolean incremental,
+      boolean skipUnchanged,
+      Date exchanged) {
+    List<DataValue> dataValues = dataValueSet.getDataValues();
+    int unchanged = 0;
+
+    for (int i = 0; i < dataValues.size(); i += CHUNK_SIZE) {
+      List<DataValue> chunk = dataValues.subList(i, Math.min(i + CHUNK_SIZE, dataValues.size()));
+      Map<String, String> hashes = incremental ? getValueHashes(chunk) : Map.of();
+
+      if (skipUnchanged) {
+        Map<String, String> sent =
+            aggregateDataExchangeValueStore.getValueHashes(exchange.getId(), hashes.keySet());
+        Map<Boolean, List<DataValue>> byUnchanged =
+            chunk.stream().collect(partitioningBy(dv -> isUnchanged(dv, hashes, sent)));
+        chunk = byUnchanged.get(false);
+        unchanged += byUnchanged.get(true).size();
+
+        if (!byUnchanged.get(true).isEmpty()) {
+          aggregateDataExchangeValueStore.touchValueHashes(
+              exchange.getId(),
+              mapToList(byUnchanged.get(true), AggregateDataExchangeService::toValueKey),
+              exchanged);
+        }
+      }
+
+      if (chunk.isEmpty()) {
+        continue;
+      }
+
+      ImportSummary chunkSummary = push(exchange, toDataValueSet(dataValueSet, chunk));
+      addChunkSummary(summary, chunkSummary);
+
+      if (incremental && !isFailed(chunkSummary) && chunkSummary.getConflictCount() == 0) {
+        aggregateDataExchangeValueStore.saveValueHashes(
+            exchange.getId(), getValueHashes(chunk), exchanged);
+      }
+    }
+
+    return unchanged;
+  }
+
+  /**
+   * Pushes the given {@link DataValueSet} to the target of the given {@link AggregateDataExchange}.
+   *
+   * @param exchange the {@link AggregateDataExchange}.
+   * @param dataValueSet the {@link DataValueSet}.
+   * @return an {@link ImportSummary} describing the outcome of the exchange.
+   */
+  private ImportSummary push(AggregateDataExchange exchange, DataValueSet dataValueSet) {
+    return exchange.getTarget().getType() == TargetType.INTERNAL
+        ? pushToInternal(exchange, dataValueSet)
+        : pushToExternal(exchange, dataValueSet);
+  }
+
   /**
    * Imports the given {@link DataValueSet} to this instance of DHIS 2.
    *
@@ -224,6 +379,159 @@ public class AggregateDataExchangeService {
     return getDhis2Client(exchange).saveDataValueSet(dataValueSet, toImportOptions(exchange));
   }
 
+  /**
+   * Adds the counts, conflicts and status of the given chunk summary to the given summary.
+   *
+   * @param summary the {@link ImportSummary} to add to.
+   * @param chunkSummary the {@link ImportSummary} of a chunk, can be null.
+   */
+  void addChunkSummary(ImportSummary summary, ImportSummary chunkSummary) {
+    if (chunkSummary == null) {
+      return;
+    }
+
+    ImportCount count = summary.getImportCount();
+    ImportCount chunkCount = chunkSummary.getImportCount();
+    count.incrementImported(chunkCount.getImported());
+    count.incrementUpdated(chunkCount.getUpdated());
+    count.incrementIgnored(chunkCount.getIgnored());
+    count.incrementDeleted(chunkCount.getDeleted());
+    chunkSummary.getConflicts().forEach(summary::addConflict);
+
+    if (chunkSummary.getStatus().getOrder() > summary.getStatus().getOrder()) {
+      summary.setStatus(chunkSummary.getStatus());
+      summary.setDescription(chunkSummary.getDescription());
+    }
+  }
+
+  /**
+   * Returns a {@link DataValueSet} with the options of the given {@link DataValueSet} and the given
+   * data values.
+   *
+   * @param dataValueSet the {@link DataValueSet}.
+   * @param dataValues the list of {@link DataValue}.
+   * @return a {@link DataValueSet}.
+   */
+  private DataValueSet toDataValueSet(DataValueSet dataValueSet, List<DataValue> dataValues) {
+    DataValueSet chunk = new DataValueSet();
+    chunk.setIdScheme(dataValueSet.getIdScheme());
+    chunk.setDataElementIdScheme(dataValueSet.getDataElementIdScheme());
+    chunk.setOrgUnitIdScheme(dataValueSet.getOrgUnitIdScheme());
+    chunk.setCategoryOptionComboIdScheme(dataValueSet.getCategoryOptionComboIdScheme());
+    chunk.setDataSetIdScheme(dataValueSet.getDataSetIdScheme());
+    chunk.setDataValues(dataValues);
+    return chunk;
+  }
+
+  /**
+   * Returns a mapping of data value key to value hash for the given data values.
+   *
+   * @param dataValues the list of {@link DataValue}.
+   * @return a mapping of data value key to value hash.
+   */
+  private Map<String, String> getValueHashes(List<DataValue> dataValues) {
+    Map<String, String> hashes = new HashMap<>();
+    dataValues.forEach(dv -> hashes.put(toValueKey(dv), toValueHash(dv)));
+    return hashes;
+  }
+
+  /**
+   * Indicates whether the given data value was sent before with the same value.
+   *
+   * @param dataValue the {@link DataValue}.
+   * @param hashes the value hashes of the current data values.
+   * @param sent the value hashes of the data values sent before.
+   * @return true if the data value is unchanged.
+   */
+  private boolean isUnchanged(
+      DataValue dataValue, Map<String, String> hashes, Map<String, String> sent) {
+    String key = toValueKey(dataValue);
+    return Objects.equals(hashes.get(key), sent.get(key));
+  }
+
+  /**
+   * Returns the key of the given data value, which is made of its dimensions.
+   *
+   * @param dataValue the {@link DataValue}.
+   * @return the data value key.
+   */
+  static String toValueKey(DataValue dataValue) {
+    return join(
+        "|",
+        dataValue.getDataElement(),
+        dataValue.getPeriod(),
+        dataValue.getOrgUnit(),
+        dataValue.getCategoryOptionCombo(),
+        dataValue.getAttributeOptionCombo());
+  }
+
+  /**
+   * Returns the MD5 hash of the value of the given data value, or an empty string if the value is
+   * null.
+   *
+   * @param dataValue the {@link DataValue}.
+   * @return the value hash.
+   */
+  static String toValueHash(DataValue dataValue) {
+    return dataValue.getValue() == null ? "" : CodecUtils.md5Hex(dataValue.getValue());
+  }
+
+  /**
+   * Indicates whether the given {@link AggregateDataExchange} is incremental. Only persisted
+   * exchanges which are not dry runs can be incremental.
+   *
+   * @param exchange the {@link AggregateDataExchange}.
+   * @return true if incremental.
+   */
+  boolean isIncremental(AggregateDataExchange exchange) {
+    TargetRequest request = exchange.getTarget().getRequest();
+    return isPersisted(exchange)
+        && request != null
+        && Boolean.TRUE.equals(request.getIncremental())
+        && !Boolean.TRUE.equals(request.getDryRun());
+  }
+
+  /**
+   * Indicates whether the given {@link AggregateDataExchange} was changed after the given time, in
+   * which case all data values must be sent again.
+   *
+   * @param exchange the {@link AggregateDataExchange}.
+   * @param date the time.
+   * @return true if changed after the given time.
+   */
+  private boolean isChangedSince(AggregateDataExchange exchange, Date date) {
+    return exchange.getLastUpdated() != null && exchange.getLastUpdated().after(date);
+  }
+
+  /**
+   * Indicates whether the analytics tables or the latest analytics partition were updated after the
+   * given time.
+   *
+   * @param date the time.
+   * @return true if analytics tables were updated after the given time.
+   */
+  private boolean isAnalyticsUpdatedSince(Date date) {
+    Date tablesUpdated =
+        systemSettingManager.getDateSetting(SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_UPDATE);
+    Date partitionUpdated =
+        systemSettingManager.getDateSetting(
+            SettingKey.LAST_SUCCESSFUL_LATEST_ANALYTICS_PARTITION_UPDATE);
+
+    return tablesUpdated == null
+        || tablesUpdated.after(date)
+        || (partitionUpdated != null && partitionUpdated.after(date));
+  }
+
+  /**
+   * Indicates whether the given {@link ImportSummary} describes a failed import.
+   *
+   * @param summary the {@link ImportSummary}, can be null.
+   * @return true if failed.
+   */
+  private boolean isFailed(ImportSummary summary) {
+    return summary == null || summary.getStatus() == ImportStatus.ERROR;
+  }
+
   /**
    * Converts the {@link TargetRequest} of the given {@link AggregateDataExchange} to an {@link
    * ImportOptions}.
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.dataexchange.aggregate;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Persists the state of incremental aggregate data exchanges, which is the MD5 hash of the value of
+ * each data value sent to the target and the time of the last exchange.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AggregateDataExchangeValueStore {
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Returns the time of the last incremental run of the given exchange.
+   *
+   * @param exchangeId the {@link AggregateDataExchange} identifier.
+   * @return the time of the last run, or null if the exchange has not run.
+   */
+  public Date getLastExchanged(long exchangeId) {
+    List<Date> dates =
+        jdbcTemplate.queryForList(
+            "select lastexchanged from aggregatedataexchangestate where aggregatedataexchangeid = ?",
+            Date.class,
+            exchangeId);
+
+    return dates.isEmpty() ? null : dates.get(0);
+  }
+
+  /**
+   * Sets the time of the last incremental run of the given exchange.
+   *
+   * @param exchangeId the {@link AggregateDataExchange} identifier.
+   * @param lastExchanged the time of the run.
+   */
+  public void setLastExchanged(long exchangeId, Date lastExchanged) {
+    jdbcTemplate.update(
+        "insert into aggregatedataexchangestate (aggregatedataexchangeid, lastexchanged) "
+            + "values (?, ?) on conflict (aggregatedataexchangeid) "
+            + "do update set lastexchanged = excluded.lastexchanged",
+        exchangeId,
+        lastExchanged);
+  }
+
+  /**
+   * Returns the hashes of the values last sent for the given keys.
+   *
+   * @param exchangeId the {@link AggregateDataExchange} identifier.
+   * @param keys the data value keys.
+   * @return a mapping of data value key to value hash for the keys which were sent before.
+   */
+  public Map<String, String> getValueHashes(long exchangeId, Collection<String> keys) {
+    Map<String, String> hashes = new HashMap<>();
+
+    jdbcTemplate.query(
+        con -> {
+          PreparedStatement ps =
+              con.prepareStatement(
+                  "select valuekey, valuehash from aggregatedataexchangevalue "
+                      + "where aggregatedataexchangeid = ? and valuekey = any(?)");
+          Array array = con.createArrayOf("text", keys.toArray());
+          ps.setLong(1, exchangeId);
+          ps.setArray(2, array);
+          return ps;
+        },
+        rs -> {
+          hashes.put(rs.getString(1), rs.getString(2));
+        });
+
+    return hashes;
+  }
+
+  /**
+   * Saves the hashes of the values sent to the target.
+   *
+   * @param exchangeId the {@link AggregateDataExchange} identifier.
+   * @param hashes a mapping of data value key to value hash.
+   * @param exchanged the time of the exchange.
+   */
+  public void saveValueHashes(long exchangeId, Map<String, String> hashes, Date exchanged) {
+    Timestamp timestamp = new Timestamp(exchanged.getTime());
+
+    jdbcTemplate.batchUpdate(
+        "insert into aggregatedataexchangevalue "
+            + "(aggregatedataexchangeid, valuekey, valuehash, lastexchanged) "
+            + "values (?, ?, ?, ?) on conflict (aggregatedataexchangeid, valuekey) "
+            + "do update set valuehash = excluded.valuehash, lastexchanged = excluded.lastexchanged",
+        hashes.entrySet().stream()
+            .map(e -> new Object[] {exchangeId, e.getKey(), e.getValue(), timestamp})
+            .toList());
+  }
+
+  /**
+   * Sets the time of the exchange for the given keys, which were part of the source data but not
+   * sent as their values are unchanged.
+   *
+   * @param exchangeId the {@link AggregateDataExchange} identifier.
+   * @param keys the data value keys.
+   * @param exchanged the time of the exchange.
+   */
+  public void touchValueHashes(long exchangeId, Collection<String> keys, Date exchanged) {
+    jdbcTemplate.update(
+        con -> {
+          PreparedStatement ps =
+              con.prepareStatement(
+                  "update aggregatedataexchangevalue set lastexchanged = ? "
+                      + "where aggregatedataexchangeid = ? and valuekey = any(?)");
+          ps.setTimestamp(1, new Timestamp(exchanged.getTime()));
+          ps.setLong(2, exchangeId);
+          ps.setArray(3, con.createArrayOf("text", keys.toArray()));
+          return ps;
+        });
+  }
+
+  /**
+   * Deletes the hashes of values which were not part of the source data of the exchange at the
+   * given time, as the data values no longer exist in the source.
+   *
+   * @param exchangeId the {@link AggregateDataExchange} identifier.
+   * @param exchanged the time of the last exchange.
+   * @return the number of deleted hashes.
+   */
+  public int deleteValueHashesBefore(long exchangeId, Date exchanged) {
+    return jdbcTemplate.update(
+        "delete from aggregatedataexchangevalue "
+            + "where aggregatedataexchangeid = ? and lastexchanged < ?",
+        exchangeId,
+        new Timestamp(exchanged.getTime()));
+  }
+}
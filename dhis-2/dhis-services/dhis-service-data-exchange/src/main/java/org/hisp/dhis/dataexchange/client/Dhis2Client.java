@@ -31,10 +31,13 @@ import static java.lang.String.format;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.net.URI;
 import java.util.List;
 import java.util.Objects;
+import java.util.zip.GZIPOutputStream;
 import lombok.extern.slf4j.Slf4j;
 import org.hisp.dhis.common.IdScheme;
 import org.hisp.dhis.common.IdSchemes;
@@ -146,18 +149,30 @@ public class Dhis2Client {
   }
 
   /**
-   * Executes a HTTP POST request with the given body in JSON format.
+   * Returns a {@link HttpHeaders} for basic authentication indicating JSON accept and content-type
+   * format and GZIP content encoding.
+   *
+   * @return a {@link HttpHeaders}.
+   */
+  HttpHeaders getGzipJsonAuthHeaders() {
+    HttpHeaders headers = getJsonAuthHeaders();
+    headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+    return headers;
+  }
+
+  /**
+   * Executes a HTTP POST request with the given body in GZIP compressed JSON format.
    *
-   * @param <T> the request body type.
    * @param <U> the response type.
    * @param uri the request URI.
    * @param body the request body.
    * @param type the response type.
    * @return a {@link ResponseEntity}.
    */
-  private <T, U extends Dhis2Response> ResponseEntity<U> executeJsonPostRequest(
-      URI uri, T body, Class<U> type) {
-    HttpEntity<T> requestEntity = new HttpEntity<>(body, getJsonAuthHeaders());
+  private <U extends Dhis2Response> ResponseEntity<U> executeGzipJsonPostRequest(
+      URI uri, Object body, Class<U> type) {
+    HttpEntity<byte[]> requestEntity =
+        new HttpEntity<>(serializeGzip(body), getGzipJsonAuthHeaders());
 
     try {
       return restTemplate.exchange(uri, HttpMethod.POST, requestEntity, type);
@@ -180,7 +195,8 @@ public class Dhis2Client {
   }
 
   /**
-   * Saves the given data value set using the given import options.
+   * Saves the given data value set using the given import options. The data value set is sent in
+   * GZIP compressed JSON format.
    *
    * @param dataValueSet the {@link DataValueSet}.
    * @param options the {@link ImportOptions}.
@@ -189,7 +205,8 @@ public class Dhis2Client {
   public ImportSummary saveDataValueSet(DataValueSet dataValueSet, ImportOptions options) {
     URI uri = getDataValueSetUri(options);
     InternalImportSummaryResponse response =
-        executeJsonPostRequest(uri, dataValueSet, InternalImportSummaryResponse.class).getBody();
+        executeGzipJsonPostRequest(uri, dataValueSet, InternalImportSummaryResponse.class)
+            .getBody();
     return response != null ? response.getImportSummary() : null;
   }
 
@@ -264,6 +281,28 @@ public class Dhis2Client {
     return new ResponseEntity<>(body, ex.getResponseHeaders(), ex.getStatusCode());
   }
 
+  /**
+   * Serializes the given object to GZIP compressed JSON.
+   *
+   * @param value the object.
+   * @return the compressed JSON value.
+   */
+  byte[] serializeGzip(Object value) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+      objectMapper.writeValue(gzip, value);
+    } catch (IOException ex) {
+      String message = format("Failed to write JSON value: %s", ex.getMessage());
+
+      log.error(message, ex);
+
+      throw new UncheckedIOException(message, ex);
+    }
+
+    return out.toByteArray();
+  }
+
   /**
    * Deserializes the given JSON value to the given Java type.
    *
@@ -29,18 +29,29 @@ package org.hisp.dhis.dataexchange.aggregate;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.IntStream;
 import org.hisp.dhis.analytics.AggregationType;
 import org.hisp.dhis.analytics.AnalyticsAggregationType;
 import org.hisp.dhis.analytics.AnalyticsService;
@@ -48,18 +59,24 @@ import org.hisp.dhis.analytics.DataQueryParams;
 import org.hisp.dhis.analytics.DataQueryService;
 import org.hisp.dhis.common.BaseDimensionalObject;
 import org.hisp.dhis.common.DimensionType;
+import org.hisp.dhis.common.DimensionalItemObject;
 import org.hisp.dhis.common.DimensionalObject;
 import org.hisp.dhis.common.DisplayProperty;
 import org.hisp.dhis.common.IdScheme;
 import org.hisp.dhis.dataexchange.client.Dhis2Client;
 import org.hisp.dhis.dxf2.common.ImportOptions;
+import org.hisp.dhis.dxf2.datavalue.DataValue;
 import org.hisp.dhis.dxf2.datavalueset.DataValueSet;
 import org.hisp.dhis.dxf2.datavalueset.DataValueSetService;
+import org.hisp.dhis.dxf2.importsummary.ImportCount;
 import org.hisp.dhis.dxf2.importsummary.ImportStatus;
 import org.hisp.dhis.dxf2.importsummary.ImportSummaries;
 import org.hisp.dhis.dxf2.importsummary.ImportSummary;
 import org.hisp.dhis.importexport.ImportStrategy;
+import org.hisp.dhis.period.PeriodType;
 import org.hisp.dhis.scheduling.NoopJobProgress;
+import org.hisp.dhis.setting.SettingKey;
+import org.hisp.dhis.setting.SystemSettingManager;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -76,46 +93,17 @@ class AggregateDataExchangeServiceTest {
 
   @Mock private DataValueSetService dataValueSetService;
 
+  @Mock private AggregateDataExchangeValueStore aggregateDataExchangeValueStore;
+
+  @Mock private SystemSettingManager systemSettingManager;
+
   @InjectMocks private AggregateDataExchangeService service;
 
   @Test
-  @SuppressWarnings("unchecked")
   void testExchangeData() {
     when(analyticsService.getAggregatedDataValueSet(any(DataQueryParams.class)))
         .thenReturn(new DataValueSet());
-    when(dataQueryService.getDimension(
-            eq(DimensionalObject.DATA_X_DIM_ID),
-            any(),
-            any(Date.class),
-            nullable(List.class),
-            anyBoolean(),
-            nullable(DisplayProperty.class),
-            nullable(IdScheme.class)))
-        .thenReturn(
-            new BaseDimensionalObject(
-                DimensionalObject.DATA_X_DIM_ID, DimensionType.DATA_X, List.of()));
-    when(dataQueryService.getDimension(
-            eq(DimensionalObject.PERIOD_DIM_ID),
-            any(),
-            any(Date.class),
-            nullable(List.class),
-            anyBoolean(),
-            nullable(DisplayProperty.class),
-            nullable(IdScheme.class)))
-        .thenReturn(
-            new BaseDimensionalObject(
-                DimensionalObject.PERIOD_DIM_ID, DimensionType.PERIOD, List.of()));
-    when(dataQueryService.getDimension(
-            eq(DimensionalObject.ORGUNIT_DIM_ID),
-            any(),
-            any(Date.class),
-            nullable(List.class),
-            anyBoolean(),
-            nullable(DisplayProperty.class),
-            nullable(IdScheme.class)))
-        .thenReturn(
-            new BaseDimensionalObject(
-                DimensionalObject.ORGUNIT_DIM_ID, DimensionType.ORGANISATION_UNIT, List.of()));
+    mockDimensions();
     when(dataValueSetService.importDataValueSet(any(DataValueSet.class), any(ImportOptions.class)))
         .thenReturn(new ImportSummary(ImportStatus.SUCCESS));
 
@@ -321,6 +309,174 @@ class AggregateDataExchangeServiceTest {
     assertThrows(IllegalStateException.class, () -> service.getDhis2Client(exchange));
   }
 
+  @Test
+  void testExchangeDataInChunks() {
+    mockDimensions();
+    when(analyticsService.getAggregatedDataValueSet(any(DataQueryParams.class)))
+        .thenReturn(createDataValueSet(AggregateDataExchangeService.CHUNK_SIZE + 1, "1"));
+    when(dataValueSetService.importDataValueSet(any(DataValueSet.class), any(ImportOptions.class)))
+        .thenAnswer(
+            invocation ->
+                new ImportSummary(
+                    ImportStatus.SUCCESS,
+                    null,
+                    new ImportCount(
+                        invocation.getArgument(0, DataValueSet.class).getDataValues().size(),
+                        0,
+                        0,
+                        0)));
+
+    ImportSummaries summaries =
+        service.exchangeData(createExchange(false), NoopJobProgress.INSTANCE);
+
+    verify(dataValueSetService, times(2))
+        .importDataValueSet(any(DataValueSet.class), any(ImportOptions.class));
+    assertEquals(
+        AggregateDataExchangeService.CHUNK_SIZE + 1,
+        summaries.getImportSummaries().get(0).getImportCount().getImported());
+  }
+
+  @Test
+  void testExchangeDataIncremental() {
+    mockDimensions();
+    AggregateDataExchange exchange = createExchange(true);
+    exchange.setLastUpdated(new Date(1000));
+    DataValueSet dataValueSet = createDataValueSet(2, "1");
+    String unchangedKey =
+        AggregateDataExchangeService.toValueKey(dataValueSet.getDataValues().get(0));
+
+    when(analyticsService.getAggregatedDataValueSet(any(DataQueryParams.class)))
+        .thenReturn(dataValueSet);
+    when(aggregateDataExchangeValueStore.getLastExchanged(1)).thenReturn(new Date(2000));
+    when(systemSettingManager.getDateSetting(SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_UPDATE))
+        .thenReturn(new Date(3000));
+    when(aggregateDataExchangeValueStore.getValueHashes(eq(1L), anyCollection()))
+        .thenReturn(
+            Map.of(
+                unchangedKey,
+                AggregateDataExchangeService.toValueHash(dataValueSet.getDataValues().get(0))));
+    when(dataValueSetService.importDataValueSet(any(DataValueSet.class), any(ImportOptions.class)))
+        .thenReturn(new ImportSummary(ImportStatus.SUCCESS));
+
+    ImportSummaries summaries = service.exchangeData(exchange, NoopJobProgress.INSTANCE);
+
+    verify(dataValueSetService)
+        .importDataValueSet(
+            argThat(
+                dvs ->
+                    dvs.getDataValues().size() == 1
+                        && !unchangedKey.equals(
+                            AggregateDataExchangeService.toValueKey(dvs.getDataValues().get(0)))),
+            any(ImportOptions.class));
+    verify(aggregateDataExchangeValueStore)
+        .saveValueHashes(eq(1L), argThat(m -> m.size() == 1), any(Date.class));
+    verify(aggregateDataExchangeValueStore)
+        .touchValueHashes(eq(1L), eq(List.of(unchangedKey)), any(Date.class));
+    verify(aggregateDataExchangeValueStore).setLastExchanged(eq(1L), any(Date.class));
+    verify(aggregateDataExchangeValueStore).deleteValueHashesBefore(eq(1L), any(Date.class));
+    assertEquals(
+        "Skipped 1 unchanged data values", summaries.getImportSummaries().get(0).getDescription());
+  }
+
+  @Test
+  void testExchangeDataIncrementalFailedKeepsValueHashes() {
+    mockDimensions();
+    when(analyticsService.getAggregatedDataValueSet(any(DataQueryParams.class)))
+        .thenReturn(createDataValueSet(2, "1"));
+    when(dataValueSetService.importDataValueSet(any(DataValueSet.class), any(ImportOptions.class)))
+        .thenReturn(new ImportSummary(ImportStatus.ERROR));
+
+    service.exchangeData(createExchange(true), NoopJobProgress.INSTANCE);
+
+    verify(aggregateDataExchangeValueStore, never())
+        .saveValueHashes(eq(1L), anyMap(), any(Date.class));
+    verify(aggregateDataExchangeValueStore, never()).setLastExchanged(eq(1L), any(Date.class));
+    verify(aggregateDataExchangeValueStore, never())
+        .deleteValueHashesBefore(eq(1L), any(Date.class));
+  }
+
+  @Test
+  void testExchangeDataByPeriod() {
+    mockDimensions(
+        List.of(
+            PeriodType.getPeriodFromIsoString("202101"),
+            PeriodType.getPeriodFromIsoString("202102")));
+    when(analyticsService.getAggregatedDataValueSet(any(DataQueryParams.class)))
+        .thenReturn(createDataValueSet(2, "1"), createDataValueSet(3, "1"));
+    when(dataValueSetService.importDataValueSet(any(DataValueSet.class), any(ImportOptions.class)))
+        .thenAnswer(
+            invocation ->
+                new ImportSummary(
+                    ImportStatus.SUCCESS,
+                    null,
+                    new ImportCount(
+                        invocation.getArgument(0, DataValueSet.class).getDataValues().size(),
+                        0,
+                        0,
+                        0)));
+
+    ImportSummaries summaries =
+        service.exchangeData(createExchange(false), NoopJobProgress.INSTANCE);
+
+    verify(analyticsService)
+        .getAggregatedDataValueSet(
+            argThat(
+                params ->
+                    params
+                        .getPeriods()
+                        .equals(List.of(PeriodType.getPeriodFromIsoString("202101")))));
+    verify(analyticsService)
+        .getAggregatedDataValueSet(
+            argThat(
+                params ->
+                    params
+                        .getPeriods()
+                        .equals(List.of(PeriodType.getPeriodFromIsoString("202102")))));
+    assertEquals(5, summaries.getImportSummaries().get(0).getImportCount().getImported());
+  }
+
+  @Test
+  void testToValueHashDistinguishesValuesWithEqualHashCode() {
+    DataValue valueA = new DataValue();
+    valueA.setValue("Aa");
+    DataValue valueB = new DataValue();
+    valueB.setValue("BB");
+
+    assertEquals(Objects.hashCode("Aa"), Objects.hashCode("BB"));
+    assertNotEquals(
+        AggregateDataExchangeService.toValueHash(valueA),
+        AggregateDataExchangeService.toValueHash(valueB));
+    assertNotEquals(
+        AggregateDataExchangeService.toValueHash(new DataValue()),
+        AggregateDataExchangeService.toValueHash(valueA));
+  }
+
+  @Test
+  void testExchangeDataIncrementalAnalyticsUnchanged() {
+    AggregateDataExchange exchange = createExchange(true);
+    exchange.setLastUpdated(new Date(1000));
+
+    when(aggregateDataExchangeValueStore.getLastExchanged(1)).thenReturn(new Date(3000));
+    when(systemSettingManager.getDateSetting(SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_UPDATE))
+        .thenReturn(new Date(2000));
+
+    ImportSummaries summaries = service.exchangeData(exchange, NoopJobProgress.INSTANCE);
+
+    assertEquals(ImportStatus.SUCCESS, summaries.getImportSummaries().get(0).getStatus());
+    verifyNoInteractions(analyticsService, dataValueSetService);
+  }
+
+  @Test
+  void testIsIncremental() {
+    assertTrue(service.isIncremental(createExchange(true)));
+    assertFalse(service.isIncremental(createExchange(false)));
+
+    AggregateDataExchange dryRun = createExchange(true);
+    dryRun.getTarget().getRequest().setDryRun(true);
+
+    assertFalse(service.isIncremental(dryRun));
+  }
+
   @Test
   void testIsPersisted() {
     AggregateDataExchange adeA = new AggregateDataExchange();
@@ -335,4 +491,79 @@ class AggregateDataExchangeServiceTest {
     assertTrue(service.isPersisted(adeA));
     assertFalse(service.isPersisted(adeB));
   }
+
+  private void mockDimensions() {
+    mockDimensions(List.of());
+  }
+
+  @SuppressWarnings("unchecked")
+  private void mockDimensions(List<DimensionalItemObject> periods) {
+    when(dataQueryService.getDimension(
+            eq(DimensionalObject.DATA_X_DIM_ID),
+            any(),
+            any(Date.class),
+            nullable(List.class),
+            anyBoolean(),
+            nullable(DisplayProperty.class),
+            nullable(IdScheme.class)))
+        .thenReturn(
+            new BaseDimensionalObject(
+                DimensionalObject.DATA_X_DIM_ID, DimensionType.DATA_X, List.of()));
+    when(dataQueryService.getDimension(
+            eq(DimensionalObject.PERIOD_DIM_ID),
+            any(),
+            any(Date.class),
+            nullable(List.class),
+            anyBoolean(),
+            nullable(DisplayProperty.class),
+            nullable(IdScheme.class)))
+        .thenReturn(
+            new BaseDimensionalObject(
+                DimensionalObject.PERIOD_DIM_ID, DimensionType.PERIOD, periods));
+    when(dataQueryService.getDimension(
+            eq(DimensionalObject.ORGUNIT_DIM_ID),
+            any(),
+            any(Date.class),
+            nullable(List.class),
+            anyBoolean(),
+            nullable(DisplayProperty.class),
+            nullable(IdScheme.class)))
+        .thenReturn(
+            new BaseDimensionalObject(
+                DimensionalObject.ORGUNIT_DIM_ID, DimensionType.ORGANISATION_UNIT, List.of()));
+  }
+
+  private AggregateDataExchange createExchange(boolean incremental) {
+    SourceRequest sourceRequest =
+        new SourceRequest()
+            .setName("SourceRequestA")
+            .setDx(List.of("Vz0C3i4Wy3M"))
+            .setPe(List.of("202101"))
+            .setOu(List.of("lGgJFgRkZui"));
+    Source source = new Source().setRequests(List.of(sourceRequest));
+    TargetRequest request = new TargetRequest().setIncremental(incremental);
+    Target target = new Target().setType(TargetType.INTERNAL).setRequest(request);
+    AggregateDataExchange exchange =
+        new AggregateDataExchange().setSource(source).setTarget(target);
+    exchange.setId(1);
+    exchange.setName("DataExchangeA");
+    return exchange;
+  }
+
+  private DataValueSet createDataValueSet(int size, String value) {
+    DataValueSet dataValueSet = new DataValueSet();
+    dataValueSet.setDataValues(
+        IntStream.range(0, size)
+            .mapToObj(
+                i -> {
+                  DataValue dataValue = new DataValue();
+                  dataValue.setDataElement("Vz0C3i4Wy3M");
+                  dataValue.setPeriod("202101");
+                  dataValue.setOrgUnit("OrgUnit" + i);
+                  dataValue.setValue(value);
+                  return dataValue;
+                })
+            .toList());
+    return dataValueSet;
+  }
 }
@@ -30,14 +30,22 @@ package org.hisp.dhis.dataexchange.client;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
 import org.hisp.dhis.attribute.Attribute;
 import org.hisp.dhis.common.IdScheme;
 import org.hisp.dhis.dataexchange.client.response.Dhis2Response;
 import org.hisp.dhis.dataexchange.client.response.InternalImportSummaryResponse;
 import org.hisp.dhis.dataexchange.client.response.Status;
 import org.hisp.dhis.dxf2.common.ImportOptions;
+import org.hisp.dhis.dxf2.datavalue.DataValue;
+import org.hisp.dhis.dxf2.datavalueset.DataValueSet;
 import org.hisp.dhis.dxf2.importsummary.ImportStatus;
 import org.hisp.dhis.dxf2.importsummary.ImportSummary;
 import org.hisp.dhis.importexport.ImportStrategy;
@@ -254,4 +262,36 @@ class Dhis2ClientTest {
     assertEquals(0, summary.getImportCount().getImported());
     assertEquals(4, summary.getImportCount().getIgnored());
   }
+
+  @Test
+  void testSerializeGzip() throws IOException {
+    Dhis2Client client =
+        Dhis2Client.withBasicAuth("https://play.dhis2.org/2.38.0", "admin", "district");
+
+    DataValue dataValue = new DataValue();
+    dataValue.setDataElement("Vz0C3i4Wy3M");
+    dataValue.setValue("12");
+    DataValueSet dataValueSet = new DataValueSet();
+    dataValueSet.setDataValues(List.of(dataValue));
+
+    byte[] compressed = client.serializeGzip(dataValueSet);
+
+    try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+      String json = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+
+      assertTrue(json.contains("\"dataElement\":\"Vz0C3i4Wy3M\""));
+      assertTrue(json.contains("\"value\":\"12\""));
+    }
+  }
+
+  @Test
+  void testGetGzipJsonAuthHeaders() {
+    Dhis2Client client =
+        Dhis2Client.withBasicAuth("https://play.dhis2.org/2.38.0", "admin", "district");
+
+    HttpHeaders headers = client.getGzipJsonAuthHeaders();
+
+    assertEquals("gzip", headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+    assertEquals(MediaType.APPLICATION_JSON, headers.getContentType());
+  }
 }
@@ -768,11 +768,16 @@ public class DataValueSetImportValidator {
                 .get(
                     valueContext.getOrgUnit().getUid() + workflowPeriodAoc,
                     () ->
-                        approvalService.isApproved(
-                            workflow,
-                            valueContext.getPeriod(),
-                            valueContext.getOrgUnit(),
-                            valueContext.getAttrOptionCombo()))) {
+                        context
+                            .getApprovedOrgUnitsMap()
+                            .get(
+                                workflowPeriodAoc,
+                                () ->
+                                    approvalService.getIsApprovedPredicate(
+                                        workflow,
+                                        valueContext.getPeriod(),
+                                        valueContext.getAttrOptionCombo()))
+                            .test(valueContext.getOrgUnit()))) {
               context.addConflict(
                   valueContext.getIndex(),
                   DataValueImportConflict.VALUE_ALREADY_APPROVED,
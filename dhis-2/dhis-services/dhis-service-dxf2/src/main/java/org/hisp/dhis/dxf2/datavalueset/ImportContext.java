@@ -34,6 +34,7 @@ import java.util.Date;
 import java.util.List;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -177,6 +178,9 @@ public final class ImportContext {
 
   private final CachingMap<String, Boolean> approvalMap = new CachingMap<>();
 
+  private final CachingMap<String, Predicate<OrganisationUnit>> approvedOrgUnitsMap =
+      new CachingMap<>();
+
   private final CachingMap<String, Boolean> lowestApprovalLevelMap = new CachingMap<>();
 
   private final CachingMap<String, Boolean> periodOpenForDataElement = new CachingMap<>();
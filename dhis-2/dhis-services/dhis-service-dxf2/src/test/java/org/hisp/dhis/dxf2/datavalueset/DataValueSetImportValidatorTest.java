@@ -36,6 +36,8 @@ import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Arrays;
@@ -619,6 +621,37 @@ class DataValueSetImportValidatorTest {
         dataSetContext.getDataSet().getUid());
   }
 
+  @Test
+  void testCheckDataValueNotAlreadyApproved_FetchesApprovalsOnce() {
+    DataValue dataValue = createRandomDataValue();
+    DataValueContext valueContext = createDataValueContext(dataValue).build();
+    DataSetContext dataSetContext = createMinimalDataSetContext(createEmptyDataValueSet()).build();
+    DataApprovalWorkflow workflow = new DataApprovalWorkflow();
+    workflow.setUid(CodeGenerator.generateUid());
+    dataSetContext.getDataSet().setWorkflow(workflow);
+    ImportContext context = createMinimalImportContext(valueContext).forceDataInput(false).build();
+    when(approvalService.getIsApprovedPredicate(
+            workflow, valueContext.getPeriod(), valueContext.getAttrOptionCombo()))
+        .thenReturn(orgUnit -> orgUnit == valueContext.getOrgUnit());
+
+    assertTrue(validator.skipDataValue(dataValue, context, dataSetContext, valueContext));
+    assertConflict(
+        ErrorCode.E7642,
+        "Data already approved for data set: `<object4>` period: `<object2>` org unit: `<object1>` attribute option combo: `<object3>`",
+        context,
+        dataValue.getOrgUnit(),
+        dataValue.getPeriod(),
+        dataValue.getAttributeOptionCombo(),
+        dataSetContext.getDataSet().getUid());
+
+    OrganisationUnit otherOrgUnit = new OrganisationUnit();
+    otherOrgUnit.setUid(CodeGenerator.generateUid());
+    DataValueContext otherValueContext =
+        createDataValueContext(dataValue).orgUnit(otherOrgUnit).build();
+    assertFalse(validator.skipDataValue(dataValue, context, dataSetContext, otherValueContext));
+    verify(approvalService, times(1)).getIsApprovedPredicate(any(), any(), any());
+  }
+
   @Test
   void testCheckDataValuePeriodIsOpenNow() {
     DataValue dataValue = createRandomDataValue();
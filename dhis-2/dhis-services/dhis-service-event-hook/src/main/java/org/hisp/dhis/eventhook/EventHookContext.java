@@ -40,19 +40,34 @@ import lombok.Data;
 @Data
 @Builder
 public class EventHookContext {
-  @Builder.Default Map<String, List<Handler>> targets = new HashMap<>();
+  /** Handlers of each event hook by the client ID of their target. */
+  @Builder.Default Map<String, Map<String, Handler>> targets = new HashMap<>();
 
   @Builder.Default List<EventHook> eventHooks = new ArrayList<>();
 
   public boolean hasTarget(String uid) {
-    return targets.containsKey(uid) || targets.get(uid).isEmpty();
+    return targets.containsKey(uid) && !targets.get(uid).isEmpty();
   }
 
-  public List<Handler> getTarget(String uid) {
+  public Map<String, Handler> getTarget(String uid) {
     return targets.get(uid);
   }
 
+  /**
+   * @param uid the UID of the event hook
+   * @param targetId the client ID of the target
+   * @return the handler of the target, or null if the event hook has no such target
+   */
+  public Handler getHandler(String uid, String targetId) {
+    Map<String, Handler> handlers = targets.get(uid);
+    return handlers == null ? null : handlers.get(targetId);
+  }
+
+  public EventHook getEventHook(String uid) {
+    return eventHooks.stream().filter(eh -> uid.equals(eh.getUid())).findFirst().orElse(null);
+  }
+
   public void closeTargets() {
-    targets.values().forEach(handlers -> handlers.forEach(Handler::close));
+    targets.values().forEach(handlers -> handlers.values().forEach(Handler::close));
   }
 }
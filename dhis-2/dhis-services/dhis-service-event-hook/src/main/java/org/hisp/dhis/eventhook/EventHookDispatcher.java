@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.eventhook;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Delivers events from the {@link EventHookOutboxStore} to the event hook targets.
+ *
+ * <p>Each poll claims due events and groups them by target. Targets are delivered to in parallel,
+ * and the events of a target in batches of the configured size, in order. A poll waits until all
+ * its deliveries completed before the next poll, so slow targets limit how many events are claimed
+ * instead of piling up work. Failed batches are retried with exponential backoff until the max
+ * number of attempts is reached. The later events of a target wait until a failed batch was
+ * delivered or dropped, so that they are not delivered out of order.
+ */
+@Slf4j
+@Component
+public class EventHookDispatcher {
+  /** Max number of events claimed in one poll, per event in a batch. */
+  private static final int BATCHES_PER_POLL = 100;
+
+  /** Max seconds between two delivery attempts of a failed batch. */
+  private static final long MAX_BACKOFF_SECONDS = 3600;
+
+  /** Min milliseconds between two counts of the pending events. */
+  private static final long PENDING_COUNT_INTERVAL_MILLIS = 60_000;
+
+  private final EventHookOutboxStore outboxStore;
+
+  private final EventHookListener eventHookListener;
+
+  private final DhisConfigurationProvider config;
+
+  private final Executor executor;
+
+  private final AtomicLong pending = new AtomicLong();
+
+  private final AtomicLong inFlight = new AtomicLong();
+
+  private long pendingCountedAt;
+
+  private final Counter delivered;
+
+  private final Counter failed;
+
+  private final Counter dropped;
+
+  private ScheduledExecutorService scheduler;
+
+  public EventHookDispatcher(
+      EventHookOutboxStore outboxStore,
+      EventHookListener eventHookListener,
+      DhisConfigurationProvider config,
+      @Qualifier("eventHookTaskExecutor") Executor executor,
+      ObjectProvider<MeterRegistry> meterRegistry) {
+    this.outboxStore = outboxStore;
+    this.eventHookListener = eventHookListener;
+    this.config = config;
+    this.executor = executor;
+
+    MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+    Gauge.builder("eventhook.outbox.pending", pending::get)
+        .description("Number of events waiting for delivery")
+        .register(registry);
+    Gauge.builder("eventhook.delivery.inflight", inFlight::get)
+        .description("Number of events currently being delivered")
+        .register(registry);
+    this.delivered = counter(registry, "delivered");
+    this.failed = counter(registry, "failed");
+    this.dropped = counter(registry, "dropped");
+  }
+
+  @PostConstruct
+  public void start() {
+    if (config.isDisabled(ConfigurationKey.EVENT_HOOKS_ENABLED)) {
+      return;
+    }
+    long linger = Long.parseLong(config.getProperty(ConfigurationKey.EVENT_HOOKS_LINGER));
+    scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "EventHookDispatcher");
+              thread.setDaemon(true);
+              return thread;
+            });
+    scheduler.scheduleWithFixedDelay(this::dispatchSafely, linger, linger, TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+    }
+  }
+
+  private void dispatchSafely() {
+    try {
+      // keep going while there is a backlog, linger only once the outbox is drained
+      int claimed;
+      do {
+        claimed = dispatch();
+      } while (claimed > 0 && !Thread.currentThread().isInterrupted());
+    } catch (RuntimeException ex) {
+      log.error("Event hook dispatch failed", ex);
+    }
+  }
+
+  /**
+   * Claims due events and delivers them to their targets.
+   *
+   * @return the number of events claimed
+   */
+  public int dispatch() {
+    int batchSize =
+        Math.max(1, Integer.parseInt(config.getProperty(ConfigurationKey.EVENT_HOOKS_BATCH_SIZE)));
+    List<EventHookOutboxEntry> entries = outboxStore.claimDue(batchSize * BATCHES_PER_POLL);
+    countPending();
+
+    if (entries.isEmpty()) {
+      return 0;
+    }
+
+    Map<String, List<EventHookOutboxEntry>> entriesByTarget =
+        entries.stream()
+            .collect(
+                groupingBy(
+                    entry -> entry.eventHookUid() + ":" + entry.targetId(),
+                    LinkedHashMap::new,
+                    toList()));
+
+    EventHookContext context = eventHookListener.getEventHookContext();
+    inFlight.set(entries.size());
+    try {
+      CompletableFuture.allOf(
+              entriesByTarget.values().stream()
+                  .map(
+                      targetEntries ->
+                          CompletableFuture.runAsync(
+                              () -> deliver(context, targetEntries, batchSize), executor))
+                  .toArray(CompletableFuture[]::new))
+          .join();
+    } finally {
+      inFlight.set(0);
+    }
+    return entries.size();
+  }
+
+  /** Counts the pending events at most once per interval, as counting scans the outbox. */
+  private void countPending() {
+    long now = System.currentTimeMillis();
+    if (now - pendingCountedAt >= PENDING_COUNT_INTERVAL_MILLIS) {
+      pending.set(outboxStore.count());
+      pendingCountedAt = now;
+    }
+  }
+
+  private void deliver(
+      EventHookContext context, List<EventHookOutboxEntry> entries, int batchSize) {
+    EventHookOutboxEntry first = entries.get(0);
+    EventHook eventHook = context.getEventHook(first.eventHookUid());
+    Handler handler = context.getHandler(first.eventHookUid(), first.targetId());
+
+    if (eventHook == null || handler == null) {
+      log.warn(
+          "Dropping {} events of removed or disabled event hook '{}' or target '{}'",
+          entries.size(),
+          first.eventHookUid(),
+          first.targetId());
+      outboxStore.delete(entries);
+      dropped.increment(entries.size());
+      return;
+    }
+
+    for (int i = 0; i < entries.size(); i += batchSize) {
+      List<EventHookOutboxEntry> batch =
+          entries.subList(i, Math.min(entries.size(), i + batchSize));
+      try {
+        handler.run(eventHook, batch.stream().map(EventHookOutboxEntry::payload).toList());
+        outboxStore.delete(batch);
+        delivered.increment(batch.size());
+      } catch (RuntimeException ex) {
+        if (retryOrDrop(eventHook, batch, ex)) {
+          // later events are claimed again once the failed batch was delivered or dropped
+          List<EventHookOutboxEntry> later = entries.subList(i + batch.size(), entries.size());
+          if (!later.isEmpty()) {
+            outboxStore.release(later);
+          }
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * @return true if the batch is retried, false if it was dropped
+   */
+  private boolean retryOrDrop(
+      EventHook eventHook, List<EventHookOutboxEntry> batch, RuntimeException ex) {
+    int attempts = batch.stream().mapToInt(EventHookOutboxEntry::attempts).max().orElse(0) + 1;
+    int maxAttempts =
+        Integer.parseInt(config.getProperty(ConfigurationKey.EVENT_HOOKS_MAX_ATTEMPTS));
+
+    if (attempts >= maxAttempts) {
+      log.error(
+          "Dropping {} events of event hook '{}' after {} failed attempts: {}",
+          batch.size(),
+          eventHook.getUid(),
+          attempts,
+          ex.getMessage());
+      outboxStore.delete(batch);
+      dropped.increment(batch.size());
+      return false;
+    }
+
+    long delay = Math.min(MAX_BACKOFF_SECONDS, 1L << Math.min(attempts, 20));
+    log.warn(
+        "Delivery of {} events of event hook '{}' failed, retrying in {}s: {}",
+        batch.size(),
+        eventHook.getUid(),
+        delay,
+        ex.getMessage());
+    outboxStore.retry(batch, delay);
+    failed.increment(batch.size());
+    return true;
+  }
+
+  private static Counter counter(MeterRegistry registry, String result) {
+    return Counter.builder("eventhook.delivery")
+        .description("Number of events by delivery result")
+        .tag("result", result)
+        .register(registry);
+  }
+}
@@ -33,10 +33,12 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.hisp.dhis.eventhook.handlers.ConsoleHandler;
 import org.hisp.dhis.eventhook.handlers.JmsHandler;
 import org.hisp.dhis.eventhook.handlers.KafkaHandler;
@@ -47,7 +49,6 @@ import org.hisp.dhis.eventhook.targets.KafkaTarget;
 import org.hisp.dhis.eventhook.targets.WebhookTarget;
 import org.hisp.dhis.fieldfiltering.FieldFilterService;
 import org.springframework.context.event.EventListener;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.event.TransactionPhase;
 import org.springframework.transaction.event.TransactionalEventListener;
@@ -55,6 +56,7 @@ import org.springframework.transaction.event.TransactionalEventListener;
 /**
  * @author Morten Olav Hansen
  */
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class EventHookListener {
@@ -66,41 +68,62 @@ public class EventHookListener {
 
   private final EventHookService eventHookService;
 
-  @Async("eventHookTaskExecutor")
+  private final EventHookOutboxStore outboxStore;
+
+  /**
+   * Serializes the event for each matching event hook and adds it to the outbox for each of the
+   * hook's targets. This runs in the transaction that published the event, so that events are only
+   * stored when the change that caused them is committed. Failures are logged and never fail that
+   * transaction. Delivery is done by {@link EventHookDispatcher}.
+   */
   @TransactionalEventListener(
       classes = Event.class,
-      phase = TransactionPhase.AFTER_COMMIT,
+      phase = TransactionPhase.BEFORE_COMMIT,
       fallbackExecution = true)
-  public void eventListener(Event event) throws JsonProcessingException {
+  public void eventListener(Event event) {
     for (EventHook eventHook : eventHookContext.getEventHooks()) {
       if (event.getPath().startsWith(eventHook.getSource().getPath())) {
         if (!eventHookContext.hasTarget(eventHook.getUid())) {
           continue;
         }
 
-        if (event.getObject() instanceof Collection) {
-          List<ObjectNode> objects = new ArrayList<>();
-
-          for (Object object : ((Collection<?>) event.getObject())) {
-            objects.add(fieldFilterService.toObjectNode(object, eventHook.getSource().getFields()));
-          }
-
-          event = event.withObject(objects);
-        } else {
-          ObjectNode objectNode =
-              fieldFilterService.toObjectNode(event.getObject(), eventHook.getSource().getFields());
-          event = event.withObject(objectNode);
+        try {
+          String payload = objectMapper.writeValueAsString(filter(eventHook, event));
+
+          outboxStore.add(
+              eventHook.getUid(), eventHookContext.getTarget(eventHook.getUid()).keySet(), payload);
+        } catch (JsonProcessingException | RuntimeException ex) {
+          log.error(
+              "Could not add event '{}' of event hook '{}' to the outbox",
+              event.getPath(),
+              eventHook.getUid(),
+              ex);
         }
+      }
+    }
+  }
 
-        String payload = objectMapper.writeValueAsString(event);
-
-        List<Handler> handlers = eventHookContext.getTarget(eventHook.getUid());
+  private Event filter(EventHook eventHook, Event event) {
+    if (event.getObject() instanceof Collection) {
+      List<ObjectNode> objects = new ArrayList<>();
 
-        for (Handler handler : handlers) {
-          handler.run(eventHook, event, payload);
-        }
+      for (Object object : ((Collection<?>) event.getObject())) {
+        objects.add(fieldFilterService.toObjectNode(object, eventHook.getSource().getFields()));
       }
+
+      return event.withObject(objects);
     }
+
+    ObjectNode objectNode =
+        fieldFilterService.toObjectNode(event.getObject(), eventHook.getSource().getFields());
+    return event.withObject(objectNode);
+  }
+
+  /**
+   * @return the event hooks and their target handlers currently in use
+   */
+  public EventHookContext getEventHookContext() {
+    return eventHookContext;
   }
 
   @PostConstruct
@@ -109,24 +132,33 @@ public class EventHookListener {
     eventHookContext.closeTargets();
 
     List<EventHook> eventHooks = eventHookService.getAll();
-    Map<String, List<Handler>> targets = new HashMap<>();
+    Map<String, Map<String, Handler>> targets = new HashMap<>();
 
     for (EventHook eh : eventHooks) {
       if (eh.isDisabled()) {
         continue;
       }
 
-      targets.put(eh.getUid(), new ArrayList<>());
+      Map<String, Handler> handlers = new LinkedHashMap<>();
+      targets.put(eh.getUid(), handlers);
 
       for (Target target : eh.getTargets()) {
+        if (handlers.containsKey(target.getClientId())) {
+          log.warn(
+              "Ignoring target of event hook '{}' with duplicate client ID '{}'",
+              eh.getUid(),
+              target.getClientId());
+          continue;
+        }
+
         if (WebhookTarget.TYPE.equals(target.getType())) {
-          targets.get(eh.getUid()).add(new WebhookHandler((WebhookTarget) target));
+          handlers.put(target.getClientId(), new WebhookHandler((WebhookTarget) target));
         } else if (ConsoleTarget.TYPE.equals(target.getType())) {
-          targets.get(eh.getUid()).add(new ConsoleHandler((ConsoleTarget) target));
+          handlers.put(target.getClientId(), new ConsoleHandler((ConsoleTarget) target));
         } else if (JmsTarget.TYPE.equals(target.getType())) {
-          targets.get(eh.getUid()).add(new JmsHandler((JmsTarget) target));
+          handlers.put(target.getClientId(), new JmsHandler((JmsTarget) target));
         } else if (KafkaTarget.TYPE.equals(target.getType())) {
-          targets.get(eh.getUid()).add(new KafkaHandler((KafkaTarget) target));
+          handlers.put(target.getClientId(), new KafkaHandler((KafkaTarget) target));
         }
       }
     }
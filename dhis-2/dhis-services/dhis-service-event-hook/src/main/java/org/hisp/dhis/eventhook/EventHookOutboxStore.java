@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.eventhook;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Persists events which are to be delivered to event hook targets, so that delivery survives
+ * restarts and target outages. Entries are written in the transaction which caused the event.
+ */
+@Repository
+@RequiredArgsConstructor
+public class EventHookOutboxStore {
+  /** Seconds a claimed entry is hidden from other pollers while it is being delivered. */
+  private static final int CLAIM_LEASE_SECONDS = 300;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Adds entries for the given payloads, joining the current transaction if there is one. A failed
+   * insert is rolled back to a savepoint, so that it does not abort the surrounding transaction.
+   *
+   * @param eventHookUid the UID of the event hook
+   * @param targetIds the client IDs of the targets to deliver to
+   * @param payload the serialized event
+   */
+  public void add(String eventHookUid, Collection<String> targetIds, String payload) {
+    jdbcTemplate.execute(
+        (ConnectionCallback<Void>)
+            connection -> {
+              Savepoint savepoint = connection.getAutoCommit() ? null : connection.setSavepoint();
+
+              try (PreparedStatement statement =
+                  connection.prepareStatement(
+                      "insert into eventhookoutbox (eventhookuid, targetid, payload) values (?, ?, ?)")) {
+                for (String targetId : targetIds) {
+                  statement.setString(1, eventHookUid);
+                  statement.setString(2, targetId);
+                  statement.setString(3, payload);
+                  statement.addBatch();
+                }
+                statement.executeBatch();
+              } catch (SQLException ex) {
+                if (savepoint != null) {
+                  connection.rollback(savepoint);
+                }
+                throw ex;
+              }
+
+              if (savepoint != null) {
+                connection.releaseSavepoint(savepoint);
+              }
+              return null;
+            });
+  }
+
+  /**
+   * Claims entries which are due for delivery. Claimed entries are not returned by other claims
+   * until their lease expires, so that several nodes can deliver concurrently. An entry is only
+   * claimed when no earlier entry of the same target is waiting for a retry or claimed, so that the
+   * events of a target are delivered in order.
+   *
+   * @param limit max number of entries to claim
+   * @return the claimed entries ordered by ID
+   */
+  public List<EventHookOutboxEntry> claimDue(int limit) {
+    String sql =
+        "update eventhookoutbox o set nextattempt = now() + "
+            + CLAIM_LEASE_SECONDS
+            + " * interval '1 second' "
+            + "from (select e.id from eventhookoutbox e where e.nextattempt <= now() "
+            + "and not exists (select 1 from eventhookoutbox p "
+            + "where p.eventhookuid = e.eventhookuid and p.targetid = e.targetid "
+            + "and p.id < e.id and p.nextattempt > now()) "
+            + "order by e.id limit ? for update skip locked) c "
+            + "where o.id = c.id "
+            + "returning o.id, o.eventhookuid, o.targetid, o.payload, o.attempts";
+
+    return jdbcTemplate
+        .query(
+            sql,
+            (rs, rowNum) ->
+                new EventHookOutboxEntry(
+                    rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getInt(5)),
+            limit)
+        .stream()
+        .sorted(Comparator.comparingLong(EventHookOutboxEntry::id))
+        .toList();
+  }
+
+  /**
+   * Removes delivered or dropped entries.
+   *
+   * @param entries the entries to remove
+   */
+  public void delete(List<EventHookOutboxEntry> entries) {
+    jdbcTemplate.batchUpdate(
+        "delete from eventhookoutbox where id = ?",
+        entries.stream().map(entry -> new Object[] {entry.id()}).toList());
+  }
+
+  /**
+   * Records a failed delivery attempt and makes the entries due again after the given delay.
+   *
+   * @param entries the entries which failed
+   * @param delaySeconds seconds until the next attempt
+   */
+  public void retry(List<EventHookOutboxEntry> entries, long delaySeconds) {
+    jdbcTemplate.batchUpdate(
+        "update eventhookoutbox set attempts = attempts + 1, "
+            + "nextattempt = now() + ? * interval '1 second' where id = ?",
+        entries.stream().map(entry -> new Object[] {delaySeconds, entry.id()}).toList());
+  }
+
+  /**
+   * Makes claimed entries which were not attempted due again, without counting an attempt.
+   *
+   * @param entries the entries to release
+   */
+  public void release(List<EventHookOutboxEntry> entries) {
+    jdbcTemplate.batchUpdate(
+        "update eventhookoutbox set nextattempt = now() where id = ?",
+        entries.stream().map(entry -> new Object[] {entry.id()}).toList());
+  }
+
+  /**
+   * @return the number of entries waiting for delivery
+   */
+  public long count() {
+    Long count = jdbcTemplate.queryForObject("select count(*) from eventhookoutbox", Long.class);
+    return count == null ? 0 : count;
+  }
+}
@@ -27,6 +27,8 @@
  */
 package org.hisp.dhis.eventhook;
 
+import java.util.List;
+
 /**
  * @author Morten Olav Hansen
  */
@@ -34,6 +36,17 @@ package org.hisp.dhis.eventhook;
 public interface Handler extends AutoCloseable {
   void run(EventHook eventHook, Event event, String payload);
 
+  /**
+   * Delivers a batch of serialized events. Throws an exception if the delivery failed and should be
+   * retried.
+   *
+   * @param eventHook the event hook
+   * @param payloads the serialized events
+   */
+  default void run(EventHook eventHook, List<String> payloads) {
+    payloads.forEach(payload -> run(eventHook, null, payload));
+  }
+
   @Override
   default void close() {}
 }
@@ -116,6 +116,7 @@ public class JmsHandler implements Handler {
           "Could not send message to JMS target: "
               + target.getBrokerUrl()
               + ", check and validate that your broker is up and running on the correct address");
+      throw ex;
     }
   }
 
@@ -27,10 +27,14 @@
  */
 package org.hisp.dhis.eventhook.handlers;
 
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.hisp.dhis.eventhook.Event;
 import org.hisp.dhis.eventhook.EventHook;
@@ -98,6 +102,32 @@ public class KafkaHandler implements Handler {
     producer.send(new ProducerRecord<>(target.getTopic(), null, payload));
   }
 
+  /** Sends all events of the batch before waiting for their acknowledgements. */
+  @Override
+  public void run(EventHook eventHook, List<String> payloads) {
+    if (producer == null) {
+      payloads.forEach(payload -> run(eventHook, null, payload));
+      return;
+    }
+
+    List<Future<RecordMetadata>> sent =
+        payloads.stream()
+            .map(payload -> producer.send(new ProducerRecord<>(target.getTopic(), null, payload)))
+            .toList();
+
+    try {
+      for (Future<RecordMetadata> future : sent) {
+        future.get();
+      }
+    } catch (ExecutionException ex) {
+      throw new IllegalStateException(
+          "Could not send to Kafka topic " + target.getTopic(), ex.getCause());
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while sending to Kafka", ex);
+    }
+  }
+
   @Override
   public void close() {
     if (producer != null) {
@@ -27,6 +27,7 @@
  */
 package org.hisp.dhis.eventhook.handlers;
 
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.http.client.HttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
@@ -39,7 +40,6 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
-import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
 /**
@@ -59,6 +59,17 @@ public class WebhookHandler implements Handler {
 
   @Override
   public void run(EventHook eventHook, Event event, String payload) {
+    post(eventHook, payload);
+  }
+
+  /** Posts a batch of more than one event as a JSON array of the events. */
+  @Override
+  public void run(EventHook eventHook, List<String> payloads) {
+    post(
+        eventHook, payloads.size() == 1 ? payloads.get(0) : "[" + String.join(",", payloads) + "]");
+  }
+
+  private void post(EventHook eventHook, String body) {
     HttpHeaders httpHeaders = new HttpHeaders();
     httpHeaders.setContentType(MediaType.parseMediaType(webhookTarget.getContentType()));
     httpHeaders.setAll(webhookTarget.getHeaders());
@@ -67,20 +78,16 @@ public class WebhookHandler implements Handler {
       webhookTarget.getAuth().apply(httpHeaders);
     }
 
-    HttpEntity<String> httpEntity = new HttpEntity<>(payload, httpHeaders);
+    HttpEntity<String> httpEntity = new HttpEntity<>(body, httpHeaders);
 
-    try {
-      ResponseEntity<String> response =
-          restTemplate.postForEntity(webhookTarget.getUrl(), httpEntity, String.class);
+    ResponseEntity<String> response =
+        restTemplate.postForEntity(webhookTarget.getUrl(), httpEntity, String.class);
 
-      log.info(
-          "EventHook '{}' response status '{}' and body: {}",
-          eventHook.getUid(),
-          response.getStatusCode().name(),
-          response.getBody());
-    } catch (RestClientException ex) {
-      log.error(ex.getMessage());
-    }
+    log.info(
+        "EventHook '{}' response status '{}' and body: {}",
+        eventHook.getUid(),
+        response.getStatusCode().name(),
+        response.getBody());
   }
 
   private void configure(RestTemplate template) {
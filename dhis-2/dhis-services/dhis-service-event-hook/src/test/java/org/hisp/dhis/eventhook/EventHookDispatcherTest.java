@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.eventhook;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+@ExtendWith(MockitoExtension.class)
+class EventHookDispatcherTest {
+  private static final String HOOK = "ehUid000001";
+
+  private static final String TARGET = "dhis2-console-a";
+
+  @Mock private EventHookOutboxStore outboxStore;
+
+  @Mock private EventHookListener eventHookListener;
+
+  @Mock private DhisConfigurationProvider config;
+
+  @Mock private ObjectProvider<MeterRegistry> meterRegistry;
+
+  @Mock private Handler handler;
+
+  private EventHook eventHook;
+
+  private EventHookDispatcher dispatcher;
+
+  @BeforeEach
+  void setUp() {
+    lenient().when(config.getProperty(ConfigurationKey.EVENT_HOOKS_BATCH_SIZE)).thenReturn("2");
+    lenient().when(config.getProperty(ConfigurationKey.EVENT_HOOKS_MAX_ATTEMPTS)).thenReturn("3");
+    when(meterRegistry.getIfAvailable(any())).thenReturn(new SimpleMeterRegistry());
+
+    eventHook = new EventHook();
+    eventHook.setUid(HOOK);
+    lenient()
+        .when(eventHookListener.getEventHookContext())
+        .thenReturn(
+            EventHookContext.builder()
+                .eventHooks(List.of(eventHook))
+                .targets(Map.of(HOOK, Map.of(TARGET, handler)))
+                .build());
+
+    dispatcher =
+        new EventHookDispatcher(
+            outboxStore, eventHookListener, config, Runnable::run, meterRegistry);
+  }
+
+  @Test
+  void testDeliversEventsOfTargetInOrderedBatches() {
+    List<EventHookOutboxEntry> entries = entries(TARGET, 0, 3);
+    when(outboxStore.claimDue(anyInt())).thenReturn(entries);
+
+    assertEquals(3, dispatcher.dispatch());
+
+    verify(handler).run(eventHook, List.of("p1", "p2"));
+    verify(handler).run(eventHook, List.of("p3"));
+    verify(outboxStore).delete(entries.subList(0, 2));
+    verify(outboxStore).delete(entries.subList(2, 3));
+    verify(outboxStore, never()).retry(anyList(), anyLong());
+  }
+
+  @Test
+  void testFailedBatchHoldsBackLaterEventsOfTarget() {
+    List<EventHookOutboxEntry> entries = entries(TARGET, 0, 5);
+    when(outboxStore.claimDue(anyInt())).thenReturn(entries);
+    doThrow(new IllegalStateException("unavailable"))
+        .when(handler)
+        .run(eventHook, List.of("p1", "p2"));
+
+    dispatcher.dispatch();
+
+    verify(handler, times(1)).run(any(EventHook.class), anyList());
+    verify(outboxStore).retry(entries.subList(0, 2), 2);
+    verify(outboxStore).release(entries.subList(2, 5));
+    verify(outboxStore, never()).delete(anyList());
+  }
+
+  @Test
+  void testDroppedBatchDoesNotHoldBackLaterEvents() {
+    List<EventHookOutboxEntry> entries = entries(TARGET, 2, 3);
+    when(outboxStore.claimDue(anyInt())).thenReturn(entries);
+    doThrow(new IllegalStateException("unavailable"))
+        .when(handler)
+        .run(eventHook, List.of("p1", "p2"));
+
+    dispatcher.dispatch();
+
+    verify(outboxStore).delete(entries.subList(0, 2));
+    verify(handler).run(eventHook, List.of("p3"));
+    verify(outboxStore).delete(entries.subList(2, 3));
+    verify(outboxStore, never()).retry(anyList(), anyLong());
+    verify(outboxStore, never()).release(anyList());
+  }
+
+  @Test
+  void testDropsEventsOfRemovedTarget() {
+    List<EventHookOutboxEntry> entries = entries("dhis2-console-removed", 0, 2);
+    when(outboxStore.claimDue(anyInt())).thenReturn(entries);
+
+    dispatcher.dispatch();
+
+    verify(outboxStore).delete(entries);
+    verify(handler, never()).run(any(EventHook.class), anyList());
+  }
+
+  @Test
+  void testCountsPendingEventsAtMostOncePerInterval() {
+    when(outboxStore.claimDue(anyInt())).thenReturn(List.of());
+
+    assertEquals(0, dispatcher.dispatch());
+    assertEquals(0, dispatcher.dispatch());
+
+    verify(outboxStore, times(1)).count();
+  }
+
+  private static List<EventHookOutboxEntry> entries(String targetId, int attempts, int count) {
+    return IntStream.rangeClosed(1, count)
+        .mapToObj(i -> new EventHookOutboxEntry(i, HOOK, targetId, "p" + i, attempts))
+        .toList();
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.eventhook;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.util.List;
+import java.util.Set;
+import org.hisp.dhis.eventhook.targets.ConsoleTarget;
+import org.hisp.dhis.fieldfiltering.FieldFilterService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+@ExtendWith(MockitoExtension.class)
+class EventHookListenerTest {
+  private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+  @Mock private FieldFilterService fieldFilterService;
+
+  @Mock private EventHookService eventHookService;
+
+  @Mock private EventHookOutboxStore outboxStore;
+
+  private EventHookListener listener;
+
+  @BeforeEach
+  void setUp() {
+    EventHook eventHook = new EventHook();
+    eventHook.setUid("ehUid000001");
+    eventHook.setSource(new Source().setPath("metadata").setFields("id"));
+    eventHook.setTargets(
+        List.of(
+            new ConsoleTarget().setClientId("client-a"),
+            new ConsoleTarget().setClientId("client-b"),
+            new ConsoleTarget().setClientId("client-a")));
+    when(eventHookService.getAll()).thenReturn(List.of(eventHook));
+
+    listener =
+        new EventHookListener(objectMapper, fieldFilterService, eventHookService, outboxStore);
+    listener.reload();
+  }
+
+  @Test
+  void testReloadKeysHandlersByClientId() {
+    assertEquals(
+        Set.of("client-a", "client-b"),
+        listener.getEventHookContext().getTarget("ehUid000001").keySet());
+  }
+
+  @Test
+  void testEventIsAddedToOutboxForEachTarget() {
+    when(fieldFilterService.toObjectNode(any(), eq("id")))
+        .thenReturn(objectMapper.createObjectNode().put("id", "abc"));
+
+    listener.eventListener(Event.builder().path("metadata.dataElement").object("de").build());
+
+    verify(outboxStore).add(eq("ehUid000001"), eq(Set.of("client-a", "client-b")), anyString());
+  }
+
+  @Test
+  void testFailedOutboxInsertDoesNotFailCaller() {
+    when(fieldFilterService.toObjectNode(any(), eq("id")))
+        .thenReturn(objectMapper.createObjectNode());
+    doThrow(new DataIntegrityViolationException("insert failed"))
+        .when(outboxStore)
+        .add(anyString(), anyCollection(), anyString());
+
+    assertDoesNotThrow(
+        () ->
+            listener.eventListener(
+                Event.builder().path("metadata.dataElement").object("de").build()));
+  }
+
+  @Test
+  void testFailedSerializationDoesNotFailCaller() {
+    when(fieldFilterService.toObjectNode(any(), eq("id")))
+        .thenThrow(new IllegalStateException("not serializable"));
+
+    assertDoesNotThrow(
+        () ->
+            listener.eventListener(
+                Event.builder().path("metadata.dataElement").object("de").build()));
+    verify(outboxStore, never()).add(anyString(), anyCollection(), anyString());
+  }
+}
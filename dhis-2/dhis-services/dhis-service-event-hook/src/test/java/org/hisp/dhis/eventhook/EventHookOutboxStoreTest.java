@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.eventhook;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+@ExtendWith(MockitoExtension.class)
+class EventHookOutboxStoreTest {
+  @Mock private JdbcTemplate jdbcTemplate;
+
+  @Mock private Connection connection;
+
+  @Mock private PreparedStatement statement;
+
+  @Mock private Savepoint savepoint;
+
+  private EventHookOutboxStore store;
+
+  @BeforeEach
+  void setUp() {
+    store = new EventHookOutboxStore(jdbcTemplate);
+  }
+
+  @Test
+  void testAddInsertsOneEntryPerTargetWithinSavepoint() throws SQLException {
+    when(connection.getAutoCommit()).thenReturn(false);
+    when(connection.setSavepoint()).thenReturn(savepoint);
+    when(connection.prepareStatement(anyString())).thenReturn(statement);
+
+    store.add("ehUid000001", List.of("client-a", "client-b"), "{}");
+    runConnectionCallback();
+
+    verify(statement).setString(2, "client-a");
+    verify(statement).setString(2, "client-b");
+    verify(statement, times(2)).addBatch();
+    verify(statement).executeBatch();
+    verify(connection).releaseSavepoint(savepoint);
+    verify(connection, never()).rollback(any(Savepoint.class));
+  }
+
+  @Test
+  void testAddRollsBackToSavepointOnFailure() throws SQLException {
+    when(connection.getAutoCommit()).thenReturn(false);
+    when(connection.setSavepoint()).thenReturn(savepoint);
+    when(connection.prepareStatement(anyString())).thenReturn(statement);
+    doThrow(new SQLException("insert failed")).when(statement).executeBatch();
+
+    store.add("ehUid000001", List.of("client-a"), "{}");
+
+    assertThrows(SQLException.class, this::runConnectionCallback);
+    verify(connection).rollback(savepoint);
+    verify(connection, never()).releaseSavepoint(savepoint);
+  }
+
+  @Test
+  void testAddWithoutTransactionUsesNoSavepoint() throws SQLException {
+    when(connection.getAutoCommit()).thenReturn(true);
+    when(connection.prepareStatement(anyString())).thenReturn(statement);
+
+    store.add("ehUid000001", List.of("client-a"), "{}");
+    runConnectionCallback();
+
+    verify(statement).executeBatch();
+    verify(connection, never()).setSavepoint();
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testClaimDueOrdersByIdAndSkipsTargetsWithEarlierPendingEntries() {
+    EventHookOutboxEntry first = new EventHookOutboxEntry(1, "ehUid000001", "client-a", "{}", 0);
+    EventHookOutboxEntry second = new EventHookOutboxEntry(2, "ehUid000001", "client-a", "{}", 0);
+    ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+    when(jdbcTemplate.query(sql.capture(), any(RowMapper.class), eq(50)))
+        .thenReturn(List.of(second, first));
+
+    assertEquals(List.of(first, second), store.claimDue(50));
+    assertTrue(sql.getValue().contains("p.id < e.id and p.nextattempt > now()"));
+    assertTrue(sql.getValue().contains("for update skip locked"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testRetryCountsAttemptAndReleaseDoesNot() {
+    List<EventHookOutboxEntry> entries =
+        List.of(new EventHookOutboxEntry(7, "ehUid000001", "client-a", "{}", 1));
+
+    store.retry(entries, 4);
+    store.release(entries);
+
+    ArgumentCaptor<List<Object[]>> args = ArgumentCaptor.forClass(List.class);
+    verify(jdbcTemplate).batchUpdate(contains("attempts = attempts + 1"), args.capture());
+    assertEquals(List.of(4L, 7L), List.of(args.getValue().get(0)));
+    verify(jdbcTemplate)
+        .batchUpdate(
+            eq("update eventhookoutbox set nextattempt = now() where id = ?"), args.capture());
+    assertEquals(List.of(7L), List.of(args.getValue().get(0)));
+  }
+
+  @SuppressWarnings("unchecked")
+  private void runConnectionCallback() throws SQLException {
+    ArgumentCaptor<ConnectionCallback<Void>> callback =
+        ArgumentCaptor.forClass(ConnectionCallback.class);
+    verify(jdbcTemplate).execute(callback.capture());
+    callback.getValue().doInConnection(connection);
+  }
+}
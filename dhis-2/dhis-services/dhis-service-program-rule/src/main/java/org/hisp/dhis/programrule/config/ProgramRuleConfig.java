@@ -27,10 +27,16 @@
  */
 package org.hisp.dhis.programrule.config;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.hisp.dhis.constant.ConstantService;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.programrule.ProgramRuleVariableService;
 import org.hisp.dhis.programrule.engine.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -47,19 +53,40 @@ public class ProgramRuleConfig {
 
   @Autowired private ConstantService constantService;
 
+  @Autowired private CompiledProgramRuleSetCache compiledProgramRuleSetCache;
+
+  /**
+   * Executor on which the rule engines evaluate many enrollments concurrently. Its size bounds the
+   * number of concurrent evaluations of all callers together.
+   */
+  @Bean(name = "programRuleEvaluationExecutor", destroyMethod = "shutdownNow")
+  public ExecutorService programRuleEvaluationExecutor(DhisConfigurationProvider config) {
+    return Executors.newFixedThreadPool(
+        Math.max(
+            1,
+            Integer.parseInt(config.getProperty(ConfigurationKey.SYSTEM_PROGRAM_RULE_PARALLELISM))),
+        new ThreadFactoryBuilder()
+            .setNameFormat("program-rule-evaluation-%d")
+            .setDaemon(true)
+            .build());
+  }
+
   /**
    * This bean is used in the system when an event is intercepted by {@link
    * ProgramRuleEngineListener}. Only the notification rule actions are executed.
    */
   @Bean("notificationRuleEngine")
   public ProgramRuleEngine notificationRuleEngine(
-      NotificationImplementableRuleService notificationImplementableRuleService) {
+      NotificationImplementableRuleService notificationImplementableRuleService,
+      @Qualifier("programRuleEvaluationExecutor") ExecutorService programRuleEvaluationExecutor) {
     return new ProgramRuleEngine(
         programRuleEntityMapperService,
         programRuleVariableService,
         constantService,
         notificationImplementableRuleService,
-        supplementaryDataProvider);
+        supplementaryDataProvider,
+        compiledProgramRuleSetCache,
+        programRuleEvaluationExecutor);
   }
 
   /**
@@ -67,12 +94,15 @@ public class ProgramRuleConfig {
    */
   @Bean("serviceTrackerRuleEngine")
   public ProgramRuleEngine serverSideRuleEngine(
-      ServerSideImplementableRuleService serverSideImplementableRuleService) {
+      ServerSideImplementableRuleService serverSideImplementableRuleService,
+      @Qualifier("programRuleEvaluationExecutor") ExecutorService programRuleEvaluationExecutor) {
     return new ProgramRuleEngine(
         programRuleEntityMapperService,
         programRuleVariableService,
         constantService,
         serverSideImplementableRuleService,
-        supplementaryDataProvider);
+        supplementaryDataProvider,
+        compiledProgramRuleSetCache,
+        programRuleEvaluationExecutor);
   }
 }
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.programrule.engine;
+
+import static java.util.stream.Collectors.joining;
+
+import java.util.List;
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.common.IdentifiableObject;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.option.Option;
+import org.hisp.dhis.option.OptionSet;
+import org.hisp.dhis.program.Program;
+import org.hisp.dhis.programrule.ProgramRule;
+import org.hisp.dhis.programrule.ProgramRuleAction;
+import org.hisp.dhis.programrule.ProgramRuleStore;
+import org.hisp.dhis.programrule.ProgramRuleVariable;
+import org.hisp.dhis.programrule.ProgramRuleVariableService;
+import org.hisp.dhis.trackedentity.TrackedEntityAttribute;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caches the {@link CompiledProgramRuleSet} for each program and set of rules so that the rules and
+ * variables are not converted to the rule engine model again for every evaluation.
+ *
+ * <p>The cache key includes a version of the rules, their actions and the variables of the program
+ * and of the objects the variables refer to, so that changes made on any node of a cluster are
+ * picked up without invalidating the cache. The version is read with a single query, see {@link
+ * ProgramRuleStore#getMetadataVersion(Program)}. All entries of this node are in addition
+ * invalidated when any of the metadata the conversion is based on is changed.
+ */
+@Slf4j
+@Component
+public class CompiledProgramRuleSetCache
+    implements PostCommitInsertEventListener,
+        PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+  private static final List<Class<?>> SOURCE_TYPES =
+      List.of(
+          ProgramRule.class,
+          ProgramRuleAction.class,
+          ProgramRuleVariable.class,
+          DataElement.class,
+          TrackedEntityAttribute.class,
+          OptionSet.class,
+          Option.class);
+
+  @PersistenceUnit private EntityManagerFactory emf;
+
+  private final ProgramRuleEntityMapperService programRuleEntityMapperService;
+
+  private final ProgramRuleVariableService programRuleVariableService;
+
+  private final ProgramRuleStore programRuleStore;
+
+  private final Cache<CompiledProgramRuleSet> cache;
+
+  public CompiledProgramRuleSetCache(
+      ProgramRuleEntityMapperService programRuleEntityMapperService,
+      ProgramRuleVariableService programRuleVariableService,
+      ProgramRuleStore programRuleStore,
+      CacheProvider cacheProvider) {
+    this.programRuleEntityMapperService = programRuleEntityMapperService;
+    this.programRuleVariableService = programRuleVariableService;
+    this.programRuleStore = programRuleStore;
+    this.cache = cacheProvider.createCompiledProgramRuleSetCache();
+  }
+
+  @PostConstruct
+  protected void init() {
+    EventListenerRegistry registry =
+        emf.unwrap(SessionFactoryImpl.class)
+            .getServiceRegistry()
+            .getService(EventListenerRegistry.class);
+
+    registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+    registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+    registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+  }
+
+  /**
+   * @param program the program the rules belong to
+   * @param programRules the rules to evaluate
+   * @return the rules and the variables of the program converted to the rule engine model
+   */
+  public CompiledProgramRuleSet get(Program program, List<ProgramRule> programRules) {
+    String key =
+        program.getUid()
+            + ":"
+            + programRules.stream().map(IdentifiableObject::getUid).sorted().collect(joining(","))
+            + ":"
+            + programRuleStore.getMetadataVersion(program);
+    return cache.get(
+        key,
+        k -> compile(programRules, programRuleVariableService.getProgramRuleVariable(program)));
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  private CompiledProgramRuleSet compile(
+      List<ProgramRule> programRules, List<ProgramRuleVariable> programRuleVariables) {
+    return new CompiledProgramRuleSet(
+        List.copyOf(programRuleEntityMapperService.toMappedProgramRules(programRules)),
+        List.copyOf(
+            programRuleEntityMapperService.toMappedProgramRuleVariables(programRuleVariables)));
+  }
+
+  private void onChange(Object entity) {
+    if (SOURCE_TYPES.stream().anyMatch(type -> type.isInstance(entity))) {
+      log.debug("Invalidating compiled program rule sets after change of {}", entity);
+      invalidateAll();
+    }
+  }
+
+  @Override
+  public boolean requiresPostCommitHanding(EntityPersister persister) {
+    return SOURCE_TYPES.contains(persister.getMappedClass());
+  }
+
+  @Override
+  public void onPostInsert(PostInsertEvent event) {
+    onChange(event.getEntity());
+  }
+
+  @Override
+  public void onPostUpdate(PostUpdateEvent event) {
+    onChange(event.getEntity());
+  }
+
+  @Override
+  public void onPostDelete(PostDeleteEvent event) {
+    onChange(event.getEntity());
+  }
+
+  @Override
+  public void onPostInsertCommitFailed(PostInsertEvent event) {
+    // nothing changed
+  }
+
+  @Override
+  public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    // nothing changed
+  }
+
+  @Override
+  public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    // nothing changed
+  }
+}
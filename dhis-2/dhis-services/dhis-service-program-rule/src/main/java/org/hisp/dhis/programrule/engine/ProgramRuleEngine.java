@@ -28,6 +28,10 @@
 package org.hisp.dhis.programrule.engine;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import lombok.RequiredArgsConstructor;
@@ -67,6 +71,20 @@ public class ProgramRuleEngine {
 
   @Nonnull private final SupplementaryDataProvider supplementaryDataProvider;
 
+  @Nonnull private final CompiledProgramRuleSetCache compiledProgramRuleSetCache;
+
+  /** Bounded executor shared by all rule engines to evaluate many enrollments concurrently. */
+  @Nonnull private final ExecutorService evaluationExecutor;
+
+  /**
+   * An enrollment together with the events and attribute values to use when evaluating the rules of
+   * its program.
+   */
+  public record EnrollmentEvaluation(
+      Enrollment enrollment,
+      Set<Event> events,
+      List<TrackedEntityAttributeValue> trackedEntityAttributeValues) {}
+
   public List<RuleEffect> evaluate(
       Enrollment enrollment, Set<Event> events, List<ProgramRule> rules) {
     return evaluateProgramRules(
@@ -94,6 +112,61 @@ public class ProgramRuleEngine {
         rules);
   }
 
+  /**
+   * Evaluates the rules for many enrollments and their events. The rule engines are prepared one by
+   * one as this needs access to the persisted objects while the evaluations, which only use the
+   * rule engine model, run in parallel on the evaluation executor.
+   *
+   * @param evaluations the enrollments to evaluate
+   * @return the effects of all evaluations in the order of the enrollments
+   */
+  public List<RuleEffects> evaluateEnrollmentsAndEvents(List<EnrollmentEvaluation> evaluations) {
+    List<RuleEngine> ruleEngines = new ArrayList<>(evaluations.size());
+
+    for (EnrollmentEvaluation evaluation : evaluations) {
+      Enrollment enrollment = evaluation.enrollment();
+      List<ProgramRule> rules =
+          getProgramRules(
+              enrollment.getProgram(),
+              evaluation.events().stream()
+                  .map(Event::getProgramStage)
+                  .distinct()
+                  .collect(Collectors.toList()));
+      try {
+        ruleEngines.add(
+            getRuleEngine(
+                enrollment.getProgram(),
+                enrollment,
+                evaluation.trackedEntityAttributeValues(),
+                getRuleEvents(evaluation.events(), null),
+                rules));
+      } catch (Exception e) {
+        log.error(DebugUtils.getStackTrace(e));
+      }
+    }
+
+    List<Callable<List<RuleEffects>>> tasks = new ArrayList<>(ruleEngines.size());
+
+    for (RuleEngine ruleEngine : ruleEngines) {
+      tasks.add(() -> evaluateAll(ruleEngine));
+    }
+
+    List<RuleEffects> ruleEffects = new ArrayList<>();
+
+    try {
+      for (Future<List<RuleEffects>> evaluation : evaluationExecutor.invokeAll(tasks)) {
+        ruleEffects.addAll(evaluation.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Program rule evaluation was interrupted", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Program rule evaluation failed", e.getCause());
+    }
+
+    return ruleEffects;
+  }
+
   public List<RuleEffects> evaluateProgramEvents(Set<Event> events, Program program) {
     List<ProgramRule> rules = getProgramRules(program);
     return evaluateProgramRulesForMultipleTrackerObjects(
@@ -152,6 +225,15 @@ public class ProgramRuleEngine {
     }
   }
 
+  private static List<RuleEffects> evaluateAll(RuleEngine ruleEngine) {
+    try {
+      return ruleEngine.evaluate().call();
+    } catch (Exception e) {
+      log.error(DebugUtils.getStackTrace(e));
+      return Collections.emptyList();
+    }
+  }
+
   private RuleEngine getRuleEngine(
       Program program,
       Enrollment enrollment,
@@ -232,8 +314,7 @@ public class ProgramRuleEngine {
   }
 
   private RuleEngineContext getRuleEngineContext(Program program, List<ProgramRule> programRules) {
-    List<ProgramRuleVariable> programRuleVariables =
-        programRuleVariableService.getProgramRuleVariable(program);
+    CompiledProgramRuleSet ruleSet = compiledProgramRuleSetCache.get(program, programRules);
 
     Map<String, String> constantMap =
         constantService.getConstantMap().entrySet().stream()
@@ -245,9 +326,8 @@ public class ProgramRuleEngine {
 
     return RuleEngineContext.builder()
         .supplementaryData(supplementaryData)
-        .rules(programRuleEntityMapperService.toMappedProgramRules(programRules))
-        .ruleVariables(
-            programRuleEntityMapperService.toMappedProgramRuleVariables(programRuleVariables))
+        .rules(ruleSet.rules())
+        .ruleVariables(ruleSet.ruleVariables())
         .constantsValue(constantMap)
         .build();
   }
@@ -209,4 +209,42 @@ public class HibernateProgramRuleStore extends HibernateIdentifiableObjectStore<
 
     return getQuery(jql).getResultList();
   }
+
+  @Override
+  public String getMetadataVersion(Program program) {
+    final String sql =
+        """
+        with variable as (
+          select dataelementid, trackedentityattributeid, lastupdated
+          from programrulevariable where programid = ?),
+        variableoptionset as (
+          select optionsetid from dataelement
+          where dataelementid in (select dataelementid from variable)
+          union
+          select optionsetid from trackedentityattribute
+          where trackedentityattributeid in (select trackedentityattributeid from variable)),
+        source as (
+          select lastupdated from programrule where programid = ?
+          union all
+          select pra.lastupdated from programruleaction pra
+          join programrule pr on pr.programruleid = pra.programruleid where pr.programid = ?
+          union all
+          select lastupdated from variable
+          union all
+          select lastupdated from dataelement
+          where dataelementid in (select dataelementid from variable)
+          union all
+          select lastupdated from trackedentityattribute
+          where trackedentityattributeid in (select trackedentityattributeid from variable)
+          union all
+          select lastupdated from optionset
+          where optionsetid in (select optionsetid from variableoptionset)
+          union all
+          select lastupdated from optionvalue
+          where optionsetid in (select optionsetid from variableoptionset))
+        select count(*) || '@' || coalesce(max(lastupdated)::text, '') from source""";
+
+    long programId = program.getId();
+    return jdbcTemplate.queryForObject(sql, String.class, programId, programId, programId);
+  }
 }
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.programrule.engine;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hisp.dhis.DhisConvenienceTest;
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.cache.SimpleCacheBuilder;
+import org.hisp.dhis.program.Program;
+import org.hisp.dhis.programrule.ProgramRule;
+import org.hisp.dhis.programrule.ProgramRuleStore;
+import org.hisp.dhis.programrule.ProgramRuleVariable;
+import org.hisp.dhis.programrule.ProgramRuleVariableService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class CompiledProgramRuleSetCacheTest extends DhisConvenienceTest {
+
+  @Mock private ProgramRuleEntityMapperService programRuleEntityMapperService;
+
+  @Mock private ProgramRuleVariableService programRuleVariableService;
+
+  @Mock private ProgramRuleStore programRuleStore;
+
+  @Mock private CacheProvider cacheProvider;
+
+  private CompiledProgramRuleSetCache cache;
+
+  private Program program;
+
+  private ProgramRule ruleA;
+
+  private ProgramRule ruleB;
+
+  @BeforeEach
+  void setUp() {
+    when(cacheProvider.<CompiledProgramRuleSet>createCompiledProgramRuleSetCache())
+        .thenReturn(
+            new SimpleCacheBuilder<CompiledProgramRuleSet>()
+                .forRegion("compiledProgramRuleSetCache")
+                .withMaximumSize(10)
+                .build());
+    cache =
+        new CompiledProgramRuleSetCache(
+            programRuleEntityMapperService,
+            programRuleVariableService,
+            programRuleStore,
+            cacheProvider);
+    program = createProgram('A');
+    ruleA = createProgramRule('A', program);
+    ruleB = createProgramRule('B', program);
+  }
+
+  @Test
+  void testGet_CompiledOnceForSameRules() {
+    CompiledProgramRuleSet ruleSet = cache.get(program, List.of(ruleA, ruleB));
+
+    assertSame(ruleSet, cache.get(program, List.of(ruleB, ruleA)));
+    verify(programRuleEntityMapperService, times(1)).toMappedProgramRules(anyList());
+    verify(programRuleEntityMapperService, times(1)).toMappedProgramRuleVariables(anyList());
+  }
+
+  @Test
+  void testGet_CompiledForEachSetOfRules() {
+    cache.get(program, List.of(ruleA, ruleB));
+    cache.get(program, List.of(ruleA));
+
+    verify(programRuleEntityMapperService, times(2)).toMappedProgramRules(anyList());
+  }
+
+  @Test
+  void testOnPostUpdate_ProgramRuleChangeInvalidates() {
+    cache.get(program, List.of(ruleA));
+    cache.onPostUpdate(updateOf(ruleA));
+    cache.get(program, List.of(ruleA));
+
+    verify(programRuleEntityMapperService, times(2)).toMappedProgramRules(anyList());
+  }
+
+  @Test
+  void testGet_RecompiledWhenMetadataUpdatedElsewhere() {
+    when(programRuleStore.getMetadataVersion(program))
+        .thenReturn("3@2023-01-01 10:00:00", "3@2023-01-01 10:00:01");
+
+    cache.get(program, List.of(ruleA));
+    cache.get(program, List.of(ruleA));
+
+    verify(programRuleEntityMapperService, times(2)).toMappedProgramRules(anyList());
+  }
+
+  @Test
+  void testGet_RecompiledWhenVariableRemovedElsewhere() {
+    ProgramRuleVariable variableA = createProgramRuleVariable('A', program);
+    ProgramRuleVariable variableB = createProgramRuleVariable('B', program);
+    when(programRuleStore.getMetadataVersion(program))
+        .thenReturn("3@2023-01-01 10:00:00", "2@2023-01-01 10:00:00");
+    when(programRuleVariableService.getProgramRuleVariable(program))
+        .thenReturn(List.of(variableA, variableB), List.of(variableA));
+
+    cache.get(program, List.of(ruleA));
+    cache.get(program, List.of(ruleA));
+
+    verify(programRuleEntityMapperService)
+        .toMappedProgramRuleVariables(List.of(variableA, variableB));
+    verify(programRuleEntityMapperService).toMappedProgramRuleVariables(List.of(variableA));
+  }
+
+  @Test
+  void testGet_VariablesOnlyLoadedWhenCompiled() {
+    when(programRuleStore.getMetadataVersion(program)).thenReturn("1@2023-01-01 10:00:00");
+
+    cache.get(program, List.of(ruleA));
+    cache.get(program, List.of(ruleA));
+
+    verify(programRuleStore, times(2)).getMetadataVersion(program);
+    verify(programRuleVariableService, times(1)).getProgramRuleVariable(program);
+  }
+
+  @Test
+  void testOnPostUpdate_OtherChangeDoesNotInvalidate() {
+    cache.get(program, List.of(ruleA));
+    cache.onPostUpdate(updateOf(program));
+    cache.get(program, List.of(ruleA));
+
+    verify(programRuleEntityMapperService, times(1)).toMappedProgramRules(anyList());
+  }
+
+  private static PostUpdateEvent updateOf(Object entity) {
+    PostUpdateEvent event = mock(PostUpdateEvent.class);
+    when(event.getEntity()).thenReturn(entity);
+    return event;
+  }
+}
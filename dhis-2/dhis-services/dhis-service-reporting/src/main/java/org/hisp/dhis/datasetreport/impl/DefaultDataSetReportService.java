@@ -35,9 +35,9 @@ import static org.hisp.dhis.datasetreport.DataSetReportStore.SEPARATOR;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.stream.Collectors;
@@ -45,6 +45,7 @@ import lombok.RequiredArgsConstructor;
 import org.hisp.dhis.category.CategoryCombo;
 import org.hisp.dhis.category.CategoryOption;
 import org.hisp.dhis.category.CategoryOptionCombo;
+import org.hisp.dhis.category.CategoryService;
 import org.hisp.dhis.common.Grid;
 import org.hisp.dhis.common.GridHeader;
 import org.hisp.dhis.common.GridValue;
@@ -59,6 +60,7 @@ import org.hisp.dhis.dataset.Section;
 import org.hisp.dhis.dataset.comparator.SectionOrderComparator;
 import org.hisp.dhis.datasetreport.DataSetReportService;
 import org.hisp.dhis.datasetreport.DataSetReportStore;
+import org.hisp.dhis.datavalue.DataExportParams;
 import org.hisp.dhis.datavalue.DataValue;
 import org.hisp.dhis.datavalue.DataValueService;
 import org.hisp.dhis.i18n.I18n;
@@ -95,6 +97,8 @@ public class DefaultDataSetReportService implements DataSetReportService {
 
   private final DataValueService dataValueService;
 
+  private final CategoryService categoryService;
+
   private final DataSetReportStore dataSetReportStore;
 
   private final I18nManager i18nManager;
@@ -111,9 +115,7 @@ public class DefaultDataSetReportService implements DataSetReportService {
       Set<String> filters,
       boolean selectedUnitOnly) {
     Map<String, Object> valueMap =
-        dataSetReportStore.getAggregatedValues(dataSet, periods, orgUnit, filters);
-
-    valueMap.putAll(dataSetReportStore.getAggregatedTotals(dataSet, periods, orgUnit, filters));
+        dataSetReportStore.getAggregatedValuesAndTotals(dataSet, periods, orgUnit, filters);
 
     Map<String, Object> indicatorValueMap =
         dataSetReportStore.getAggregatedIndicatorValues(dataSet, periods, orgUnit, filters);
@@ -174,12 +176,10 @@ public class DefaultDataSetReportService implements DataSetReportService {
     List<Section> sections = new ArrayList<>(dataSet.getSections());
     sections.sort(new SectionOrderComparator());
 
-    Map<String, Object> valueMap =
-        dataSetReportStore.getAggregatedValues(dataSet, periods, unit, filters);
-    Map<String, Object> subTotalMap =
-        dataSetReportStore.getAggregatedSubTotals(dataSet, periods, unit, filters);
-    Map<String, Object> totalMap =
-        dataSetReportStore.getAggregatedTotals(dataSet, periods, unit, filters);
+    Map<String, ?> valueMap =
+        selectedUnitOnly
+            ? getSelectedUnitValues(dataSet, periods, unit)
+            : dataSetReportStore.getAggregatedValuesAndTotals(dataSet, periods, unit, filters);
 
     List<Grid> grids = new ArrayList<>();
 
@@ -241,13 +241,7 @@ public class DefaultDataSetReportService implements DataSetReportService {
             attributes.put(ATTR_DE, dataElement.getUid());
             attributes.put(ATTR_CO, optionCombo.getUid());
 
-            Object value;
-
-            if (selectedUnitOnly) {
-              value = getSelectedUnitValue(dataElement, periods, unit, optionCombo);
-            } else {
-              value = valueMap.get(dataElement.getUid() + SEPARATOR + optionCombo.getUid());
-            }
+            Object value = valueMap.get(dataElement.getUid() + SEPARATOR + optionCombo.getUid());
 
             grid.addValue(new GridValue(value, attributes));
           }
@@ -256,7 +250,7 @@ public class DefaultDataSetReportService implements DataSetReportService {
           {
             for (CategoryOption categoryOption : categoryCombo.getCategoryOptions()) {
               Object value =
-                  subTotalMap.get(dataElement.getUid() + SEPARATOR + categoryOption.getUid());
+                  valueMap.get(dataElement.getUid() + SEPARATOR + categoryOption.getUid());
 
               grid.addValue(new GridValue(value));
             }
@@ -264,7 +258,7 @@ public class DefaultDataSetReportService implements DataSetReportService {
 
           if (categoryCombo.doTotal() && !selectedUnitOnly) // Total
           {
-            Object value = totalMap.get(String.valueOf(dataElement.getUid()));
+            Object value = valueMap.get(dataElement.getUid());
 
             grid.addValue(new GridValue(value));
           }
@@ -315,24 +309,42 @@ public class DefaultDataSetReportService implements DataSetReportService {
   }
 
   /**
-   * Returns the sum of values for the list of periods, but returns null if all the values are null.
+   * Returns the sum of the raw values of the selected organisation unit for the list of periods,
+   * mapped to data element and category option combo. Values which are all null are not mapped.
    */
-  private Double getSelectedUnitValue(
-      DataElement dataElement,
-      List<Period> periods,
-      OrganisationUnit unit,
-      CategoryOptionCombo optionCombo) {
-    List<Double> values =
-        periods.stream()
-            .map(p -> dataValueService.getDataValue(dataElement, p, unit, optionCombo))
-            .filter(Objects::nonNull)
-            .map(DataValue::getValue)
-            .filter(Objects::nonNull)
-            .map(MathUtils::parseDouble)
-            .filter(Objects::nonNull)
-            .collect(Collectors.toList());
-
-    return (values.isEmpty()) ? null : values.stream().mapToDouble(Double::doubleValue).sum();
+  private Map<String, Double> getSelectedUnitValues(
+      DataSet dataSet, List<Period> periods, OrganisationUnit unit) {
+    List<DataElement> dataElements = new ArrayList<>(dataSet.getDataElements());
+
+    FilterUtils.filter(dataElements, AggregatableDataElementFilter.INSTANCE);
+
+    if (dataElements.isEmpty() || periods.isEmpty()) {
+      return new HashMap<>();
+    }
+
+    DataExportParams params =
+        new DataExportParams()
+            .setDataElements(new HashSet<>(dataElements))
+            .setPeriods(new HashSet<>(periods))
+            .setOrganisationUnits(Set.of(unit))
+            .setAttributeOptionCombos(Set.of(categoryService.getDefaultCategoryOptionCombo()));
+
+    Map<String, Double> valueMap = new HashMap<>();
+
+    for (DataValue dataValue : dataValueService.getDataValues(params)) {
+      Double value = MathUtils.parseDouble(dataValue.getValue());
+
+      if (value != null) {
+        valueMap.merge(
+            dataValue.getDataElement().getUid()
+                + SEPARATOR
+                + dataValue.getCategoryOptionCombo().getUid(),
+            value,
+            Double::sum);
+      }
+    }
+
+    return valueMap;
   }
 
   /**
@@ -35,23 +35,29 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hisp.dhis.analytics.AggregationType;
 import org.hisp.dhis.analytics.AnalyticsService;
 import org.hisp.dhis.analytics.DataQueryParams;
 import org.hisp.dhis.analytics.DataQueryService;
+import org.hisp.dhis.analytics.util.AnalyticsUtils;
 import org.hisp.dhis.category.Category;
-import org.hisp.dhis.category.CategoryCombo;
+import org.hisp.dhis.category.CategoryOption;
+import org.hisp.dhis.category.CategoryOptionCombo;
 import org.hisp.dhis.common.IdScheme;
+import org.hisp.dhis.common.ListMap;
 import org.hisp.dhis.commons.filter.FilterUtils;
 import org.hisp.dhis.dataelement.DataElement;
 import org.hisp.dhis.dataset.DataSet;
-import org.hisp.dhis.dataset.Section;
+import org.hisp.dhis.dataset.DataSetElement;
 import org.hisp.dhis.datasetreport.DataSetReportStore;
 import org.hisp.dhis.indicator.Indicator;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.period.Period;
 import org.hisp.dhis.system.filter.AggregatableDataElementFilter;
+import org.hisp.dhis.system.util.MathUtils;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -61,6 +67,13 @@ import org.springframework.stereotype.Repository;
 @RequiredArgsConstructor
 @Repository("org.hisp.dhis.datasetreport.DataSetReportStore")
 public class AnalyticsDataSetReportStore implements DataSetReportStore {
+  /**
+   * Aggregation types for which totals and sub-totals equal the sum of the values of the category
+   * option combos, and hence can be computed from a single query for values.
+   */
+  private static final Set<AggregationType> SUMMABLE_TYPES =
+      Set.of(AggregationType.SUM, AggregationType.COUNT);
+
   private final DataQueryService dataQueryService;
 
   private final AnalyticsService analyticsService;
@@ -70,7 +83,7 @@ public class AnalyticsDataSetReportStore implements DataSetReportStore {
   // -------------------------------------------------------------------------
 
   @Override
-  public Map<String, Object> getAggregatedValues(
+  public Map<String, Object> getAggregatedValuesAndTotals(
       DataSet dataSet, List<Period> periods, OrganisationUnit unit, Set<String> filters) {
     List<DataElement> dataElements = new ArrayList<>(dataSet.getDataElements());
 
@@ -80,102 +93,66 @@ public class AnalyticsDataSetReportStore implements DataSetReportStore {
       return new HashMap<>();
     }
 
-    DataQueryParams.Builder params =
-        DataQueryParams.newBuilder()
-            .withDataElements(dataElements)
-            .withPeriods(periods)
-            .withOrganisationUnit(unit)
-            .withCategoryOptionCombos(Lists.newArrayList());
+    DataQueryParams params =
+        newParams(dataElements, periods, unit, filters)
+            .withCategoryOptionCombos(Lists.newArrayList())
+            .build();
 
-    if (filters != null) {
-      params.addFilters(
-          dataQueryService.getDimensionalObjects(filters, null, null, null, IdScheme.UID));
-    }
+    Map<String, Object> map = analyticsService.getAggregatedDataValueMapping(params);
 
-    Map<String, Object> map = analyticsService.getAggregatedDataValueMapping(params.build());
+    Map<String, CategoryOptionCombo> optionCombos = getOptionCombos(dataSet);
+
+    Set<String> summable =
+        dataElements.stream()
+            .filter(de -> SUMMABLE_TYPES.contains(de.getAggregationType()))
+            .map(DataElement::getUid)
+            .collect(Collectors.toSet());
 
     Map<String, Object> dataMap = new HashMap<>();
 
     for (Entry<String, Object> entry : map.entrySet()) {
       String[] split = entry.getKey().split(SEPARATOR);
-      addToMap(dataMap, split[0] + SEPARATOR + split[3], entry.getValue());
-    }
+      String dataElement = split[0];
+      String optionCombo = split[3];
 
-    return dataMap;
-  }
+      addToMap(dataMap, dataElement + SEPARATOR + optionCombo, entry.getValue());
 
-  @Override
-  public Map<String, Object> getAggregatedSubTotals(
-      DataSet dataSet, List<Period> periods, OrganisationUnit unit, Set<String> filters) {
-    Map<String, Object> dataMap = new HashMap<>();
+      if (summable.contains(dataElement)) {
+        addToMap(dataMap, dataElement, entry.getValue());
 
-    for (Section section : dataSet.getSections()) {
-      List<DataElement> dataElements = new ArrayList<>(section.getDataElements());
-      Set<Category> categories = new HashSet<>();
-
-      for (CategoryCombo categoryCombo : section.getCategoryCombos()) {
-        categories.addAll(categoryCombo.getCategories());
-      }
-
-      FilterUtils.filter(dataElements, AggregatableDataElementFilter.INSTANCE);
-
-      if (dataElements.isEmpty() || categories == null || categories.isEmpty()) {
-        continue;
-      }
-
-      for (Category category : categories) {
-        if (category.isDefault()) {
-          continue; // No need for sub-total for default
-        }
-
-        if (!category.isDataDimension()) {
-          log.warn(
-              "Could not get sub-total for category: "
-                  + category.getUid()
-                  + " for data set report: "
-                  + dataSet
-                  + ", not a data dimension");
-          continue;
-        }
-
-        DataQueryParams.Builder params =
-            DataQueryParams.newBuilder()
-                .withDataElements(dataElements)
-                .withPeriods(periods)
-                .withOrganisationUnit(unit)
-                .withCategory(category);
-
-        if (filters != null) {
-          params.addFilters(
-              dataQueryService.getDimensionalObjects(filters, null, null, null, IdScheme.UID));
+        if (optionCombos.containsKey(optionCombo)) {
+          for (CategoryOption option : optionCombos.get(optionCombo).getCategoryOptions()) {
+            addToMap(dataMap, dataElement + SEPARATOR + option.getUid(), entry.getValue());
+          }
         }
+      }
+    }
 
-        Map<String, Object> map = analyticsService.getAggregatedDataValueMapping(params.build());
+    List<DataElement> otherDataElements =
+        dataElements.stream().filter(de -> !summable.contains(de.getUid())).toList();
 
-        for (Entry<String, Object> entry : map.entrySet()) {
-          String[] split = entry.getKey().split(SEPARATOR);
-          addToMap(dataMap, split[0] + SEPARATOR + split[3], entry.getValue());
-        }
-      }
+    if (!otherDataElements.isEmpty()) {
+      addTotals(dataMap, otherDataElements, periods, unit, filters);
+      addSubTotals(dataMap, dataSet, otherDataElements, periods, unit, filters);
     }
 
+    dataMap.replaceAll((key, value) -> getRounded(value));
+
     return dataMap;
   }
 
   @Override
-  public Map<String, Object> getAggregatedTotals(
+  public Map<String, Object> getAggregatedIndicatorValues(
       DataSet dataSet, List<Period> periods, OrganisationUnit unit, Set<String> filters) {
-    List<DataElement> dataElements = new ArrayList<>(dataSet.getDataElements());
-
-    FilterUtils.filter(dataElements, AggregatableDataElementFilter.INSTANCE);
+    List<Indicator> indicators = new ArrayList<>(dataSet.getIndicators());
 
-    if (dataElements.isEmpty()) {
+    if (indicators.isEmpty()) {
       return new HashMap<>();
     }
 
     DataQueryParams.Builder params =
         DataQueryParams.newBuilder()
-            .withDataElements(dataElements)
+            .withIndicators(indicators)
             .withPeriods(periods)
             .withOrganisationUnit(unit);
 
@@ -191,47 +168,138 @@ public class AnalyticsDataSetReportStore implements DataSetReportStore {
     for (Entry<String, Object> entry : map.entrySet()) {
       String[] split = entry.getKey().split(SEPARATOR);
       addToMap(dataMap, split[0], entry.getValue());
+      dataMap.put(split[0], entry.getValue());
     }
 
     return dataMap;
   }
 
-  @Override
-  public Map<String, Object> getAggregatedIndicatorValues(
-      DataSet dataSet, List<Period> periods, OrganisationUnit unit, Set<String> filters) {
-    List<Indicator> indicators = new ArrayList<>(dataSet.getIndicators());
+  // -------------------------------------------------------------------------
+  // Supportive methods
+  // -------------------------------------------------------------------------
 
-    if (indicators.isEmpty()) {
-      return new HashMap<>();
+  /**
+   * Adds totals of the given data elements queried from analytics to the given map. Used for data
+   * elements whose totals cannot be summed from the values of their category option combos.
+   */
+  private void addTotals(
+      Map<String, Object> dataMap,
+      List<DataElement> dataElements,
+      List<Period> periods,
+      OrganisationUnit unit,
+      Set<String> filters) {
+    Map<String, Object> map =
+        analyticsService.getAggregatedDataValueMapping(
+            newParams(dataElements, periods, unit, filters).build());
+
+    for (Entry<String, Object> entry : map.entrySet()) {
+      String[] split = entry.getKey().split(SEPARATOR);
+      addToMap(dataMap, split[0], entry.getValue());
+    }
+  }
+
+  /**
+   * Adds sub-totals of the given data elements queried from analytics to the given map, with one
+   * query per category. Used for data elements whose sub-totals cannot be summed from the values of
+   * their category option combos.
+   */
+  private void addSubTotals(
+      Map<String, Object> dataMap,
+      DataSet dataSet,
+      List<DataElement> dataElements,
+      List<Period> periods,
+      OrganisationUnit unit,
+      Set<String> filters) {
+    ListMap<Category, DataElement> categoryDataElements = new ListMap<>();
+
+    for (DataSetElement element : dataSet.getDataSetElements()) {
+      if (dataElements.contains(element.getDataElement())) {
+        for (Category category : element.getResolvedCategoryCombo().getCategories()) {
+          categoryDataElements.putValue(category, element.getDataElement());
+        }
+      }
     }
 
+    for (Category category : categoryDataElements.keySet()) {
+      if (category.isDefault()) {
+        continue; // No need for sub-total for default
+      }
+
+      if (!category.isDataDimension()) {
+        log.warn(
+            "Could not get sub-total for category: "
+                + category.getUid()
+                + " for data set report: "
+                + dataSet
+                + ", not a data dimension");
+        continue;
+      }
+
+      DataQueryParams params =
+          newParams(
+                  new ArrayList<>(new HashSet<>(categoryDataElements.get(category))),
+                  periods,
+                  unit,
+                  filters)
+              .withCategory(category)
+              .build();
+
+      Map<String, Object> map = analyticsService.getAggregatedDataValueMapping(params);
+
+      for (Entry<String, Object> entry : map.entrySet()) {
+        String[] split = entry.getKey().split(SEPARATOR);
+        addToMap(dataMap, split[0] + SEPARATOR + split[3], entry.getValue());
+      }
+    }
+  }
+
+  /**
+   * Returns query parameters for the given data elements, periods and organisation unit. Values are
+   * not rounded, as they are summed before being returned.
+   */
+  private DataQueryParams.Builder newParams(
+      List<DataElement> dataElements,
+      List<Period> periods,
+      OrganisationUnit unit,
+      Set<String> filters) {
     DataQueryParams.Builder params =
         DataQueryParams.newBuilder()
-            .withIndicators(indicators)
+            .withDataElements(dataElements)
             .withPeriods(periods)
-            .withOrganisationUnit(unit);
+            .withOrganisationUnit(unit)
+            .withSkipRounding(true);
 
     if (filters != null) {
       params.addFilters(
           dataQueryService.getDimensionalObjects(filters, null, null, null, IdScheme.UID));
     }
 
-    Map<String, Object> map = analyticsService.getAggregatedDataValueMapping(params.build());
+    return params;
+  }
 
-    Map<String, Object> dataMap = new HashMap<>();
+  /** Returns the category option combos of the data elements of the given data set by UID. */
+  private Map<String, CategoryOptionCombo> getOptionCombos(DataSet dataSet) {
+    Map<String, CategoryOptionCombo> optionCombos = new HashMap<>();
 
-    for (Entry<String, Object> entry : map.entrySet()) {
-      String[] split = entry.getKey().split(SEPARATOR);
-      addToMap(dataMap, split[0], entry.getValue());
-      dataMap.put(split[0], entry.getValue());
+    for (DataSetElement element : dataSet.getDataSetElements()) {
+      for (CategoryOptionCombo optionCombo : element.getResolvedCategoryCombo().getOptionCombos()) {
+        optionCombos.putIfAbsent(optionCombo.getUid(), optionCombo);
+      }
     }
 
-    return dataMap;
+    return optionCombos;
   }
 
-  // -------------------------------------------------------------------------
-  // Supportive methods
-  // -------------------------------------------------------------------------
+  /** Rounds numeric values the same way as analytics, ignoring other values. */
+  private static Object getRounded(Object value) {
+    if (!(value instanceof Double)) {
+      return value;
+    }
+
+    double rounded = MathUtils.getRounded((Double) value);
+
+    return AnalyticsUtils.endsWithZeroAsDecimal(rounded) ? (Object) (long) rounded : rounded;
+  }
 
   /**
    * If values are numeric, sum the values in the map for the same key. If values are non-numeric,
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.datasetreport.jdbc;
+
+import static org.hisp.dhis.DhisConvenienceTest.createCategory;
+import static org.hisp.dhis.DhisConvenienceTest.createCategoryCombo;
+import static org.hisp.dhis.DhisConvenienceTest.createCategoryOption;
+import static org.hisp.dhis.DhisConvenienceTest.createCategoryOptionCombo;
+import static org.hisp.dhis.DhisConvenienceTest.createDataSet;
+import static org.hisp.dhis.DhisConvenienceTest.createOrganisationUnit;
+import static org.hisp.dhis.DhisConvenienceTest.createPeriod;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import org.hisp.dhis.DhisConvenienceTest;
+import org.hisp.dhis.analytics.AggregationType;
+import org.hisp.dhis.analytics.AnalyticsService;
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.DataQueryService;
+import org.hisp.dhis.category.Category;
+import org.hisp.dhis.category.CategoryCombo;
+import org.hisp.dhis.category.CategoryOption;
+import org.hisp.dhis.category.CategoryOptionCombo;
+import org.hisp.dhis.common.ValueType;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.dataset.DataSet;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.period.Period;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class AnalyticsDataSetReportStoreTest {
+  @Mock private DataQueryService dataQueryService;
+
+  @Mock private AnalyticsService analyticsService;
+
+  private AnalyticsDataSetReportStore subject;
+
+  private CategoryOption coA;
+
+  private CategoryOption coB;
+
+  private CategoryOptionCombo cocA;
+
+  private CategoryOptionCombo cocB;
+
+  private CategoryCombo ccA;
+
+  private Period peA;
+
+  private OrganisationUnit ouA;
+
+  @BeforeEach
+  void setUp() {
+    coA = createCategoryOption('A');
+    coB = createCategoryOption('B');
+    Category caA = createCategory('A', coA, coB);
+    ccA = createCategoryCombo('A', caA);
+    cocA = createCategoryOptionCombo(ccA, coA);
+    cocB = createCategoryOptionCombo(ccA, coB);
+    ccA.getOptionCombos().add(cocA);
+    ccA.getOptionCombos().add(cocB);
+    peA = createPeriod("202001");
+    ouA = createOrganisationUnit('A');
+
+    subject = new AnalyticsDataSetReportStore(dataQueryService, analyticsService);
+  }
+
+  @Test
+  void testGetAggregatedValuesAndTotalsFromSingleQuery() {
+    DataElement deA = createDataElement('A', AggregationType.SUM);
+    DataSet dsA = createDataSet('A');
+    dsA.addDataSetElement(deA);
+
+    when(analyticsService.getAggregatedDataValueMapping(any(DataQueryParams.class)))
+        .thenReturn(Map.of(key(deA, cocA), 1.25, key(deA, cocB), 2.0));
+
+    Map<String, Object> values = subject.getAggregatedValuesAndTotals(dsA, List.of(peA), ouA, null);
+
+    assertEquals(1.3, values.get(deA.getUid() + "-" + cocA.getUid()));
+    assertEquals(2L, values.get(deA.getUid() + "-" + cocB.getUid()));
+    assertEquals(1.3, values.get(deA.getUid() + "-" + coA.getUid()));
+    assertEquals(2L, values.get(deA.getUid() + "-" + coB.getUid()));
+    assertEquals(3.3, values.get(deA.getUid()));
+    verify(analyticsService, times(1)).getAggregatedDataValueMapping(any(DataQueryParams.class));
+  }
+
+  @Test
+  void testGetAggregatedValuesAndTotalsQueriesTotalsOfAverages() {
+    DataElement deA = createDataElement('A', AggregationType.SUM);
+    DataElement deB = createDataElement('B', AggregationType.AVERAGE);
+    DataSet dsA = createDataSet('A');
+    dsA.addDataSetElement(deA);
+    dsA.addDataSetElement(deB);
+
+    when(analyticsService.getAggregatedDataValueMapping(any(DataQueryParams.class)))
+        .thenReturn(
+            Map.of(key(deA, cocA), 4.0, key(deB, cocA), 2.0, key(deB, cocB), 6.0),
+            Map.of(deB.getUid() + "-" + peA.getIsoDate() + "-" + ouA.getUid(), 5.0),
+            Map.of(key(deB, coA), 3.0));
+
+    Map<String, Object> values = subject.getAggregatedValuesAndTotals(dsA, List.of(peA), ouA, null);
+
+    assertEquals(4L, values.get(deA.getUid()));
+    assertEquals(4L, values.get(deA.getUid() + "-" + coA.getUid()));
+    assertNull(values.get(deA.getUid() + "-" + coB.getUid()));
+    assertEquals(2L, values.get(deB.getUid() + "-" + cocA.getUid()));
+    assertEquals(5L, values.get(deB.getUid()));
+    assertEquals(3L, values.get(deB.getUid() + "-" + coA.getUid()));
+    verify(analyticsService, times(3)).getAggregatedDataValueMapping(any(DataQueryParams.class));
+  }
+
+  @Test
+  void testGetAggregatedValuesAndTotalsWithoutDataElements() {
+    DataSet dsA = createDataSet('A');
+
+    assertEquals(Map.of(), subject.getAggregatedValuesAndTotals(dsA, List.of(peA), ouA, null));
+  }
+
+  private DataElement createDataElement(char uniqueCharacter, AggregationType aggregationType) {
+    DataElement dataElement =
+        DhisConvenienceTest.createDataElement(uniqueCharacter, ValueType.NUMBER, aggregationType);
+    dataElement.setCategoryCombo(ccA);
+    return dataElement;
+  }
+
+  private String key(DataElement dataElement, CategoryOptionCombo optionCombo) {
+    return String.join(
+        "-", dataElement.getUid(), peA.getIsoDate(), ouA.getUid(), optionCombo.getUid());
+  }
+
+  private String key(DataElement dataElement, CategoryOption option) {
+    return String.join("-", dataElement.getUid(), peA.getIsoDate(), ouA.getUid(), option.getUid());
+  }
+}
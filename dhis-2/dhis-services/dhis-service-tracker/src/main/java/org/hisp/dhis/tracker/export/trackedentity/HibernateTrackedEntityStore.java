@@ -30,6 +30,7 @@ package org.hisp.dhis.tracker.export.trackedentity;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.Map.entry;
 import static org.hisp.dhis.common.IdentifiableObjectUtils.getIdentifiers;
+import static org.hisp.dhis.common.IdentifiableObjectUtils.getUids;
 import static org.hisp.dhis.commons.util.TextUtils.getCommaDelimitedString;
 import static org.hisp.dhis.commons.util.TextUtils.getQuotedCommaDelimitedString;
 import static org.hisp.dhis.util.DateUtils.getLongDateString;
@@ -40,6 +41,7 @@ import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.function.IntSupplier;
@@ -67,6 +69,8 @@ import org.hisp.dhis.setting.SettingKey;
 import org.hisp.dhis.setting.SystemSettingManager;
 import org.hisp.dhis.trackedentity.TrackedEntity;
 import org.hisp.dhis.trackedentity.TrackedEntityAttribute;
+import org.hisp.dhis.trackedentity.TrackedEntitySearchTableManager;
+import org.hisp.dhis.trackedentity.TrackedEntityType;
 import org.hisp.dhis.tracker.export.Order;
 import org.hisp.dhis.tracker.export.Page;
 import org.hisp.dhis.tracker.export.PageParams;
@@ -134,6 +138,8 @@ class HibernateTrackedEntityStore extends SoftDeleteHibernateObjectStore<Tracked
 
   private final SystemSettingManager systemSettingManager;
 
+  private final TrackedEntitySearchTableManager searchTableManager;
+
   public HibernateTrackedEntityStore(
       SessionFactory sessionFactory,
       JdbcTemplate jdbcTemplate,
@@ -142,7 +148,8 @@ class HibernateTrackedEntityStore extends SoftDeleteHibernateObjectStore<Tracked
       AclService aclService,
       StatementBuilder statementBuilder,
       OrganisationUnitStore organisationUnitStore,
-      SystemSettingManager systemSettingManager) {
+      SystemSettingManager systemSettingManager,
+      TrackedEntitySearchTableManager searchTableManager) {
     super(
         sessionFactory,
         jdbcTemplate,
@@ -155,10 +162,12 @@ class HibernateTrackedEntityStore extends SoftDeleteHibernateObjectStore<Tracked
     checkNotNull(statementBuilder);
     checkNotNull(organisationUnitStore);
     checkNotNull(systemSettingManager);
+    checkNotNull(searchTableManager);
 
     this.statementBuilder = statementBuilder;
     this.organisationUnitStore = organisationUnitStore;
     this.systemSettingManager = systemSettingManager;
+    this.searchTableManager = searchTableManager;
   }
 
   @Override
@@ -538,6 +547,12 @@ class HibernateTrackedEntityStore extends SoftDeleteHibernateObjectStore<Tracked
    * of operators. All searching is using lower() since attribute values are case-insensitive.
    */
   private String joinAttributeValue(TrackedEntityQueryParams params) {
+    Optional<String> searchTable = joinSearchTable(params);
+
+    if (searchTable.isPresent()) {
+      return searchTable.get();
+    }
+
     StringBuilder attributes = new StringBuilder();
 
     for (Map.Entry<TrackedEntityAttribute, List<QueryFilter>> filters :
@@ -573,6 +588,66 @@ class HibernateTrackedEntityStore extends SoftDeleteHibernateObjectStore<Tracked
     return attributes.toString();
   }
 
+  /**
+   * Generates a single INNER JOIN on the search table of the tracked entity type, see {@link
+   * TrackedEntitySearchTableManager}, if the search table has a column for every attribute we are
+   * searching on. Values in the search table are lower-cased already.
+   *
+   * @return a SQL INNER JOIN on the search table, or empty if the search table cannot be used.
+   */
+  private Optional<String> joinSearchTable(TrackedEntityQueryParams params) {
+    TrackedEntityType trackedEntityType = getTrackedEntityType(params);
+
+    if (params.getFilters().isEmpty() || trackedEntityType == null) {
+      return Optional.empty();
+    }
+
+    Set<String> columns = searchTableManager.getSearchTableAttributes(trackedEntityType);
+
+    if (!columns.containsAll(getUids(params.getFilters().keySet()))) {
+      return Optional.empty();
+    }
+
+    StringBuilder join =
+        new StringBuilder(" INNER JOIN ")
+            .append(searchTableManager.getSearchTableName(trackedEntityType))
+            .append(" TS ON TS.trackedentityid = TE.trackedentityid ");
+
+    for (Map.Entry<TrackedEntityAttribute, List<QueryFilter>> filters :
+        params.getFilters().entrySet()) {
+      String col = "TS." + statementBuilder.columnQuote(filters.getKey().getUid());
+
+      join.append("AND ").append(col).append(SPACE).append(IS_NOT_NULL).append(SPACE);
+
+      for (QueryFilter filter : filters.getValue()) {
+        String encodedFilter = statementBuilder.encode(filter.getFilter(), false);
+        join.append("AND ")
+            .append(col)
+            .append(SPACE)
+            .append(filter.getSqlOperator())
+            .append(SPACE)
+            .append(StringUtils.lowerCase(filter.getSqlFilter(encodedFilter)))
+            .append(SPACE);
+      }
+    }
+
+    return Optional.of(join.toString());
+  }
+
+  /**
+   * Returns the single tracked entity type the query is restricted to, either directly or through
+   * the program.
+   *
+   * @return a {@link TrackedEntityType}, or null if the query is not restricted to a single type.
+   */
+  private TrackedEntityType getTrackedEntityType(TrackedEntityQueryParams params) {
+    if (params.hasTrackedEntityType()) {
+      return params.getTrackedEntityType();
+    }
+
+    return params.hasProgram() ? params.getProgram().getTrackedEntityType() : null;
+  }
+
   /**
    * Generates the LEFT JOINs used for attributes we are ordering by (If any). We use LEFT JOIN to
    * avoid removing any rows if there is no value for a given attribute and te. The result of this
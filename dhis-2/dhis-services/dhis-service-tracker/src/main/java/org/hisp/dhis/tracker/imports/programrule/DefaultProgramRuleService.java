@@ -41,6 +41,7 @@ import org.hisp.dhis.program.Enrollment;
 import org.hisp.dhis.program.Event;
 import org.hisp.dhis.program.Program;
 import org.hisp.dhis.programrule.engine.ProgramRuleEngine;
+import org.hisp.dhis.programrule.engine.ProgramRuleEngine.EnrollmentEvaluation;
 import org.hisp.dhis.rules.models.RuleEffects;
 import org.hisp.dhis.trackedentity.TrackedEntity;
 import org.hisp.dhis.trackedentityattributevalue.TrackedEntityAttributeValue;
@@ -97,20 +98,21 @@ class DefaultProgramRuleService implements ProgramRuleService {
 
   private List<RuleEffects> calculateEnrollmentRuleEffects(
       TrackerBundle bundle, TrackerPreheat preheat) {
-    return bundle.getEnrollments().stream()
-        .flatMap(
-            e -> {
-              Enrollment enrollment =
-                  enrollmentTrackerConverterService.fromForRuleEngine(preheat, e);
-
-              return programRuleEngine
-                  .evaluateEnrollmentAndEvents(
+    List<EnrollmentEvaluation> evaluations =
+        bundle.getEnrollments().stream()
+            .map(
+                e -> {
+                  Enrollment enrollment =
+                      enrollmentTrackerConverterService.fromForRuleEngine(preheat, e);
+
+                  return new EnrollmentEvaluation(
                       enrollment,
                       getEventsFromEnrollment(enrollment.getUid(), bundle, preheat),
-                      getAttributes(e.getEnrollment(), e.getTrackedEntity(), bundle, preheat))
-                  .stream();
-            })
-        .collect(Collectors.toList());
+                      getAttributes(e.getEnrollment(), e.getTrackedEntity(), bundle, preheat));
+                })
+            .collect(Collectors.toList());
+
+    return programRuleEngine.evaluateEnrollmentsAndEvents(evaluations);
   }
 
   private List<RuleEffects> calculateTrackerEventRuleEffects(
@@ -122,20 +124,21 @@ class DefaultProgramRuleService implements ProgramRuleService {
             .map(event -> preheat.getEnrollment(event.getEnrollment()))
             .collect(Collectors.toSet());
 
-    return enrollments.stream()
-        .flatMap(
-            enrollment ->
-                programRuleEngine
-                    .evaluateEnrollmentAndEvents(
+    List<EnrollmentEvaluation> evaluations =
+        enrollments.stream()
+            .map(
+                enrollment ->
+                    new EnrollmentEvaluation(
                         enrollment,
                         getEventsFromEnrollment(enrollment.getUid(), bundle, preheat),
                         getAttributes(
                             enrollment.getUid(),
                             enrollment.getTrackedEntity().getUid(),
                             bundle,
-                            preheat))
-                    .stream())
-        .collect(Collectors.toList());
+                            preheat)))
+            .collect(Collectors.toList());
+
+    return programRuleEngine.evaluateEnrollmentsAndEvents(evaluations);
   }
 
   private List<RuleEffects> calculateProgramEventRuleEffects(
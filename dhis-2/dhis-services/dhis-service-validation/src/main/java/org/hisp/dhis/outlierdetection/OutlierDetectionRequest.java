@@ -89,6 +89,27 @@ public class OutlierDetectionRequest {
       this.request.maxResults = 500;
     }
 
+    /**
+     * Initializes the {@link OutlierDetectionRequest} with the values of the given request.
+     *
+     * @param request the {@link OutlierDetectionRequest} to copy.
+     */
+    public Builder(OutlierDetectionRequest request) {
+      this.request = new OutlierDetectionRequest();
+
+      this.request.dataElements = request.dataElements;
+      this.request.startDate = request.startDate;
+      this.request.endDate = request.endDate;
+      this.request.orgUnits = request.orgUnits;
+      this.request.orgUnitSelection = request.orgUnitSelection;
+      this.request.algorithm = request.algorithm;
+      this.request.threshold = request.threshold;
+      this.request.dataStartDate = request.dataStartDate;
+      this.request.dataEndDate = request.dataEndDate;
+      this.request.orderBy = request.orderBy;
+      this.request.maxResults = request.maxResults;
+    }
+
     public Builder withDataElements(List<DataElement> dataElements) {
       this.request.dataElements = dataElements;
       return this;
@@ -105,6 +126,11 @@ public class OutlierDetectionRequest {
       return this;
     }
 
+    public Builder withOrgUnitSelection(OrgUnitSelection orgUnitSelection) {
+      this.request.orgUnitSelection = orgUnitSelection;
+      return this;
+    }
+
     public Builder withAlgorithm(OutlierDetectionAlgorithm algorithm) {
       this.request.algorithm = algorithm;
       return this;
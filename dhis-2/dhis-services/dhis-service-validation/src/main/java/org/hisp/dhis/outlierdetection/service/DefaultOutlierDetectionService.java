@@ -27,20 +27,36 @@
  */
 package org.hisp.dhis.outlierdetection.service;
 
+import static org.hisp.dhis.external.conf.ConfigurationKey.SYSTEM_OUTLIER_DETECTION_PARALLELISM;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 import java.util.stream.Collectors;
-import lombok.RequiredArgsConstructor;
+import javax.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.hisp.dhis.common.IdentifiableObjectManager;
 import org.hisp.dhis.common.IllegalQueryException;
 import org.hisp.dhis.dataelement.DataElement;
 import org.hisp.dhis.dataset.DataSet;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.feedback.ErrorCode;
 import org.hisp.dhis.feedback.ErrorMessage;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.outlierdetection.Order;
+import org.hisp.dhis.outlierdetection.OrgUnitSelection;
+import org.hisp.dhis.outlierdetection.OutlierDetectionAlgorithm;
 import org.hisp.dhis.outlierdetection.OutlierDetectionMetadata;
 import org.hisp.dhis.outlierdetection.OutlierDetectionQuery;
 import org.hisp.dhis.outlierdetection.OutlierDetectionRequest;
@@ -48,6 +64,7 @@ import org.hisp.dhis.outlierdetection.OutlierDetectionResponse;
 import org.hisp.dhis.outlierdetection.OutlierDetectionService;
 import org.hisp.dhis.outlierdetection.OutlierValue;
 import org.hisp.dhis.system.util.JacksonCsvUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 /**
@@ -55,16 +72,57 @@ import org.springframework.stereotype.Service;
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class DefaultOutlierDetectionService implements OutlierDetectionService {
   private static final int MAX_LIMIT = 10_000;
 
+  private static final int DATA_ELEMENT_BATCH_SIZE = 50;
+
   private final IdentifiableObjectManager idObjectManager;
 
   private final ZScoreOutlierDetectionManager zScoreOutlierDetection;
 
   private final MinMaxOutlierDetectionManager minMaxOutlierDetection;
 
+  private final int parallelism;
+
+  private final ExecutorService executor;
+
+  @Autowired
+  public DefaultOutlierDetectionService(
+      IdentifiableObjectManager idObjectManager,
+      ZScoreOutlierDetectionManager zScoreOutlierDetection,
+      MinMaxOutlierDetectionManager minMaxOutlierDetection,
+      DhisConfigurationProvider config) {
+    this(
+        idObjectManager,
+        zScoreOutlierDetection,
+        minMaxOutlierDetection,
+        Integer.parseInt(config.getProperty(SYSTEM_OUTLIER_DETECTION_PARALLELISM)));
+  }
+
+  DefaultOutlierDetectionService(
+      IdentifiableObjectManager idObjectManager,
+      ZScoreOutlierDetectionManager zScoreOutlierDetection,
+      MinMaxOutlierDetectionManager minMaxOutlierDetection,
+      int parallelism) {
+    this.idObjectManager = idObjectManager;
+    this.zScoreOutlierDetection = zScoreOutlierDetection;
+    this.minMaxOutlierDetection = minMaxOutlierDetection;
+    this.parallelism = Math.max(1, parallelism);
+    this.executor =
+        Executors.newFixedThreadPool(
+            this.parallelism,
+            new ThreadFactoryBuilder()
+                .setNameFormat("outlier-detection-%d")
+                .setDaemon(true)
+                .build());
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
   @Override
   public void validate(OutlierDetectionRequest request) throws IllegalQueryException {
     ErrorMessage error = validateForErrorMessage(request);
@@ -191,12 +249,192 @@ public class DefaultOutlierDetectionService implements OutlierDetectionService {
   }
 
   /**
-   * Returns outlier values using the algorithm defined in the request.
+   * Returns outlier values for the given request. The request is split into chunks by org unit
+   * subtree and data element batch, see {@link #getChunks(OutlierDetectionRequest)}, which are
+   * queried in parallel. Each chunk query returns its own top outliers, which are merged into the
+   * overall top outliers. Statistics are computed per data element, org unit and category option
+   * combo, which never span chunks, so the result is identical to querying the request as a whole.
    *
    * @param request the {@link OutlierDetectionRequest}.
    * @return a list of {@link OutlierValue}.
    */
   private List<OutlierValue> getOutliers(OutlierDetectionRequest request) {
+    List<OutlierDetectionRequest> chunks = getChunks(request);
+
+    if (chunks.size() == 1) {
+      return getChunkOutliers(request);
+    }
+
+    List<Future<List<OutlierValue>>> futures = new ArrayList<>();
+
+    for (OutlierDetectionRequest chunk : chunks) {
+      futures.add(executor.submit(() -> getChunkOutliers(chunk)));
+    }
+
+    List<List<OutlierValue>> results = new ArrayList<>();
+
+    try {
+      for (Future<List<OutlierValue>> future : futures) {
+        results.add(future.get());
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Outlier detection was interrupted", ex);
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+
+      throw new IllegalStateException("Outlier detection failed", ex.getCause());
+    } finally {
+      futures.forEach(future -> future.cancel(true));
+    }
+
+    return mergeOutliers(request, results);
+  }
+
+  /**
+   * Splits the given request into chunks which can be queried independently. Each requested org
+   * unit with children is split into the subtrees of its children, which are distributed over as
+   * many chunks as the configured parallelism, and a chunk for the selected org units themselves.
+   * Data elements are split into batches of {@link #DATA_ELEMENT_BATCH_SIZE}. A chunk is created
+   * for every combination of org unit chunk and data element batch.
+   *
+   * @param request the {@link OutlierDetectionRequest}.
+   * @return a list of {@link OutlierDetectionRequest}.
+   */
+  List<OutlierDetectionRequest> getChunks(OutlierDetectionRequest request) {
+    if (parallelism == 1) {
+      return List.of(request);
+    }
+
+    List<List<OrganisationUnit>> subtrees = new ArrayList<>();
+    List<OrganisationUnit> selected = new ArrayList<>();
+
+    if (request.getOrgUnitSelection() == OrgUnitSelection.SELECTED) {
+      selected.addAll(request.getOrgUnits());
+    } else {
+      for (int i = 0; i < parallelism; i++) {
+        subtrees.add(new ArrayList<>());
+      }
+
+      int index = 0;
+
+      for (OrganisationUnit orgUnit : getRootOrgUnits(request.getOrgUnits())) {
+        if (orgUnit.getChildren().isEmpty()) {
+          subtrees.get(index++ % parallelism).add(orgUnit);
+        } else {
+          selected.add(orgUnit);
+
+          for (OrganisationUnit child : orgUnit.getChildren()) {
+            subtrees.get(index++ % parallelism).add(child);
+          }
+        }
+      }
+    }
+
+    List<OutlierDetectionRequest> chunks = new ArrayList<>();
+
+    for (List<DataElement> dataElements :
+        Lists.partition(request.getDataElements(), DATA_ELEMENT_BATCH_SIZE)) {
+      for (List<OrganisationUnit> orgUnits : subtrees) {
+        if (!orgUnits.isEmpty()) {
+          chunks.add(getChunk(request, dataElements, orgUnits, OrgUnitSelection.DESCENDANTS));
+        }
+      }
+
+      if (!selected.isEmpty()) {
+        chunks.add(getChunk(request, dataElements, selected, OrgUnitSelection.SELECTED));
+      }
+    }
+
+    return chunks;
+  }
+
+  /**
+   * Merges the given chunk results into the overall top outliers of the given request, using a
+   * min-heap bounded by the max results of the request.
+   *
+   * @param request the {@link OutlierDetectionRequest}.
+   * @param results the chunk results, each ordered by descending outlier rank.
+   * @return a list of {@link OutlierValue} ordered by descending outlier rank.
+   */
+  List<OutlierValue> mergeOutliers(
+      OutlierDetectionRequest request, List<List<OutlierValue>> results) {
+    Comparator<OutlierValue> order = getOrder(request);
+    PriorityQueue<OutlierValue> heap = new PriorityQueue<>(order);
+
+    for (List<OutlierValue> result : results) {
+      for (OutlierValue value : result) {
+        heap.add(value);
+
+        if (heap.size() > request.getMaxResults()) {
+          heap.poll();
+        }
+      }
+    }
+
+    List<OutlierValue> outliers = new ArrayList<>(heap);
+    outliers.sort(order.reversed());
+    return outliers;
+  }
+
+  /**
+   * Returns the requested org units which are not descendants of another requested org unit, so
+   * that no subtree is queried twice.
+   *
+   * @param orgUnits the list of {@link OrganisationUnit}.
+   * @return a list of {@link OrganisationUnit}.
+   */
+  private List<OrganisationUnit> getRootOrgUnits(List<OrganisationUnit> orgUnits) {
+    return orgUnits.stream()
+        .distinct()
+        .filter(
+            ou ->
+                orgUnits.stream()
+                    .noneMatch(
+                        other ->
+                            !other.getPath().equals(ou.getPath())
+                                && ou.getPath().startsWith(other.getPath() + "/")))
+        .toList();
+  }
+
+  private OutlierDetectionRequest getChunk(
+      OutlierDetectionRequest request,
+      List<DataElement> dataElements,
+      List<OrganisationUnit> orgUnits,
+      OrgUnitSelection orgUnitSelection) {
+    return new OutlierDetectionRequest.Builder(request)
+        .withDataElements(dataElements)
+        .withOrgUnits(orgUnits)
+        .withOrgUnitSelection(orgUnitSelection)
+        .build();
+  }
+
+  /**
+   * Returns the order of outlier values, consistent with the order applied by the outlier detection
+   * query of the algorithm of the given request.
+   *
+   * @param request the {@link OutlierDetectionRequest}.
+   * @return a {@link Comparator} ordering by ascending outlier rank.
+   */
+  private Comparator<OutlierValue> getOrder(OutlierDetectionRequest request) {
+    Function<OutlierValue, Double> key =
+        request.getAlgorithm() != OutlierDetectionAlgorithm.MIN_MAX
+                && request.getOrderBy() == Order.Z_SCORE
+            ? OutlierValue::getZScore
+            : OutlierValue::getAbsDev;
+
+    return Comparator.comparing(key, Comparator.nullsFirst(Comparator.naturalOrder()));
+  }
+
+  /**
+   * Returns outlier values using the algorithm defined in the request.
+   *
+   * @param request the {@link OutlierDetectionRequest}.
+   * @return a list of {@link OutlierValue}.
+   */
+  private List<OutlierValue> getChunkOutliers(OutlierDetectionRequest request) {
     switch (request.getAlgorithm()) {
       case Z_SCORE:
       case MOD_Z_SCORE:
@@ -64,7 +64,8 @@ public class MinMaxOutlierDetectionManager {
    * @return a list of {@link OutlierValue}.
    */
   public List<OutlierValue> getOutlierValues(OutlierDetectionRequest request) {
-    final String ouPathClause = getOrgUnitPathClause(request.getOrgUnits());
+    final String ouPathClause =
+        getOrgUnitPathClause(request.getOrgUnits(), request.getOrgUnitSelection());
 
     final String sql =
         "select de.uid as de_uid, ou.uid as ou_uid, coc.uid as coc_uid, aoc.uid as aoc_uid, "
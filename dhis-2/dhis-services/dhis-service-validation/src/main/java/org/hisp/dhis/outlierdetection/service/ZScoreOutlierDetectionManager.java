@@ -73,7 +73,8 @@ public class ZScoreOutlierDetectionManager {
    * @return a list of {@link OutlierValue}.
    */
   public List<OutlierValue> getOutlierValues(OutlierDetectionRequest request) {
-    final String ouPathClause = getOrgUnitPathClause(request.getOrgUnits());
+    final String ouPathClause =
+        getOrgUnitPathClause(request.getOrgUnits(), request.getOrgUnitSelection());
     final String dataStartDateClause = getDataStartDateClause(request.getDataStartDate());
     final String dataEndDateClause = getDataEndDateClause(request.getDataEndDate());
 
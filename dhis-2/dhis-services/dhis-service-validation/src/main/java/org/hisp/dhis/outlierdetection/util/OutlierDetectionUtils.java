@@ -32,6 +32,7 @@ import java.util.List;
 import org.apache.commons.lang3.StringUtils;
 import org.hisp.dhis.commons.util.TextUtils;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.outlierdetection.OrgUnitSelection;
 
 /**
  * @author Lars Helge Overland
@@ -45,10 +46,27 @@ public class OutlierDetectionUtils {
    * @return an organisation unit 'path' "like" clause.
    */
   public static String getOrgUnitPathClause(List<OrganisationUnit> orgUnits) {
+    return getOrgUnitPathClause(orgUnits, OrgUnitSelection.DESCENDANTS);
+  }
+
+  /**
+   * Returns an organisation unit 'path' clause for the given list of {@link OrganisationUnit}. The
+   * clause matches the organisation units and their descendants, or only the organisation units
+   * themselves for {@link OrgUnitSelection#SELECTED}.
+   *
+   * @param orgUnits the list of {@link OrganisationUnit}.
+   * @param selection the {@link OrgUnitSelection}.
+   * @return an organisation unit 'path' clause.
+   */
+  public static String getOrgUnitPathClause(
+      List<OrganisationUnit> orgUnits, OrgUnitSelection selection) {
     String sql = "(";
 
     for (OrganisationUnit ou : orgUnits) {
-      sql += "ou.\"path\" like '" + ou.getPath() + "%' or ";
+      sql +=
+          selection == OrgUnitSelection.SELECTED
+              ? "ou.\"path\" = '" + ou.getPath() + "' or "
+              : "ou.\"path\" like '" + ou.getPath() + "%' or ";
     }
 
     return StringUtils.trim(TextUtils.removeLastOr(sql)) + ")";
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.outlierdetection.service;
+
+import static org.hisp.dhis.DhisConvenienceTest.createDataElement;
+import static org.hisp.dhis.DhisConvenienceTest.createOrganisationUnit;
+import static org.hisp.dhis.DhisConvenienceTest.getDate;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.Sets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+import org.hisp.dhis.analytics.AggregationType;
+import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.common.ValueType;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.outlierdetection.Order;
+import org.hisp.dhis.outlierdetection.OrgUnitSelection;
+import org.hisp.dhis.outlierdetection.OutlierDetectionRequest;
+import org.hisp.dhis.outlierdetection.OutlierValue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class DefaultOutlierDetectionServiceTest {
+  @Mock private IdentifiableObjectManager idObjectManager;
+
+  @Mock private ZScoreOutlierDetectionManager zScoreOutlierManager;
+
+  @Mock private MinMaxOutlierDetectionManager minMaxOutlierManager;
+
+  private DefaultOutlierDetectionService subject;
+
+  private DataElement deA;
+
+  private OrganisationUnit ouA;
+
+  private OrganisationUnit ouB;
+
+  private OrganisationUnit ouC;
+
+  private OrganisationUnit ouD;
+
+  @BeforeEach
+  void setUp() {
+    subject =
+        new DefaultOutlierDetectionService(
+            idObjectManager, zScoreOutlierManager, minMaxOutlierManager, 2);
+
+    deA = createDataElement('A', ValueType.INTEGER, AggregationType.SUM);
+
+    ouA = createOrganisationUnit('A');
+    ouB = createOrganisationUnit('B', ouA);
+    ouC = createOrganisationUnit('C', ouA);
+    ouD = createOrganisationUnit('D', ouA);
+  }
+
+  @AfterEach
+  void tearDown() {
+    subject.shutdown();
+  }
+
+  @Test
+  void testGetChunksSplitsOrgUnitSubtrees() {
+    List<OutlierDetectionRequest> chunks = subject.getChunks(createRequest(List.of(deA), ouA));
+
+    assertEquals(3, chunks.size());
+    assertEquals(2, chunks.get(0).getOrgUnits().size());
+    assertEquals(OrgUnitSelection.DESCENDANTS, chunks.get(0).getOrgUnitSelection());
+    assertEquals(1, chunks.get(1).getOrgUnits().size());
+    assertEquals(
+        Set.of(ouB, ouC, ouD),
+        Sets.union(
+            Set.copyOf(chunks.get(0).getOrgUnits()), Set.copyOf(chunks.get(1).getOrgUnits())));
+    assertEquals(List.of(ouA), chunks.get(2).getOrgUnits());
+    assertEquals(OrgUnitSelection.SELECTED, chunks.get(2).getOrgUnitSelection());
+    assertTrue(chunks.stream().allMatch(chunk -> chunk.getMaxResults() == 3));
+  }
+
+  @Test
+  void testGetChunksSkipsRequestedDescendants() {
+    List<OutlierDetectionRequest> chunks = subject.getChunks(createRequest(List.of(deA), ouB, ouA));
+
+    assertEquals(3, chunks.size());
+    assertEquals(
+        4, chunks.stream().flatMap(chunk -> chunk.getOrgUnits().stream()).distinct().count());
+    assertEquals(List.of(ouA), chunks.get(2).getOrgUnits());
+  }
+
+  @Test
+  void testGetChunksSplitsDataElementBatches() {
+    List<DataElement> dataElements = new ArrayList<>();
+    IntStream.range(0, 60)
+        .forEach(
+            i ->
+                dataElements.add(
+                    createDataElement((char) ('A' + i), ValueType.INTEGER, AggregationType.SUM)));
+
+    List<OutlierDetectionRequest> chunks = subject.getChunks(createRequest(dataElements, ouB));
+
+    assertEquals(2, chunks.size());
+    assertEquals(50, chunks.get(0).getDataElements().size());
+    assertEquals(10, chunks.get(1).getDataElements().size());
+    assertEquals(List.of(ouB), chunks.get(1).getOrgUnits());
+  }
+
+  @Test
+  void testMergeOutliers() {
+    List<OutlierValue> merged =
+        subject.mergeOutliers(
+            createRequest(List.of(deA), ouA),
+            List.of(
+                List.of(createOutlier(9), createOutlier(4)),
+                List.of(createOutlier(7), createOutlier(6), createOutlier(1)),
+                List.of()));
+
+    assertEquals(List.of(9d, 7d, 6d), merged.stream().map(OutlierValue::getAbsDev).toList());
+  }
+
+  @Test
+  void testGetOutlierValuesQueriesChunks() {
+    when(zScoreOutlierManager.getOutlierValues(any()))
+        .thenReturn(List.of(createOutlier(5)))
+        .thenReturn(List.of(createOutlier(8), createOutlier(2)))
+        .thenReturn(List.of(createOutlier(3)));
+
+    List<OutlierValue> outliers =
+        subject.getOutlierValues(createRequest(List.of(deA), ouA)).getOutlierValues();
+
+    verify(zScoreOutlierManager, times(3)).getOutlierValues(any());
+    assertEquals(3, outliers.size());
+    assertEquals(8d, outliers.get(0).getAbsDev());
+    assertEquals(3d, outliers.get(2).getAbsDev());
+  }
+
+  private OutlierDetectionRequest createRequest(
+      List<DataElement> dataElements, OrganisationUnit... orgUnits) {
+    return new OutlierDetectionRequest.Builder()
+        .withDataElements(dataElements)
+        .withStartEndDate(getDate(2020, 1, 1), getDate(2020, 12, 31))
+        .withOrgUnits(List.of(orgUnits))
+        .withOrderBy(Order.MEAN_ABS_DEV)
+        .withMaxResults(3)
+        .build();
+  }
+
+  private OutlierValue createOutlier(double absDev) {
+    OutlierValue value = new OutlierValue();
+    value.setAbsDev(absDev);
+    return value;
+  }
+}
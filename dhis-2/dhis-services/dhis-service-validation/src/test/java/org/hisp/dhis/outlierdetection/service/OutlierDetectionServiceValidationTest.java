@@ -82,7 +82,7 @@ class OutlierDetectionServiceValidationTest {
   public void setUp() {
     subject =
         new DefaultOutlierDetectionService(
-            idObjectManager, zScoreOutlierManager, minMaxOutlierManager);
+            idObjectManager, zScoreOutlierManager, minMaxOutlierManager, 1);
 
     deA = createDataElement('A', ValueType.INTEGER, AggregationType.SUM);
     deB = createDataElement('B', ValueType.INTEGER, AggregationType.SUM);
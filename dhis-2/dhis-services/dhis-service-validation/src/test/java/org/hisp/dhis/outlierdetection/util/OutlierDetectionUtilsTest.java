@@ -33,6 +33,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import com.google.common.collect.Lists;
 import java.util.List;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.outlierdetection.OrgUnitSelection;
 import org.junit.jupiter.api.Test;
 
 /**
@@ -50,4 +51,14 @@ class OutlierDetectionUtilsTest {
         "(ou.\"path\" like '/ouabcdefghA%' or ou.\"path\" like '/ouabcdefghB%' or ou.\"path\" like '/ouabcdefghC%')";
     assertEquals(expected, OutlierDetectionUtils.getOrgUnitPathClause(orgUnits));
   }
+
+  @Test
+  void testGetOrgUnitPathClauseSelected() {
+    OrganisationUnit ouA = createOrganisationUnit('A');
+    OrganisationUnit ouB = createOrganisationUnit('B');
+    List<OrganisationUnit> orgUnits = Lists.newArrayList(ouA, ouB);
+    String expected = "(ou.\"path\" = '/ouabcdefghA' or ou.\"path\" = '/ouabcdefghB')";
+    assertEquals(
+        expected, OutlierDetectionUtils.getOrgUnitPathClause(orgUnits, OrgUnitSelection.SELECTED));
+  }
 }
@@ -0,0 +1,21 @@
+-- Values pre-generated for a text pattern key which are not yet reserved
+create table if not exists reservedvaluepool
+(
+    ownerobject varchar(255) not null,
+    owneruid    varchar(255) not null,
+    key         varchar(255) not null,
+    value       varchar(255) not null,
+    created     timestamp without time zone not null default now()
+);
+
+create unique index if not exists in_reservedvaluepool_value on reservedvaluepool using btree (ownerobject, owneruid, key, lower(value));
+
+-- Text pattern keys for which pools are kept filled and when values were last requested for them
+create table if not exists reservedvaluepoolkey
+(
+    ownerobject   varchar(255) not null,
+    owneruid      varchar(255) not null,
+    key           varchar(255) not null,
+    lastrequested timestamp without time zone not null default now(),
+    constraint reservedvaluepoolkey_pkey primary key (ownerobject, owneruid, key)
+);
@@ -0,0 +1,18 @@
+-- Serialized events waiting to be delivered to an event hook target. Targets are referenced
+-- by client ID, so that pending events stay with their target when the targets are edited
+create table if not exists eventhookoutbox
+(
+    id          bigserial not null,
+    eventhookuid varchar(11) not null,
+    targetid    varchar(255) not null,
+    payload     text not null,
+    attempts    integer not null default 0,
+    created     timestamp without time zone not null default now(),
+    nextattempt timestamp without time zone not null default now(),
+    constraint eventhookoutbox_pkey primary key (id)
+);
+
+create index if not exists in_eventhookoutbox_nextattempt on eventhookoutbox using btree (nextattempt, id);
+
+-- Events of a target are delivered in order, see EventHookOutboxStore.claimDue
+create index if not exists in_eventhookoutbox_target on eventhookoutbox using btree (eventhookuid, targetid, id);
@@ -0,0 +1,22 @@
+-- MD5 hashes of the data values last sent by incremental aggregate data exchanges. Hashes
+-- of data values which are no longer part of the source data are deleted after each run
+create table if not exists aggregatedataexchangevalue
+(
+    aggregatedataexchangeid bigint not null,
+    valuekey text not null,
+    valuehash varchar(32) not null,
+    lastexchanged timestamp without time zone not null default now(),
+    constraint aggregatedataexchangevalue_pkey primary key (aggregatedataexchangeid, valuekey),
+    constraint fk_aggregatedataexchangevalue_aggregatedataexchangeid foreign key (aggregatedataexchangeid)
+        references aggregatedataexchange (aggregatedataexchangeid) on delete cascade
+);
+
+-- High-water mark of the last incremental run of aggregate data exchanges
+create table if not exists aggregatedataexchangestate
+(
+    aggregatedataexchangeid bigint not null,
+    lastexchanged timestamp without time zone not null,
+    constraint aggregatedataexchangestate_pkey primary key (aggregatedataexchangeid),
+    constraint fk_aggregatedataexchangestate_aggregatedataexchangeid foreign key (aggregatedataexchangeid)
+        references aggregatedataexchange (aggregatedataexchangeid) on delete cascade
+);
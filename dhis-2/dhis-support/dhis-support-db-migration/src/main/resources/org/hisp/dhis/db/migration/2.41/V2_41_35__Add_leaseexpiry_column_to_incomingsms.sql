@@ -0,0 +1,5 @@
+-- Time until which an incoming SMS in processing status is claimed by a consumer
+alter table incomingsms add column if not exists leaseexpiry timestamp without time zone;
+
+-- Incoming SMS waiting to be claimed, status 0 is INCOMING and 1 is PROCESSING
+create index if not exists in_incomingsms_claimable on incomingsms using btree (id) where status in (0, 1);
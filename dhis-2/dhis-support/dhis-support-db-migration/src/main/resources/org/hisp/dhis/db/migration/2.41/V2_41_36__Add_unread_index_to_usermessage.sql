@@ -0,0 +1,2 @@
+-- Unread user messages, for counting the unread message conversations of a user
+create index if not exists in_usermessage_userid_unread on usermessage using btree (userid) where isread = false;
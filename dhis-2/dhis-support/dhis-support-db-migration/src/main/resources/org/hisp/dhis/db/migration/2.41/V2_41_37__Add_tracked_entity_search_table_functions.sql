@@ -0,0 +1,52 @@
+-- Keeps the optional tracked entity search tables trackedentitysearch_X current, where X is the
+-- tracked entity type identifier. The trigger on trackedentityattributevalue is created when the
+-- first search table is generated and dropped with the last one. Changes are also recorded in
+-- trackedentitysearch_X_changes while the search table of a type is being generated.
+
+create or replace function trackedentitysearch_set(te_id bigint, tea_id bigint, val text) returns void as $$
+	declare
+		search_table text;
+		col text;
+	begin
+		select 'trackedentitysearch_' || te.trackedentitytypeid into search_table
+		from trackedentity te where te.trackedentityid = te_id;
+
+		if search_table is null then
+			return;
+		end if;
+
+		if to_regclass(search_table || '_changes') is not null then
+			execute format('insert into %I (trackedentityid) values ($1)', search_table || '_changes') using te_id;
+		end if;
+
+		if to_regclass(search_table) is null then
+			return;
+		end if;
+
+		select tea.uid into col from trackedentityattribute tea where tea.trackedentityattributeid = tea_id;
+
+		if not exists (select 1 from pg_attribute
+				where attrelid = to_regclass(search_table) and attname = col and not attisdropped) then
+			return;
+		end if;
+
+		execute format('insert into %I (trackedentityid, %I) values ($1, $2) '
+			|| 'on conflict (trackedentityid) do update set %I = excluded.%I', search_table, col, col, col)
+			using te_id, lower(val);
+	end;
+$$ language plpgsql;
+
+create or replace function trackedentitysearch_update() returns trigger as $$
+	begin
+		if tg_op = 'DELETE' or (tg_op = 'UPDATE' and (old.trackedentityid <> new.trackedentityid
+				or old.trackedentityattributeid <> new.trackedentityattributeid)) then
+			perform trackedentitysearch_set(old.trackedentityid, old.trackedentityattributeid, null);
+		end if;
+
+		if tg_op <> 'DELETE' then
+			perform trackedentitysearch_set(new.trackedentityid, new.trackedentityattributeid, new.value);
+		end if;
+
+		return null;
+	end;
+$$ language plpgsql;
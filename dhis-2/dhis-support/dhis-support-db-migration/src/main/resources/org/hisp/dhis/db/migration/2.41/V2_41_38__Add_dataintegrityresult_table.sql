@@ -0,0 +1,14 @@
+-- Results of SQL based data integrity checks, stored along with the table change marker and
+-- the SQL digest of the check they were computed at, see DataIntegrityStore.saveSummary
+create table if not exists dataintegrityresult
+(
+    name         varchar(255) not null,
+    type         varchar(10) not null,
+    changemarker text not null,
+    starttime    timestamp without time zone not null,
+    finishedtime timestamp without time zone not null,
+    count        integer,
+    percentage   double precision,
+    issues       jsonb,
+    constraint dataintegrityresult_pkey primary key (name, type)
+);
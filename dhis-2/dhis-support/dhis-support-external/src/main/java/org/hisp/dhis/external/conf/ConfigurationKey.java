@@ -66,6 +66,30 @@ public enum ConfigurationKey {
    */
   SYSTEM_PROGRAM_RULE_SERVER_EXECUTION("system.program_rule.server_execution", Constants.ON, false),
 
+  /** Number of enrollments evaluated concurrently by the program rule engines. (default: 4) */
+  SYSTEM_PROGRAM_RULE_PARALLELISM("system.program_rule.parallelism", "4", false),
+
+  /** Number of SQL based data integrity checks run concurrently. (default: 4) */
+  SYSTEM_DATA_INTEGRITY_PARALLELISM("system.data_integrity.parallelism", "4", false),
+
+  /** Number of outlier detection queries run concurrently for a single request. (default: 4) */
+  SYSTEM_OUTLIER_DETECTION_PARALLELISM("system.outlier_detection.parallelism", "4", false),
+
+  /** Number of image variants resized and encoded concurrently. (default: 4) */
+  SYSTEM_IMAGE_PROCESSING_PARALLELISM("system.image_processing.parallelism", "4", false),
+
+  /** Number of outbound message batches sent concurrently per delivery channel. (default: 4) */
+  SYSTEM_MESSAGE_SEND_PARALLELISM("system.message.send_parallelism", "4", false),
+
+  /**
+   * Maximum number of outbound messages sent per second per delivery channel, 0 means no limit.
+   * (default: 0)
+   */
+  SYSTEM_MESSAGE_SEND_RATE_LIMIT("system.message.send_rate_limit", "0", false),
+
+  /** Number of incoming SMS consumers run concurrently on each server. (default: 2) */
+  SYSTEM_SMS_CONSUMER_PARALLELISM("system.sms.consumer_parallelism", "2", false),
+
   /**
    * Set the maximum size for the cache instance to be built. If set to 0, no caching will take
    * place. Cannot be a negative value. (default: 0).
@@ -112,6 +136,25 @@ public enum ConfigurationKey {
   /** Sets 'hibernate.cache.use_query_cache'. (default: true) */
   USE_QUERY_CACHE("hibernate.cache.use_query_cache", "true", false),
 
+  /**
+   * Preload the second-level cache regions listed in 'hibernate.cache.warmup.regions' during
+   * startup. (default: off)
+   */
+  HIBERNATE_CACHE_WARMUP_ENABLED("hibernate.cache.warmup.enabled", Constants.OFF, false),
+
+  /** Comma separated entity names of the second-level cache regions to preload on startup. */
+  HIBERNATE_CACHE_WARMUP_REGIONS(
+      "hibernate.cache.warmup.regions",
+      "org.hisp.dhis.category.CategoryOptionCombo,"
+          + "org.hisp.dhis.dataelement.DataElement,"
+          + "org.hisp.dhis.organisationunit.OrganisationUnit,"
+          + "org.hisp.dhis.period.Period,"
+          + "org.hisp.dhis.program.Program",
+      false),
+
+  /** Max number of entities to preload per second-level cache region. (default: 50000) */
+  HIBERNATE_CACHE_WARMUP_MAX_ENTRIES("hibernate.cache.warmup.max_entries", "50000", false),
+
   /**
    * Sets 'hibernate.hbm2ddl.auto' (default: validate). This can be overridden by the same property
    * loaded by any class implementing {@link DhisConfigurationProvider} like {@link
@@ -377,12 +420,86 @@ public enum ConfigurationKey {
 
   PROGRAM_TEMPORARY_OWNERSHIP_TIMEOUT("tracker.temporary.ownership.timeout", "3", false),
 
+  /**
+   * Keep pools of pre-generated values for tracked entity attributes with a random text pattern so
+   * that reserving values only claims pooled values. (default: off)
+   */
+  RESERVED_VALUE_POOL_ENABLED("tracker.reserved_value.pool.enabled", Constants.OFF, false),
+
+  /** Number of pre-generated values kept in each reserved value pool. (default: 1000) */
+  RESERVED_VALUE_POOL_SIZE("tracker.reserved_value.pool.size", "1000", false),
+
+  /**
+   * Number of days since values were last reserved for a pattern key during which its pool is kept
+   * filled. (default: 7)
+   */
+  RESERVED_VALUE_POOL_DEMAND_DAYS("tracker.reserved_value.pool.demand_days", "7", false),
+
   /** Analytics server-side cache expiration in seconds. (default: 0) */
   ANALYTICS_CACHE_EXPIRATION("analytics.cache.expiration", "0"),
 
+  /** Number of threads executing analytics SQL queries. (default: 20) */
+  ANALYTICS_QUERY_THREADS("analytics.query.threads", "20"),
+
+  /** Max number of analytics SQL queries executing concurrently for one user. (default: 8) */
+  ANALYTICS_QUERY_USER_CONCURRENCY("analytics.query.user_concurrency", "8"),
+
+  /** Max number of analytics SQL queries executing concurrently for one request. (default: 8) */
+  ANALYTICS_QUERY_REQUEST_CONCURRENCY("analytics.query.request_concurrency", "8"),
+
+  /**
+   * Deadline in seconds for analytics SQL queries including the time queued, 0 means no deadline.
+   * (default: 0)
+   */
+  ANALYTICS_QUERY_TIMEOUT("analytics.query.timeout", "0"),
+
+  /**
+   * Fraction of analytics SQL queries, between 0 and 1, for which a query profile is recorded, 0 to
+   * disable profiling. (default: 0.01)
+   */
+  ANALYTICS_QUERY_PROFILING_SAMPLE_RATE("analytics.query.profiling.sample_rate", "0.01"),
+
+  /** Max number of distinct query shapes kept in the analytics query profiles. (default: 200) */
+  ANALYTICS_QUERY_PROFILING_MAX_SHAPES("analytics.query.profiling.max_shapes", "200"),
+
+  /**
+   * Data element groups, as comma separated UIDs, whose data elements are included in analytics
+   * rollup tables. Rollup tables are generated only if data element groups or data sets are
+   * specified. (default: none)
+   */
+  ANALYTICS_ROLLUP_DATA_ELEMENT_GROUPS("analytics.rollup.data_element_groups", ""),
+
+  /**
+   * Data sets, as comma separated UIDs, whose data elements are included in analytics rollup
+   * tables. (default: none)
+   */
+  ANALYTICS_ROLLUP_DATA_SETS("analytics.rollup.data_sets", ""),
+
+  /** Org unit levels, as comma separated numbers, to generate rollup tables for. (default: 1,2) */
+  ANALYTICS_ROLLUP_ORG_UNIT_LEVELS("analytics.rollup.org_unit_levels", "1,2"),
+
+  /**
+   * Period types, as comma separated names, to generate rollup tables for. (default:
+   * Yearly,Monthly)
+   */
+  ANALYTICS_ROLLUP_PERIOD_TYPES("analytics.rollup.period_types", "Yearly,Monthly"),
+
   /** Use unlogged tables during analytics export. (default: off) */
   ANALYTICS_TABLE_UNLOGGED("analytics.table.unlogged", Constants.OFF),
 
+  /**
+   * Minimum number of rows of a yearly aggregate analytics table partition for it to be split into
+   * monthly sub-partitions, 0 to disable. (default: 0)
+   */
+  ANALYTICS_TABLE_SUBPARTITION_MIN_ROWS("analytics.table.subpartition.min_rows", "0"),
+
+  /**
+   * Skip regeneration of resource tables whose source data is unchanged since the last run, and
+   * patch changed tables in place instead of swapping them. (default: on)
+   */
+  ANALYTICS_RESOURCE_TABLE_CHANGE_DETECTION(
+      "analytics.resource_table.change_detection", Constants.ON),
+
   /**
    * Artemis support mode, 2 modes supported: EMBEDDED (starts up an embedded Artemis which lives in
    * the same process as your DHIS2 instance), NATIVE (connects to an external Artemis instance,
@@ -458,6 +575,9 @@ public enum ConfigurationKey {
   /** Hibernate monitoring, do not use in production. (default: off) */
   MONITORING_HIBERNATE_ENABLED("monitoring.hibernate.enabled", Constants.OFF, false),
 
+  /** Hibernate second-level cache hit, miss and size monitoring per region. (default: off) */
+  MONITORING_HIBERNATE_CACHE_ENABLED("monitoring.hibernate.cache.enabled", Constants.OFF, false),
+
   /** Uptime monitoring. (default: off) */
   MONITORING_UPTIME_ENABLED("monitoring.uptime.enabled", Constants.OFF, false),
 
@@ -624,6 +744,18 @@ public enum ConfigurationKey {
   /** Event hooks for system events. Enable or disable the feature. */
   EVENT_HOOKS_ENABLED("event_hooks.enabled", Constants.OFF, false),
 
+  /**
+   * Max number of events delivered to an event hook target in one call. Webhook targets receive a
+   * JSON array of events when this is larger than 1. (default: 1)
+   */
+  EVENT_HOOKS_BATCH_SIZE("event_hooks.batch_size", "1", false),
+
+  /** Milliseconds to wait between polls for event hook events to deliver. (default: 1000) */
+  EVENT_HOOKS_LINGER("event_hooks.linger", "1000", false),
+
+  /** Number of delivery attempts before an event hook event is dropped. (default: 10) */
+  EVENT_HOOKS_MAX_ATTEMPTS("event_hooks.max_attempts", "10", false),
+
   /** Linked accounts via OpenID mapping. Enable or disable the feature. */
   LINKED_ACCOUNTS_ENABLED("linked_accounts.enabled", Constants.OFF, false),
 
@@ -28,7 +28,13 @@
 package org.hisp.dhis.cache;
 
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.EntityPersister;
 import org.hibernate.stat.Statistics;
 import org.hisp.dhis.common.event.ApplicationCacheClearedEvent;
 import org.springframework.context.event.EventListener;
@@ -38,6 +44,8 @@ import org.springframework.context.event.EventListener;
  */
 @Slf4j
 public class DefaultHibernateCacheManager implements HibernateCacheManager {
+  private static final int WARM_UP_FETCH_SIZE = 1000;
+
   // -------------------------------------------------------------------------
   // Dependencies
   // -------------------------------------------------------------------------
@@ -72,6 +80,46 @@ public class DefaultHibernateCacheManager implements HibernateCacheManager {
     log.info("Hibernate caches cleared");
   }
 
+  @Override
+  public int warmUpRegion(String entityName, int maxEntries) {
+    EntityPersister persister =
+        sessionFactory
+            .unwrap(SessionFactoryImplementor.class)
+            .getMetamodel()
+            .entityPersisters()
+            .get(entityName);
+
+    if (persister == null || !persister.canWriteToCache()) {
+      log.warn("Entity '{}' is not a cacheable entity, skipping cache warm-up", entityName);
+      return 0;
+    }
+
+    int count = 0;
+
+    try (Session session = sessionFactory.openSession()) {
+      session.setDefaultReadOnly(true);
+      session.setCacheMode(CacheMode.PUT);
+      session.beginTransaction();
+
+      try (ScrollableResults results =
+          session
+              .createQuery("from " + entityName)
+              .setFetchSize(WARM_UP_FETCH_SIZE)
+              .setMaxResults(maxEntries)
+              .scroll(ScrollMode.FORWARD_ONLY)) {
+        while (results.next()) {
+          if (++count % WARM_UP_FETCH_SIZE == 0) {
+            session.clear();
+          }
+        }
+      }
+
+      session.getTransaction().rollback();
+    }
+
+    return count;
+  }
+
   @Override
   @EventListener
   public void handleApplicationCachesCleared(ApplicationCacheClearedEvent event) {
@@ -43,6 +43,16 @@ public interface HibernateCacheManager {
   /** Evicts all entities, collections and queries from the cache. */
   void clearCache();
 
+  /**
+   * Loads entities of the given entity type into its second-level cache region. Entity types which
+   * are unknown or not cacheable are ignored.
+   *
+   * @param entityName the entity name, i.e. the fully qualified class name.
+   * @param maxEntries the max number of entities to load.
+   * @return the number of entities loaded into the cache region.
+   */
+  int warmUpRegion(String entityName, int maxEntries);
+
   /**
    * Gets the statistics.
    *
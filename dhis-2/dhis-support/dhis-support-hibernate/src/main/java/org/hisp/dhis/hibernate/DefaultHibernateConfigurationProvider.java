@@ -239,8 +239,9 @@ public class DefaultHibernateConfigurationProvider implements HibernateConfigura
     set(USE_QUERY_CACHE, configProvider.getProperty(ConfigurationKey.USE_QUERY_CACHE), p);
     set(HBM2DDL_AUTO, configProvider.getProperty(ConfigurationKey.CONNECTION_SCHEMA), p);
 
-    // Enable Hibernate statistics if Hibernate Monitoring is enabled
-    if (configProvider.isEnabled(ConfigurationKey.MONITORING_HIBERNATE_ENABLED)) {
+    // Enable Hibernate statistics if Hibernate or Hibernate cache monitoring is enabled
+    if (configProvider.isEnabled(ConfigurationKey.MONITORING_HIBERNATE_ENABLED)
+        || configProvider.isEnabled(ConfigurationKey.MONITORING_HIBERNATE_CACHE_ENABLED)) {
       p.put(GENERATE_STATISTICS, true);
     }
 
@@ -85,8 +85,10 @@ public class DefaultCacheProvider implements CacheProvider {
   @SuppressWarnings("squid:S115") // allow non enum-ish names
   private enum Region {
     analyticsResponse,
+    analyticsSubQuery,
     defaultObjectCache,
     isDataApproved,
+    dataApprovalStatus,
     allConstantsCache,
     inUserOuHierarchy,
     isUserViewOuHierHierarchy,
@@ -101,6 +103,7 @@ public class DefaultCacheProvider implements CacheProvider {
     currentUserGroupInfoCache,
     userSetting,
     attrOptionComboIdCache,
+    categoryOptionComboIndexCache,
     systemSetting,
     googleAccessToken,
     dataItemsPagination,
@@ -111,6 +114,7 @@ public class DefaultCacheProvider implements CacheProvider {
     propertyTransformerCache,
     programHasRulesCache,
     programRuleVariablesCache,
+    compiledProgramRuleSetCache,
     userGroupNameCache,
     userDisplayNameCache,
     programWebHookNotificationTemplateCache,
@@ -128,7 +132,8 @@ public class DefaultCacheProvider implements CacheProvider {
     runningJobsInfo,
     jobCancelRequested,
     dataIntegritySummaryCache,
-    dataIntegrityDetailsCache
+    dataIntegrityDetailsCache,
+    trackedEntitySearchTableCache
   }
 
   private final Map<String, Cache<?>> allCaches = new ConcurrentHashMap<>();
@@ -176,6 +181,15 @@ public class DefaultCacheProvider implements CacheProvider {
             .withMaximumSize(orZeroInTestRun(getActualSize(SIZE_10K))));
   }
 
+  @Override
+  public <V> Cache<V> createAnalyticsSubQueryCache() {
+    return registerCache(
+        this.<V>newBuilder()
+            .forRegion(Region.analyticsSubQuery.name())
+            .expireAfterWrite(12, TimeUnit.HOURS)
+            .withMaximumSize(orZeroInTestRun(getActualSize(SIZE_10K))));
+  }
+
   /**
    * Cache for default objects such as default category combination and default category option
    * combination which are permanent and will never change.
@@ -200,6 +214,15 @@ public class DefaultCacheProvider implements CacheProvider {
             .withMaximumSize(orZeroInTestRun(getActualSize(SIZE_10K))));
   }
 
+  @Override
+  public <V> Cache<V> createDataApprovalStatusCache() {
+    return registerCache(
+        this.<V>newBuilder()
+            .forRegion(Region.dataApprovalStatus.name())
+            .expireAfterWrite(5, TimeUnit.MINUTES)
+            .withMaximumSize(orZeroInTestRun(getActualSize(SIZE_10K))));
+  }
+
   @Override
   public <V> Cache<V> createAllConstantsCache() {
     return registerCache(
@@ -343,6 +366,17 @@ public class DefaultCacheProvider implements CacheProvider {
             .withMaximumSize(orZeroInTestRun(getActualSize(SIZE_10K))));
   }
 
+  @Override
+  public <V> Cache<V> createCategoryOptionComboIndexCache() {
+    return registerCache(
+        this.<V>newBuilder()
+            .forRegion(Region.categoryOptionComboIndexCache.name())
+            .expireAfterWrite(3, TimeUnit.HOURS)
+            .withInitialCapacity((int) getActualSize(SIZE_100))
+            .forceInMemory()
+            .withMaximumSize(orZeroInTestRun(getActualSize(SIZE_1K))));
+  }
+
   @Override
   public <V> Cache<V> createSystemSettingCache() {
     return registerCache(
@@ -452,6 +486,17 @@ public class DefaultCacheProvider implements CacheProvider {
             .withMaximumSize(orZeroInTestRun(getActualSize(SIZE_1K))));
   }
 
+  @Override
+  public <V> Cache<V> createCompiledProgramRuleSetCache() {
+    return registerCache(
+        this.<V>newBuilder()
+            .forRegion(Region.compiledProgramRuleSetCache.name())
+            .expireAfterWrite(3, TimeUnit.HOURS)
+            .withInitialCapacity((int) getActualSize(20))
+            .forceInMemory()
+            .withMaximumSize(orZeroInTestRun(getActualSize(SIZE_1K))));
+  }
+
   @Override
   public <V> Cache<V> createUserGroupNameCache() {
     return registerCache(
@@ -617,4 +662,14 @@ public class DefaultCacheProvider implements CacheProvider {
             .forRegion(Region.dataIntegrityDetailsCache.name())
             .expireAfterWrite(1, HOURS));
   }
+
+  @Override
+  public <V> Cache<V> createTrackedEntitySearchTableCache() {
+    return registerCache(
+        this.<V>newBuilder()
+            .forRegion(Region.trackedEntitySearchTableCache.name())
+            .expireAfterWrite(1, MINUTES)
+            .withInitialCapacity((int) getActualSize(SIZE_100))
+            .withMaximumSize(orZeroInTestRun(getActualSize(SIZE_1K))));
+  }
 }
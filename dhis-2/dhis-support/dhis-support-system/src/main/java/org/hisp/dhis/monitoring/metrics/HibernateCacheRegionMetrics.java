@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.monitoring.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.function.ToDoubleFunction;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Binds hit, miss, put and size metrics for each Hibernate second-level cache region. Regions
+ * created at runtime, such as the query cache regions of {@link
+ * org.hisp.dhis.cache.QueryCacheManager}, are not included as their names are unbounded.
+ *
+ * <p>Evictions are not bound as Hibernate does not keep eviction statistics per region.
+ */
+public class HibernateCacheRegionMetrics implements MeterBinder {
+  private static final String PREFIX = "hibernate.cache.region";
+
+  private final Statistics statistics;
+
+  public HibernateCacheRegionMetrics(SessionFactory sessionFactory) {
+    this.statistics = sessionFactory.getStatistics();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    if (!statistics.isStatisticsEnabled()) {
+      return;
+    }
+
+    for (String region : statistics.getSecondLevelCacheRegionNames()) {
+      CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+
+      if (regionStatistics != null) {
+        bindRegion(registry, region, regionStatistics);
+      }
+    }
+  }
+
+  private void bindRegion(MeterRegistry registry, String region, CacheRegionStatistics stats) {
+    Tags tags = Tags.of("region", region);
+
+    counter(registry, "requests", tags.and("result", "hit"), stats, s -> s.getHitCount());
+    counter(registry, "requests", tags.and("result", "miss"), stats, s -> s.getMissCount());
+    counter(registry, "puts", tags, stats, s -> s.getPutCount());
+
+    Gauge.builder(PREFIX + ".hit.ratio", stats, HibernateCacheRegionMetrics::getHitRatio)
+        .tags(tags)
+        .description("The ratio of cache requests which were hits")
+        .register(registry);
+
+    if (getElementCount(stats) < 0) {
+      return;
+    }
+
+    Gauge.builder(PREFIX + ".size", stats, s -> Math.max(0, getElementCount(s)))
+        .tags(tags)
+        .description("The number of entries held by the cache region")
+        .register(registry);
+  }
+
+  private void counter(
+      MeterRegistry registry,
+      String name,
+      Tags tags,
+      CacheRegionStatistics stats,
+      ToDoubleFunction<CacheRegionStatistics> function) {
+    FunctionCounter.builder(PREFIX + "." + name, stats, function).tags(tags).register(registry);
+  }
+
+  /**
+   * Returns the number of elements in memory and on disk, or a negative number if the cache
+   * provider does not support element counts.
+   */
+  private static long getElementCount(CacheRegionStatistics stats) {
+    long inMemory = stats.getElementCountInMemory();
+    long onDisk = stats.getElementCountOnDisk();
+
+    return inMemory < 0 ? -1 : inMemory + Math.max(0, onDisk);
+  }
+
+  private static double getHitRatio(CacheRegionStatistics stats) {
+    long hits = stats.getHitCount();
+    long requests = hits + stats.getMissCount();
+
+    return requests == 0 ? 0d : (double) hits / requests;
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.monitoring.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+/** Unit tests for {@link HibernateCacheRegionMetrics}. */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class HibernateCacheRegionMetricsTest {
+  private static final String REGION = "org.hisp.dhis.dataelement.DataElement";
+
+  @Mock private SessionFactory sessionFactory;
+
+  @Mock private Statistics statistics;
+
+  @Mock private CacheRegionStatistics regionStatistics;
+
+  private MeterRegistry registry;
+
+  @BeforeEach
+  void setUp() {
+    registry = new SimpleMeterRegistry();
+
+    when(sessionFactory.getStatistics()).thenReturn(statistics);
+    when(statistics.isStatisticsEnabled()).thenReturn(true);
+    when(statistics.getSecondLevelCacheRegionNames()).thenReturn(new String[] {REGION});
+    when(statistics.getCacheRegionStatistics(REGION)).thenReturn(regionStatistics);
+    when(regionStatistics.getHitCount()).thenReturn(30L);
+    when(regionStatistics.getMissCount()).thenReturn(10L);
+    when(regionStatistics.getPutCount()).thenReturn(25L);
+    when(regionStatistics.getElementCountOnDisk()).thenReturn(0L);
+  }
+
+  @Test
+  void testBindRegionMetrics() {
+    when(regionStatistics.getElementCountInMemory()).thenReturn(20L);
+
+    new HibernateCacheRegionMetrics(sessionFactory).bindTo(registry);
+
+    assertEquals(30d, getCounter("requests", "hit"));
+    assertEquals(10d, getCounter("requests", "miss"));
+    assertEquals(25d, registry.get("hibernate.cache.region.puts").functionCounter().count());
+    assertNull(registry.find("hibernate.cache.region.evictions").functionCounter());
+    assertEquals(20d, registry.get("hibernate.cache.region.size").gauge().value());
+    assertEquals(0.75d, registry.get("hibernate.cache.region.hit.ratio").gauge().value());
+  }
+
+  @Test
+  void testBindRegionMetricsWithoutElementCount() {
+    when(regionStatistics.getElementCountInMemory()).thenReturn(Long.MIN_VALUE);
+
+    new HibernateCacheRegionMetrics(sessionFactory).bindTo(registry);
+
+    assertEquals(30d, getCounter("requests", "hit"));
+    assertNull(registry.find("hibernate.cache.region.size").gauge());
+  }
+
+  @Test
+  void testStatisticsDisabled() {
+    when(statistics.isStatisticsEnabled()).thenReturn(false);
+
+    new HibernateCacheRegionMetrics(sessionFactory).bindTo(registry);
+
+    assertEquals(0, registry.getMeters().size());
+  }
+
+  private double getCounter(String name, String result) {
+    return registry
+        .get("hibernate.cache.region." + name)
+        .tags("region", REGION, "result", result)
+        .functionCounter()
+        .count();
+  }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.rollup;
+
+import static java.util.stream.Collectors.joining;
+import static org.hisp.dhis.common.DimensionalObject.DATA_X_DIM_ID;
+import static org.hisp.dhis.common.DimensionalObject.ORGUNIT_DIM_ID;
+import static org.hisp.dhis.common.DimensionalObject.PERIOD_DIM_ID;
+import static org.hisp.dhis.common.DimensionalObjectUtils.getList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.hisp.dhis.analytics.AggregationType;
+import org.hisp.dhis.analytics.AnalyticsAggregationType;
+import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.DataType;
+import org.hisp.dhis.analytics.partition.PartitionManager;
+import org.hisp.dhis.analytics.util.AnalyticsSqlUtils;
+import org.hisp.dhis.common.BaseDimensionalObject;
+import org.hisp.dhis.common.DimensionType;
+import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.common.ValueType;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.dataelement.DataElementGroup;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.period.MonthlyPeriodType;
+import org.hisp.dhis.period.PeriodType;
+import org.hisp.dhis.period.YearlyPeriodType;
+import org.hisp.dhis.scheduling.NoopJobProgress;
+import org.hisp.dhis.setting.SystemSettingManager;
+import org.hisp.dhis.test.integration.IntegrationTestBase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Tests that queries resolved to rollup tables by the {@link JdbcRollupManager} give the same
+ * result as the analytics table, using a small analytics table in a postgres database.
+ */
+class JdbcRollupManagerIntegrationTest extends IntegrationTestBase {
+  private static final List<AnalyticsRollup> ROLLUPS =
+      List.of(
+          new AnalyticsRollup(1, new YearlyPeriodType()),
+          new AnalyticsRollup(1, new MonthlyPeriodType()),
+          new AnalyticsRollup(2, new YearlyPeriodType()),
+          new AnalyticsRollup(2, new MonthlyPeriodType()));
+
+  @Autowired private IdentifiableObjectManager manager;
+
+  @Autowired private PartitionManager partitionManager;
+
+  @Autowired private SystemSettingManager systemSettingManager;
+
+  @Autowired
+  @Qualifier("analyticsJdbcTemplate")
+  private JdbcTemplate jdbcTemplate;
+
+  private JdbcRollupManager rollupManager;
+
+  private DataElement deA;
+
+  private DataElement deB;
+
+  @Override
+  protected void setUpTest() {
+    deA = createDataElement('A', ValueType.INTEGER, AggregationType.SUM);
+    deB = createDataElement('B', ValueType.INTEGER, AggregationType.SUM);
+    manager.save(deA);
+    manager.save(deB);
+
+    DataElementGroup group = createDataElementGroup('A', deA);
+    manager.save(group);
+
+    DhisConfigurationProvider config = mock(DhisConfigurationProvider.class);
+    when(config.getProperty(ConfigurationKey.ANALYTICS_ROLLUP_DATA_ELEMENT_GROUPS))
+        .thenReturn(group.getUid());
+    when(config.getProperty(ConfigurationKey.ANALYTICS_ROLLUP_DATA_SETS)).thenReturn("");
+    when(config.getProperty(ConfigurationKey.ANALYTICS_ROLLUP_ORG_UNIT_LEVELS)).thenReturn("1,2");
+    when(config.getProperty(ConfigurationKey.ANALYTICS_ROLLUP_PERIOD_TYPES))
+        .thenReturn("Yearly,Monthly");
+
+    rollupManager =
+        new JdbcRollupManager(config, partitionManager, systemSettingManager, jdbcTemplate);
+
+    dropTables();
+    createAnalyticsTable();
+
+    addValue(deA, "ouLevel1A", "ouLevel2A", "202301", 1);
+    addValue(deA, "ouLevel1A", "ouLevel2A", "202301", 2);
+    addValue(deA, "ouLevel1A", "ouLevel2B", "202302", 4);
+    addValue(deA, "ouLevel1B", "ouLevel2C", "202311", 8);
+    addValue(deA, "ouLevel1A", "ouLevel2A", "202401", 16);
+    addValue(deB, "ouLevel1A", "ouLevel2A", "202301", 32);
+
+    rollupManager.generateRollups(
+        AnalyticsTableUpdateParams.newBuilder().build(), NoopJobProgress.INSTANCE);
+  }
+
+  @Override
+  protected void tearDownTest() {
+    dropTables();
+  }
+
+  @Test
+  void testRollupGivesSameResultAsAnalyticsTable() {
+    assertSameResult(1, "2023", "2024");
+    assertSameResult(2, "2023", "2024");
+    assertSameResult(1, "202301", "202302", "202311");
+    assertSameResult(2, "202301", "202302", "202311", "202401");
+  }
+
+  @Test
+  void testDataElementNotInRollupUsesAnalyticsTable() {
+    assertTrue(rollupManager.getRollup(createParams(deB, 1, "2023")).isEmpty());
+  }
+
+  @Test
+  void testDroppedRollupIsNotUsed() {
+    AnalyticsRollup smallest = new AnalyticsRollup(1, new YearlyPeriodType());
+
+    assertEquals(Optional.of(smallest), rollupManager.getRollup(createParams(deA, 1, "2023")));
+
+    jdbcTemplate.execute("drop table " + smallest.getTableName());
+
+    Optional<AnalyticsRollup> rollup = rollupManager.getRollup(createParams(deA, 1, "2023"));
+
+    assertTrue(rollup.isPresent());
+    assertNotEquals(smallest, rollup.get());
+
+    ROLLUPS.forEach(r -> jdbcTemplate.execute("drop table if exists " + r.getTableName()));
+
+    assertTrue(rollupManager.getRollup(createParams(deA, 1, "2023")).isEmpty());
+  }
+
+  /**
+   * Asserts that the data of the given periods summed to the org unit level and the period type of
+   * the periods are the same in the analytics table and the rollup table the query resolves to.
+   */
+  private void assertSameResult(int level, String... periods) {
+    DataQueryParams params = createParams(deA, level, periods);
+    Optional<AnalyticsRollup> rollup = rollupManager.getRollup(params);
+
+    assertTrue(rollup.isPresent());
+
+    String periodColumn =
+        PeriodType.getPeriodFromIsoString(periods[0]).getPeriodType().getName().toLowerCase();
+    String expected = getSumSql("analytics", level, periodColumn, periods);
+    String actual = getSumSql(rollup.get().getTableName(), level, periodColumn, periods);
+
+    List<Map<String, Object>> expectedRows = jdbcTemplate.queryForList(expected);
+
+    assertFalse(expectedRows.isEmpty());
+    assertEquals(expectedRows, jdbcTemplate.queryForList(actual));
+  }
+
+  private String getSumSql(String table, int level, String periodColumn, String... periods) {
+    String columns = "\"dx\",\"uidlevel" + level + "\",\"" + periodColumn + "\"";
+
+    return "select "
+        + columns
+        + ", sum(\"value\") as \"value\" from "
+        + table
+        + " where \"dx\" = '"
+        + deA.getUid()
+        + "' and \""
+        + periodColumn
+        + "\" in ("
+        + List.of(periods).stream().map(p -> "'" + p + "'").collect(joining(","))
+        + ") group by "
+        + columns
+        + " order by "
+        + columns;
+  }
+
+  private DataQueryParams createParams(DataElement dataElement, int level, String... periods) {
+    OrganisationUnit ouA = createOrganisationUnit('A');
+    PeriodType periodType = PeriodType.getPeriodFromIsoString(periods[0]).getPeriodType();
+
+    return DataQueryParams.newBuilder()
+        .withDataType(DataType.NUMERIC)
+        .withTableName("analytics")
+        .withAggregationType(
+            new AnalyticsAggregationType(
+                AggregationType.SUM, AggregationType.SUM, DataType.NUMERIC, false))
+        .addDimension(
+            new BaseDimensionalObject(DATA_X_DIM_ID, DimensionType.DATA_X, getList(dataElement)))
+        .addDimension(
+            new BaseDimensionalObject(
+                ORGUNIT_DIM_ID,
+                DimensionType.ORGANISATION_UNIT,
+                "uidlevel" + level,
+                null,
+                getList(ouA)))
+        .addDimension(
+            new BaseDimensionalObject(
+                PERIOD_DIM_ID,
+                DimensionType.PERIOD,
+                periodType.getName().toLowerCase(),
+                null,
+                List.of(periods).stream().map(PeriodType::getPeriodFromIsoString).toList()))
+        .build();
+  }
+
+  /** Creates an analytics table with the columns of all rollups, the year and the value. */
+  private void createAnalyticsTable() {
+    Set<String> columns = new LinkedHashSet<>();
+    ROLLUPS.forEach(rollup -> columns.addAll(rollup.getColumns()));
+
+    List<String> definitions = new ArrayList<>();
+    columns.forEach(column -> definitions.add(AnalyticsSqlUtils.quote(column) + " text"));
+    definitions.add("\"year\" integer");
+    definitions.add("\"value\" double precision");
+
+    jdbcTemplate.execute("create table analytics (" + String.join(",", definitions) + ")");
+  }
+
+  /** Adds a value to the analytics table with the periods of all period types of the month. */
+  private void addValue(
+      DataElement dataElement, String ouLevel1, String ouLevel2, String month, double value) {
+    String year = month.substring(0, 4);
+
+    jdbcTemplate.update(
+        "insert into analytics (\"dx\",\"co\",\"ao\",\"uidlevel1\",\"uidlevel2\","
+            + "\"monthly\",\"yearly\",\"year\",\"value\") values (?,?,?,?,?,?,?,?,?)",
+        dataElement.getUid(),
+        "coUid000001",
+        "aoUid000001",
+        ouLevel1,
+        ouLevel2,
+        month,
+        year,
+        Integer.parseInt(year),
+        value);
+  }
+
+  private void dropTables() {
+    ROLLUPS.forEach(
+        rollup -> jdbcTemplate.execute("drop table if exists " + rollup.getTableName()));
+    jdbcTemplate.execute("drop table if exists analytics cascade");
+    jdbcTemplate.execute("drop table if exists " + JdbcRollupManager.STATE_TABLE);
+  }
+}
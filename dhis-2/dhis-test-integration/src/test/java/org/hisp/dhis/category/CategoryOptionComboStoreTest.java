@@ -250,6 +250,19 @@ class CategoryOptionComboStoreTest extends SingleSetupIntegrationTestBase {
     assertEquals(categoryOptions4, coc4.getCategoryOptions());
   }
 
+  @Test
+  void testGetCategoryOptionComboAfterDelete() {
+    categoryService.generateOptionCombos(categoryComboA);
+    Set<CategoryOption> options = Set.of(categoryOptionA, categoryOptionC);
+    CategoryOptionCombo coc =
+        categoryOptionComboStore.getCategoryOptionCombo(categoryComboA, options);
+    assertNotNull(coc);
+    assertEquals(coc, categoryOptionComboStore.getCategoryOptionCombo(categoryComboA, options));
+    categoryComboA.getOptionCombos().remove(coc);
+    categoryOptionComboStore.delete(coc);
+    assertNull(categoryOptionComboStore.getCategoryOptionCombo(categoryComboA, options));
+  }
+
   @Test
   void testGetCategoryOptionComboNotFound() {
     categoryService.generateOptionCombos(categoryComboA);
@@ -43,6 +43,7 @@ import static org.junit.jupiter.api.Assertions.fail;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Predicate;
 import org.hisp.dhis.category.Category;
 import org.hisp.dhis.category.CategoryCombo;
 import org.hisp.dhis.category.CategoryOption;
@@ -836,6 +837,41 @@ class DataApprovalServiceTest extends IntegrationTestBase {
             workflow12, testPeriodA, organisationUnitB, defaultOptionCombo));
   }
 
+  @Test
+  void testGetIsApprovedPredicate() {
+    switchToApprovalUser(
+        organisationUnitA, DataApproval.AUTH_APPROVE, DataApproval.AUTH_APPROVE_LOWER_LEVELS);
+
+    DataApproval dataApprovalB =
+        new DataApproval(
+            level2,
+            workflow12,
+            periodA,
+            organisationUnitB,
+            defaultOptionCombo,
+            NOT_ACCEPTED,
+            new Date(),
+            userB);
+    dataApprovalService.approveData(newArrayList(dataApprovalB));
+
+    // Get a period without periodId
+    Period testPeriodA = createPeriod(periodA.getIsoDate());
+
+    Predicate<OrganisationUnit> isApproved =
+        dataApprovalService.getIsApprovedPredicate(workflow12, testPeriodA, defaultOptionCombo);
+
+    assertFalse(isApproved.test(organisationUnitA));
+    assertTrue(isApproved.test(organisationUnitB));
+    assertTrue(isApproved.test(organisationUnitC));
+
+    for (OrganisationUnit orgUnit :
+        List.of(organisationUnitA, organisationUnitB, organisationUnitC)) {
+      assertEquals(
+          dataApprovalService.isApproved(workflow12, testPeriodA, orgUnit, defaultOptionCombo),
+          isApproved.test(orgUnit));
+    }
+  }
+
   @Test
   void testIsApprovedPeriodDoesNotExist() {
     switchToApprovalUser(
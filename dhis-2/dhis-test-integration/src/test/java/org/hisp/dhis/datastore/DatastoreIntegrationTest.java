@@ -298,6 +298,98 @@ class DatastoreIntegrationTest extends IntegrationTestBase {
         "pig");
   }
 
+  /*
+   * Aggregates
+   */
+
+  @Test
+  void test_Aggregate_CountByPath() throws ConflictException {
+    assertAggregates(
+        datastore.getAggregates(createQuery(), "cute", null),
+        new DatastoreAggregate(null, 8, null),
+        new DatastoreAggregate("true", 4, null));
+  }
+
+  @Test
+  void test_Aggregate_CountAndSumByPath() throws ConflictException {
+    assertAggregates(
+        datastore.getAggregates(createQuery(), "cute", "age"),
+        new DatastoreAggregate(null, 8, 0d),
+        new DatastoreAggregate("true", 4, 22d));
+  }
+
+  @Test
+  void test_Aggregate_SumIgnoresNonNumericValues() throws ConflictException {
+    assertAggregates(
+        datastore.getAggregates(createQuery("age:gt:0"), "cute", "name"),
+        new DatastoreAggregate("true", 4, 0d));
+  }
+
+  @Test
+  void test_Aggregate_Filtered() throws ConflictException {
+    assertAggregates(
+        datastore.getAggregates(createQuery("age:gt:4"), "cute", "age"),
+        new DatastoreAggregate("true", 3, 20d));
+  }
+
+  @Test
+  void test_Aggregate_OrderedByCountThenGroup() throws ConflictException, BadRequestException {
+    addPet("tiger", "Oink", 4, List.of());
+    assertAggregates(
+        datastore.getAggregates(createQuery("name:!eq:Miao"), "name", "age"),
+        new DatastoreAggregate("Oink", 2, 10d),
+        new DatastoreAggregate("", 1, 2d),
+        new DatastoreAggregate("Muuhh", 1, 5d));
+  }
+
+  /*
+   * Indexes
+   */
+
+  @Test
+  void test_Index_AddAndRemove() {
+    try {
+      datastore.addIndex("pets", "name");
+      datastore.addIndex("pets", "age");
+      assertEquals(List.of("age", "name"), datastore.getIndexedPaths("pets"));
+      assertEquals(List.of(), datastore.getIndexedPaths("plants"));
+
+      datastore.removeIndex("pets", "age");
+      assertEquals(List.of("name"), datastore.getIndexedPaths("pets"));
+    } finally {
+      datastore.removeIndex("pets", "name");
+      datastore.removeIndex("pets", "age");
+    }
+    assertEquals(List.of(), datastore.getIndexedPaths("pets"));
+  }
+
+  @Test
+  void test_Index_AddTwice() {
+    try {
+      datastore.addIndex("pets", "name");
+      datastore.addIndex("pets", "name");
+      assertEquals(List.of("name"), datastore.getIndexedPaths("pets"));
+    } finally {
+      datastore.removeIndex("pets", "name");
+    }
+  }
+
+  @Test
+  void test_Index_FiltersAndOrdersOnIndexedPath() throws ConflictException {
+    try {
+      datastore.addIndex("pets", "name");
+      datastore.addIndex("pets", "age");
+      assertEntries("name:eq:Miao", "cat");
+      assertEntries("age:lt:6", "cow", "hamster");
+      assertAggregates(
+          datastore.getAggregates(createQuery("age:gt:4"), "cute", "age"),
+          new DatastoreAggregate("true", 3, 20d));
+    } finally {
+      datastore.removeIndex("pets", "name");
+      datastore.removeIndex("pets", "age");
+    }
+  }
+
   private DatastoreQuery createQuery(String... filters) {
     return DatastoreQuery.builder()
         .namespace("pets")
@@ -322,4 +414,14 @@ class DatastoreIntegrationTest extends IntegrationTestBase {
     List<String> actualKeys = actual.stream().map(DatastoreFields::getKey).collect(toList());
     assertEquals(expectedKeys, actualKeys);
   }
+
+  private static void assertAggregates(
+      List<DatastoreAggregate> actual, DatastoreAggregate... expected) {
+    assertEquals(expected.length, actual.size());
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i].getGroup(), actual.get(i).getGroup());
+      assertEquals(expected[i].getCount(), actual.get(i).getCount());
+      assertEquals(expected[i].getSum(), actual.get(i).getSum());
+    }
+  }
 }
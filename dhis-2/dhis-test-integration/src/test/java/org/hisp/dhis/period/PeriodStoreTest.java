@@ -185,6 +185,40 @@ class PeriodStoreTest extends SingleSetupIntegrationTestBase {
     assertNull(periodStore.getPeriod(getDay(5), getDay(6), periodTypeA));
   }
 
+  @Test
+  void testReloadForceAddPeriods() {
+    List<PeriodType> periodTypes = periodStore.getAllPeriodTypes();
+    Iterator<PeriodType> it = periodTypes.iterator();
+    PeriodType periodTypeA = it.next();
+    PeriodType periodTypeB = it.next();
+    Period periodA = new Period(periodTypeA, getDay(21), getDay(22));
+    Period periodB = new Period(periodTypeB, getDay(22), getDay(23));
+    periodStore.addPeriod(periodA);
+    long idA = periodA.getId();
+    List<Period> reloaded =
+        periodStore.reloadForceAddPeriods(
+            List.of(
+                new Period(periodTypeA, getDay(21), getDay(22)),
+                periodB,
+                new Period(periodTypeA, getDay(22), getDay(23)),
+                new Period(periodTypeB, getDay(22), getDay(23))));
+    assertEquals(4, reloaded.size());
+    assertEquals(idA, reloaded.get(0).getId());
+    assertTrue(periodB.getId() > 0);
+    assertEquals(periodB.getId(), reloaded.get(1).getId());
+    assertEquals(periodB.getId(), reloaded.get(3).getId());
+    assertTrue(reloaded.get(2).getId() > 0);
+    assertEquals(periodTypeA, reloaded.get(2).getPeriodType());
+    assertEquals(
+        reloaded.get(2).getId(),
+        periodStore.getPeriod(getDay(22), getDay(23), periodTypeA).getId());
+    assertEquals(
+        List.of(idA, periodB.getId()),
+        periodStore.reloadForceAddPeriods(List.of(periodA, periodB)).stream()
+            .map(Period::getId)
+            .toList());
+  }
+
   @Test
   void testGetAllPeriods() {
     PeriodType periodType = periodStore.getAllPeriodTypes().iterator().next();
@@ -75,9 +75,11 @@ import org.hisp.dhis.programrule.ProgramRuleAction;
 import org.hisp.dhis.programrule.ProgramRuleActionService;
 import org.hisp.dhis.programrule.ProgramRuleActionType;
 import org.hisp.dhis.programrule.ProgramRuleService;
+import org.hisp.dhis.programrule.ProgramRuleStore;
 import org.hisp.dhis.programrule.ProgramRuleVariable;
 import org.hisp.dhis.programrule.ProgramRuleVariableService;
 import org.hisp.dhis.programrule.ProgramRuleVariableSourceType;
+import org.hisp.dhis.programrule.engine.ProgramRuleEngine.EnrollmentEvaluation;
 import org.hisp.dhis.rules.models.*;
 import org.hisp.dhis.test.integration.TransactionalIntegrationTest;
 import org.hisp.dhis.trackedentity.TrackedEntity;
@@ -90,6 +92,7 @@ import org.joda.time.DateTime;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 /** Created by zubair@dhis2.org on 11.10.17. */
 class ProgramRuleEngineTest extends TransactionalIntegrationTest {
@@ -214,6 +217,10 @@ class ProgramRuleEngineTest extends TransactionalIntegrationTest {
 
   @Autowired private OptionService optionService;
 
+  @Autowired private ProgramRuleStore programRuleStore;
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
   @Override
   public void setUpTest() throws ParseException, ConflictException {
     optionSet = new OptionSet("optionSetName", ValueType.TEXT);
@@ -296,6 +303,44 @@ class ProgramRuleEngineTest extends TransactionalIntegrationTest {
     assertEquals("PNT-1", ruleActionSendMessage.notification());
   }
 
+  @Test
+  void testSendMessageForEnrollmentsAndEvents() {
+    setUpSendMessageForEnrollment();
+    Enrollment enrollment = enrollmentService.getEnrollment("UID-P1");
+    Event event = eventService.getEvent("UID-PS1");
+    List<RuleEffects> ruleEffects =
+        programRuleEngine.evaluateEnrollmentsAndEvents(
+            List.of(
+                new EnrollmentEvaluation(enrollment, Set.of(), List.of()),
+                new EnrollmentEvaluation(event.getEnrollment(), Set.of(event), List.of())));
+    assertEquals(3, ruleEffects.size());
+    assertTrue(ruleEffects.get(0).isEnrollment());
+    assertEquals("UID-P1", ruleEffects.get(0).getTrackerObjectUid());
+    assertEquals(
+        List.of("UID-PS1"),
+        ruleEffects.subList(1, 3).stream()
+            .filter(RuleEffects::isEvent)
+            .map(RuleEffects::getTrackerObjectUid)
+            .toList());
+    for (RuleEffects effects : ruleEffects) {
+      RuleAction ruleAction = effects.getRuleEffects().get(0).ruleAction();
+      assertInstanceOf(RuleActionSendMessage.class, ruleAction);
+      assertEquals("PNT-1", ((RuleActionSendMessage) ruleAction).notification());
+    }
+  }
+
+  @Test
+  void testGetMetadataVersionChangesWhenOptionUpdated() {
+    dbmsManager.flushSession();
+    String version = programRuleStore.getMetadataVersion(programA);
+    assertEquals(version, programRuleStore.getMetadataVersion(programA));
+
+    jdbcTemplate.update(
+        "update optionvalue set lastupdated = now() + interval '1 day' where optionvalueid = ?",
+        option1.getId());
+    assertNotEquals(version, programRuleStore.getMetadataVersion(programA));
+  }
+
   @Test
   void testNotificationWhenUsingD2HasValueWithTEA() {
     ProgramRule programRule = setUpNotificationForD2HasValue();
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.tracker.export.trackedentity;
+
+import static org.hisp.dhis.utils.Assertions.assertContainsOnly;
+import static org.hisp.dhis.utils.Assertions.assertIsEmpty;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.common.OrganisationUnitSelectionMode;
+import org.hisp.dhis.common.QueryFilter;
+import org.hisp.dhis.common.QueryOperator;
+import org.hisp.dhis.common.ValueType;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.test.integration.IntegrationTestBase;
+import org.hisp.dhis.trackedentity.TrackedEntity;
+import org.hisp.dhis.trackedentity.TrackedEntityAttribute;
+import org.hisp.dhis.trackedentity.TrackedEntitySearchTableManager;
+import org.hisp.dhis.trackedentity.TrackedEntityType;
+import org.hisp.dhis.trackedentityattributevalue.TrackedEntityAttributeValue;
+import org.hisp.dhis.trackedentityattributevalue.TrackedEntityAttributeValueService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Tests searching tracked entities through the search table of their tracked entity type, and that
+ * the search table follows attribute values written outside of the tracker importer.
+ */
+class TrackedEntitySearchTableStoreTest extends IntegrationTestBase {
+  @Autowired private TrackedEntityStore trackedEntityStore;
+
+  @Autowired private TrackedEntitySearchTableManager searchTableManager;
+
+  @Autowired private TrackedEntityAttributeValueService attributeValueService;
+
+  @Autowired private IdentifiableObjectManager manager;
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  private OrganisationUnit orgUnit;
+
+  private TrackedEntityType trackedEntityType;
+
+  private TrackedEntityAttribute teaA;
+
+  private TrackedEntityAttribute teaB;
+
+  private TrackedEntity trackedEntityA;
+
+  private TrackedEntity trackedEntityB;
+
+  @Override
+  protected void setUpTest() throws Exception {
+    orgUnit = createOrganisationUnit('A');
+    manager.save(orgUnit, false);
+
+    teaA = createTrackedEntityAttribute('A', ValueType.TEXT);
+    manager.save(teaA, false);
+    teaB = createTrackedEntityAttribute('B', ValueType.TEXT);
+    manager.save(teaB, false);
+
+    trackedEntityType = createTrackedEntityType('A');
+    manager.save(trackedEntityType, false);
+
+    trackedEntityA = createTrackedEntity(orgUnit);
+    trackedEntityA.setTrackedEntityType(trackedEntityType);
+    manager.save(trackedEntityA, false);
+    trackedEntityB = createTrackedEntity(orgUnit);
+    trackedEntityB.setTrackedEntityType(trackedEntityType);
+    manager.save(trackedEntityB, false);
+
+    attributeValueService.addTrackedEntityAttributeValue(
+        new TrackedEntityAttributeValue(teaA, trackedEntityA, "Alpha"));
+    attributeValueService.addTrackedEntityAttributeValue(
+        new TrackedEntityAttributeValue(teaB, trackedEntityA, "Beta"));
+    attributeValueService.addTrackedEntityAttributeValue(
+        new TrackedEntityAttributeValue(teaA, trackedEntityB, "Gamma"));
+
+    searchTableManager.generateSearchTable(trackedEntityType, List.of(teaA, teaB));
+  }
+
+  @AfterEach
+  void dropSearchTable() {
+    searchTableManager.dropSearchTable(trackedEntityType.getId());
+  }
+
+  @Test
+  void shouldFindTrackedEntitiesThroughSearchTable() {
+    assertContainsOnly(
+        List.of(trackedEntityA.getId()),
+        trackedEntityStore.getTrackedEntityIds(
+            queryParams()
+                .filterBy(teaA, new QueryFilter(QueryOperator.EQ, "ALPHA"))
+                .filterBy(teaB, new QueryFilter(QueryOperator.LIKE, "et"))));
+    assertContainsOnly(
+        List.of(trackedEntityA.getId(), trackedEntityB.getId()),
+        trackedEntityStore.getTrackedEntityIds(
+            queryParams().filterBy(teaA, new QueryFilter(QueryOperator.LIKE, "a"))));
+  }
+
+  @Test
+  void shouldFindTrackedEntitiesByUpdatedAttributeValue() {
+    TrackedEntityAttributeValue value =
+        attributeValueService.getTrackedEntityAttributeValue(trackedEntityB, teaA);
+    value.setValue("Delta");
+    attributeValueService.updateTrackedEntityAttributeValue(value);
+
+    assertEquals("delta", getSearchTableValue(trackedEntityB, teaA));
+    assertContainsOnly(
+        List.of(trackedEntityB.getId()),
+        trackedEntityStore.getTrackedEntityIds(
+            queryParams().filterBy(teaA, new QueryFilter(QueryOperator.EQ, "delta"))));
+    assertIsEmpty(
+        trackedEntityStore.getTrackedEntityIds(
+            queryParams().filterBy(teaA, new QueryFilter(QueryOperator.EQ, "gamma"))));
+  }
+
+  @Test
+  void shouldNotFindTrackedEntitiesByDeletedAttributeValue() {
+    attributeValueService.deleteTrackedEntityAttributeValue(
+        attributeValueService.getTrackedEntityAttributeValue(trackedEntityA, teaB));
+
+    assertIsEmpty(
+        trackedEntityStore.getTrackedEntityIds(
+            queryParams().filterBy(teaB, new QueryFilter(QueryOperator.EQ, "beta"))));
+  }
+
+  @Test
+  void shouldFindTrackedEntitiesAddedAfterSearchTableGeneration() {
+    TrackedEntity trackedEntityC = createTrackedEntity(orgUnit);
+    trackedEntityC.setTrackedEntityType(trackedEntityType);
+    manager.save(trackedEntityC, false);
+    attributeValueService.addTrackedEntityAttributeValue(
+        new TrackedEntityAttributeValue(teaB, trackedEntityC, "Epsilon"));
+
+    assertContainsOnly(
+        List.of(trackedEntityC.getId()),
+        trackedEntityStore.getTrackedEntityIds(
+            queryParams().filterBy(teaB, new QueryFilter(QueryOperator.EQ, "epsilon"))));
+  }
+
+  private TrackedEntityQueryParams queryParams() {
+    return new TrackedEntityQueryParams()
+        .setTrackedEntityType(trackedEntityType)
+        .setOrgUnitMode(OrganisationUnitSelectionMode.ALL);
+  }
+
+  private String getSearchTableValue(TrackedEntity trackedEntity, TrackedEntityAttribute tea) {
+    return jdbcTemplate.queryForObject(
+        "select \""
+            + tea.getUid()
+            + "\" from "
+            + searchTableManager.getSearchTableName(trackedEntityType)
+            + " where trackedentityid = ?",
+        String.class,
+        trackedEntity.getId());
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2004-2022, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.webapi.controller;
+
+import static org.hisp.dhis.web.WebClientUtils.assertStatus;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.hisp.dhis.analytics.analyze.ExecutionPlanStore;
+import org.hisp.dhis.analytics.analyze.QuerySample;
+import org.hisp.dhis.jsontree.JsonList;
+import org.hisp.dhis.jsontree.JsonObject;
+import org.hisp.dhis.web.HttpStatus;
+import org.hisp.dhis.webapi.DhisControllerConvenienceTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/** Tests the {@link AnalyticsQueryProfileController} using (mocked) REST requests. */
+class AnalyticsQueryProfileControllerTest extends DhisControllerConvenienceTest {
+  @Autowired private ExecutionPlanStore executionPlanStore;
+
+  @BeforeEach
+  void setUp() {
+    executionPlanStore.removeQueryProfiles();
+
+    addSample("select * from analytics_2015 where dx = 'A'", 5);
+    addSample("select * from analytics_2015 where dx = 'B'", 10);
+    addSample("select * from analytics_2016 where ou = 'A'", 50);
+  }
+
+  @AfterEach
+  void tearDown() {
+    executionPlanStore.removeQueryProfiles();
+  }
+
+  @Test
+  void testGetSlowestQueryProfiles() {
+    JsonList<JsonObject> profiles =
+        GET("/analytics/queryProfiles/slowest").content().asList(JsonObject.class);
+
+    assertEquals(2, profiles.size());
+    assertEquals(
+        "select * from analytics_2016 where ou = ?", profiles.get(0).getString("shape").string());
+    assertEquals("analytics", profiles.get(0).getString("tableName").string());
+    assertEquals(50d, profiles.get(0).getNumber("maxSqlTimeInMillis").doubleValue());
+    assertEquals(3, profiles.get(0).getNumber("rows").intValue());
+    assertEquals(
+        "select * from analytics_2015 where dx = ?", profiles.get(1).getString("shape").string());
+  }
+
+  @Test
+  void testGetSlowestQueryProfiles_Max() {
+    JsonList<JsonObject> profiles =
+        GET("/analytics/queryProfiles/slowest?max=1").content().asList(JsonObject.class);
+
+    assertEquals(1, profiles.size());
+    assertEquals(
+        "select * from analytics_2016 where ou = ?", profiles.get(0).getString("shape").string());
+  }
+
+  @Test
+  void testGetMostFrequentQueryProfiles() {
+    JsonList<JsonObject> profiles =
+        GET("/analytics/queryProfiles/mostFrequent").content().asList(JsonObject.class);
+
+    assertEquals(2, profiles.size());
+    assertEquals(
+        "select * from analytics_2015 where dx = ?", profiles.get(0).getString("shape").string());
+    assertEquals(2, profiles.get(0).getNumber("count").intValue());
+    assertEquals(15d, profiles.get(0).getNumber("totalSqlTimeInMillis").doubleValue());
+    assertEquals(7.5d, profiles.get(0).getNumber("averageSqlTimeInMillis").doubleValue());
+    assertEquals(
+        "select * from analytics_2015 where dx = 'B'", profiles.get(0).getString("sql").string());
+  }
+
+  @Test
+  void testRemoveQueryProfiles() {
+    assertStatus(HttpStatus.NO_CONTENT, DELETE("/analytics/queryProfiles"));
+
+    assertTrue(
+        GET("/analytics/queryProfiles/slowest").content().asList(JsonObject.class).isEmpty());
+  }
+
+  @Test
+  void testQueryProfiles_RequiresMaintenanceAuthority() {
+    switchToNewUser("someoneWithNoAuthority");
+
+    assertStatus(HttpStatus.FORBIDDEN, GET("/analytics/queryProfiles/slowest"));
+    assertStatus(HttpStatus.FORBIDDEN, GET("/analytics/queryProfiles/mostFrequent"));
+    assertStatus(HttpStatus.FORBIDDEN, DELETE("/analytics/queryProfiles"));
+
+    switchToNewUser("maintainer", "F_PERFORM_MAINTENANCE");
+
+    assertEquals(
+        2, GET("/analytics/queryProfiles/slowest").content().asList(JsonObject.class).size());
+  }
+
+  private void addSample(String sql, double sqlTimeInMillis) {
+    executionPlanStore.addQueryProfile(
+        new QuerySample(
+            sql, "analytics", List.of("analytics_2015"), "Monthly", 3, sqlTimeInMillis, 1));
+  }
+}
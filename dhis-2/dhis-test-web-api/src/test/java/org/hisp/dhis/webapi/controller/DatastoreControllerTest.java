@@ -549,6 +549,22 @@ class DatastoreControllerTest extends DhisControllerConvenienceTest {
             .getMessage());
   }
 
+  @Test
+  void testGetAggregates_IllegalGroupPath() {
+    assertStatus(HttpStatus.CREATED, POST("/dataStore/pets/cat", "{'name': 'Miao'}"));
+    assertEquals(
+        "Not a valid path: `name..first`",
+        GET("/dataStore/pets?groupBy=name..first").error(HttpStatus.CONFLICT).getMessage());
+  }
+
+  @Test
+  void testAddIndex_RequiresMaintenanceAuthority() {
+    assertStatus(HttpStatus.CREATED, POST("/dataStore/pets/cat", "{'name': 'Miao'}"));
+    switchToNewUser("someoneWithNoAuthority");
+    assertStatus(HttpStatus.FORBIDDEN, PUT("/dataStore/pets/indexes/name"));
+    assertStatus(HttpStatus.FORBIDDEN, DELETE("/dataStore/pets/indexes/name"));
+  }
+
   private void setUpNamespaceProtection(
       String namespace, ProtectionType readWrite, String... authorities) {
     service.addProtection(
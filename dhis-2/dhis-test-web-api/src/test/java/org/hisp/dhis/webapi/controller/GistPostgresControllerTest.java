@@ -30,14 +30,21 @@ package org.hisp.dhis.webapi.controller;
 import static org.hisp.dhis.web.WebClient.Body;
 import static org.hisp.dhis.web.WebClientUtils.assertStatus;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
 import org.hisp.dhis.jsontree.JsonArray;
 import org.hisp.dhis.jsontree.JsonObject;
+import org.hisp.dhis.jsontree.JsonValue;
 import org.hisp.dhis.user.User;
 import org.hisp.dhis.web.HttpStatus;
 import org.hisp.dhis.webapi.DhisControllerIntegrationTest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 
 /**
  * Test for the Gist API that need a real database because they use DB functions that are not
@@ -46,6 +53,8 @@ import org.junit.jupiter.api.Test;
  * @author Jan Bernitt
  */
 class GistPostgresControllerTest extends DhisControllerIntegrationTest {
+  @Autowired private ObjectMapper jsonMapper;
+
   private String orgUnitId;
 
   private User userA;
@@ -93,4 +102,123 @@ class GistPostgresControllerTest extends DhisControllerIntegrationTest {
     assertEquals("Surnameadmin", user0.getString("surname").string());
     assertEquals(getSuperuserUid(), user0.getString("id").string());
   }
+
+  @Test
+  void testNativeSql_SameAsHql() {
+    String fields = "id,name,openingDate,level,parent,children::size,dataSets::ids,href";
+    JsonObject hql = GET("/organisationUnits/gist?total=true&fields=" + fields).content();
+    JsonObject sql =
+        GET("/organisationUnits/gist?total=true&nativeSql=true&fields=" + fields).content();
+
+    assertEquals(1, sql.getObject("pager").getNumber("total").intValue());
+    JsonObject hqlUnit = hql.getArray("organisationUnits").getObject(0);
+    JsonObject sqlUnit = sql.getArray("organisationUnits").getObject(0);
+    assertEquals(hqlUnit.names(), sqlUnit.names());
+    assertEquals(orgUnitId, sqlUnit.getString("id").string());
+    assertEquals("unitA", sqlUnit.getString("name").string());
+    assertEquals(
+        hqlUnit.getString("openingDate").string(), sqlUnit.getString("openingDate").string());
+    assertEquals(
+        hqlUnit.getArray("dataSets").stringValues(), sqlUnit.getArray("dataSets").stringValues());
+    assertEquals(hqlUnit.getString("href").string(), sqlUnit.getString("href").string());
+    assertEquals(
+        hqlUnit.getObject("apiEndpoints").names(), sqlUnit.getObject("apiEndpoints").names());
+  }
+
+  @Test
+  void testNativeSql_Filter() {
+    JsonArray units =
+        GET("/organisationUnits/gist?headless=true&nativeSql=true&fields=name&filter=name:ilike:unit")
+            .content();
+    assertEquals(List.of("unitA"), units.stringValues());
+    units =
+        GET("/organisationUnits/gist?headless=true&nativeSql=true&fields=name&filter=level:gt:1")
+            .content();
+    assertEquals(0, units.size());
+  }
+
+  @Test
+  void testNativeSql_SameAsHql_Filters() {
+    createChildUnits();
+    String fields = "id,name,level";
+    assertSameAsHql("/organisationUnits/gist?fields=" + fields + "&filter=level:eq:2");
+    assertSameAsHql("/organisationUnits/gist?fields=" + fields + "&filter=name:in:[unitA,unitC]");
+    assertSameAsHql(
+        "/organisationUnits/gist?fields="
+            + fields
+            + "&filter=name:startsWith:unit&filter=level:le:1");
+    assertSameAsHql(
+        "/organisationUnits/gist?fields="
+            + fields
+            + "&filter=name:eq:unitB&filter=level:eq:1&rootJunction=OR");
+    assertSameAsHql("/organisationUnits/gist?fields=" + fields + "&filter=children:empty");
+  }
+
+  @Test
+  void testNativeSql_SameAsHql_OrderAndPaging() {
+    createChildUnits();
+    String url = "/organisationUnits/gist?fields=id,name&order=name:desc&pageSize=2&total=true";
+    assertSameAsHql(url);
+    assertSameAsHql(url + "&page=2");
+    assertSameAsHql(url + "&page=3");
+    assertSameAsHql("/organisationUnits/gist?fields=name&order=level,name:desc&headless=true");
+  }
+
+  @Test
+  void testNativeSql_SameAsHql_NestedFields() {
+    createChildUnits();
+    assertSameAsHql("/organisationUnits/gist?fields=id,parent.name,parent.code&filter=level:eq:2");
+    assertSameAsHql("/organisationUnits/gist?fields=id,parent::rename(p)&filter=level:eq:2");
+  }
+
+  @Test
+  void testNativeSql_SameAsHql_SkipNullOrEmpty() {
+    createChildUnits();
+    // unitB and unitC have no code, no children and no data sets
+    assertSameAsHql(
+        "/organisationUnits/gist?fields=id,code,parent,children::ids,dataSets::ids,href&order=name");
+    JsonArray units =
+        GET("/organisationUnits/gist?headless=true&nativeSql=true&fields=id,code,children::ids&filter=name:eq:unitB")
+            .content();
+    assertEquals(List.of("id"), units.getObject(0).names());
+  }
+
+  @Test
+  void testNativeSql_UnsupportedFallsBackToHql() {
+    String url = "/organisationUnits/gist?fields=id,access";
+    JsonNode description = readTree(GET(url + "&nativeSql=true&describe=true").content());
+    assertEquals("computed field access", description.path("sql.unsupported").asText());
+    assertEquals(readTree(GET(url).content()), readTree(GET(url + "&nativeSql=true").content()));
+  }
+
+  private void createChildUnits() {
+    for (String name : List.of("unitB", "unitC")) {
+      assertStatus(
+          HttpStatus.CREATED,
+          POST(
+              "/organisationUnits/",
+              "{'name':'%s', 'shortName':'%s', 'openingDate':'2021-01-01', 'parent':{'id':'%s'}}"
+                  .formatted(name, name, orgUnitId)));
+    }
+  }
+
+  /**
+   * Asserts that the native SQL query is used for the gist and that its response is the same as the
+   * one of the HQL query.
+   */
+  private void assertSameAsHql(String url) {
+    JsonNode description = readTree(GET(url + "&nativeSql=true&describe=true").content());
+    assertTrue(description.has("sql.fetch"), description.path("sql.unsupported").asText());
+    JsonNode hql = readTree(GET(url).content());
+    JsonNode sql = readTree(GET(url + "&nativeSql=true").content());
+    assertEquals(hql, sql, url);
+  }
+
+  private JsonNode readTree(JsonValue value) {
+    try {
+      return jsonMapper.readTree(value.node().getDeclaration());
+    } catch (JsonProcessingException ex) {
+      throw new IllegalArgumentException(ex);
+    }
+  }
 }
@@ -27,7 +27,11 @@
  */
 package org.hisp.dhis.webapi.controller;
 
+import static org.hisp.dhis.web.WebClient.Header;
 import static org.hisp.dhis.web.WebClientUtils.assertStatus;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.hisp.dhis.web.HttpStatus;
 import org.hisp.dhis.webapi.DhisControllerConvenienceTest;
@@ -125,6 +129,22 @@ class MessageConversationControllerTest extends DhisControllerConvenienceTest {
             .content(HttpStatus.CONFLICT));
   }
 
+  @Test
+  void testGetUnreadCount() {
+    assertStatus(
+        HttpStatus.CREATED,
+        POST(
+            "/messageConversations/",
+            "{'subject':'Subject','text':'Text','users':[{'id':'" + getSuperuserUid() + "'}]}"));
+    HttpResponse response = GET("/messageConversations/unreadCount");
+    assertTrue(response.content(HttpStatus.OK).has("unreadMessageConversations"));
+    String etag = response.header("ETag");
+    assertNotNull(etag);
+    assertEquals(
+        HttpStatus.NOT_MODIFIED,
+        GET("/messageConversations/unreadCount", Header("If-None-Match", etag)).status());
+  }
+
   @Test
   void testPostMessageConversationFeedback() {
     assertWebMessage(
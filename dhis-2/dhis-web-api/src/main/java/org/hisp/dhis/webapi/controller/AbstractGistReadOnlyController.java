@@ -31,15 +31,19 @@ import static java.util.Arrays.asList;
 import static org.springframework.http.CacheControl.noCache;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.List;
 import java.util.Locale;
+import java.util.Optional;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import lombok.Value;
@@ -51,6 +55,7 @@ import org.hisp.dhis.common.UID;
 import org.hisp.dhis.feedback.BadRequestException;
 import org.hisp.dhis.feedback.NotFoundException;
 import org.hisp.dhis.gist.GistAutoType;
+import org.hisp.dhis.gist.GistJsonPage;
 import org.hisp.dhis.gist.GistPager;
 import org.hisp.dhis.gist.GistParams;
 import org.hisp.dhis.gist.GistQuery;
@@ -236,9 +241,14 @@ public abstract class AbstractGistReadOnlyController<T extends PrimaryKeyObject>
       return gistDescribeToJsonObjectResponse(query);
     }
     query = gistService.plan(query);
-    List<?> elements = gistService.gist(query);
+    Optional<GistJsonPage> page =
+        query.isNativeSql() ? gistService.gistAsJson(query) : Optional.empty();
     JsonNode body =
-        new JsonBuilder(jsonMapper).skipNullOrEmpty().toArray(query.getFieldNames(), elements);
+        page.isPresent()
+            ? readJsonArray(page.get())
+            : new JsonBuilder(jsonMapper)
+                .skipNullOrEmpty()
+                .toArray(query.getFieldNames(), gistService.gist(query));
     if (body.isEmpty()) {
       throw new NotFoundException(getEntityClass(), uid);
     }
@@ -251,6 +261,12 @@ public abstract class AbstractGistReadOnlyController<T extends PrimaryKeyObject>
       return gistDescribeToJsonObjectResponse(query);
     }
     query = gistService.plan(query);
+    if (query.isNativeSql()) {
+      Optional<GistJsonPage> page = gistService.gistAsJson(query);
+      if (page.isPresent()) {
+        return gistToJsonArrayResponse(request, params, query, schema, page.get());
+      }
+    }
     List<?> elements = gistService.gist(query);
     JsonBuilder responseBuilder = new JsonBuilder(jsonMapper);
     JsonNode body = responseBuilder.skipNullOrEmpty().toArray(query.getFieldNames(), elements);
@@ -266,6 +282,39 @@ public abstract class AbstractGistReadOnlyController<T extends PrimaryKeyObject>
     return ResponseEntity.ok().cacheControl(noCache().cachePrivate()).body(body);
   }
 
+  /**
+   * The elements already are JSON as computed by the database so they are written as raw value
+   * without parsing them again.
+   */
+  private ResponseEntity<JsonNode> gistToJsonArrayResponse(
+      HttpServletRequest request,
+      GistParams params,
+      GistQuery query,
+      Schema schema,
+      GistJsonPage page) {
+    RawValue elements = new RawValue(page.getElements());
+    if (query.isHeadless()) {
+      return ResponseEntity.ok()
+          .cacheControl(noCache().cachePrivate())
+          .body(jsonMapper.getNodeFactory().rawValueNode(elements));
+    }
+    String property =
+        params.getPageListName() == null ? schema.getPlural() : params.getPageListName();
+    ObjectNode body = jsonMapper.createObjectNode();
+    body.set(
+        "pager", jsonMapper.valueToTree(gistService.pager(query, page, request.getParameterMap())));
+    body.putRawValue(property, elements);
+    return ResponseEntity.ok().cacheControl(noCache().cachePrivate()).body(body);
+  }
+
+  private JsonNode readJsonArray(GistJsonPage page) {
+    try {
+      return jsonMapper.readTree(page.getElements());
+    } catch (JsonProcessingException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
   private ResponseEntity<JsonNode> gistDescribeToJsonObjectResponse(GistQuery query) {
     return ResponseEntity.ok()
         .cacheControl(noCache().cachePrivate())
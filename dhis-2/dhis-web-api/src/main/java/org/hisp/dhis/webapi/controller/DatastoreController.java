@@ -43,6 +43,7 @@ import org.apache.commons.beanutils.BeanUtils;
 import org.hisp.dhis.common.DhisApiVersion;
 import org.hisp.dhis.common.OpenApi;
 import org.hisp.dhis.common.OpenApi.Response.Status;
+import org.hisp.dhis.datastore.DatastoreAggregate;
 import org.hisp.dhis.datastore.DatastoreEntry;
 import org.hisp.dhis.datastore.DatastoreParams;
 import org.hisp.dhis.datastore.DatastoreQuery;
@@ -56,6 +57,7 @@ import org.hisp.dhis.user.CurrentUser;
 import org.hisp.dhis.user.User;
 import org.hisp.dhis.webapi.mvc.annotation.ApiVersion;
 import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -148,6 +150,53 @@ public class DatastoreController extends AbstractDatastoreController {
     writeEntries(response, query, (q, entries) -> service.getEntries(q, entries::test));
   }
 
+  /**
+   * Returns the number of entries (and optionally the sum of a numeric value) per distinct value at
+   * the {@code groupBy} path for the entries matching the filters.
+   */
+  @GetMapping(value = "/{namespace}", params = "groupBy", produces = APPLICATION_JSON_VALUE)
+  public @ResponseBody List<DatastoreAggregate> getAggregates(
+      @PathVariable String namespace,
+      @RequestParam String groupBy,
+      @RequestParam(required = false) String sum,
+      DatastoreParams params,
+      HttpServletResponse response)
+      throws ConflictException {
+    setNoStore(response);
+
+    DatastoreQuery query = DatastoreQuery.builder().namespace(namespace).build().with(params);
+    return service.getAggregates(query, groupBy, sum);
+  }
+
+  /** Returns the paths within the entry values of a namespace that are indexed. */
+  @GetMapping(value = "/{namespace}/indexes", produces = APPLICATION_JSON_VALUE)
+  public @ResponseBody List<String> getIndexedPaths(
+      @PathVariable String namespace, HttpServletResponse response) {
+    setNoStore(response);
+
+    return service.getIndexedPaths(namespace);
+  }
+
+  /** Indexes the values at the given path for all entries in the namespace. */
+  @ResponseBody
+  @PreAuthorize("hasRole('ALL') or hasRole('F_PERFORM_MAINTENANCE')")
+  @PutMapping(value = "/{namespace}/indexes/{path}", produces = APPLICATION_JSON_VALUE)
+  public WebMessage addIndex(@PathVariable String namespace, @PathVariable String path) {
+    service.addIndex(namespace, path);
+
+    return ok(String.format("Path '%s' indexed in namespace '%s'", path, namespace));
+  }
+
+  /** Removes the index of the given path in the namespace. */
+  @ResponseBody
+  @PreAuthorize("hasRole('ALL') or hasRole('F_PERFORM_MAINTENANCE')")
+  @DeleteMapping(value = "/{namespace}/indexes/{path}", produces = APPLICATION_JSON_VALUE)
+  public WebMessage removeIndex(@PathVariable String namespace, @PathVariable String path) {
+    service.removeIndex(namespace, path);
+
+    return ok(String.format("Index of path '%s' removed from namespace '%s'", path, namespace));
+  }
+
   /** Deletes all keys with the given namespace. */
   @ResponseBody
   @DeleteMapping("/{namespace}")
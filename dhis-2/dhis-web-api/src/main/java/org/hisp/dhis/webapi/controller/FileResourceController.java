@@ -27,7 +27,6 @@
  */
 package org.hisp.dhis.webapi.controller;
 
-import static org.hisp.dhis.dxf2.webmessage.WebMessageUtils.error;
 import static org.hisp.dhis.webapi.utils.FileResourceUtils.resizeToDefaultIconSize;
 import static org.hisp.dhis.webapi.utils.FileResourceUtils.validateCustomIconFile;
 
@@ -44,7 +43,6 @@ import org.hisp.dhis.common.OpenApi;
 import org.hisp.dhis.dxf2.webmessage.WebMessage;
 import org.hisp.dhis.dxf2.webmessage.WebMessageException;
 import org.hisp.dhis.dxf2.webmessage.responses.FileResourceWebMessageResponse;
-import org.hisp.dhis.external.conf.ConfigurationKey;
 import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.feedback.ForbiddenException;
 import org.hisp.dhis.feedback.NotFoundException;
@@ -59,8 +57,6 @@ import org.hisp.dhis.user.CurrentUser;
 import org.hisp.dhis.user.User;
 import org.hisp.dhis.webapi.mvc.annotation.ApiVersion;
 import org.hisp.dhis.webapi.utils.FileResourceUtils;
-import org.hisp.dhis.webapi.utils.HeaderUtils;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -120,6 +116,7 @@ public class FileResourceController extends AbstractFullReadOnlyController<FileR
   @GetMapping(value = "/{uid}/data")
   public void getFileResourceData(
       @PathVariable String uid,
+      HttpServletRequest request,
       HttpServletResponse response,
       @RequestParam(required = false) ImageFileDimension dimension,
       @CurrentUser User currentUser)
@@ -140,24 +137,12 @@ public class FileResourceController extends AbstractFullReadOnlyController<FileR
               + "' or this fileResource is not available from this endpoint");
     }
 
-    response.setContentType(fileResource.getContentType());
-    response.setHeader(
-        HttpHeaders.CONTENT_LENGTH,
-        String.valueOf(fileResourceService.getFileResourceContentLength(fileResource)));
-    response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "filename=" + fileResource.getName());
-    HeaderUtils.setSecurityHeaders(
-        response, dhisConfig.getProperty(ConfigurationKey.CSP_HEADER_VALUE));
-
-    try {
-      fileResourceService.copyFileResourceContent(fileResource, response.getOutputStream());
-    } catch (IOException e) {
-      log.error("Could not retrieve file.", e);
-      throw new WebMessageException(
-          error(
-              "Failed fetching the file from storage",
-              "There was an exception when trying to fetch the file from the storage backend. "
-                  + "Depending on the provider the root cause could be network or file system related."));
-    }
+    fileResourceUtils.writeFileResourceContent(
+        request,
+        response,
+        fileResource,
+        MoreObjects.firstNonNull(dimension, ImageFileDimension.ORIGINAL),
+        dhisConfig);
   }
 
   @PostMapping
@@ -85,6 +85,7 @@ import org.hisp.dhis.user.UserGroupService;
 import org.hisp.dhis.user.UserService;
 import org.hisp.dhis.webapi.utils.ContextUtils;
 import org.hisp.dhis.webapi.utils.FileResourceUtils;
+import org.hisp.dhis.webapi.utils.ResponseEntityUtils;
 import org.hisp.dhis.webapi.webdomain.MessageConversation;
 import org.hisp.dhis.webapi.webdomain.WebMetadata;
 import org.hisp.dhis.webapi.webdomain.WebOptions;
@@ -460,6 +461,21 @@ public class MessageConversationController
     return created("Feedback created");
   }
 
+  // --------------------------------------------------------------------------
+  // GET unread count
+  // --------------------------------------------------------------------------
+
+  @GetMapping(value = "/unreadCount", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<Map<String, Long>> getUnreadMessageConversationCount(
+      @CurrentUser User currentUser, HttpServletRequest request) {
+    long count = messageService.getUnreadMessageConversationCount(currentUser);
+
+    return ResponseEntityUtils.withEtagCaching(
+        currentUser.getUid() + "-" + count,
+        request,
+        () -> Map.of("unreadMessageConversations", count));
+  }
+
   // --------------------------------------------------------------------------
   // Assign priority
   // --------------------------------------------------------------------------
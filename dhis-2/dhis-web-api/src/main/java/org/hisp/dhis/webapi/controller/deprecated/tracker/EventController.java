@@ -28,7 +28,6 @@
 package org.hisp.dhis.webapi.controller.deprecated.tracker;
 
 import static org.hisp.dhis.dxf2.webmessage.WebMessageUtils.conflict;
-import static org.hisp.dhis.dxf2.webmessage.WebMessageUtils.error;
 import static org.hisp.dhis.dxf2.webmessage.WebMessageUtils.importSummaries;
 import static org.hisp.dhis.dxf2.webmessage.WebMessageUtils.importSummary;
 import static org.hisp.dhis.dxf2.webmessage.WebMessageUtils.jobConfigurationReport;
@@ -98,7 +97,6 @@ import org.hisp.dhis.dxf2.webmessage.WebMessage;
 import org.hisp.dhis.dxf2.webmessage.WebMessageException;
 import org.hisp.dhis.dxf2.webmessage.responses.FileResourceWebMessageResponse;
 import org.hisp.dhis.event.EventStatus;
-import org.hisp.dhis.external.conf.ConfigurationKey;
 import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.feedback.ForbiddenException;
 import org.hisp.dhis.fieldfilter.FieldFilterParams;
@@ -128,10 +126,8 @@ import org.hisp.dhis.webapi.mvc.annotation.ApiVersion;
 import org.hisp.dhis.webapi.service.ContextService;
 import org.hisp.dhis.webapi.utils.ContextUtils;
 import org.hisp.dhis.webapi.utils.FileResourceUtils;
-import org.hisp.dhis.webapi.utils.HeaderUtils;
 import org.hisp.dhis.webapi.webdomain.WebOptions;
 import org.locationtech.jts.io.ParseException;
-import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -184,6 +180,8 @@ public class EventController {
 
   private final FileResourceService fileResourceService;
 
+  private final FileResourceUtils fileResourceUtils;
+
   private final FieldFilterService fieldFilterService;
 
   private final ContextService contextService;
@@ -952,23 +950,13 @@ public class EventController {
               .setResponse(new FileResourceWebMessageResponse(fileResource)));
     }
 
-    FileResourceUtils.setImageFileDimensions(
-        fileResource, MoreObjects.firstNonNull(dimension, ImageFileDimension.ORIGINAL));
+    ImageFileDimension imageDimension =
+        MoreObjects.firstNonNull(dimension, ImageFileDimension.ORIGINAL);
 
-    response.setContentType(fileResource.getContentType());
-    response.setContentLengthLong(fileResource.getContentLength());
-    response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "filename=" + fileResource.getName());
-    HeaderUtils.setSecurityHeaders(
-        response, dhisConfig.getProperty(ConfigurationKey.CSP_HEADER_VALUE));
+    FileResourceUtils.setImageFileDimensions(fileResource, imageDimension);
 
-    try {
-      fileResourceService.copyFileResourceContent(fileResource, response.getOutputStream());
-    } catch (IOException e) {
-      throw new WebMessageException(
-          error(
-              "Failed fetching the file from storage",
-              "There was an exception when trying to fetch the file from the storage backend, could be network or filesystem related"));
-    }
+    fileResourceUtils.writeFileResourceContent(
+        request, response, fileResource, imageDimension, dhisConfig);
   }
 
   // -------------------------------------------------------------------------
@@ -46,6 +46,7 @@ import org.hisp.dhis.sms.command.SMSCommand;
 import org.hisp.dhis.sms.command.SMSCommandService;
 import org.hisp.dhis.sms.incoming.IncomingSms;
 import org.hisp.dhis.sms.incoming.IncomingSmsService;
+import org.hisp.dhis.sms.incoming.SmsMessageStatus;
 import org.hisp.dhis.sms.parse.ParserType;
 import org.hisp.dhis.system.util.SmsUtils;
 import org.hisp.dhis.user.CurrentUser;
@@ -130,7 +131,10 @@ public class SmsInboundController extends AbstractCrudController<IncomingSms> {
     List<IncomingSms> importMessageList = incomingSMSService.getAllUnparsedMessages();
 
     for (IncomingSms sms : importMessageList) {
-      incomingSMSService.update(sms);
+      if (sms.getStatus() != SmsMessageStatus.PROCESSING) {
+        sms.setStatus(SmsMessageStatus.INCOMING);
+        incomingSMSService.update(sms);
+      }
     }
 
     return ok("Import successful");
@@ -45,6 +45,7 @@ import java.nio.file.Files;
 import java.util.List;
 import java.util.Objects;
 import javax.imageio.ImageIO;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.fileupload.FileItem;
@@ -63,9 +64,11 @@ import org.hisp.dhis.fileresource.ImageFileDimension;
 import org.imgscalr.Scalr;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.stereotype.Component;
 import org.springframework.util.InvalidMimeTypeException;
 import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.multipart.commons.CommonsMultipartFile;
 
@@ -166,6 +169,115 @@ public class FileResourceUtils {
     }
   }
 
+  /**
+   * Writes the content of the given file resource to the response. The content hash is used as
+   * ETag, so that conditional requests for unchanged content are answered with 304 Not Modified. A
+   * single byte range can be requested through the Range header, which is answered with 206 Partial
+   * Content, and only the requested range is read from the file store.
+   *
+   * @param request the {@link HttpServletRequest}.
+   * @param response the {@link HttpServletResponse}.
+   * @param fileResource the {@link FileResource}, with the storage key of the requested image
+   *     dimension if applicable.
+   * @param dimension the requested {@link ImageFileDimension}.
+   * @param dhisConfig the {@link DhisConfigurationProvider}.
+   * @throws WebMessageException if the content could not be fetched from the file store.
+   */
+  public void writeFileResourceContent(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      FileResource fileResource,
+      ImageFileDimension dimension,
+      DhisConfigurationProvider dhisConfig)
+      throws WebMessageException {
+    String etag = getETag(fileResource, dimension);
+
+    if (etag != null && new ServletWebRequest(request, response).checkNotModified(etag)) {
+      return;
+    }
+
+    long contentLength = fileResourceService.getFileResourceContentLength(fileResource);
+
+    response.setContentType(fileResource.getContentType());
+    response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "filename=" + fileResource.getName());
+    response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+    HeaderUtils.setSecurityHeaders(response, dhisConfig.getProperty(CSP_HEADER_VALUE));
+
+    HttpRange range = getRange(request, etag);
+
+    try {
+      if (range == null) {
+        response.setContentLengthLong(contentLength);
+        fileResourceService.copyFileResourceContent(fileResource, response.getOutputStream());
+        return;
+      }
+
+      long start = range.getRangeStart(contentLength);
+      long end = range.getRangeEnd(contentLength);
+
+      if (start >= contentLength || start > end) {
+        response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + contentLength);
+        return;
+      }
+
+      response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+      response.setHeader(
+          HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + contentLength);
+      response.setContentLengthLong(end - start + 1);
+      fileResourceService.copyFileResourceContent(
+          fileResource, response.getOutputStream(), start, end - start + 1);
+    } catch (IOException e) {
+      throw new WebMessageException(
+          error(
+              "Failed fetching the file from storage",
+              "There was an exception when trying to fetch the file from the storage backend. "
+                  + "Depending on the provider the root cause could be network or file system related."));
+    }
+  }
+
+  /**
+   * Returns the ETag for the content of the given file resource, based on the content MD5 and the
+   * image dimension for resized images.
+   */
+  static String getETag(FileResource fileResource, ImageFileDimension dimension) {
+    if (fileResource.getContentMd5() == null) {
+      return null;
+    }
+
+    boolean resized =
+        dimension != ImageFileDimension.ORIGINAL
+            && fileResource.getStorageKey() != null
+            && fileResource.getStorageKey().endsWith(dimension.getDimension());
+
+    return "\""
+        + fileResource.getContentMd5()
+        + (resized ? "-" + dimension.getDimension() : "")
+        + "\"";
+  }
+
+  /**
+   * Returns the single byte range requested by the Range header, or null if the full content should
+   * be returned. Multiple ranges, malformed ranges and ranges conditional on a different ETag
+   * through If-Range result in the full content.
+   */
+  static HttpRange getRange(HttpServletRequest request, String etag) {
+    String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+    String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+
+    if (rangeHeader == null || (ifRange != null && !ifRange.equals(etag))) {
+      return null;
+    }
+
+    try {
+      List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+
+      return ranges.size() == 1 ? ranges.get(0) : null;
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
   public FileResource saveFileResource(MultipartFile file, FileResourceDomain domain)
       throws WebMessageException, IOException {
     return saveFileResource(null, file, domain);
@@ -28,7 +28,13 @@
 package org.hisp.dhis.webapi.utils;
 
 import static org.hisp.dhis.utils.Assertions.assertContains;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.awt.image.BufferedImage;
@@ -36,11 +42,20 @@ import java.io.IOException;
 import java.io.InputStream;
 import javax.imageio.ImageIO;
 import org.hisp.dhis.common.IllegalQueryException;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.fileresource.FileResource;
+import org.hisp.dhis.fileresource.FileResourceDomain;
+import org.hisp.dhis.fileresource.FileResourceService;
+import org.hisp.dhis.fileresource.ImageFileDimension;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -49,6 +64,12 @@ class FileResourceUtilsTest {
 
   @Mock private MultipartFile multipartFile;
 
+  @Mock private FileResourceService fileResourceService;
+
+  @Mock private DhisConfigurationProvider dhisConfig;
+
+  @InjectMocks private FileResourceUtils fileResourceUtils;
+
   @Test
   void shouldWorkWhenCustomIconIsValid() {
     when(multipartFile.getOriginalFilename()).thenReturn("OU_profile_image.png");
@@ -92,4 +113,90 @@ class FileResourceUtilsTest {
     Assertions.assertEquals(48, bufferedImage.getWidth());
     Assertions.assertEquals(48, bufferedImage.getHeight());
   }
+
+  @Test
+  void shouldWriteContentWithETag() throws Exception {
+    FileResource fileResource = createFileResource();
+    when(fileResourceService.getFileResourceContentLength(fileResource)).thenReturn(10L);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    fileResourceUtils.writeFileResourceContent(
+        new MockHttpServletRequest(),
+        response,
+        fileResource,
+        ImageFileDimension.ORIGINAL,
+        dhisConfig);
+
+    assertEquals(200, response.getStatus());
+    assertEquals("\"md5hash\"", response.getHeader(HttpHeaders.ETAG));
+    assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+    assertEquals(10, response.getContentLengthLong());
+    verify(fileResourceService).copyFileResourceContent(eq(fileResource), any());
+  }
+
+  @Test
+  void shouldWriteNotModifiedWhenETagMatches() throws Exception {
+    FileResource fileResource = createFileResource();
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/fileResources");
+    request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"md5hash\"");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    fileResourceUtils.writeFileResourceContent(
+        request, response, fileResource, ImageFileDimension.ORIGINAL, dhisConfig);
+
+    assertEquals(304, response.getStatus());
+    verify(fileResourceService, never()).copyFileResourceContent(eq(fileResource), any());
+  }
+
+  @Test
+  void shouldWriteRequestedRange() throws Exception {
+    FileResource fileResource = createFileResource();
+    when(fileResourceService.getFileResourceContentLength(fileResource)).thenReturn(10L);
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/fileResources");
+    request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    fileResourceUtils.writeFileResourceContent(
+        request, response, fileResource, ImageFileDimension.ORIGINAL, dhisConfig);
+
+    assertEquals(206, response.getStatus());
+    assertEquals("bytes 2-5/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    assertEquals(4, response.getContentLengthLong());
+    verify(fileResourceService).copyFileResourceContent(eq(fileResource), any(), eq(2L), eq(4L));
+  }
+
+  @Test
+  void shouldRejectUnsatisfiableRange() throws Exception {
+    FileResource fileResource = createFileResource();
+    when(fileResourceService.getFileResourceContentLength(fileResource)).thenReturn(10L);
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/fileResources");
+    request.addHeader(HttpHeaders.RANGE, "bytes=20-");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    fileResourceUtils.writeFileResourceContent(
+        request, response, fileResource, ImageFileDimension.ORIGINAL, dhisConfig);
+
+    assertEquals(416, response.getStatus());
+    assertEquals("bytes */10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    verify(fileResourceService, never())
+        .copyFileResourceContent(eq(fileResource), any(), anyLong(), anyLong());
+  }
+
+  @Test
+  void shouldIncludeDimensionInETagOfResizedImage() {
+    FileResource fileResource = createFileResource();
+    fileResource.setStorageKey("keysmall");
+
+    assertEquals(
+        "\"md5hash-small\"", FileResourceUtils.getETag(fileResource, ImageFileDimension.SMALL));
+    assertEquals("\"md5hash\"", FileResourceUtils.getETag(fileResource, ImageFileDimension.MEDIUM));
+  }
+
+  private FileResource createFileResource() {
+    FileResource fileResource =
+        new FileResource("test.pdf", "application/pdf", 10, "md5hash", FileResourceDomain.DOCUMENT);
+    fileResource.setStorageKey("key");
+
+    return fileResource;
+  }
 }